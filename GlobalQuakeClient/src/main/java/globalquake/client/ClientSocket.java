@@ -3,6 +3,7 @@ package globalquake.client;
 import globalquake.core.GlobalQuake;
 import globalquake.core.exception.RuntimeApplicationException;
 import globalquake.events.specific.SocketReconnectEvent;
+import globalquake.utils.VirtualThreads;
 import gqserver.api.GQApi;
 import gqserver.api.Packet;
 import gqserver.api.data.system.ServerClientConfig;
@@ -56,7 +57,7 @@ public class ClientSocket {
 
             handshake();
 
-            inputService = Executors.newSingleThreadExecutor();
+            inputService = VirtualThreads.newSingleThreadExecutor("Client Socket Reader");
             inputService.submit(this::runReader);
             heartbeatService = Executors.newSingleThreadScheduledExecutor();
             heartbeatService.scheduleAtFixedRate(this::sendHeartbeat, 0, 10, TimeUnit.SECONDS);
@@ -97,6 +97,7 @@ public class GlobalStationManagerClient extends GlobalStationManager {
         }
 
         getStations().addAll(list);
+        indexStations();
     }
 
     private void resetIndexing(ClientSocket socket, UUID uuid) {
@@ -112,5 +113,6 @@ public class GlobalStationManagerClient extends GlobalStationManager {
         super.indexing = uuid;
         stations.clear();
         stationsIdMap.clear();
+        indexStations();
     }
 }
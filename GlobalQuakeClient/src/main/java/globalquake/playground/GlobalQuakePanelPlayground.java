@@ -68,6 +68,7 @@ public class GlobalQuakePanelPlayground extends GlobalQuakePanel {
                     }
 
                     GlobalQuake.instance.getStationManager().getStations().clear();
+                    GlobalQuake.instance.getStationManager().indexStations();
 
                     GlobalQuake.instance.clear();
                 }
@@ -54,7 +54,7 @@ public class GlobalStationManagerPlayground extends GlobalStationManager {
         this.stations.forEach(AbstractStation::clear);
         this.stations.clear();
         this.stations.addAll(list);
-        createListOfClosestStations(this.stations);
+        createListOfClosestStations(indexStations());
     }
 
     private void newStations() {
@@ -233,25 +233,13 @@ public class StationMonitorPanel extends JPanel {
 	}
 
 	private java.util.List<Log> getLogs() {
-		java.util.List<Log> logs = new ArrayList<>();
-
 		WaveformBuffer waveformBuffer = station.getAnalysis().getWaveformBuffer();
 
-		if(waveformBuffer != null) {
-			try{
-				waveformBuffer.getReadLock().lock();
-				if (!station.getAnalysis().getWaveformBuffer().isEmpty()) {
-					int index = station.getAnalysis().getWaveformBuffer().getOldestDataSlot();
-					while (index != station.getAnalysis().getWaveformBuffer().getNewestDataSlot()) {
-						logs.add(station.getAnalysis().getWaveformBuffer().toLog(index));
-						index = (index + 1) % station.getAnalysis().getWaveformBuffer().getSize();
-					}
-				}
-			} finally {
-				waveformBuffer.getReadLock().unlock();
-			}
+		if(waveformBuffer == null) {
+			return new ArrayList<>();
 		}
-		return logs;
+
+		return waveformBuffer.getLogs();
 	}
 
 	private long getTime() {
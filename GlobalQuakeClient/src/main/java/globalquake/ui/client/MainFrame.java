@@ -4,6 +4,7 @@ import globalquake.core.Settings;
 import globalquake.core.database.StationDatabaseManager;
 import globalquake.core.database.StationSource;
 import globalquake.core.earthquake.GQHypocs;
+import globalquake.core.earthquake.HypocenterSearchBackend;
 import globalquake.core.exception.FatalIOException;
 import globalquake.core.exception.RuntimeApplicationException;
 import globalquake.core.geo.taup.TauPTravelTimeCalculator;
@@ -199,7 +200,7 @@ public class MainFrame extends GQFrame {
 
         if (Settings.recalibrateOnLaunch) {
             EarthquakeAnalysisTraining.calibrateResolution(MainFrame::updateProgressBar, null, true);
-            if(GQHypocs.isCudaLoaded()){
+            if(HypocenterSearchBackend.isProfileSearchActive()){
                 EarthquakeAnalysisTraining.calibrateResolution(MainFrame::updateProgressBar, null, false);
             }
         }
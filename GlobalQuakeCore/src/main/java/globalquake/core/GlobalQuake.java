@@ -9,6 +9,7 @@ import globalquake.core.exception.ApplicationErrorHandler;
 import globalquake.core.exception.FatalApplicationException;
 import globalquake.core.exception.RuntimeApplicationException;
 import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.intensity.IntensityTable;
 import globalquake.core.seedlink.SeedlinkNetworksReader;
 import globalquake.core.station.GlobalStationManager;
 import org.tinylog.Logger;
@@ -40,6 +41,7 @@ public abstract class GlobalQuake {
     static {
         try {
             TauPTravelTimeCalculator.init();
+            IntensityTable.init();
         } catch (FatalApplicationException e) {
             throw new RuntimeException(e);
         }
@@ -102,6 +104,7 @@ public abstract class GlobalQuake {
         getEarthquakeAnalysis().getEarthquakes().clear();
         getClusterAnalysis().getClusters().clear();
         getStationManager().getStations().clear();
+        getStationManager().indexStations();
     }
 
     @SuppressWarnings("unused")
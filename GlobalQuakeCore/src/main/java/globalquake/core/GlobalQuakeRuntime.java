@@ -1,9 +1,15 @@
 package globalquake.core;
 
+import globalquake.core.earthquake.HypocenterScheduler;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.metrics.Metrics;
 import globalquake.core.station.AbstractStation;
+import globalquake.core.station.RecordReorderBuffer;
+import globalquake.core.station.StationAnalysisScheduler;
 import globalquake.utils.NamedThreadFactory;
 import org.tinylog.Logger;
 
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -12,64 +18,98 @@ import java.util.concurrent.TimeUnit;
 public class GlobalQuakeRuntime {
 
     private long lastSecond;
-    private long lastAnalysis;
     private long lastGC;
     private long clusterAnalysisT;
     private long lastQuakesT;
-    private ScheduledExecutorService execAnalysis;
+    private final StationAnalysisScheduler analysisScheduler = new StationAnalysisScheduler(Settings.stationAnalysisShards);
+    private final HypocenterScheduler hypocenterScheduler = new HypocenterScheduler(Settings.hypocenterSearchThreads);
     private ScheduledExecutorService exec1Sec;
     private ScheduledExecutorService execQuake;
 
+    public GlobalQuakeRuntime() {
+        Metrics.gauge("gq_stations", "Number of stations",
+                () -> GlobalQuake.instance.getStationManager().getStations().size());
+        Metrics.gauge("gq_stations_with_data", "Number of stations with displayable data",
+                () -> GlobalQuake.instance.getStationManager().getStations().stream().filter(AbstractStation::hasDisplayableData).count());
+        Metrics.gauge("gq_picks", "Number of valid P wave picks",
+                () -> GlobalQuake.instance.getStationManager().getPickIndex().size());
+        Metrics.gauge("gq_clusters", "Number of clusters",
+                () -> GlobalQuake.instance.getClusterAnalysis().getClusters().size());
+        Metrics.gauge("gq_earthquakes", "Number of current earthquakes",
+                () -> GlobalQuake.instance.getEarthquakeAnalysis().getEarthquakes().size());
+        Metrics.gauge("gq_station_analysis_queue", "Number of stations waiting for their analysis",
+                analysisScheduler::getQueueDepth);
+        Metrics.gauge("gq_hypocenter_search_queue", "Number of hypocenter revisions waiting for a search thread",
+                hypocenterScheduler::getQueueDepth);
+        Metrics.counter("gq_records_dropped_total", "Number of records dropped because the reorder buffer of their station was full",
+                RecordReorderBuffer::getTotalDropped);
+    }
+
     public void runThreads() {
-        execAnalysis = Executors
-                .newSingleThreadScheduledExecutor(new NamedThreadFactory("Station Analysis Thread"));
         exec1Sec = Executors
                 .newSingleThreadScheduledExecutor(new NamedThreadFactory("1-Second Loop Thread"));
         execQuake = Executors
                 .newSingleThreadScheduledExecutor(new NamedThreadFactory("Hypocenter Location Thread"));
 
-        execAnalysis.scheduleAtFixedRate(() -> {
-            try {
-                long a = System.currentTimeMillis();
-                GlobalQuake.instance.getStationManager().getStations().parallelStream().forEach(AbstractStation::analyse);
-                lastAnalysis = System.currentTimeMillis() - a;
-            } catch (Exception e) {
-                Logger.error("Exception occurred in station analysis");
-                GlobalQuake.getErrorHandler().handleException(e);
-            }
-        }, 0, 100, TimeUnit.MILLISECONDS);
+        analysisScheduler.start();
 
         exec1Sec.scheduleAtFixedRate(() -> {
             try {
                 long a = System.currentTimeMillis();
+                long startNanos = System.nanoTime();
                 GlobalQuake.instance.getStationManager().getStations().parallelStream().forEach(
                         station -> station.second(GlobalQuake.instance.currentTimeMillis()));
                 if (GlobalQuake.instance.getEarthquakeAnalysis() != null) {
                     GlobalQuake.instance.getEarthquakeAnalysis().second();
                 }
                 lastSecond = System.currentTimeMillis() - a;
+                Metrics.SECOND_LOOP.record(System.nanoTime() - startNanos);
             } catch (Exception e) {
                 Logger.error("Exception occurred in 1-second loop");
                 GlobalQuake.getErrorHandler().handleException(e);
             }
         }, 0, 1, TimeUnit.SECONDS);
 
-        execQuake.scheduleAtFixedRate(() -> {
+        execQuake.execute(this::runHypocsLoop);
+    }
+
+    /**
+     * Updates the clusters as soon as some picks change, otherwise once per loop time to keep them up to date,
+     * then locates the clusters that changed.
+     */
+    private void runHypocsLoop() {
+        long loopTime = HypocsSettings.getOrDefaultInt("hypocsLoopTime", 300);
+        while (!execQuake.isShutdown()) {
             try {
+                GlobalQuake.instance.getStationManager().getPickIndex().awaitChanges(loopTime);
+
                 long a = System.currentTimeMillis();
-                GlobalQuake.instance.getClusterAnalysis().run();
-                GlobalQuake.instance.getEarthquakeAnalysis().run();
+                long startNanos = System.nanoTime();
+                Set<Cluster> changedClusters = GlobalQuake.instance.getClusterAnalysis().update();
+                GlobalQuake.instance.getEarthquakeAnalysis().run(hypocenterScheduler, changedClusters);
                 lastQuakesT = System.currentTimeMillis() - a;
+                Metrics.HYPOCENTER_LOOP.record(System.nanoTime() - startNanos);
+            } catch (InterruptedException e) {
+                return;
             } catch (Exception e) {
                 Logger.error("Exception occurred in hypocenter location loop");
                 GlobalQuake.getErrorHandler().handleException(e);
             }
-        }, 0, HypocsSettings.getOrDefaultInt("hypocsLoopTime", 300), TimeUnit.MILLISECONDS);
+        }
     }
 
     public void stop() {
         GlobalQuake.instance.stopService(execQuake);
-        GlobalQuake.instance.stopService(execAnalysis);
+        hypocenterScheduler.stop();
+        analysisScheduler.stop();
         GlobalQuake.instance.stopService(exec1Sec);
     }
+
+    public StationAnalysisScheduler getAnalysisScheduler() {
+        return analysisScheduler;
+    }
+
+    public HypocenterScheduler getHypocenterScheduler() {
+        return hypocenterScheduler;
+    }
 }
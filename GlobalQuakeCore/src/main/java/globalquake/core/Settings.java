@@ -1,5 +1,6 @@
 package globalquake.core;
 
+import globalquake.core.earthquake.HypocenterSearchBackend;
 import globalquake.core.earthquake.data.Cluster;
 import globalquake.core.earthquake.quality.QualityClass;
 import globalquake.core.exception.RuntimeApplicationException;
@@ -178,6 +179,19 @@ public final class Settings {
     @SuppressWarnings("unused")
     public static Boolean debugSendPGV;
 
+    public static Boolean lockFreeWaveformBuffers;
+    public static Boolean compactWaveformBuffers;
+    public static Integer stationAnalysisShards;
+    public static Boolean seedlinkNioClient;
+    public static Integer seedlinkSelectorThreads;
+    public static Boolean virtualThreads;
+    public static Boolean vectorHypocenterKernel;
+    public static Integer hypocenterSearchBackendIndex;
+    public static Boolean incrementalHypocenterRefinement;
+    public static Integer hypocenterSearchThreads;
+    public static Boolean captureRecords;
+    public static Integer captureRollMinutes;
+
     static {
         load();
         save();
@@ -196,6 +210,23 @@ public final class Settings {
         }
 
         loadProperty("debugSendPGV", "false");
+        loadProperty("lockFreeWaveformBuffers", "true");
+        loadProperty("compactWaveformBuffers", "false");
+        loadProperty("stationAnalysisShards", String.valueOf(Runtime.getRuntime().availableProcessors()),
+                o -> validateInt(1, 256, (Integer) o));
+        loadProperty("seedlinkNioClient", "true");
+        loadProperty("seedlinkSelectorThreads", "2",
+                o -> validateInt(1, 64, (Integer) o));
+        loadProperty("virtualThreads", "false");
+        loadProperty("vectorHypocenterKernel", "false");
+        loadProperty("hypocenterSearchBackendIndex", "0",
+                o -> validateInt(0, HypocenterSearchBackend.values().length - 1, (Integer) o));
+        loadProperty("incrementalHypocenterRefinement", "false");
+        loadProperty("hypocenterSearchThreads", "2",
+                o -> validateInt(1, 64, (Integer) o));
+        loadProperty("captureRecords", "false");
+        loadProperty("captureRollMinutes", "10",
+                o -> validateInt(1, 24 * 60, (Integer) o));
         loadProperty("antialiasingOldQuakes", "true");
         loadProperty("antialiasingClusters", "true");
         loadProperty("antialiasingQuakes", "true");
@@ -396,6 +427,10 @@ public final class Settings {
         return DATE_FORMATS[i];
     }
 
+    public static HypocenterSearchBackend getSelectedHypocenterSearchBackend() {
+        return HypocenterSearchBackend.values()[Math.max(0, Math.min(HypocenterSearchBackend.values().length - 1, hypocenterSearchBackendIndex))];
+    }
+
     public static DistanceUnit getSelectedDistanceUnit() {
         return DistanceUnit.values()[Math.max(0, Math.min(DistanceUnit.values().length - 1, distanceUnitsIndex))];
     }
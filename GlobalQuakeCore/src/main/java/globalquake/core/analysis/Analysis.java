@@ -22,6 +22,7 @@ public abstract class Analysis {
     private byte status;
 
     private WaveformBuffer waveformBuffer = null;
+    private volatile PickIndex pickIndex;
 
     public Analysis(AbstractStation station) {
         this.station = station;
@@ -71,13 +72,7 @@ public abstract class Analysis {
                 return;
             }
 
-            int i = 0;
-
-            for (int v : data) {
-                long time = startTime + (long) (i * (1000.0 / dataRecord.getSampleRate()));
-                nextSample(v, time, GlobalQuake.instance.currentTimeMillis());
-                i++;
-            }
+            nextSamples(data, startTime, dataRecord.getSampleRate(), GlobalQuake.instance.currentTimeMillis());
         } catch (Exception e) {
             Logger.trace(e);
             Logger.warn("There was a problem with data processing on station %s: %s".formatted(getStation().getStationCode(), e.getMessage()));
@@ -86,6 +81,16 @@ public abstract class Analysis {
 
     public abstract void nextSample(int v, long time, long currentTime);
 
+    /**
+     * Processes a whole block of evenly spaced samples, e.g. one decoded data record.
+     * The result must be identical to calling {@link #nextSample(int, long, long)} for each sample.
+     */
+    public void nextSamples(int[] data, long startTime, double sps, long currentTime) {
+        for (int i = 0; i < data.length; i++) {
+            nextSample(data[i], startTime + (long) (i * (1000.0 / sps)), currentTime);
+        }
+    }
+
     @SuppressWarnings("SameReturnValue")
     public abstract long getGapThreshold();
 
@@ -108,6 +113,14 @@ public abstract class Analysis {
         return detectedEvents;
     }
 
+    public PickIndex getPickIndex() {
+        return pickIndex;
+    }
+
+    public void setPickIndex(PickIndex pickIndex) {
+        this.pickIndex = pickIndex;
+    }
+
     public Event getLatestEvent() {
         var maybeEvent = detectedEvents.stream().findFirst();
         return maybeEvent.orElse(null);
@@ -127,7 +140,9 @@ public abstract class Analysis {
 
     public void setSampleRate(double sampleRate) {
         this.sampleRate = sampleRate;
-        waveformBuffer = new WaveformBuffer(getSampleRate(), Settings.logsStoreTimeMinutes * 60, GlobalQuake.getInstance().limitedWaveformBuffers());
+        boolean server = GlobalQuake.getInstance().limitedWaveformBuffers();
+        waveformBuffer = new WaveformBuffer(getSampleRate(), Settings.logsStoreTimeMinutes * 60,
+                server, Settings.lockFreeWaveformBuffers, server && Settings.compactWaveformBuffers);
     }
 
     public WaveformBuffer getWaveformBuffer() {
@@ -38,11 +38,11 @@ public class BetterAnalysis extends Analysis {
 
     private double initialOffset;
 
-    private WaveformTransformator waveformDefault;
+    private WaveformFilterBank filterBank;
 
-    private WaveformTransformator waveformLowFreq;
-
-    private WaveformTransformator waveformUltraLowFreq;
+    private static final int BAND_DEFAULT = 0;
+    private static final int BAND_LOW_FREQ = 1;
+    private static final int BAND_ULTRA_LOW_FREQ = 2;
     public static final double minFreqDefault = 2.0;
     public static final double maxFreqDefault = 5.0;
 
@@ -60,7 +60,31 @@ public class BetterAnalysis extends Analysis {
 
     @Override
     public synchronized void nextSample(int v, long time, long currentTime) {
-        if (waveformDefault == null) {
+        processSample(v, time, currentTime, getWaveformBuffer());
+    }
+
+    /**
+     * Processes the whole block while holding the monitor only once.
+     */
+    @Override
+    public synchronized void nextSamples(int[] data, long startTime, double sps, long currentTime) {
+        WaveformBuffer waveformBuffer = getWaveformBuffer();
+        if (waveformBuffer == null) {
+            super.nextSamples(data, startTime, sps, currentTime);
+            return;
+        }
+
+        double sampleInterval = 1000.0 / sps;
+        for (int i = 0; i < data.length; i++) {
+            processSample(data[i], startTime + (long) (i * sampleInterval), currentTime, waveformBuffer);
+        }
+    }
+
+    /**
+     * @param waveformBuffer station buffer, can be null before the sample rate is known
+     */
+    private void processSample(int v, long time, long currentTime, WaveformBuffer waveformBuffer) {
+        if (filterBank == null) {
             reset();// initial reset;
             getStation().reportState(StationState.INACTIVE, time);
             return;
@@ -83,22 +107,18 @@ public class BetterAnalysis extends Analysis {
                 if (initProgress >= INIT_OFFSET_CALCULATION * 0.001 * getSampleRate() * 0.25) {
                     double _initialOffset = initialOffsetSum / initialOffsetCnt;
 
-                    waveformDefault.accept(v - _initialOffset);
-                    waveformLowFreq.accept(v - _initialOffset);
-                    waveformUltraLowFreq.accept(v - _initialOffset);
+                    filterBank.accept(v - _initialOffset);
 
-                    double filteredV = waveformDefault.getCurrentValue();
+                    double filteredV = filterBank.getCurrentValue(BAND_DEFAULT);
                     initialRatioSum += Math.abs(filteredV);
                     initialRatioCnt++;
                     longAverage = initialRatioSum / initialRatioCnt;
                 }
             } else if (initProgress <= (INIT_AVERAGE_RATIO + INIT_OFFSET_CALCULATION) * 0.001 * getSampleRate()) {
                 double _initialOffset = initialOffsetSum / initialOffsetCnt;
-                waveformDefault.accept(v - _initialOffset);
-                waveformLowFreq.accept(v - _initialOffset);
-                waveformUltraLowFreq.accept(v - _initialOffset);
+                filterBank.accept(v - _initialOffset);
 
-                double filteredV = waveformDefault.getCurrentValue();
+                double filteredV = filterBank.getCurrentValue(BAND_DEFAULT);
                 longAverage -= (longAverage - Math.abs(filteredV)) / (getSampleRate() * 6.0);
             } else {
                 initialOffset = initialOffsetSum / initialOffsetCnt;
@@ -116,11 +136,9 @@ public class BetterAnalysis extends Analysis {
             return;
         }
 
-        waveformDefault.accept(v - initialOffset);
-        waveformLowFreq.accept(v - initialOffset);
-        waveformUltraLowFreq.accept(v - initialOffset);
+        filterBank.accept(v - initialOffset);
 
-        double filteredV = waveformDefault.getCurrentValue();
+        double filteredV = filterBank.getCurrentValue(BAND_DEFAULT);
 
         double absFilteredV = Math.abs(filteredV);
         shortAverage -= (shortAverage - absFilteredV) / (getSampleRate() * 0.5);
@@ -137,12 +155,12 @@ public class BetterAnalysis extends Analysis {
             longAverage -= (longAverage - absFilteredV) / (getSampleRate() * 200.0);
         }
         double ratio = shortAverage / longAverage;
-        if (getStatus() == AnalysisStatus.IDLE && !getWaveformBuffer().isEmpty() && !getStation().disabled) {
+        if (getStatus() == AnalysisStatus.IDLE && !waveformBuffer.isEmpty() && !getStation().disabled) {
             boolean cond1 = shortAverage / longAverage >= EVENT_THRESHOLD * 1.3 && time - eventTimer > 200;
             boolean cond2 = shortAverage / longAverage >= EVENT_THRESHOLD * 2.05 && time - eventTimer > 100;
             boolean condMain = shortAverage / thirdAverage > 3.0;
             if (condMain && (cond1 || cond2)) {
-                WaveformBuffer buffer = getWaveformBuffer().extract(time - EVENT_EXTENSION_TIME * 1000, time);
+                WaveformBuffer buffer = waveformBuffer.extract(time - EVENT_EXTENSION_TIME * 1000, time);
                 if (!buffer.isEmpty()) {
                     setStatus(AnalysisStatus.EVENT);
                     Event event = new Event(this, time, buffer, !getStation().isSensitivityValid());
@@ -176,9 +194,9 @@ public class BetterAnalysis extends Analysis {
         }
 
 
-        double velocity = Math.abs(waveformDefault.getVelocity());
-        double velocityLowFreq = Math.abs(waveformLowFreq.getVelocity());
-        double velocityUltraLowFreq = Math.abs(waveformUltraLowFreq.getVelocity());
+        double velocity = Math.abs(filterBank.getVelocity(BAND_DEFAULT));
+        double velocityLowFreq = Math.abs(filterBank.getVelocity(BAND_LOW_FREQ));
+        double velocityUltraLowFreq = Math.abs(filterBank.getVelocity(BAND_ULTRA_LOW_FREQ));
 
         if (velocity > _maxVelocity) {
             _maxVelocity = velocity;
@@ -197,13 +215,14 @@ public class BetterAnalysis extends Analysis {
         if (time - currentTime < 1000 * 10
                 && currentTime - time < 1000L * 60 * Settings.logsStoreTimeMinutes) {
 
+            // only the buffer writes themselves, readers of a lock-free buffer spin while they are in progress
             try {
-                getWaveformBuffer().getWriteLock().lock();
-                getWaveformBuffer().checkSize(Settings.logsStoreTimeMinutes * 60);
-                getWaveformBuffer().log(time, v, (float) filteredV, (float) shortAverage, (float) mediumAverage,
+                waveformBuffer.beginWrite();
+                waveformBuffer.checkSize(Settings.logsStoreTimeMinutes * 60);
+                waveformBuffer.log(time, v, (float) filteredV, (float) shortAverage, (float) mediumAverage,
                         (float) longAverage, (float) specialAverage, false);
             } finally {
-                getWaveformBuffer().getWriteLock().unlock();
+                waveformBuffer.endWrite();
             }
 
             // from latest event to the oldest event
@@ -243,14 +262,14 @@ public class BetterAnalysis extends Analysis {
         numRecords = 0;
         latestLogTime = 0;
 
-        if(waveformDefault == null) {
-            waveformDefault = new WaveformTransformator(minFreqDefault, maxFreqDefault, getStation().getSensitivity(), getSampleRate(), getStation().getInputType());
-            waveformLowFreq = new WaveformTransformator(minFreqLow, maxFreqLow, getStation().getSensitivity(), getSampleRate(), getStation().getInputType());
-            waveformUltraLowFreq = new WaveformTransformator(minFreqUltraLow, maxFreqUltraLow, getStation().getSensitivity(), getSampleRate(), getStation().getInputType());
+        if(filterBank == null) {
+            filterBank = new WaveformFilterBank(new double[][]{
+                    {minFreqDefault, maxFreqDefault},
+                    {minFreqLow, maxFreqLow},
+                    {minFreqUltraLow, maxFreqUltraLow}},
+                    getStation().getSensitivity(), getSampleRate(), getStation().getInputType());
         }
-        waveformDefault.reset();
-        waveformLowFreq.reset();
-        waveformUltraLowFreq.reset();
+        filterBank.reset();
 
         // from latest event to the oldest event
         // it has to be synced because there is the 1-second thread
@@ -277,6 +296,11 @@ public class BetterAnalysis extends Analysis {
         }
 
         getDetectedEvents().removeAll(toBeRemoved);
+
+        PickIndex pickIndex = getPickIndex();
+        if (pickIndex != null) {
+            toBeRemoved.forEach(pickIndex::remove);
+        }
     }
 
 
@@ -0,0 +1,129 @@
+package globalquake.core.analysis;
+
+import globalquake.utils.Float16;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact slot storage for server mode waveform buffers, 7 bytes per sample instead of 16.
+ * <p>
+ * The slots are split into blocks of 64. Each block keeps the time its first sample would have at the nominal
+ * sample rate and every slot stores only a single byte residual against that regular grid. Blocks that contain
+ * a gap or a badly jittering clock fall back to full times kept on the heap. The ratios are stored as half floats.
+ * <p>
+ * Slots must be written in ring order, the way {@link WaveformBuffer} does it.
+ */
+class CompactWaveformStorage {
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final int size;
+    private final int[] gridOffsets;
+    private final ByteBuffer data;
+    private final long[] blockBase;
+    private final long[][] wideTimes;
+
+    // the block being written still holds the older samples behind the writer
+    private int writeBlock = -1;
+    private int generationStart;
+    private int lastWritten = -1;
+    private long previousBase;
+    private long[] previousWide;
+
+    /**
+     * @param offHeap if true, the slots are kept in a direct buffer, otherwise on the heap
+     */
+    CompactWaveformStorage(double sps, int size, boolean offHeap) {
+        this.size = size;
+        this.gridOffsets = new int[BLOCK_SIZE];
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            gridOffsets[i] = (int) Math.round(i * 1000.0 / sps);
+        }
+
+        int blocks = (size + BLOCK_MASK) >>> BLOCK_SHIFT;
+        this.blockBase = new long[blocks];
+        this.wideTimes = new long[blocks][];
+        int bytes = bytesPerSlot() * size;
+        this.data = (offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes)).order(ByteOrder.nativeOrder());
+    }
+
+    boolean isOffHeap() {
+        return data.isDirect();
+    }
+
+    static int bytesPerSlot() {
+        return 1 + WaveformBuffer.COMPUTED_COUNT_SERVER * Short.BYTES;
+    }
+
+    void set(int slot, long time, float ratio, float mediumRatio, float specialRatio) {
+        int block = slot >>> BLOCK_SHIFT;
+        int k = slot & BLOCK_MASK;
+
+        if (block != writeBlock || slot <= lastWritten) {
+            previousBase = blockBase[block];
+            previousWide = wideTimes[block];
+            blockBase[block] = time - gridOffsets[k];
+            wideTimes[block] = null;
+            writeBlock = block;
+            generationStart = slot;
+        }
+
+        long[] wide = wideTimes[block];
+        if (wide == null) {
+            long residual = time - blockBase[block] - gridOffsets[k];
+            if (residual >= Byte.MIN_VALUE && residual <= Byte.MAX_VALUE) {
+                data.put(slot, (byte) residual);
+            } else {
+                wide = new long[BLOCK_SIZE];
+                for (int i = generationStart; i < slot; i++) {
+                    wide[i & BLOCK_MASK] = getTime(i);
+                }
+                wideTimes[block] = wide;
+            }
+        }
+
+        if (wide != null) {
+            wide[k] = time;
+        }
+
+        lastWritten = slot;
+
+        putComputed(WaveformBuffer.RATIO, slot, ratio);
+        putComputed(WaveformBuffer.MEDIUM_RATIO, slot, mediumRatio);
+        putComputed(WaveformBuffer.SPECIAL_RATIO, slot, specialRatio);
+    }
+
+    long getTime(int slot) {
+        int block = slot >>> BLOCK_SHIFT;
+        long base;
+        long[] wide;
+        if (block == writeBlock && (slot < generationStart || slot > lastWritten)) {
+            base = previousBase;
+            wide = previousWide;
+        } else {
+            base = blockBase[block];
+            wide = wideTimes[block];
+        }
+
+        int k = slot & BLOCK_MASK;
+        return wide != null ? wide[k] : base + gridOffsets[k] + data.get(slot);
+    }
+
+    float getComputed(int type, int slot) {
+        if (type >= WaveformBuffer.COMPUTED_COUNT_SERVER) {
+            throw new IllegalArgumentException("Value %d is not stored in server mode!".formatted(type));
+        }
+        return Float16.toFloat(data.getShort(computedOffset(type, slot)));
+    }
+
+    private void putComputed(int type, int slot, float value) {
+        data.putShort(computedOffset(type, slot), Float16.fromFloat(value));
+    }
+
+    private int computedOffset(int type, int slot) {
+        return size + (type * size + slot) * Short.BYTES;
+    }
+}
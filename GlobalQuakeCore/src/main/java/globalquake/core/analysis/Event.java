@@ -2,13 +2,14 @@ package globalquake.core.analysis;
 
 import globalquake.core.earthquake.MagnitudeType;
 import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.metrics.Metrics;
 import globalquake.core.report.StationReport;
+import globalquake.utils.QuickSelect;
+import globalquake.utils.UnitVector;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -21,6 +22,7 @@ public class Event implements Serializable {
     public static final double[] SPECIAL_PERCENTILE = new double[]{0.08, 0.12, 0.18, 0.24, 0.32, 0.40, 0.48};
     public static final double[] SLOW_THRESHOLD_MULTIPLIERS = new double[]{1.12, 1.5, 1.9, 2.2, 2.4, 2.5, 2.6};
     private static final long MIN_EVENT_DIFF = 3000;
+    private static final long NOT_PICKED = Long.MIN_VALUE;
     private final Lock readLock;
     private final Lock writeLock;
     private boolean usingRatio;
@@ -44,7 +46,10 @@ public class Event implements Serializable {
 
     private boolean isSWave;
 
-    private WaveformBuffer waveformBuffer;
+    // System.nanoTime() of the first P wave pick until the event gets into a cluster
+    private transient long pickedNanos = NOT_PICKED;
+
+    private volatile WaveformBuffer waveformBuffer;
 
     private double maxVelocity;
     private double maxVelocityLowFreq;
@@ -87,8 +92,20 @@ public class Event implements Serializable {
         this.updatesCount++;
     }
 
+    /**
+     * Assigns the event to the cluster, the first assignment is recorded in {@link Metrics#PICK_TO_CLUSTER}
+     */
+    public void assignTo(Cluster cluster) {
+        if (cluster != null && pickedNanos != NOT_PICKED) {
+            Metrics.PICK_TO_CLUSTER.record(System.nanoTime() - pickedNanos);
+            pickedNanos = NOT_PICKED;
+        }
+        this.assignedCluster = cluster;
+    }
+
     public void endBadly() {
         this.valid = false;
+        updatePickIndex();
     }
 
     public void setpWave(long pWave) {
@@ -96,7 +113,11 @@ public class Event implements Serializable {
             this.updatesCount++;
         }
         this.pWave = pWave;
+        if (pWave > 0 && pickedNanos == NOT_PICKED && assignedCluster == null) {
+            pickedNanos = System.nanoTime();
+        }
         checkValidity();
+        updatePickIndex();
     }
 
     private void checkValidity() {
@@ -106,11 +127,19 @@ public class Event implements Serializable {
                 if (diff < MIN_EVENT_DIFF) {
                     Event bad = getStart() > ev2.start ? this : ev2;
                     bad.valid = false;
+                    bad.updatePickIndex();
                 }
             }
         }
     }
 
+    private void updatePickIndex() {
+        PickIndex pickIndex = analysis == null ? null : analysis.getPickIndex();
+        if (pickIndex != null) {
+            pickIndex.update(this);
+        }
+    }
+
     public long getpWave() {
         return pWave;
     }
@@ -121,7 +150,10 @@ public class Event implements Serializable {
     }
 
     public void setAsSWave(boolean isSWave) {
-        this.isSWave = isSWave;
+        if (this.isSWave != isSWave) {
+            this.isSWave = isSWave;
+            updatePickIndex();
+        }
     }
 
     /**
@@ -170,16 +202,31 @@ public class Event implements Serializable {
         return getAnalysis().getStation().getAlt();
     }
 
+    public UnitVector getUnitVectorFromStation() {
+        return getAnalysis().getStation().getUnitVector();
+    }
+
     public void log(long time, int rawValue, float filteredV, float shortAverage, float mediumAverage, float longAverage,
                     float specialAverage, double ratio, double velocity, double velocityLowFreq, double velocityUltraLowFreq) {
-        try {
-            writeLock.lock();
-            if (waveformBuffer == null) {
-                return;
+        WaveformBuffer buffer = waveformBuffer;
+        if (buffer != null && buffer.isLockFree()) {
+            // the buffer is only accessed from the analysis thread, removeBuffer() just detaches it
+            try {
+                buffer.beginWrite();
+                buffer.log(time, rawValue, filteredV, shortAverage, mediumAverage, longAverage, specialAverage, true);
+            } finally {
+                buffer.endWrite();
+            }
+        } else {
+            try {
+                writeLock.lock();
+                if (waveformBuffer == null) {
+                    return;
+                }
+                waveformBuffer.log(time, rawValue, filteredV, shortAverage, mediumAverage, longAverage, specialAverage, true);
+            } finally {
+                writeLock.unlock();
             }
-            waveformBuffer.log(time, rawValue, filteredV, shortAverage, mediumAverage, longAverage, specialAverage, true);
-        } finally {
-            writeLock.unlock();
         }
         if (ratio > this.maxRatio) {
             this.maxRatio = ratio;
@@ -209,13 +256,17 @@ public class Event implements Serializable {
                 double threshold = nextPWaveCalc < 0 ? -1 : RECALCULATE_P_WAVE_THRESHOLDS[nextPWaveCalc];
                 if (maxRatio >= threshold) {
                     nextPWaveCalc++;
-                    try {
-                        readLock.lock();
-                        if (waveformBuffer != null) {
-                            findPWaveMethod1();
+                    if (buffer.isLockFree()) {
+                        findPWaveMethod1(buffer);
+                    } else {
+                        try {
+                            readLock.lock();
+                            if (waveformBuffer != null) {
+                                findPWaveMethod1(waveformBuffer);
+                            }
+                        } finally {
+                            readLock.unlock();
                         }
-                    } finally {
-                        readLock.unlock();
                     }
                 }
             }
@@ -224,25 +275,44 @@ public class Event implements Serializable {
 
     // T-30sec
     // first estimation of p wave
-    private void findPWaveMethod1() {
+    private void findPWaveMethod1(WaveformBuffer waveformBuffer) {
         // 0 - when first detected
         // 1 - first upgrade etc...
         if (waveformBuffer.isEmpty()) {
             return;
         }
-        int strenghtLevel = nextPWaveCalc;
-        long lookBack = (getStart() - (long) ((60.0 / strenghtLevel) * 1000));
 
-        List<Double> slows = new ArrayList<>();
+        long pWave = findPWave(waveformBuffer, getStart(), nextPWaveCalc);
+        if (pWave != NO_WINDOW) {
+            setpWave(pWave);
+        }
+    }
+
+    private static final long NO_WINDOW = Long.MIN_VALUE;
+
+    private static final ThreadLocal<double[]> slowsBuffer = ThreadLocal.withInitial(() -> new double[1024]);
+
+    /**
+     * @return time of the p wave, -1 if not found or {@link #NO_WINDOW} if there are no logs before the start
+     */
+    static long findPWave(WaveformBuffer waveformBuffer, long start, int strenghtLevel) {
+        long lookBack = (start - (long) ((60.0 / strenghtLevel) * 1000));
+
+        double[] slows = slowsBuffer.get();
+        int slowsCount = 0;
 
         double maxSpecial = -Double.MAX_VALUE;
         double minSpecial = Double.MAX_VALUE;
 
-        int indexLookBack = getWaveformBuffer().getClosestIndex(lookBack);
-        long lookBackTime = getWaveformBuffer().getTime(indexLookBack);
+        int indexLookBack = waveformBuffer.getClosestIndex(lookBack);
+        long lookBackTime = waveformBuffer.getTime(indexLookBack);
 
-        while (indexLookBack != getWaveformBuffer().getNextSlot() && lookBackTime <= getStart()) {
-            slows.add(waveformBuffer.getMediumRatio(indexLookBack));
+        while (indexLookBack != waveformBuffer.getNextSlot() && lookBackTime <= start) {
+            if (slowsCount == slows.length) {
+                slows = Arrays.copyOf(slows, slows.length * 2);
+                slowsBuffer.set(slows);
+            }
+            slows[slowsCount++] = waveformBuffer.getMediumRatio(indexLookBack);
             double spec = waveformBuffer.getSpecialRatio(indexLookBack);
             if (spec > 0) {
                 if (spec > maxSpecial) {
@@ -253,35 +323,31 @@ public class Event implements Serializable {
                 }
             }
 
-            indexLookBack = (indexLookBack + 1) % getWaveformBuffer().getSize();
-            lookBackTime = getWaveformBuffer().getTime(indexLookBack);
+            indexLookBack = (indexLookBack + 1) % waveformBuffer.getSize();
+            lookBackTime = waveformBuffer.getTime(indexLookBack);
         }
 
-        maxSpecial = Math.max(minSpecial * 5.0, maxSpecial);
+        if (slowsCount == 0) {
+            return NO_WINDOW;
+        }
 
-        Collections.sort(slows);
+        maxSpecial = Math.max(minSpecial * 5.0, maxSpecial);
 
-        double slow15Pct = slows.get((int) ((slows.size() - 1) * 0.175));
+        double slow15Pct = QuickSelect.percentile(slows, slowsCount, 0.175);
 
         double mul = SPECIAL_PERCENTILE[strenghtLevel] * 1.1;
         double specialThreshold = maxSpecial * mul + (1 - mul) * minSpecial;
 
         double slowThresholdMultiplier = SLOW_THRESHOLD_MULTIPLIERS[strenghtLevel];
-
-        long pWave = -1;
+        double ratioThreshold = slow15Pct * (slowThresholdMultiplier * 1.25);
 
         // going backwards!
-        int index = waveformBuffer.getClosestIndex(getStart());
+        int index = waveformBuffer.getClosestIndex(start);
         long time = waveformBuffer.getTime(index);
         while (index != waveformBuffer.getOldestDataSlot() && time >= lookBack) {
-
-            boolean ratioOK = waveformBuffer.getRatio(index) <= slow15Pct * (slowThresholdMultiplier * 1.25);
-            boolean specialOK = waveformBuffer.getSpecialRatio(index) <= specialThreshold;
-            if (time <= getStart()) {
-                if (ratioOK && specialOK) {
-                    pWave = time;
-                    break;
-                }
+            if (time <= start && waveformBuffer.getRatio(index) <= ratioThreshold
+                    && waveformBuffer.getSpecialRatio(index) <= specialThreshold) {
+                return time;
             }
 
             index -= 1;
@@ -291,17 +357,13 @@ public class Event implements Serializable {
             time = waveformBuffer.getTime(index);
         }
 
-        setpWave(pWave);
+        return -1;
     }
 
     public int getUpdatesCount() {
         return updatesCount;
     }
 
-    private WaveformBuffer getWaveformBuffer() {
-        return waveformBuffer;
-    }
-
     public double getMaxVelocity() {
         return maxVelocity;
     }
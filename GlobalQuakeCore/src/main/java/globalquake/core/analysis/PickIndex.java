@@ -0,0 +1,265 @@
+package globalquake.core.analysis;
+
+import globalquake.core.station.AbstractStation;
+import globalquake.utils.UnitVector;
+
+import java.util.*;
+
+/**
+ * Valid picks of all the stations by the time of their P wave and by the position of their station, so that the
+ * cluster analysis only looks at the picks an earthquake could have caused instead of at every event of every station.
+ * <p>
+ * Picks are kept in buckets of {@link #BUCKET_SIZE} milliseconds of their P wave and within each bucket grouped
+ * by a latitude and longitude cell of their station. Events update their own entry whenever their P wave,
+ * validity or S wave flag changes, and the analysis removes the entry once it drops the event.
+ * <p>
+ * The picks that changed are also remembered until {@link #pollChanges()}, so that the cluster analysis
+ * only has to react to them.
+ */
+public final class PickIndex {
+
+    public static final long BUCKET_SIZE = 1000;
+
+    /**
+     * Picks this much older than the newest pick are dropped even if nothing removed them
+     */
+    private static final long MAX_PICK_AGE = (long) (2 * BetterAnalysis.EVENT_STORE_TIME * 1000);
+
+    private static final double CELL_SIZE = 5.0;
+    private static final int LAT_CELLS = (int) (180 / CELL_SIZE);
+    private static final int LON_CELLS = (int) (360 / CELL_SIZE);
+    private static final UnitVector[] CELL_CENTERS = new UnitVector[LAT_CELLS * LON_CELLS];
+    private static final double[] CELL_RADII = new double[LAT_CELLS * LON_CELLS];
+
+    static {
+        int samples = 8;
+        for (int latCell = 0; latCell < LAT_CELLS; latCell++) {
+            double minLat = -90 + latCell * CELL_SIZE;
+            // all the cells of a row have the same shape
+            UnitVector center = UnitVector.of(minLat + CELL_SIZE / 2, CELL_SIZE / 2);
+            double radius = 0;
+            for (int i = 0; i <= samples; i++) {
+                double t = i * CELL_SIZE / samples;
+                radius = Math.max(radius, center.greatCircleDistance(UnitVector.of(minLat, t)));
+                radius = Math.max(radius, center.greatCircleDistance(UnitVector.of(minLat + CELL_SIZE, t)));
+                radius = Math.max(radius, center.greatCircleDistance(UnitVector.of(minLat + t, 0)));
+                radius = Math.max(radius, center.greatCircleDistance(UnitVector.of(minLat + t, CELL_SIZE)));
+            }
+
+            for (int lonCell = 0; lonCell < LON_CELLS; lonCell++) {
+                int cell = latCell * LON_CELLS + lonCell;
+                CELL_CENTERS[cell] = UnitVector.of(minLat + CELL_SIZE / 2, -180 + (lonCell + 0.5) * CELL_SIZE);
+                CELL_RADII[cell] = radius * 1.01 + 1.0;
+            }
+        }
+    }
+
+    private record Entry(long bucket, int cell, long pWave, boolean sWave) {
+
+        boolean sameSlot(Entry other) {
+            return other != null && bucket == other.bucket && cell == other.cell;
+        }
+    }
+
+    private static final Entry NOT_INDEXED = new Entry(Long.MIN_VALUE, -1, 0, false);
+
+    private final NavigableMap<Long, Map<Integer, Set<Event>>> buckets = new TreeMap<>();
+    private final Map<Event, Entry> entries = new HashMap<>();
+    private final Set<Event> sWaves = new HashSet<>();
+
+    // changed picks and how they were before the first of their changes
+    private final Map<Event, Entry> changes = new LinkedHashMap<>();
+
+    static int getCell(double lat, double lon) {
+        int latCell = Math.max(0, Math.min(LAT_CELLS - 1, (int) Math.floor((lat + 90) / CELL_SIZE)));
+        int lonCell = Math.floorMod((int) Math.floor((lon + 180) / CELL_SIZE), LON_CELLS);
+        return latCell * LON_CELLS + lonCell;
+    }
+
+    /**
+     * Makes the stations report their picks to this index and indexes the events they already have
+     */
+    public synchronized void attach(Collection<AbstractStation> stations) {
+        clear();
+        for (AbstractStation station : stations) {
+            station.getAnalysis().setPickIndex(this);
+            for (Event event : station.getAnalysis().getDetectedEvents()) {
+                update(event);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+        entries.clear();
+        sWaves.clear();
+        changes.clear();
+    }
+
+    /**
+     * Moves the event to where its current state belongs, or removes it if it's not a valid pick anymore
+     */
+    public synchronized void update(Event event) {
+        Entry old = entries.get(event);
+        if (!event.isValid() || event.getpWave() <= 0) {
+            if (old != null) {
+                remove(event);
+            }
+            return;
+        }
+
+        AbstractStation station = event.getAnalysis().getStation();
+        Entry entry = new Entry(Math.floorDiv(event.getpWave(), BUCKET_SIZE), getCell(station.getLatitude(), station.getLongitude()),
+                event.getpWave(), event.isSWave());
+        if (entry.equals(old)) {
+            return;
+        }
+
+        if (!entry.sameSlot(old)) {
+            if (old != null) {
+                removeEntry(event, old);
+            }
+            buckets.computeIfAbsent(entry.bucket(), k -> new HashMap<>())
+                    .computeIfAbsent(entry.cell(), k -> new HashSet<>()).add(event);
+        }
+
+        entries.put(event, entry);
+        if (entry.sWave()) {
+            sWaves.add(event);
+        } else {
+            sWaves.remove(event);
+        }
+
+        changed(event, old);
+        prune();
+    }
+
+    public synchronized void remove(Event event) {
+        Entry entry = entries.remove(event);
+        if (entry != null) {
+            removeEntry(event, entry);
+            changed(event, entry);
+        }
+        sWaves.remove(event);
+    }
+
+    private void changed(Event event, Entry old) {
+        changes.putIfAbsent(event, old == null ? NOT_INDEXED : old);
+        notifyAll();
+    }
+
+    /**
+     * @return picks that changed since the last call, without the ones that changed back in the meantime
+     */
+    public synchronized List<Event> pollChanges() {
+        List<Event> result = new ArrayList<>();
+        for (Map.Entry<Event, Entry> change : changes.entrySet()) {
+            if (!change.getValue().equals(entries.getOrDefault(change.getKey(), NOT_INDEXED))) {
+                result.add(change.getKey());
+            }
+        }
+
+        changes.clear();
+        return result;
+    }
+
+    /**
+     * Waits until some pick changes, returns right away if some already did since the last {@link #pollChanges()}
+     *
+     * @return true if there are changes to poll, false if the time ran out
+     */
+    public synchronized boolean awaitChanges(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (changes.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+
+        return true;
+    }
+
+    private void removeEntry(Event event, Entry entry) {
+        Map<Integer, Set<Event>> cells = buckets.get(entry.bucket());
+        Set<Event> events = cells.get(entry.cell());
+        events.remove(event);
+        if (events.isEmpty()) {
+            cells.remove(entry.cell());
+            if (cells.isEmpty()) {
+                buckets.remove(entry.bucket());
+            }
+        }
+    }
+
+    private void prune() {
+        long oldest = buckets.lastKey() - MAX_PICK_AGE / BUCKET_SIZE;
+        while (buckets.firstKey() < oldest) {
+            for (Set<Event> events : buckets.pollFirstEntry().getValue().values()) {
+                for (Event event : events) {
+                    entries.remove(event);
+                    sWaves.remove(event);
+                    changes.remove(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param maxDistance great circle distance from the center in km
+     * @param from        earliest P wave time
+     * @param to          latest P wave time
+     * @return valid picks of stations within the distance with their P wave within the time range
+     */
+    public synchronized List<Event> query(UnitVector center, double maxDistance, long from, long to) {
+        List<Event> result = new ArrayList<>();
+        if (from > to) {
+            return result;
+        }
+
+        boolean[] visible = new boolean[CELL_CENTERS.length];
+        boolean[] checked = new boolean[CELL_CENTERS.length];
+        for (Map<Integer, Set<Event>> cells : buckets.subMap(Math.floorDiv(from, BUCKET_SIZE), true,
+                Math.floorDiv(to, BUCKET_SIZE), true).values()) {
+            for (Map.Entry<Integer, Set<Event>> cellEntry : cells.entrySet()) {
+                int cell = cellEntry.getKey();
+                if (!checked[cell]) {
+                    checked[cell] = true;
+                    visible[cell] = CELL_CENTERS[cell].greatCircleDistance(center) - CELL_RADII[cell] <= maxDistance;
+                }
+
+                if (!visible[cell]) {
+                    continue;
+                }
+
+                for (Event event : cellEntry.getValue()) {
+                    if (event.getpWave() >= from && event.getpWave() <= to
+                            && event.getUnitVectorFromStation().greatCircleDistance(center) <= maxDistance) {
+                        result.add(event);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return all the valid picks
+     */
+    public synchronized List<Event> getPicks() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * @return valid picks marked as S waves
+     */
+    public synchronized List<Event> getSWaves() {
+        return new ArrayList<>(sWaves);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
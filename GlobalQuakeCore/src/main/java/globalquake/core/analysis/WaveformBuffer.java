@@ -1,5 +1,8 @@
 package globalquake.core.analysis;
 
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -16,18 +19,53 @@ public class WaveformBuffer {
     private final Lock readLock;
     private final Lock writeLock;
     private final boolean server;
+    private final boolean lockFree;
+    private final boolean compact;
+
+    // seqlock version, odd while the single writer is modifying the buffer
+    private volatile int version;
     private int size;
     private long lastLog;
     private int[] rawValues;
     private int[] times;
     private float[][] computed;
+    private CompactWaveformStorage compactStorage;
 
     private int nextFreeSlot;
     private int oldestDataSlot;
     private long timeReference = Long.MIN_VALUE;
 
     public WaveformBuffer(double sps, int seconds, boolean server) {
+        this(sps, seconds, server, false);
+    }
+
+    /**
+     * @param lockFree if true, the buffer expects a single writer thread and lets readers run optimistically
+     *                 against a seqlock instead of blocking the writer with the read-write lock
+     */
+    public WaveformBuffer(double sps, int seconds, boolean server, boolean lockFree) {
+        this(sps, seconds, server, lockFree, false);
+    }
+
+    /**
+     * @param compact if true, the times and ratios are kept off-heap in {@link CompactWaveformStorage},
+     *                which is 7 bytes per sample, but the ratios are only stored with half float precision.
+     *                Only available in server mode.
+     */
+    public WaveformBuffer(double sps, int seconds, boolean server, boolean lockFree, boolean compact) {
+        this(sps, seconds, server, lockFree, compact, true);
+    }
+
+    /**
+     * @param offHeap if false, the compact storage is kept on the heap, which suits the short-lived extracted buffers
+     */
+    private WaveformBuffer(double sps, int seconds, boolean server, boolean lockFree, boolean compact, boolean offHeap) {
+        if(compact && !server){
+            throw new IllegalArgumentException("Compact waveform buffer is only supported in server mode!");
+        }
         this.server = server;
+        this.lockFree = lockFree;
+        this.compact = compact;
         this.sps = sps;
         this.size = (int) Math.ceil(seconds * sps);
 
@@ -39,8 +77,12 @@ public class WaveformBuffer {
             rawValues = new int[size];
         }
 
-        times = new int[size];
-        computed = new float[getComputedCount()][size];
+        if(compact) {
+            compactStorage = new CompactWaveformStorage(sps, size, offHeap);
+        } else {
+            times = new int[size];
+            computed = new float[getComputedCount()][size];
+        }
         this.lastLog = Long.MIN_VALUE;
         this.nextFreeSlot = 0;
         this.oldestDataSlot = 0;
@@ -63,6 +105,20 @@ public class WaveformBuffer {
             computed[FILTERED_VALUE][nextFreeSlot] = filteredV;
         }
 
+        if(compact){
+            compactStorage.set(nextFreeSlot, time, ratio, mediumRatio, specialRatio);
+        } else {
+            logUncompressed(time, ratio, mediumRatio, specialRatio);
+        }
+
+        if (nextFreeSlot == oldestDataSlot && !isEmpty()) {
+            oldestDataSlot = (oldestDataSlot + 1) % size;
+        }
+        nextFreeSlot = (nextFreeSlot + 1) % size;
+        lastLog = time;
+    }
+
+    private void logUncompressed(long time, float ratio, float mediumRatio, float specialRatio) {
         if(timeReference == Long.MIN_VALUE){
             timeReference = time;
         }
@@ -79,12 +135,6 @@ public class WaveformBuffer {
         computed[RATIO][nextFreeSlot] = ratio;
         computed[MEDIUM_RATIO][nextFreeSlot] = mediumRatio;
         computed[SPECIAL_RATIO][nextFreeSlot] = specialRatio;
-
-        if (nextFreeSlot == oldestDataSlot && !isEmpty()) {
-            oldestDataSlot = (oldestDataSlot + 1) % size;
-        }
-        nextFreeSlot = (nextFreeSlot + 1) % size;
-        lastLog = time;
     }
 
     private void changeReference() {
@@ -113,6 +163,10 @@ public class WaveformBuffer {
     }
 
     private void _resize(int new_size) {
+        if(compact){
+            _resizeCompact(new_size);
+            return;
+        }
         boolean server = isServer();
         int[] new_times = new int[new_size];
         int[] new_rawValues = server ? null : new int[new_size];
@@ -150,6 +204,27 @@ public class WaveformBuffer {
         this.size = new_size;
     }
 
+    private void _resizeCompact(int new_size) {
+        CompactWaveformStorage new_storage = new CompactWaveformStorage(sps, new_size, compactStorage.isOffHeap());
+
+        // same slots as the uncompressed resize, but copied oldest first because the storage is written in ring order
+        int count = Math.min(size, new_size);
+        int start = new_size - count;
+        int index = Math.floorMod(nextFreeSlot - count, size);
+        for(int i = 0; i < count; i++){
+            new_storage.set(start + i, compactStorage.getTime(index),
+                    compactStorage.getComputed(RATIO, index),
+                    compactStorage.getComputed(MEDIUM_RATIO, index),
+                    compactStorage.getComputed(SPECIAL_RATIO, index));
+            index = (index + 1) % size;
+        }
+
+        this.compactStorage = new_storage;
+        this.oldestDataSlot = start;
+        this.nextFreeSlot = 0;
+        this.size = new_size;
+    }
+
     private int getComputedCount() {
         return isServer() ? COMPUTED_COUNT_SERVER : COMPUTED_COUNT_CLIENT;
     }
@@ -171,6 +246,9 @@ public class WaveformBuffer {
     }
 
     public long getTime(int index){
+        if(compact){
+            return compactStorage.getTime(index);
+        }
         return timeReference + times[index];
     }
 
@@ -179,6 +257,9 @@ public class WaveformBuffer {
     }
 
     public float getComputed(int type, int index){
+        if(compact){
+            return compactStorage.getComputed(type, index);
+        }
         return computed[type][index];
     }
 
@@ -209,6 +290,91 @@ public class WaveformBuffer {
                 computed[SPECIAL_RATIO][index]);
     }
 
+    public boolean isLockFree() {
+        return lockFree;
+    }
+
+    /**
+     * Must be called by the writer before modifying the buffer (logging or resizing).
+     * In lock-free mode, there must be only one writer thread.
+     */
+    public void beginWrite() {
+        if (!lockFree) {
+            writeLock.lock();
+            return;
+        }
+        version = version + 1;
+        VarHandle.storeStoreFence();
+    }
+
+    public void endWrite() {
+        if (!lockFree) {
+            writeLock.unlock();
+            return;
+        }
+        version = version + 1;
+    }
+
+    private int awaitStableVersion() {
+        int stamp;
+        while (((stamp = version) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return stamp;
+    }
+
+    private boolean validate(int stamp) {
+        VarHandle.loadLoadFence();
+        return version == stamp;
+    }
+
+    /**
+     * Returns a consistent copy of all the logs except the newest one without blocking the writer in lock-free mode.
+     */
+    public List<Log> getLogs() {
+        if (!lockFree) {
+            readLock.lock();
+            try {
+                return collectLogs();
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        while (true) {
+            int stamp = awaitStableVersion();
+            try {
+                List<Log> logs = collectLogs();
+                if (validate(stamp)) {
+                    return logs;
+                }
+            } catch (RuntimeException e) {
+                // torn read caused by concurrent resize, retry unless the data was consistent
+                if (validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private List<Log> collectLogs() {
+        List<Log> logs = new ArrayList<>();
+        if (isEmpty()) {
+            return logs;
+        }
+
+        int _size = size;
+        int index = getOldestDataSlot();
+        int newest = getNewestDataSlot();
+        // bounded so that an inconsistent read can never loop forever
+        for (int i = 0; i < _size && index != newest; i++) {
+            logs.add(toLog(index));
+            index = (index + 1) % _size;
+        }
+
+        return logs;
+    }
+
     public Lock getReadLock() {
         return readLock;
     }
@@ -231,7 +397,7 @@ public class WaveformBuffer {
         // additional space
         seconds  = (int)(seconds * 1.4);
 
-        WaveformBuffer result = new WaveformBuffer(sps, seconds, server);
+        WaveformBuffer result = new WaveformBuffer(sps, seconds, server, lockFree, compact, false);
 
         if(isEmpty()){
             return result;
@@ -284,6 +450,10 @@ public class WaveformBuffer {
         return server;
     }
 
+    public boolean isCompact() {
+        return compact;
+    }
+
     public void checkSize(int seconds) {
         int _size = (int) Math.ceil(seconds * sps);
         if(_size != size){
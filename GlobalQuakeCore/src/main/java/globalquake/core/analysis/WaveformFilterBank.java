@@ -0,0 +1,148 @@
+package globalquake.core.analysis;
+
+import gqserver.api.packets.station.InputType;
+import org.tinylog.Logger;
+import uk.me.berndporr.iirj.Biquad;
+import uk.me.berndporr.iirj.Butterworth;
+
+/**
+ * Equivalent of three {@link WaveformTransformator}s fed with the same input, with the biquad cascades of all
+ * three band passes fused into one flat array so that each sample goes through them in a single allocation-free loop.
+ */
+public class WaveformFilterBank {
+
+    public static final int BANDS = 3;
+    public static final int ORDER = 3;
+
+    // values stored for each biquad
+    private static final int A1 = 0;
+    private static final int A2 = 1;
+    private static final int B0 = 2;
+    private static final int B1 = 3;
+    private static final int B2 = 4;
+    private static final int V1 = 5;
+    private static final int V2 = 6;
+    private static final int STAGE_FIELDS = 7;
+
+    private final double sampleRate;
+    private final double sampleInterval;
+    private final InputType inputType;
+    private final double velocityMultiplier;
+
+    // [stage][band][field]
+    private final double[] cascades;
+
+    private final double[] currentValues = new double[BANDS];
+    private final double[] integratedValues = new double[BANDS];
+    private final double[] derivedValues = new double[BANDS];
+
+    /**
+     * @param frequencies min and max frequency of each of the three bands
+     */
+    public WaveformFilterBank(double[][] frequencies, double sensitivity, double sampleRate, InputType inputType) {
+        if (frequencies.length != BANDS) {
+            throw new IllegalArgumentException("Filter bank needs exactly %d bands!".formatted(BANDS));
+        }
+        if (sensitivity < 10) {
+            Logger.warn("Defaulting sensitivity from %.1f to %.1f!".formatted(sensitivity, WaveformTransformator.DEFAULT_SENSITIVITY));
+            sensitivity = WaveformTransformator.DEFAULT_SENSITIVITY;
+        }
+        this.sampleRate = sampleRate;
+        this.sampleInterval = 1.0 / sampleRate;
+        this.inputType = inputType;
+        this.velocityMultiplier = WaveformTransformator.DEFAULT_SENSITIVITY / sensitivity;
+
+        Butterworth[] filters = new Butterworth[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            double minFreq = frequencies[band][0];
+            double maxFreq = frequencies[band][1];
+            filters[band] = new Butterworth();
+            filters[band].bandPass(ORDER, sampleRate, (minFreq + maxFreq) * 0.5, (maxFreq - minFreq));
+        }
+
+        int stages = filters[0].getNumBiquads();
+        this.cascades = new double[stages * BANDS * STAGE_FIELDS];
+
+        for (int band = 0; band < BANDS; band++) {
+            if (filters[band].getNumBiquads() != stages) {
+                throw new IllegalArgumentException("All bands must have the same number of biquads!");
+            }
+            for (int stage = 0; stage < stages; stage++) {
+                Biquad biquad = filters[band].getBiquad(stage);
+                double a0 = biquad.getA0();
+                int i = (stage * BANDS + band) * STAGE_FIELDS;
+                cascades[i + A1] = biquad.getA1() / a0;
+                cascades[i + A2] = biquad.getA2() / a0;
+                cascades[i + B0] = biquad.getB0() / a0;
+                cascades[i + B1] = biquad.getB1() / a0;
+                cascades[i + B2] = biquad.getB2() / a0;
+            }
+        }
+    }
+
+    public void accept(double in) {
+        final double[] c = cascades;
+
+        // all the bands see the same input and each stage of the three cascades is stored contiguously
+        double x0 = in;
+        double x1 = in;
+        double x2 = in;
+        for (int i = 0; i < c.length; i += STAGE_FIELDS * BANDS) {
+            x0 = process(c, i, x0);
+            x1 = process(c, i + STAGE_FIELDS, x1);
+            x2 = process(c, i + 2 * STAGE_FIELDS, x2);
+        }
+
+        update(0, x0);
+        update(1, x1);
+        update(2, x2);
+    }
+
+    // Direct Form II, same as iirj
+    private static double process(double[] c, int i, double in) {
+        double v1 = c[i + V1];
+        double v2 = c[i + V2];
+        double w = in - c[i + A1] * v1 - c[i + A2] * v2;
+        c[i + V2] = v1;
+        c[i + V1] = w;
+        return c[i + B0] * w + c[i + B1] * v1 + c[i + B2] * v2;
+    }
+
+    private void update(int band, double value) {
+        double lastValue = currentValues[band];
+        currentValues[band] = value;
+        integratedValues[band] = (integratedValues[band] + value * sampleInterval) * 0.999;
+        derivedValues[band] = (value - lastValue) * sampleRate;
+    }
+
+    public double getCurrentValue(int band) {
+        return currentValues[band];
+    }
+
+    public double getVelocity(int band) {
+        switch (inputType) {
+            case ACCELERATION -> {
+                return integratedValues[band] * velocityMultiplier;
+            }
+            case DISPLACEMENT -> {
+                return derivedValues[band] * velocityMultiplier;
+            }
+            default -> {
+                return currentValues[band] * velocityMultiplier;
+            }
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < cascades.length; i += STAGE_FIELDS) {
+            cascades[i + V1] = 0.0;
+            cascades[i + V2] = 0.0;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            currentValues[band] = 0.0;
+            integratedValues[band] = 0.0;
+            derivedValues[band] = 0.0;
+        }
+    }
+
+}
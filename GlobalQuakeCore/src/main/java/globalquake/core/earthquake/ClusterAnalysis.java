@@ -11,8 +11,10 @@ import globalquake.core.intensity.IntensityTable;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.earthquake.data.*;
 import globalquake.core.analysis.Event;
+import globalquake.core.analysis.PickIndex;
 import globalquake.core.station.NearbyStationDistanceInfo;
 import globalquake.utils.GeoUtils;
+import globalquake.utils.UnitVector;
 import globalquake.utils.monitorable.MonitorableConcurrentLinkedQueue;
 import org.tinylog.Logger;
 
@@ -21,6 +23,9 @@ import java.util.Map.Entry;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
 
 public class ClusterAnalysis {
 
@@ -32,39 +37,269 @@ public class ClusterAnalysis {
     protected final Collection<Cluster> clusters;
     private final Collection<Earthquake> earthquakes;
     private final Collection<AbstractStation> stations;
+    private final PickIndex pickIndex;
+
+    /**
+     * Clusters that lost some events, their expansion has to be repeated in the next update even without new picks
+     */
+    private final Set<Cluster> pendingClusters = new HashSet<>();
+    private final Map<Cluster, PickWindow> pickWindows = new HashMap<>();
+    private Map<AbstractStation, List<AbstractStation>> nearbyOf = Map.of();
+    private int nearbyOfStations = -1;
 
     private static final double MERGE_THRESHOLD = 0.54;
 
+    /**
+     * Step of the search for the distance where the expected intensity drops below the threshold
+     */
+    private static final double REACH_STEP = 10.0;
+
+    private static final double MAX_REACH = Math.PI * GeoUtils.EARTH_RADIUS;
+
+    /**
+     * Added to both ends of the time window where the picks of an earthquake are looked for, in seconds
+     */
+    private static final double PICK_WINDOW_MARGIN = 60.0;
+
     public ClusterAnalysis(List<Earthquake> earthquakes, Collection<AbstractStation> stations) {
+        this(earthquakes, stations, createPickIndex(stations));
+    }
+
+    public ClusterAnalysis() {
+        this(GlobalQuake.instance.getEarthquakeAnalysis().getEarthquakes(), GlobalQuake.instance.getStationManager().getStations(),
+                GlobalQuake.instance.getStationManager().getPickIndex());
+    }
+
+    private ClusterAnalysis(List<Earthquake> earthquakes, Collection<AbstractStation> stations, PickIndex pickIndex) {
         this.earthquakes = earthquakes;
         this.stations = stations;
+        this.pickIndex = pickIndex;
         clusters = new MonitorableConcurrentLinkedQueue<>();
     }
 
-    public ClusterAnalysis() {
-        this(GlobalQuake.instance.getEarthquakeAnalysis().getEarthquakes(), GlobalQuake.instance.getStationManager().getStations());
+    private static PickIndex createPickIndex(Collection<AbstractStation> stations) {
+        PickIndex pickIndex = new PickIndex();
+        pickIndex.attach(stations);
+        return pickIndex;
     }
 
     public Lock getClustersReadLock() {
         return clustersReadLock;
     }
 
+    /**
+     * Full sweep over all the clusters and all the picks
+     */
     public void run() {
         clustersWriteLock.lock();
         try {
+            // everything is looked at anyway
+            pickIndex.pollChanges();
+            pendingClusters.clear();
+
             clearSWaves();
             markSWaves();
             //assignEventsToExistingEarthquakeClusters(); VERY CONTROVERSIAL
-            expandExistingClusters();
-            createNewClusters();
-            stealEvents();
-            mergeClusters();
-            updateClusters();
+            expandExistingClusters(cluster -> true);
+            createNewClusters(pickIndex.getPicks());
+            Set<Event> stolen = stealEvents();
+            mergeClusters(cluster -> true);
+            updateClusters(stolen);
         } finally {
             clustersWriteLock.unlock();
         }
     }
 
+    /**
+     * Same passes as {@link #run()}, but only for what changed since the last update: the clusters are expanded only
+     * if a changed pick is in their neighbourhood or if their earthquake was revised, and new clusters are only
+     * looked for around the changed picks. When nothing changed, only the clusters are updated.
+     *
+     * @return clusters with new updates for the hypocenter search
+     */
+    public Set<Cluster> update() {
+        clustersWriteLock.lock();
+        try {
+            List<Event> changes = pickIndex.pollChanges();
+            Set<AbstractStation> neighbourhood = findNeighbourhood(changes);
+            Set<Cluster> affected = findAffectedClusters(changes, neighbourhood);
+            if (changes.isEmpty() && affected.isEmpty()) {
+                return updateClusters(Set.of());
+            }
+
+            Map<Cluster, Integer> sizes = new HashMap<>();
+            for (Cluster cluster : clusters) {
+                sizes.put(cluster, cluster.getAssignedEvents().size());
+            }
+
+            // the S waves of one cluster can be cleared by any other, so those passes always go through all of them
+            clearSWaves();
+            markSWaves();
+            expandExistingClusters(affected::contains);
+
+            createNewClusters(findSeeds(changes));
+            for (Cluster cluster : clusters) {
+                if (!sizes.containsKey(cluster)) {
+                    affected.add(cluster);
+                }
+            }
+
+            Set<Event> stolen = stealEvents();
+            mergeClusters(affected::contains);
+            Set<Cluster> updated = updateClusters(stolen);
+
+            // the expansion takes at most one more event from each event at a time, it can continue with the grown cluster
+            for (Cluster cluster : clusters) {
+                if (cluster.getAssignedEvents().size() > sizes.getOrDefault(cluster, 0)) {
+                    pendingClusters.add(cluster);
+                }
+            }
+
+            return updated;
+        } finally {
+            clustersWriteLock.unlock();
+        }
+    }
+
+    /**
+     * @return stations of the changed picks and the stations that have them among their nearby stations
+     */
+    private Set<AbstractStation> findNeighbourhood(List<Event> changes) {
+        Set<AbstractStation> result = new HashSet<>();
+        Set<AbstractStation> done = new HashSet<>();
+        Map<AbstractStation, List<AbstractStation>> nearbyOf = getNearbyOf();
+        for (Event event : changes) {
+            AbstractStation station = event.getAnalysis().getStation();
+            if (done.add(station)) {
+                result.add(station);
+                result.addAll(nearbyOf.getOrDefault(station, List.of()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Pending clusters, the ones with a revised earthquake and the ones that could take some of the changed picks,
+     * either as P waves of their earthquake or through the nearby stations of their events
+     */
+    private Set<Cluster> findAffectedClusters(List<Event> changes, Set<AbstractStation> neighbourhood) {
+        Set<Cluster> result = new HashSet<>(pendingClusters);
+        pendingClusters.clear();
+
+        List<PickWindow> windows = new ArrayList<>();
+        for (Cluster cluster : clusters) {
+            PickWindow window = pickWindows.get(cluster);
+            if (window == null || window.revisionID() != cluster.revisionID) {
+                window = createPickWindow(cluster);
+                pickWindows.put(cluster, window);
+                result.add(cluster);
+            }
+
+            if (result.contains(cluster)) {
+                continue;
+            }
+
+            if (window.earthquake() != null) {
+                windows.add(window);
+            }
+
+            for (AbstractStation station : cluster.getAssignedEvents().keySet()) {
+                if (neighbourhood.contains(station)) {
+                    result.add(cluster);
+                    break;
+                }
+            }
+        }
+
+        pickWindows.keySet().retainAll(clusters);
+
+        for (PickWindow window : windows) {
+            if (result.contains(window.cluster())) {
+                continue;
+            }
+
+            for (Event event : changes) {
+                if (window.contains(event)) {
+                    result.add(window.cluster());
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return picks in the neighbourhood of the changed picks that could now start a new cluster
+     */
+    private List<Event> findSeeds(List<Event> changes) {
+        Set<Event> result = new HashSet<>(changes);
+        Set<AbstractStation> done = new HashSet<>();
+        Map<AbstractStation, List<AbstractStation>> nearbyOf = getNearbyOf();
+        for (Event event : changes) {
+            for (AbstractStation other : nearbyOf.getOrDefault(event.getAnalysis().getStation(), List.of())) {
+                if (!done.add(other)) {
+                    continue;
+                }
+
+                for (Event e : other.getAnalysis().getDetectedEvents()) {
+                    if (e.isValid() && !e.isSWave() && e.getpWave() > 0 && e.assignedCluster == null) {
+                        result.add(e);
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * @return for each station the stations that have it among their nearby stations
+     */
+    private Map<AbstractStation, List<AbstractStation>> getNearbyOf() {
+        if (nearbyOfStations != stations.size()) {
+            Map<AbstractStation, List<AbstractStation>> result = new HashMap<>();
+            for (AbstractStation station : stations) {
+                for (NearbyStationDistanceInfo info : station.getNearbyStations()) {
+                    result.computeIfAbsent(info.station(), k -> new ArrayList<>()).add(station);
+                }
+            }
+
+            nearbyOf = result;
+            nearbyOfStations = stations.size();
+        }
+
+        return nearbyOf;
+    }
+
+    /**
+     * Where and when the picks the earthquake of the cluster could take are, as of the given revision
+     */
+    private record PickWindow(Cluster cluster, int revisionID, Earthquake earthquake, double reach, long from, long to) {
+
+        boolean contains(Event event) {
+            return event.getpWave() >= from && event.getpWave() <= to
+                    && event.getUnitVectorFromStation().greatCircleDistance(earthquake.getUnitVector()) <= reach;
+        }
+    }
+
+    private static PickWindow createPickWindow(Cluster cluster) {
+        Earthquake earthquake = cluster.getEarthquake();
+        if (earthquake == null) {
+            return new PickWindow(cluster, cluster.revisionID, null, 0, 0, 0);
+        }
+
+        double pReach = getReach(distGC -> IntensityTable.getRatio(earthquake.getMag(), GeoUtils.gcdToGeo(distGC)));
+        double sReach = getReach(distGC -> IntensityTable.getIntensity(earthquake.getMag(), GeoUtils.gcdToGeo(distGC)));
+        double latest = Math.max(getLatestArrival(earthquake.getDepth(), pReach, TauPTravelTimeCalculator::getPWaveTravelTime,
+                        TauPTravelTimeCalculator::getPKPWaveTravelTime, TauPTravelTimeCalculator::getPKIKPWaveTravelTime) * 1.01,
+                getLatestArrival(earthquake.getDepth(), sReach, TauPTravelTimeCalculator::getSWaveTravelTime) * 1.05);
+        return new PickWindow(cluster, cluster.revisionID, earthquake, Math.max(pReach, sReach),
+                earthquake.getOrigin() - (long) (PICK_WINDOW_MARGIN * 1000),
+                earthquake.getOrigin() + (long) ((latest + PICK_WINDOW_MARGIN) * 1000));
+    }
+
     private void markSWaves() {
         for(Cluster cluster: getClusters()){
             markPossibleSWaves(cluster);
@@ -76,29 +311,36 @@ public class ClusterAnalysis {
 
     record EventIntensityInfo(Cluster cluster, AbstractStation station, double expectedIntensity){}
 
-    private void stealEvents() {
+    /**
+     * @return S waves that were assigned to some cluster, only to be removed from it again by {@link #updateClusters(Set)}
+     */
+    private Set<Event> stealEvents() {
+        // S waves are never P wave arrivals of any cluster, so all of them are candidates
+        List<Event> sWaves = pickIndex.getSWaves();
+
         java.util.Map<Event, EventIntensityInfo> map = new HashMap<>();
         for(Cluster cluster : clusters) {
             if (cluster.getEarthquake() == null) {
                 continue;
             }
 
-            for (AbstractStation station : stations) {
-                for (Event event : station.getAnalysis().getDetectedEvents()) {
-                    if (event.isValid() && event.isSWave() && !couldBeArrival(event, cluster.getEarthquake(), true, false, true)) {
-                        double distGC = GeoUtils.greatCircleDistance(event.getLatFromStation(), event.getLonFromStation(), cluster.getEarthquake().getLat(), cluster.getEarthquake().getLon());
-                        double expectedIntensity = IntensityTable.getIntensity(cluster.getEarthquake().getMag(), GeoUtils.gcdToGeo(distGC));
-                        EventIntensityInfo eventIntensityInfo = new EventIntensityInfo(cluster, station, expectedIntensity);
-                        EventIntensityInfo old = map.putIfAbsent(event, eventIntensityInfo);
-                        if(old != null && eventIntensityInfo.expectedIntensity > old.expectedIntensity){
-                            map.put(event, eventIntensityInfo);
-                        }
-                    }
+            for (Event event : sWaves) {
+                if (!event.isValid() || !event.isSWave()) {
+                    continue;
+                }
+
+                double distGC = event.getUnitVectorFromStation().greatCircleDistance(cluster.getEarthquake().getUnitVector());
+                double expectedIntensity = IntensityTable.getIntensity(cluster.getEarthquake().getMag(), GeoUtils.gcdToGeo(distGC));
+                EventIntensityInfo eventIntensityInfo = new EventIntensityInfo(cluster, event.getAnalysis().getStation(), expectedIntensity);
+                EventIntensityInfo old = map.putIfAbsent(event, eventIntensityInfo);
+                if(old != null && eventIntensityInfo.expectedIntensity > old.expectedIntensity){
+                    map.put(event, eventIntensityInfo);
                 }
             }
         }
 
         // reassign
+        Set<Event> stolen = new HashSet<>();
         for(var entry : map.entrySet()){
             Event event = entry.getKey();
             AbstractStation station = entry.getValue().station();
@@ -107,34 +349,45 @@ public class ClusterAnalysis {
             if(!cluster.getAssignedEvents().containsKey(station)){
                 if(event.assignedCluster != null){
                     event.assignedCluster.getAssignedEvents().remove(station);
+                    pendingClusters.add(event.assignedCluster);
                 }
 
-                event.assignedCluster = cluster;
+                event.assignTo(cluster);
                 cluster.getAssignedEvents().put(station, event);
+                stolen.add(event);
             }
         }
+
+        return stolen;
     }
 
     private void clearSWaves() {
+        List<Event> sWaves = pickIndex.getSWaves();
         for(Cluster cluster : clusters) {
             if(cluster.getEarthquake() == null){
                 continue;
             }
 
-            for (AbstractStation station : stations) {
-                for (Event event : station.getAnalysis().getDetectedEvents()) {
-                    if (event.isValid() && event.isSWave() && (!couldBeSArrival(event, cluster.getEarthquake())
-                            || couldBeArrival(event, cluster.getEarthquake(), true, false, true))) {
-                        event.setAsSWave(false);
-                    }
+            for (Event event : sWaves) {
+                if (event.isValid() && event.isSWave() && (!couldBeSArrival(event, cluster.getEarthquake())
+                        || couldBeArrival(event, cluster.getEarthquake(), true, false, true))) {
+                    event.setAsSWave(false);
                 }
             }
         }
     }
 
     private void markPossibleSWaves(Cluster cluster) {
-        for (AbstractStation station : stations) {
-            for (Event event : station.getAnalysis().getDetectedEvents()) {
+        Earthquake earthquake = cluster.getEarthquake();
+        if (earthquake == null) {
+            return;
+        }
+
+        double reach = getReach(distGC -> IntensityTable.getIntensity(earthquake.getMag(), GeoUtils.gcdToGeo(distGC)));
+        // the S wave window grows with the travel time
+        double latest = getLatestArrival(earthquake.getDepth(), reach, TauPTravelTimeCalculator::getSWaveTravelTime) * 1.05;
+        for (List<Event> events : findPicks(earthquake, reach, latest).values()) {
+            for (Event event : events) {
                 if (event.isValid() && !event.isSWave() && (couldBeSArrival(event, cluster.getEarthquake())
                         && !couldBeArrival(event,cluster.getEarthquake(), true, false, true))) {
                     event.setAsSWave(true);
@@ -144,12 +397,16 @@ public class ClusterAnalysis {
     }
 
 
-    private void mergeClusters() {
+    /**
+     * @param changed clusters that could have become mergeable, the others are only merged into them
+     */
+    private void mergeClusters(Predicate<Cluster> changed) {
         for (Earthquake earthquake : earthquakes) {
             List<Cluster> toMerge = null;
+            boolean changedEarthquake = changed.test(earthquake.getCluster());
 
             for (Cluster cluster : clusters) {
-                if (earthquake.getCluster() == cluster) {
+                if (earthquake.getCluster() == cluster || !(changedEarthquake || changed.test(cluster))) {
                     continue;
                 }
 
@@ -169,10 +426,11 @@ public class ClusterAnalysis {
 
     private void merge(Earthquake earthquake, List<Cluster> toMerge) {
         Cluster target = earthquake.getCluster();
+        pendingClusters.add(target);
         for (Cluster cluster : toMerge) {
             for (Entry<AbstractStation, Event> entry : cluster.getAssignedEvents().entrySet()) {
                 if (target.getAssignedEvents().putIfAbsent(entry.getKey(), entry.getValue()) == null) {
-                    entry.getValue().assignedCluster = target;
+                    entry.getValue().assignTo(target);
                 }
             }
 
@@ -190,7 +448,7 @@ public class ClusterAnalysis {
     private boolean canMerge(Earthquake earthquake, Cluster cluster) {
         if(cluster.getEarthquake() != null && cluster.getPreviousHypocenter() != null){
             int thatCorrect = cluster.getPreviousHypocenter().correctEvents;
-            double dist = GeoUtils.greatCircleDistance(earthquake.getLat(), earthquake.getLon(), cluster.getEarthquake().getLat(), cluster.getEarthquake().getLon());
+            double dist = earthquake.getUnitVector().greatCircleDistance(cluster.getEarthquake().getUnitVector());
             double maxDist = 6000 / (1 + thatCorrect * 0.2);
             if(dist > maxDist){
                 return false;
@@ -226,7 +484,7 @@ public class ClusterAnalysis {
                         Event event2 = entry.getValue();
                         if (!cluster.containsStation(event2.getAnalysis().getStation())) {
                             if (cluster.getAssignedEvents().putIfAbsent(station, event2) == null) {
-                                event2.assignedCluster = cluster;
+                                event2.assignTo(cluster);
                             }
                         }
                     }
@@ -243,8 +501,7 @@ public class ClusterAnalysis {
         }
         long actualTravel = event.getpWave() - earthquake.getOrigin();
 
-        double distGC = GeoUtils.greatCircleDistance(earthquake.getLat(), earthquake.getLon(),
-                event.getLatFromStation(), event.getLonFromStation());
+        double distGC = earthquake.getUnitVector().greatCircleDistance(event.getUnitVectorFromStation());
         double angle = TauPTravelTimeCalculator.toAngle(distGC);
         double expectedTravelSRaw = TauPTravelTimeCalculator.getSWaveTravelTime(earthquake.getDepth(),
                 angle);
@@ -278,8 +535,8 @@ public class ClusterAnalysis {
             throw new IllegalArgumentException("Preliminary Hypocenter doesn't have magnitude and cannot be assessed using intensity.");
         }
 
-        return couldBeArrival(pickedEvent.lat(), pickedEvent.lon(), pickedEvent.elevation(), pickedEvent.pWave(),
-                bestHypocenter.lat, bestHypocenter.lon, bestHypocenter.depth, bestHypocenter.origin, 0,
+        return couldBeArrival(pickedEvent.unitVector(), pickedEvent.elevation(), pickedEvent.pWave(),
+                UnitVector.of(bestHypocenter.lat, bestHypocenter.lon), bestHypocenter.depth, bestHypocenter.origin, 0,
                 false, increasingPWindow, pWaveOnly);
     }
 
@@ -289,8 +546,8 @@ public class ClusterAnalysis {
             return false;
         }
 
-        return couldBeArrival(event.getLatFromStation(), event.getLonFromStation(), event.getElevationFromStation(), event.getpWave(),
-                earthquake.getLat(), earthquake.getLon(), earthquake.getDepth(), earthquake.getOrigin(), earthquake.getMag(),
+        return couldBeArrival(event.getUnitVectorFromStation(), event.getElevationFromStation(), event.getpWave(),
+                earthquake.getUnitVector(), earthquake.getDepth(), earthquake.getOrigin(), earthquake.getMag(),
                 considerIntensity, increasingPWindow, pWaveOnly);
     }
 
@@ -300,19 +557,26 @@ public class ClusterAnalysis {
             return false;
         }
 
-        return couldBeArrival(event.lat(), event.lon(), event.elevation(), event.pWave(),
-                earthquake.lat, earthquake.lon, earthquake.depth, earthquake.origin, earthquake.magnitude,
+        return couldBeArrival(event.unitVector(), event.elevation(), event.pWave(),
+                earthquake.unitVector, earthquake.depth, earthquake.origin, earthquake.magnitude,
                 considerIntensity, increasingPWindow, pWaveOnly);
     }
 
-    @SuppressWarnings("RedundantIfStatement")
     public static boolean couldBeArrival(double eventLat, double eventLon, double eventAlt, long pWave,
                                          double quakeLat, double quakeLon, double quakeDepth, long quakeOrigin, double quakeMag,
                                          boolean considerIntensity, boolean increasingPWindow, boolean pWaveOnly){
+        return couldBeArrival(UnitVector.of(eventLat, eventLon), eventAlt, pWave,
+                UnitVector.of(quakeLat, quakeLon), quakeDepth, quakeOrigin, quakeMag,
+                considerIntensity, increasingPWindow, pWaveOnly);
+    }
+
+    @SuppressWarnings("RedundantIfStatement")
+    public static boolean couldBeArrival(UnitVector eventPosition, double eventAlt, long pWave,
+                                         UnitVector quakePosition, double quakeDepth, long quakeOrigin, double quakeMag,
+                                         boolean considerIntensity, boolean increasingPWindow, boolean pWaveOnly){
         long actualTravel = pWave - quakeOrigin;
 
-        double distGC = GeoUtils.greatCircleDistance(quakeLat, quakeLon,
-                eventLat, eventLon);
+        double distGC = quakePosition.greatCircleDistance(eventPosition);
         double angle = TauPTravelTimeCalculator.toAngle(distGC);
         double expectedTravelPRaw = TauPTravelTimeCalculator.getPWaveTravelTime(quakeDepth,
                 angle);
@@ -358,9 +622,11 @@ public class ClusterAnalysis {
         return false;
     }
 
-    private void expandExistingClusters() {
+    private void expandExistingClusters(Predicate<Cluster> changed) {
         for (Cluster c : clusters) {
-            expandCluster(c);
+            if (changed.test(c)) {
+                expandCluster(c);
+            }
         }
     }
 
@@ -391,7 +657,7 @@ public class ClusterAnalysis {
 
             for (Event event : newEvents) {
                 if (cluster.getAssignedEvents().putIfAbsent(event.getAnalysis().getStation(), event) == null) {
-                    event.assignedCluster = cluster;
+                    event.assignTo(cluster);
                 }
             }
 
@@ -401,14 +667,23 @@ public class ClusterAnalysis {
     }
 
     private void expandPWaves(Cluster cluster) {
+        Earthquake earthquake = cluster.getEarthquake();
+        if (earthquake == null) {
+            return;
+        }
+
+        double reach = getReach(distGC -> IntensityTable.getRatio(earthquake.getMag(), GeoUtils.gcdToGeo(distGC)));
+        double latest = getLatestArrival(earthquake.getDepth(), reach, TauPTravelTimeCalculator::getPWaveTravelTime,
+                TauPTravelTimeCalculator::getPKPWaveTravelTime, TauPTravelTimeCalculator::getPKIKPWaveTravelTime) * 1.01;
         mainLoop:
-        for (AbstractStation station : stations) {
-            for (Event event : station.getAnalysis().getDetectedEvents()) {
+        for (Map.Entry<AbstractStation, List<Event>> entry : findPicks(earthquake, reach, latest).entrySet()) {
+            AbstractStation station = entry.getKey();
+            for (Event event : entry.getValue()) {
                 if (event.isValid() && !event.isSWave() &&
                         !cluster.containsStation(station) &&
                         couldBeArrival(event, cluster.getEarthquake(), true, true, false)) {
                     if (cluster.getAssignedEvents().putIfAbsent(station, event) == null) {
-                        event.assignedCluster = cluster;
+                        event.assignTo(cluster);
                     }
                     continue mainLoop;
                 }
@@ -416,6 +691,65 @@ public class ClusterAnalysis {
         }
     }
 
+    /**
+     * @param expectedIntensity expected intensity or ratio at a great circle distance
+     * @return distance beyond which the expected intensity is always below 3.0, the threshold used by the arrival checks
+     */
+    private static double getReach(DoubleUnaryOperator expectedIntensity) {
+        for (double distGC = MAX_REACH; distGC > 0; distGC -= REACH_STEP) {
+            // NaN passes the arrival checks too
+            if (!(expectedIntensity.applyAsDouble(distGC) < 3.0)) {
+                return Math.min(MAX_REACH, distGC + REACH_STEP);
+            }
+        }
+        return REACH_STEP;
+    }
+
+    /**
+     * @return the latest travel time in seconds of any of the phases to a distance within the reach
+     */
+    private static double getLatestArrival(double depth, double reach, DoubleBinaryOperator... phases) {
+        double maxAngle = TauPTravelTimeCalculator.toAngle(reach);
+        double result = 0;
+        // the travel times only grow with the distance between the samples, by less than the window margin
+        for (double angle = 0; ; angle = Math.min(maxAngle, angle + 1.0)) {
+            for (DoubleBinaryOperator phase : phases) {
+                result = Math.max(result, phase.applyAsDouble(depth, angle));
+            }
+
+            if (angle >= maxAngle) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * @param latest latest travel time in seconds to a station within the reach
+     * @return picks that could belong to the earthquake by their P wave time and distance, by their stations
+     */
+    private Map<AbstractStation, List<Event>> findPicks(Earthquake earthquake, double reach, double latest) {
+        long from = earthquake.getOrigin() - (long) (PICK_WINDOW_MARGIN * 1000);
+        long to = earthquake.getOrigin() + (long) ((latest + PICK_WINDOW_MARGIN) * 1000);
+        return groupByStation(pickIndex.query(earthquake.getUnitVector(), reach, from, to));
+    }
+
+    /**
+     * @return picks by their stations in the order of the station ids, the newest picks of each station first
+     * like in its detected events, so that the passes see them in the same order as when looping over all the stations
+     */
+    private static Map<AbstractStation, List<Event>> groupByStation(Collection<Event> picks) {
+        List<Event> sorted = new ArrayList<>(picks);
+        sorted.sort(Comparator.comparingInt((Event event) -> event.getAnalysis().getStation().getId())
+                .thenComparing(Comparator.comparingLong(Event::getpWave).reversed()));
+
+        Map<AbstractStation, List<Event>> result = new LinkedHashMap<>();
+        for (Event event : sorted) {
+            result.computeIfAbsent(event.getAnalysis().getStation(), station -> new ArrayList<>()).add(event);
+        }
+
+        return result;
+    }
+
     @SuppressWarnings("RedundantIfStatement")
     private boolean potentialArrival(Event ev, Event e, double dist) {
         if (e.isValid() && ev.isValid() && !ev.isSWave() && !e.isSWave() && ev.getpWave() > 0 && ev.assignedCluster == null) {
@@ -441,9 +775,13 @@ public class ClusterAnalysis {
         return false;
     }
 
-    private void createNewClusters() {
-        for (AbstractStation station : stations) {
-            for (Event event : station.getAnalysis().getDetectedEvents()) {
+    /**
+     * @param seeds picks to try to start new clusters from
+     */
+    private void createNewClusters(Collection<Event> seeds) {
+        for (Map.Entry<AbstractStation, List<Event>> entry : groupByStation(seeds).entrySet()) {
+            AbstractStation station = entry.getKey();
+            for (Event event : entry.getValue()) {
                 if (event.isValid() && !event.isSWave() && event.getpWave() > 0 && event.assignedCluster == null) {
                     // so we have eligible event
                     ArrayList<Event> validEvents = new ArrayList<>();
@@ -477,7 +815,12 @@ public class ClusterAnalysis {
 
     }
 
-    private void updateClusters() {
+    /**
+     * @param stolen S waves assigned by {@link #stealEvents()}, removing them doesn't change the clusters
+     * @return clusters that got new updates
+     */
+    private Set<Cluster> updateClusters(Set<Event> stolen) {
+        Set<Cluster> updated = new HashSet<>();
         Iterator<Cluster> it = clusters.iterator();
         List<Cluster> toBeRemoved = new ArrayList<>();
         List<Cluster> toBeRemovedBadly = new ArrayList<>();
@@ -490,6 +833,9 @@ public class ClusterAnalysis {
                 if (!event.isValid() || event.isSWave()) {
                     event.assignedCluster = null;
                     iterator.remove();
+                    if (!stolen.contains(event)) {
+                        pendingClusters.add(cluster);
+                    }
                 } else if (!event.hasEnded()) {
                     numberOfActiveEvents++;
                 }
@@ -508,7 +854,11 @@ public class ClusterAnalysis {
                     toBeRemovedBadly.add(cluster);
                 }
             } else {
+                int updateCount = cluster.updateCount;
                 cluster.tick();
+                if (cluster.updateCount != updateCount) {
+                    updated.add(cluster);
+                }
                 // if level changes or if it got updated (root location)
                 if(cluster.getLevel() != cluster.lastLevel || cluster.lastLastUpdate != cluster.getLastUpdate()){
                     GlobalQuake.instance.getEventHandler().fireEvent(new ClusterLevelUpEvent(cluster));
@@ -526,13 +876,15 @@ public class ClusterAnalysis {
         }
 
         clusters.removeAll(toBeRemoved);
+        toBeRemoved.forEach(pendingClusters::remove);
+        return updated;
     }
 
     private Cluster createCluster(ArrayList<Event> validEvents) {
         Cluster cluster = new Cluster();
         for (Event ev : validEvents) {
             if (cluster.getAssignedEvents().putIfAbsent(ev.getAnalysis().getStation(), ev) == null) {
-                ev.assignedCluster = cluster;
+                ev.assignTo(cluster);
                 cluster.addEvent();
             }
         }
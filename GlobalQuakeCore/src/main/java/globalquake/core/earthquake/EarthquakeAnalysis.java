@@ -13,15 +13,22 @@ import globalquake.core.events.specific.QuakeRemoveEvent;
 import globalquake.core.events.specific.QuakeUpdateEvent;
 import globalquake.core.geo.taup.TauPTravelTimeCalculator;
 import globalquake.core.intensity.IntensityTable;
+import globalquake.core.metrics.Metrics;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.station.StationState;
 import globalquake.utils.GeoUtils;
 import globalquake.utils.Point2DGQ;
+import globalquake.utils.QuickSelect;
+import globalquake.utils.UnitVector;
 import globalquake.utils.monitorable.MonitorableCopyOnWriteArrayList;
 import gqserver.api.packets.station.InputType;
 import org.tinylog.Logger;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -54,6 +61,8 @@ public class EarthquakeAnalysis {
 
     private ClusterAnalysis clusterAnalysis;
 
+    private final Set<Cluster> unscheduledClusters = ConcurrentHashMap.newKeySet();
+
     public boolean testing = false;
 
     public EarthquakeAnalysis() {
@@ -70,6 +79,30 @@ public class EarthquakeAnalysis {
     }
 
     public void run() {
+        runOnClusters(clusters -> clusters.parallelStream().forEach(cluster -> processCluster(cluster, createListOfPickedEvents(cluster), true)));
+    }
+
+    /**
+     * Same as {@link #run()}, but only the changed clusters and the ones that still wait for their revision,
+     * because the previous one was running or got superseded, are located on the scheduler instead of waiting for them.
+     */
+    public void run(HypocenterScheduler scheduler, Collection<Cluster> changedClusters) {
+        unscheduledClusters.addAll(changedClusters);
+        runOnClusters(clusters -> {
+            for (Cluster cluster : clusters) {
+                if (unscheduledClusters.contains(cluster) && scheduler.schedule(cluster, this::processScheduledCluster)) {
+                    unscheduledClusters.remove(cluster);
+                }
+            }
+
+            unscheduledClusters.retainAll(clusters);
+        });
+    }
+
+    /**
+     * Hands the current clusters to the dispatch while holding the clusters read lock
+     */
+    private void runOnClusters(Consumer<Collection<Cluster>> dispatch) {
         if (clusterAnalysis == null) {
             if (GlobalQuake.instance == null) {
                 return;
@@ -79,36 +112,92 @@ public class EarthquakeAnalysis {
         }
         clusterAnalysis.getClustersReadLock().lock();
         try {
-            clusterAnalysis.getClusters().parallelStream().forEach(cluster -> processCluster(cluster, createListOfPickedEvents(cluster), true));
+            dispatch.accept(clusterAnalysis.getClusters());
         } finally {
             clusterAnalysis.getClustersReadLock().unlock();
         }
     }
 
-    public void processCluster(Cluster cluster, List<PickedEvent> pickedEvents, boolean useCUDA) {
+    /**
+     * Runs the search without holding the clusters lock, so the cluster analysis can keep adding picks
+     * to the cluster and supersede the revision meanwhile. The lock is taken again to publish the result.
+     */
+    boolean processScheduledCluster(Cluster cluster) {
+        List<PickedEvent> pickedEvents;
+        clusterAnalysis.getClustersReadLock().lock();
+        try {
+            // it could have been merged or removed while waiting
+            if (!clusterAnalysis.getClusters().contains(cluster)) {
+                return false;
+            }
+
+            pickedEvents = createListOfPickedEvents(cluster);
+        } finally {
+            clusterAnalysis.getClustersReadLock().unlock();
+        }
+
+        try {
+            return processCluster(cluster, pickedEvents, true);
+        } catch (HypocenterSearchCancelledException e) {
+            // the superseding revision is scheduled by the next run
+            unscheduledClusters.add(cluster);
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if a new revision was computed, false if there was nothing new
+     * @throws HypocenterSearchCancelledException if the revision got superseded while running on the {@link HypocenterScheduler}
+     */
+    public boolean processCluster(Cluster cluster, List<PickedEvent> pickedEvents, boolean useCUDA) {
         if (pickedEvents.isEmpty()) {
-            return;
+            return false;
         }
 
+        int nextReportEventCount = cluster.getEarthquake() == null ? 0 : cluster.getEarthquake().nextReportEventCount;
+
         // Calculation starts only if number of events increases by some %
         if (cluster.getEarthquake() != null) {
             int count = pickedEvents.size();
             if (Settings.reduceRevisions) {
                 if (count <= cluster.getEarthquake().nextReportEventCount) {
-                    return;
+                    return false;
                 }
                 cluster.getEarthquake().nextReportEventCount = (int) (count * 1.2);
                 Logger.tag("Hypocs").debug("Next report will be at " + cluster.getEarthquake().nextReportEventCount + " assigns");
             }
         }
 
-        if (cluster.lastEpicenterUpdate * (Settings.reduceRevisions ? 1.1 : 1.0) >= cluster.updateCount) {
-            return;
+        if (!hasNewUpdates(cluster)) {
+            return false;
         }
 
         cluster.lastEpicenterUpdate = cluster.updateCount;
 
-        preprocess(cluster, pickedEvents, useCUDA);
+        try {
+            preprocess(cluster, pickedEvents, useCUDA);
+        } catch (HypocenterSearchCancelledException e) {
+            // let the superseding revision through the event count check
+            if (cluster.getEarthquake() != null) {
+                cluster.getEarthquake().nextReportEventCount = nextReportEventCount;
+            }
+            throw e;
+        }
+
+        return true;
+    }
+
+    private static boolean hasNewUpdates(Cluster cluster) {
+        return cluster.lastEpicenterUpdate * (Settings.reduceRevisions ? 1.1 : 1.0) < cluster.updateCount;
+    }
+
+    /**
+     * Checkpoint of the hypocenter search, stops the revision if the cluster has already changed enough to start a newer one.
+     */
+    static void checkSuperseded(Cluster cluster) {
+        if (cluster.revisionCancellable && hasNewUpdates(cluster)) {
+            throw new HypocenterSearchCancelledException();
+        }
     }
 
     private void preprocess(Cluster cluster, List<PickedEvent> pickedEvents, boolean useCUDA) {
@@ -153,7 +242,8 @@ public class EarthquakeAnalysis {
         List<PickedEvent> result = new ArrayList<>();
         for (Event event : cluster.getAssignedEvents().values()) {
             if (event.isValid() && !event.isSWave()) {
-                result.add(new PickedEvent(event.getpWave(), event.getLatFromStation(), event.getLonFromStation(), event.getElevationFromStation(), event.maxRatio));
+                result.add(new PickedEvent(event.getpWave(), event.getLatFromStation(), event.getLonFromStation(), event.getElevationFromStation(), event.maxRatio,
+                        event.getUnitVectorFromStation()));
             }
         }
 
@@ -168,8 +258,7 @@ public class EarthquakeAnalysis {
                 if (!selectedEvents.contains(event)) {
                     double closest = Double.MAX_VALUE;
                     for (PickedEvent event2 : selectedEvents) {
-                        double dist = GeoUtils.greatCircleDistance(event.lat(), event.lon(),
-                                event2.lat(), event2.lon());
+                        double dist = event.unitVector().greatCircleDistance(event2.unitVector());
                         if (dist < closest) {
                             closest = dist;
                         }
@@ -219,7 +308,9 @@ public class EarthquakeAnalysis {
             return null;
         }
 
-        if (GQHypocs.isCudaLoaded() && finderSettings.useCUDA()) {
+        HypocenterSearchBackend backend = Settings.getSelectedHypocenterSearchBackend();
+
+        if (backend == HypocenterSearchBackend.CUDA && GQHypocs.isCudaLoaded() && finderSettings.useCUDA()) {
             var result = GQHypocs.findHypocenter(selectedEvents, cluster, 0, finderSettings);
 
             if (result != null) {
@@ -231,6 +322,16 @@ public class EarthquakeAnalysis {
             Logger.tag("Hypocs").warn("Fallback to CPU!");
         }
 
+        if (backend == HypocenterSearchBackend.CPU_PROFILES && finderSettings.useCUDA()) {
+            var result = GQHypocsJava.findHypocenter(selectedEvents, cluster, 0, finderSettings);
+
+            if (result != null) {
+                return result;
+            }
+
+            Logger.tag("Hypocs").warn("CPU profile hypocenter search has failed, fallback to CPU classic!");
+        }
+
         Logger.tag("Hypocs").debug("==== Searching hypocenter of cluster #" + cluster.getUuid() + " ====");
 
         double maxDepth = TauPTravelTimeCalculator.MAX_DEPTH;
@@ -253,7 +354,7 @@ public class EarthquakeAnalysis {
 
         if (far && (previousHypocenter == null || previousHypocenter.correctEvents < 24 || previousHypocenter.getCorrectness() < 0.8)) {
             // phase 1 search far from ANCHOR (it's not very certain)
-            bestHypocenter = scanArea(selectedEvents, 90.0 / 360.0 * GeoUtils.EARTH_CIRCUMFERENCE, (int) (40000 * pointMultiplier), _lat, _lon, 6 + iterationsDifference, maxDepth, finderSettings);
+            bestHypocenter = scanArea(cluster, selectedEvents, 90.0 / 360.0 * GeoUtils.EARTH_CIRCUMFERENCE, (int) (40000 * pointMultiplier), _lat, _lon, 6 + iterationsDifference, maxDepth, finderSettings);
             Logger.tag("Hypocs").debug("FAR: " + (System.currentTimeMillis() - timeMillis));
             Logger.tag("Hypocs").debug(bestHypocenter.correctStations + " / " + bestHypocenter.err);
             _lat = bestHypocenter.lat;
@@ -263,7 +364,7 @@ public class EarthquakeAnalysis {
         if (previousHypocenter == null || previousHypocenter.correctEvents < 42 || previousHypocenter.getCorrectness() < 0.9) {
             // phase 2A search region near BEST or ANCHOR (it's quite certain)
             timeMillis = System.currentTimeMillis();
-            PreliminaryHypocenter hyp = scanArea(selectedEvents, 2500.0, (int) (20000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
+            PreliminaryHypocenter hyp = scanArea(cluster, selectedEvents, 2500.0, (int) (20000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
             bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
             _lat = bestHypocenter.lat;
             _lon = bestHypocenter.lon;
@@ -272,7 +373,7 @@ public class EarthquakeAnalysis {
         } else {
             // phase 2B search region closer BEST or ANCHOR (it assumes it's almost right)
             timeMillis = System.currentTimeMillis();
-            PreliminaryHypocenter hyp = scanArea(selectedEvents, 1000.0, (int) (10000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
+            PreliminaryHypocenter hyp = scanArea(cluster, selectedEvents, 1000.0, (int) (10000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
             bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
             _lat = bestHypocenter.lat;
             _lon = bestHypocenter.lon;
@@ -280,9 +381,11 @@ public class EarthquakeAnalysis {
             Logger.tag("Hypocs").debug(bestHypocenter.correctStations + " / " + bestHypocenter.err);
         }
 
+        checkSuperseded(cluster);
+
         // phase 3 find exact area
         timeMillis = System.currentTimeMillis();
-        PreliminaryHypocenter hyp = scanArea(selectedEvents, 100.0, (int) (4000 * pointMultiplier), _lat, _lon, 8 + iterationsDifference, maxDepth, finderSettings);
+        PreliminaryHypocenter hyp = scanArea(cluster, selectedEvents, 100.0, (int) (4000 * pointMultiplier), _lat, _lon, 8 + iterationsDifference, maxDepth, finderSettings);
         bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
         Logger.tag("Hypocs").debug("EXACT: " + (System.currentTimeMillis() - timeMillis));
         Logger.tag("Hypocs").debug(bestHypocenter.correctStations + " / " + bestHypocenter.err);
@@ -291,7 +394,7 @@ public class EarthquakeAnalysis {
         timeMillis = System.currentTimeMillis();
         _lat = bestHypocenter.lat;
         _lon = bestHypocenter.lon;
-        hyp = scanArea(selectedEvents, 10.0, (int) (4000 * pointMultiplier), _lat, _lon, 10 + iterationsDifference, maxDepth, finderSettings);
+        hyp = scanArea(cluster, selectedEvents, 10.0, (int) (4000 * pointMultiplier), _lat, _lon, 10 + iterationsDifference, maxDepth, finderSettings);
         bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
         Logger.tag("Hypocs").debug("DEPTH: " + (System.currentTimeMillis() - timeMillis));
         Logger.tag("Hypocs").debug(bestHypocenter.correctStations + " / " + bestHypocenter.err);
@@ -306,21 +409,92 @@ public class EarthquakeAnalysis {
 
         List<PickedEvent> correctSelectedEvents = new ArrayList<>(selectedEvents);
 
+        if (Settings.incrementalHypocenterRefinement && refineHypocenter(selectedEvents, cluster, finderSettings, startTime)) {
+            return;
+        }
+
         PreliminaryHypocenter bestHypocenter = runHypocenterFinder(correctSelectedEvents, cluster, finderSettings, true);
 
         if (bestHypocenter == null) {
             return;
         }
 
-        PreliminaryHypocenter bestHypocenter2 = bestHypocenter;
+        ReducedEvents reduced = reduceEvents(bestHypocenter, correctSelectedEvents, events -> {
+            checkSuperseded(cluster);
+            return runHypocenterFinder(events, cluster, finderSettings, false);
+        });
+        correctSelectedEvents = reduced.events();
+        PreliminaryHypocenter bestHypocenter2 = reduced.hypocenter();
+
+        if (bestHypocenter2 == null) {
+            return;
+        }
+
+        postProcess(selectedEvents, correctSelectedEvents, cluster, bestHypocenter2, finderSettings, startTime);
+    }
+
+    /**
+     * Incremental mode for late revisions: when the previous hypocenter is well constrained, it's only refined by
+     * damped least squares using the new picks instead of running the whole grid search again.
+     *
+     * @return true if the refinement was used, false if the grid search is needed
+     */
+    private boolean refineHypocenter(List<PickedEvent> selectedEvents, Cluster cluster, HypocenterFinderSettings finderSettings, long startTime) {
+        Hypocenter previousHypocenter = cluster.getPreviousHypocenter();
+        if (previousHypocenter == null
+                || previousHypocenter.correctEvents < HypocsSettings.getOrDefaultInt("refineMinEvents", 24)
+                || previousHypocenter.getCorrectness() < HypocsSettings.getOrDefault("refineMinCorrectness", 0.9f)) {
+            return false;
+        }
+
+        long timeMillis = System.currentTimeMillis();
+
+        PreliminaryHypocenter refined = HypocenterRefinement.refine(selectedEvents, previousHypocenter.lat, previousHypocenter.lon,
+                previousHypocenter.depth, previousHypocenter.origin, finderSettings);
+
+        if (refined == null) {
+            return false;
+        }
+
+        ReducedEvents reduced = reduceEvents(refined, selectedEvents, events ->
+                HypocenterRefinement.refine(events, refined.lat, refined.lon, refined.depth, refined.origin, finderSettings));
+        List<PickedEvent> correctSelectedEvents = reduced.events();
+        PreliminaryHypocenter refined2 = reduced.hypocenter();
+
+        Logger.tag("Hypocs").debug("REFINE: " + (System.currentTimeMillis() - timeMillis));
+
+        if (refined2 == null || HypocenterRefinement.isDegraded(refined, selectedEvents.size(), refined2, correctSelectedEvents.size(), previousHypocenter,
+                HypocsSettings.getOrDefault("refineMaxCorrectnessDrop", 0.05f), HypocsSettings.getOrDefault("refineMaxErrorGrowth", 2.0f))) {
+            Logger.tag("Hypocs").debug("Residuals of the refined hypocenter have degraded, fallback to the grid search");
+            return false;
+        }
+
+        Logger.tag("Hypocs").debug(refined2.correctStations + " / " + refined2.err);
+
+        postProcess(selectedEvents, correctSelectedEvents, cluster, refined2, finderSettings, startTime);
+        return true;
+    }
+
+    private record ReducedEvents(List<PickedEvent> events, PreliminaryHypocenter hypocenter) {
+    }
+
+    /**
+     * Drops the events with the largest residuals from the hypocenter in up to reduceIterations steps
+     * and locates the hypocenter again from the remaining events after each step.
+     *
+     * @return the remaining events and the last located hypocenter, the original one if nothing was dropped
+     */
+    private ReducedEvents reduceEvents(PreliminaryHypocenter hypocenter, List<PickedEvent> events,
+                                       Function<List<PickedEvent>, PreliminaryHypocenter> locate) {
+        PreliminaryHypocenter result = hypocenter;
 
         int reduceIterations = HypocsSettings.getOrDefaultInt("reduceIterations", 2);
         int reduceLimit = HypocsSettings.getOrDefaultInt("reduceLimit", 12);
         double reduceAmount = HypocsSettings.getOrDefault("reduceAmount", 0.2f);
 
         for (int it = 0; it < reduceIterations; it++) { // TODO setting?
-            if (correctSelectedEvents.size() > reduceLimit) {
-                Map<PickedEvent, Long> residuals = calculateResiduals(bestHypocenter, correctSelectedEvents);
+            if (events.size() > reduceLimit) {
+                Map<PickedEvent, Long> residuals = calculateResiduals(hypocenter, events);
                 int targetSize = residuals.size() - (int) Math.max(1, (residuals.size() - reduceLimit) * reduceAmount);
 
                 List<Map.Entry<PickedEvent, Long>> list = new ArrayList<>(residuals.entrySet());
@@ -331,28 +505,24 @@ public class EarthquakeAnalysis {
                 }
 
                 Logger.tag("Hypocs").debug("Reduced the number of events from %d to the best %d for better accuracy"
-                        .formatted(correctSelectedEvents.size(), list.size()));
+                        .formatted(events.size(), list.size()));
 
-                correctSelectedEvents = list.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+                events = list.stream().map(Map.Entry::getKey).collect(Collectors.toList());
 
-                bestHypocenter2 = runHypocenterFinder(correctSelectedEvents, cluster, finderSettings, false);
+                result = locate.apply(events);
             }
         }
 
-        if (bestHypocenter2 == null) {
-            return;
-        }
-
-        postProcess(selectedEvents, correctSelectedEvents, cluster, bestHypocenter2, finderSettings, startTime);
+        return new ReducedEvents(events, result);
     }
 
     private Map<PickedEvent, Long> calculateResiduals(PreliminaryHypocenter hypocenter, List<PickedEvent> events) {
         Map<PickedEvent, Long> result = new HashMap<>();
+        UnitVector hypocenterPosition = UnitVector.of(hypocenter.lat, hypocenter.lon);
         for (PickedEvent event : events) {
             long actualTravel = event.pWave() - hypocenter.origin;
 
-            double distGC = GeoUtils.greatCircleDistance(hypocenter.lat, hypocenter.lon,
-                    event.lat(), event.lon());
+            double distGC = hypocenterPosition.greatCircleDistance(event.unitVector());
             double angle = TauPTravelTimeCalculator.toAngle(distGC);
             double expectedTravelPRaw = TauPTravelTimeCalculator.getPWaveTravelTime(hypocenter.depth,
                     angle);
@@ -366,17 +536,18 @@ public class EarthquakeAnalysis {
         return result;
     }
 
-    private DepthConfidenceInterval calculateDepthConfidenceInterval(List<PickedEvent> selectedEvents, PreliminaryHypocenter bestHypocenter, HypocenterFinderSettings finderSettings) {
+    private DepthConfidenceInterval calculateDepthConfidenceInterval(List<PickedEvent> selectedEvents, PreliminaryHypocenter bestHypocenter, HypocenterFinderSettings finderSettings,
+                                                                     MisfitCache misfitCache) {
         double upperBound = bestHypocenter.depth;
         double lowerBound = bestHypocenter.depth;
 
         PreliminaryHypocenter hypocenterA = new PreliminaryHypocenter();
-        HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(selectedEvents.size());
-        List<ExactPickedEvent> pickedEvents = createListOfExactPickedEvents(selectedEvents);
-        calculateDistances(pickedEvents, bestHypocenter.lat, bestHypocenter.lon);
+        ExactPickedEvents pickedEvents = new ExactPickedEvents(selectedEvents);
+        HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size);
+        calculateDistances(pickedEvents, UnitVector.of(bestHypocenter.lat, bestHypocenter.lon));
 
         for (double depth = 0; depth < TauPTravelTimeCalculator.MAX_DEPTH; depth += 1.0 / getUniversalResolutionMultiplier(finderSettings)) {
-            analyseHypocenter(hypocenterA, bestHypocenter.lat, bestHypocenter.lon, depth, pickedEvents, finderSettings, threadData);
+            analyseHypocenter(misfitCache, hypocenterA, bestHypocenter.lat, bestHypocenter.lon, depth, pickedEvents, finderSettings, threadData);
             if (calculateHeuristic(hypocenterA) > calculateHeuristic(bestHypocenter) / CONFIDENCE_LEVEL && depth < bestHypocenter.depth && depth < upperBound) {
                 upperBound = depth;
             }
@@ -410,159 +581,184 @@ public class EarthquakeAnalysis {
     record PolygonConfidenceResult(double dist, long minOrigin, long maxOrigin) {
     }
 
-    private PolygonConfidenceInterval calculatePolygonConfidenceInterval(List<PickedEvent> selectedEvents,
-                                                                         PreliminaryHypocenter bestHypocenter, HypocenterFinderSettings finderSettings, double confidenceThreshold) {
-        List<Integer> integerList = IntStream.range(0, CONFIDENCE_POLYGON_EDGES).boxed().toList();
-        List<PolygonConfidenceResult> results = (Settings.parallelHypocenterLocations ? integerList.parallelStream() : integerList.stream()).map(ray -> {
-            double ang = CONFIDENCE_POLYGON_OFFSET + (ray / (double) CONFIDENCE_POLYGON_EDGES) * 360.0;
-            double dist = CONFIDENCE_POLYGON_STEP;
-            double step = CONFIDENCE_POLYGON_STEP;
-
-            long minOrigin = Long.MAX_VALUE;
-            long maxOrigin = Long.MIN_VALUE;
-
-            List<ExactPickedEvent> pickedEvents = createListOfExactPickedEvents(selectedEvents);
-            HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size());
-            while (step > CONFIDENCE_POLYGON_MIN_STEP && dist < CONFIDENCE_POLYGON_MAX_DIST) {
-                double[] latLon = GeoUtils.moveOnGlobe(bestHypocenter.lat, bestHypocenter.lon, dist, ang);
-                double lat = latLon[0];
-                double lon = latLon[1];
-
-                // reset
-                threadData.bestHypocenter.err = Double.MAX_VALUE;
-                threadData.bestHypocenter.correctStations = 0;
-
-                calculateDistances(pickedEvents, lat, lon);
-                getBestAtDepth(DEPTH_ITERS_POLYGONS, TauPTravelTimeCalculator.MAX_DEPTH, finderSettings, 0, lat, lon, pickedEvents, threadData);
-
-                double h1 = calculateHeuristic(threadData.bestHypocenter);
-                double h2 = calculateHeuristic(bestHypocenter);
-                boolean stillValid = h1 > h2 / confidenceThreshold;
-                if (stillValid) {
-                    dist += step;
-                    if (threadData.bestHypocenter.origin > maxOrigin) {
-                        maxOrigin = threadData.bestHypocenter.origin;
-                    }
-                    if (threadData.bestHypocenter.origin < minOrigin) {
-                        minOrigin = threadData.bestHypocenter.origin;
-                    }
-                } else {
-                    step /= 2.0;
-                    dist -= step;
+    /**
+     * Walks along one ray from the hypocenter for as long as the candidates stay within the confidence threshold.
+     */
+    private PolygonConfidenceResult calculatePolygonRay(ExactPickedEvents pickedEvents, UnitVector center, double ang,
+                                                        PreliminaryHypocenter bestHypocenter, HypocenterFinderSettings finderSettings,
+                                                        double confidenceThreshold, MisfitCache misfitCache) {
+        double dist = CONFIDENCE_POLYGON_STEP;
+        double step = CONFIDENCE_POLYGON_STEP;
+
+        long minOrigin = Long.MAX_VALUE;
+        long maxOrigin = Long.MIN_VALUE;
+
+        HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size);
+        while (step > CONFIDENCE_POLYGON_MIN_STEP && dist < CONFIDENCE_POLYGON_MAX_DIST) {
+            UnitVector point = center.move(dist, ang);
+            double lat = point.lat();
+            double lon = point.lon();
+
+            // reset
+            threadData.bestHypocenter.err = Double.MAX_VALUE;
+            threadData.bestHypocenter.correctStations = 0;
+
+            calculateDistances(pickedEvents, point);
+            getBestAtDepth(DEPTH_ITERS_POLYGONS, TauPTravelTimeCalculator.MAX_DEPTH, finderSettings, 0, lat, lon, pickedEvents, threadData, misfitCache);
+
+            double h1 = calculateHeuristic(threadData.bestHypocenter);
+            double h2 = calculateHeuristic(bestHypocenter);
+            boolean stillValid = h1 > h2 / confidenceThreshold;
+            if (stillValid) {
+                dist += step;
+                if (threadData.bestHypocenter.origin > maxOrigin) {
+                    maxOrigin = threadData.bestHypocenter.origin;
                 }
+                if (threadData.bestHypocenter.origin < minOrigin) {
+                    minOrigin = threadData.bestHypocenter.origin;
+                }
+            } else {
+                step /= 2.0;
+                dist -= step;
             }
+        }
 
-            return new PolygonConfidenceResult(dist, minOrigin, maxOrigin);
-        }).toList();
-
-        List<Double> lengths = results.stream().map(polygonConfidenceResult -> polygonConfidenceResult.dist).toList();
-
-        long minOrigin = results.stream().map(polygonConfidenceResult -> polygonConfidenceResult.minOrigin).min(Long::compareTo).orElse(0L);
-        long maxOrigin = results.stream().map(polygonConfidenceResult -> polygonConfidenceResult.maxOrigin).max(Long::compareTo).orElse(0L);
-
-        return new PolygonConfidenceInterval(CONFIDENCE_POLYGON_EDGES, CONFIDENCE_POLYGON_OFFSET, lengths, minOrigin, maxOrigin);
+        return new PolygonConfidenceResult(dist, minOrigin, maxOrigin);
     }
 
-
     // calculate correct stations and err
-    private void postProcess(List<PickedEvent> selectedEvents, PreliminaryHypocenter bestHypocenterPrelim, HypocenterFinderSettings finderSettings) {
-        List<ExactPickedEvent> pickedEvents = createListOfExactPickedEvents(selectedEvents);
-        HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size());
-        calculateDistances(pickedEvents, bestHypocenterPrelim.lat, bestHypocenterPrelim.lon);
+    private void postProcess(List<PickedEvent> selectedEvents, PreliminaryHypocenter bestHypocenterPrelim, HypocenterFinderSettings finderSettings, MisfitCache misfitCache) {
+        ExactPickedEvents pickedEvents = new ExactPickedEvents(selectedEvents);
+        HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size);
+        calculateDistances(pickedEvents, UnitVector.of(bestHypocenterPrelim.lat, bestHypocenterPrelim.lon));
         getBestAtDepth(DEPTH_ITERS_POLYGONS, TauPTravelTimeCalculator.MAX_DEPTH, finderSettings, 0,
-                bestHypocenterPrelim.lat, bestHypocenterPrelim.lon, pickedEvents, threadData);
+                bestHypocenterPrelim.lat, bestHypocenterPrelim.lon, pickedEvents, threadData, misfitCache);
 
         bestHypocenterPrelim.correctStations = threadData.bestHypocenter.correctStations;
         bestHypocenterPrelim.err = threadData.bestHypocenter.err;
     }
 
     private void postProcess(List<PickedEvent> selectedEvents, List<PickedEvent> correctSelectedEvents, Cluster cluster, PreliminaryHypocenter bestHypocenterPrelim, HypocenterFinderSettings finderSettings, long startTime) {
-        postProcess(correctSelectedEvents, bestHypocenterPrelim, finderSettings);
-        Hypocenter bestHypocenter = bestHypocenterPrelim.finish(
-                calculateDepthConfidenceInterval(correctSelectedEvents, bestHypocenterPrelim, finderSettings),
-                calculatePolygonConfidenceIntervals(correctSelectedEvents, bestHypocenterPrelim, finderSettings));
+        long timeMillis = System.currentTimeMillis();
+        MisfitCache misfitCache = new MisfitCache(correctSelectedEvents);
+
+        postProcess(correctSelectedEvents, bestHypocenterPrelim, finderSettings, misfitCache);
+        long correctTime = System.currentTimeMillis() - timeMillis;
+        checkSuperseded(cluster);
+
+        timeMillis = System.currentTimeMillis();
+        DepthConfidenceInterval depthConfidenceInterval = calculateDepthConfidenceInterval(correctSelectedEvents, bestHypocenterPrelim, finderSettings, misfitCache);
+        long depthTime = System.currentTimeMillis() - timeMillis;
+
+        timeMillis = System.currentTimeMillis();
+        List<PolygonConfidenceInterval> polygonConfidenceIntervals = calculatePolygonConfidenceIntervals(cluster, correctSelectedEvents, bestHypocenterPrelim, finderSettings, misfitCache);
+        long polygonsTime = System.currentTimeMillis() - timeMillis;
+
+        Hypocenter bestHypocenter = bestHypocenterPrelim.finish(depthConfidenceInterval, polygonConfidenceIntervals);
 
         if (bestHypocenter.correctEvents == 0 || bestHypocenter.totalErr == Double.MAX_VALUE) {
             Logger.tag("Hypocs").debug("Absurd!");
             return;
         }
 
-        bestHypocenter.usedEvents = selectedEvents.size();
-        bestHypocenter.reducedEvents = correctSelectedEvents.size();
-        bestHypocenter.totalEvents = cluster.getAssignedEvents().size();
-
-        calculateActualCorrectEvents(selectedEvents, bestHypocenter);
+        Lock lock = clusterAnalysis == null ? null : clusterAnalysis.getClustersReadLock();
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            // it could have been merged or removed during the search
+            if (clusterAnalysis != null && !clusterAnalysis.getClusters().contains(cluster)) {
+                return;
+            }
+            checkSuperseded(cluster);
 
-        bestHypocenter.calculateQuality();
-        calculateMagnitude(cluster, bestHypocenter, bestHypocenter);
+            bestHypocenter.usedEvents = selectedEvents.size();
+            bestHypocenter.reducedEvents = correctSelectedEvents.size();
+            bestHypocenter.totalEvents = cluster.getAssignedEvents().size();
 
-        calculateObviousArrivals(bestHypocenter);
+            timeMillis = System.currentTimeMillis();
+            calculateActualCorrectEvents(selectedEvents, bestHypocenter);
 
-        Logger.tag("Hypocs").debug(bestHypocenter);
+            bestHypocenter.calculateQuality();
+            calculateMagnitude(cluster, bestHypocenter, bestHypocenter);
+            long magnitudeTime = System.currentTimeMillis() - timeMillis;
 
-        if (!testing && bestHypocenter.magnitude == NO_MAGNITUDE) {
-            Logger.tag("Hypocs").debug("No magnitude!");
-            return;
-        }
+            timeMillis = System.currentTimeMillis();
+            calculateObviousArrivals(bestHypocenter);
+            long obviousArrivalsTime = System.currentTimeMillis() - timeMillis;
 
-        if (bestHypocenter.depth > TauPTravelTimeCalculator.MAX_DEPTH - 5.0) {
-            Logger.tag("Hypocs").debug("Ignoring too deep quake, it's probably a core wave! %.1fkm".formatted(bestHypocenter.depth));
+            Logger.tag("Hypocs").debug("POST PROCESS: correct stations %d ms, depth interval %d ms, polygons %d ms, magnitude %d ms, obvious arrivals %d ms; misfit cache %d / %d hits"
+                    .formatted(correctTime, depthTime, polygonsTime, magnitudeTime, obviousArrivalsTime, misfitCache.getHits(), misfitCache.getLookups()));
+            Logger.tag("Hypocs").debug(bestHypocenter);
 
-            if (cluster.getEarthquake() != null) {
-                updateMagnitudeOnly(cluster, bestHypocenter);
-                Logger.tag("Hypocs").debug("Performed magnitude-only revision anyway");
+            if (!testing && bestHypocenter.magnitude == NO_MAGNITUDE) {
+                Logger.tag("Hypocs").debug("No magnitude!");
+                return;
             }
 
-            return;
-        }
+            if (bestHypocenter.depth > TauPTravelTimeCalculator.MAX_DEPTH - 5.0) {
+                Logger.tag("Hypocs").debug("Ignoring too deep quake, it's probably a core wave! %.1fkm".formatted(bestHypocenter.depth));
 
-        // There has to be at least some difference in the picked pWave times
-        if (CHECK_DELTA_P && !checkDeltaP(cluster, bestHypocenter, correctSelectedEvents)) {
-            Logger.tag("Hypocs").debug("Not Enough Delta-P");
+                if (cluster.getEarthquake() != null) {
+                    updateMagnitudeOnly(cluster, bestHypocenter);
+                    Logger.tag("Hypocs").debug("Performed magnitude-only revision anyway");
+                }
 
-            if (cluster.getEarthquake() != null) {
-                updateMagnitudeOnly(cluster, bestHypocenter);
-                Logger.tag("Hypocs").debug("Performed magnitude-only revision anyway");
+                return;
             }
 
-            return;
-        }
+            // There has to be at least some difference in the picked pWave times
+            if (CHECK_DELTA_P && !checkDeltaP(cluster, bestHypocenter, correctSelectedEvents)) {
+                Logger.tag("Hypocs").debug("Not Enough Delta-P");
 
+                if (cluster.getEarthquake() != null) {
+                    updateMagnitudeOnly(cluster, bestHypocenter);
+                    Logger.tag("Hypocs").debug("Performed magnitude-only revision anyway");
+                }
 
-        if (!checkUncertainty(bestHypocenter, correctSelectedEvents)) {
-            Logger.tag("Hypocs").debug("Search canceled for cluster %d".formatted(cluster.id));
-            Earthquake earthquake1 = cluster.getEarthquake();
-            if (earthquake1 != null) {
-                updateMagnitudeOnly(cluster, bestHypocenter);
-                Logger.tag("Hypocs").debug("Performed magnitude-only revision anyway");
+                return;
             }
 
-            return;
-        }
 
-        double obviousCorrectPct = 1.0;
-        if (OBVIOUS_CORRECT_CHECK && bestHypocenter.obviousArrivalsInfo != null && bestHypocenter.obviousArrivalsInfo.total() > OBVIOUS_CORRECT_MIN_TOTAL) {
-            obviousCorrectPct = bestHypocenter.obviousArrivalsInfo.getPCT();
-        }
+            if (!checkUncertainty(bestHypocenter, correctSelectedEvents)) {
+                Logger.tag("Hypocs").debug("Search canceled for cluster %d".formatted(cluster.id));
+                Earthquake earthquake1 = cluster.getEarthquake();
+                if (earthquake1 != null) {
+                    updateMagnitudeOnly(cluster, bestHypocenter);
+                    Logger.tag("Hypocs").debug("Performed magnitude-only revision anyway");
+                }
 
-        double pct = 100 * bestHypocenter.getCorrectness();
-        boolean valid = pct >= finderSettings.correctnessThreshold() && bestHypocenter.correctEvents >= finderSettings.minStations() && obviousCorrectPct >= OBVIOUS_CORRECT_THRESHOLD;
-        if (!valid) {
-            boolean remove = pct < finderSettings.correctnessThreshold() * 0.75 || bestHypocenter.correctEvents < finderSettings.minStations() * 0.75 || obviousCorrectPct < OBVIOUS_CORRECT_DELETE_THRESHOLD;
-            Earthquake earthquake1 = cluster.getEarthquake();
-            if (remove && earthquake1 != null) {
-                removeQuake(cluster, earthquake1);
+                return;
             }
-            Logger.tag("Hypocs").debug("Hypocenter not valid, remove = %s, pct=%.2f/%.2f, obvious_correct_pct=%.2f/%.2f was %s".formatted(remove, pct, finderSettings.correctnessThreshold(), obviousCorrectPct, OBVIOUS_CORRECT_THRESHOLD, bestHypocenter));
-        } else {
-            HypocenterCondition result;
-            if ((result = checkConditions(selectedEvents, bestHypocenter, cluster.getPreviousHypocenter(), cluster, finderSettings)) == HypocenterCondition.OK) {
-                updateHypocenter(cluster, bestHypocenter);
-            } else if (result != HypocenterCondition.NULL) {
-                updateMagnitudeOnly(cluster, bestHypocenter);
-                Logger.tag("Hypocs").trace("Performed magnitude-only revision because: %s".formatted(result));
+
+            double obviousCorrectPct = 1.0;
+            if (OBVIOUS_CORRECT_CHECK && bestHypocenter.obviousArrivalsInfo != null && bestHypocenter.obviousArrivalsInfo.total() > OBVIOUS_CORRECT_MIN_TOTAL) {
+                obviousCorrectPct = bestHypocenter.obviousArrivalsInfo.getPCT();
+            }
+
+            double pct = 100 * bestHypocenter.getCorrectness();
+            boolean valid = pct >= finderSettings.correctnessThreshold() && bestHypocenter.correctEvents >= finderSettings.minStations() && obviousCorrectPct >= OBVIOUS_CORRECT_THRESHOLD;
+            if (!valid) {
+                boolean remove = pct < finderSettings.correctnessThreshold() * 0.75 || bestHypocenter.correctEvents < finderSettings.minStations() * 0.75 || obviousCorrectPct < OBVIOUS_CORRECT_DELETE_THRESHOLD;
+                Earthquake earthquake1 = cluster.getEarthquake();
+                if (remove && earthquake1 != null) {
+                    removeQuake(cluster, earthquake1);
+                }
+                Logger.tag("Hypocs").debug("Hypocenter not valid, remove = %s, pct=%.2f/%.2f, obvious_correct_pct=%.2f/%.2f was %s".formatted(remove, pct, finderSettings.correctnessThreshold(), obviousCorrectPct, OBVIOUS_CORRECT_THRESHOLD, bestHypocenter));
             } else {
-                Logger.tag("Hypocs").error("Fatal error: %s".formatted(result));
+                HypocenterCondition result;
+                if ((result = checkConditions(selectedEvents, bestHypocenter, cluster.getPreviousHypocenter(), cluster, finderSettings)) == HypocenterCondition.OK) {
+                    updateHypocenter(cluster, bestHypocenter);
+                } else if (result != HypocenterCondition.NULL) {
+                    updateMagnitudeOnly(cluster, bestHypocenter);
+                    Logger.tag("Hypocs").trace("Performed magnitude-only revision because: %s".formatted(result));
+                } else {
+                    Logger.tag("Hypocs").error("Fatal error: %s".formatted(result));
+                }
+            }
+        } finally {
+            if (lock != null) {
+                lock.unlock();
             }
         }
 
@@ -607,6 +803,7 @@ public class EarthquakeAnalysis {
         cluster.setPreviousHypocenter(bestHypocenter);
 
         if (cluster.getEarthquake() == null) {
+            Metrics.CLUSTER_TO_HYPOCENTER.record(System.nanoTime() - cluster.getCreatedNanos());
             Earthquake newEarthquake = new Earthquake(cluster);
             if (!testing) {
                 getEarthquakes().add(newEarthquake);
@@ -653,7 +850,7 @@ public class EarthquakeAnalysis {
         List<Long> origins = new ArrayList<>();
 
         for (PickedEvent event : events) {
-            double distGC = GeoUtils.greatCircleDistance(event.lat(), event.lon(), bestHypocenter.lat, bestHypocenter.lon);
+            double distGC = event.unitVector().greatCircleDistance(bestHypocenter.unitVector);
             double travelTime = TauPTravelTimeCalculator.getPWaveTravelTime(depth, TauPTravelTimeCalculator.toAngle(distGC));
             if (travelTime < 0) {
                 continue;
@@ -675,15 +872,40 @@ public class EarthquakeAnalysis {
         Logger.tag("Hypocs").debug("Origin time recalculated");
     }
 
-    private List<PolygonConfidenceInterval> calculatePolygonConfidenceIntervals(List<PickedEvent> selectedEvents, PreliminaryHypocenter bestHypocenterPrelim, HypocenterFinderSettings finderSettings) {
+    /**
+     * All the confidence thresholds are evaluated in one pass over the rays, the tighter ones then mostly revisit points
+     * the wider ones have already evaluated.
+     */
+    private List<PolygonConfidenceInterval> calculatePolygonConfidenceIntervals(Cluster cluster, List<PickedEvent> selectedEvents, PreliminaryHypocenter bestHypocenterPrelim,
+                                                                                HypocenterFinderSettings finderSettings, MisfitCache misfitCache) {
+        double mul = 80.0 / (selectedEvents.size() * selectedEvents.size() + 8.0) + 0.9;
+        double[] confidenceThresholds = {3.0 * mul, 2.0 * mul, 1.5 * mul, 1.25 * mul};
+        UnitVector center = UnitVector.of(bestHypocenterPrelim.lat, bestHypocenterPrelim.lon);
+
+        List<Integer> integerList = IntStream.range(0, CONFIDENCE_POLYGON_EDGES).boxed().toList();
+        List<PolygonConfidenceResult[]> rays = (Settings.parallelHypocenterLocations ? integerList.parallelStream() : integerList.stream()).map(ray -> {
+            checkSuperseded(cluster);
+
+            double ang = CONFIDENCE_POLYGON_OFFSET + (ray / (double) CONFIDENCE_POLYGON_EDGES) * 360.0;
+            ExactPickedEvents pickedEvents = new ExactPickedEvents(selectedEvents);
+
+            PolygonConfidenceResult[] results = new PolygonConfidenceResult[confidenceThresholds.length];
+            for (int i = 0; i < confidenceThresholds.length; i++) {
+                results[i] = calculatePolygonRay(pickedEvents, center, ang, bestHypocenterPrelim, finderSettings, confidenceThresholds[i], misfitCache);
+            }
+            return results;
+        }).toList();
+
         List<PolygonConfidenceInterval> result = new ArrayList<>();
+        for (int i = 0; i < confidenceThresholds.length; i++) {
+            int index = i;
+            List<Double> lengths = rays.stream().map(results -> results[index].dist).toList();
 
-        double mul = 80.0 / (selectedEvents.size() * selectedEvents.size() + 8.0) + 0.9;
+            long minOrigin = rays.stream().map(results -> results[index].minOrigin).min(Long::compareTo).orElse(0L);
+            long maxOrigin = rays.stream().map(results -> results[index].maxOrigin).max(Long::compareTo).orElse(0L);
 
-        result.add(calculatePolygonConfidenceInterval(selectedEvents, bestHypocenterPrelim, finderSettings, 3.0 * mul));
-        result.add(calculatePolygonConfidenceInterval(selectedEvents, bestHypocenterPrelim, finderSettings, 2.0 * mul));
-        result.add(calculatePolygonConfidenceInterval(selectedEvents, bestHypocenterPrelim, finderSettings, 1.5 * mul));
-        result.add(calculatePolygonConfidenceInterval(selectedEvents, bestHypocenterPrelim, finderSettings, 1.25 * mul));
+            result.add(new PolygonConfidenceInterval(CONFIDENCE_POLYGON_EDGES, CONFIDENCE_POLYGON_OFFSET, lengths, minOrigin, maxOrigin));
+        }
 
         return result;
     }
@@ -708,8 +930,9 @@ public class EarthquakeAnalysis {
         int total = 0;
         int wrong = 0;
 
-        for (AbstractStation station : GlobalQuake.instance.getStationManager().getStations()) {
-            double distGC = GeoUtils.greatCircleDistance(bestHypocenter.lat, bestHypocenter.lon, station.getLatitude(), station.getLongitude());
+        for (AbstractStation station : GlobalQuake.instance.getStationManager().getStationIndex()
+                .findWithin(bestHypocenter.unitVector, OBVIOUS_CORRECT_MAX_DISTANCE)) {
+            double distGC = bestHypocenter.unitVector.greatCircleDistance(station.getUnitVector());
 
             if(distGC > OBVIOUS_CORRECT_MAX_DISTANCE){
                 continue;
@@ -744,30 +967,35 @@ public class EarthquakeAnalysis {
 
     public static final double PHI = 1.61803398875;
 
-    private PreliminaryHypocenter scanArea(List<PickedEvent> events, double maxDist, int points, double _lat, double _lon, int depthIterations,
+    private PreliminaryHypocenter scanArea(Cluster cluster, List<PickedEvent> events, double maxDist, int points, double _lat, double _lon, int depthIterations,
                                            double maxDepth, HypocenterFinderSettings finderSettings) {
         int CPUS = Runtime.getRuntime().availableProcessors();
         double c = maxDist / Math.sqrt(points);
         double one = points / (double) CPUS;
+        UnitVector center = UnitVector.of(_lat, _lon);
 
         List<Integer> integerList = IntStream.range(0, CPUS).boxed().toList();
         return (Settings.parallelHypocenterLocations ? integerList.parallelStream() : integerList.stream()).map(
                 cpu -> {
-                    List<ExactPickedEvent> pickedEvents = createListOfExactPickedEvents(events);
-                    HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size());
+                    ExactPickedEvents pickedEvents = new ExactPickedEvents(events);
+                    HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size);
 
                     int start = (int) (cpu * one);
                     int end = (int) ((cpu + 1) * one);
 
                     for (int n = start; n < end; n++) {
+                        if ((n & 255) == 0) {
+                            checkSuperseded(cluster);
+                        }
+
                         double ang = 360.0 / (PHI * PHI) * n;
                         double dist = Math.sqrt(n) * c;
-                        double[] latLon = GeoUtils.moveOnGlobe(_lat, _lon, dist, ang);
+                        UnitVector point = center.move(dist, ang);
 
-                        double lat = latLon[0];
-                        double lon = latLon[1];
+                        double lat = point.lat();
+                        double lon = point.lon();
 
-                        calculateDistances(pickedEvents, lat, lon);
+                        calculateDistances(pickedEvents, point);
                         getBestAtDepth(depthIterations, maxDepth, finderSettings, 0, lat, lon, pickedEvents, threadData);
                     }
                     return threadData.bestHypocenter;
@@ -786,27 +1014,19 @@ public class EarthquakeAnalysis {
 
         return (Settings.parallelHypocenterLocations ? distances.parallelStream() : distances.stream()).map(
                 distance -> {
-                    List<ExactPickedEvent> pickedEvents = createListOfExactPickedEvents(events);
-                    HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size());
+                    ExactPickedEvents pickedEvents = new ExactPickedEvents(events);
+                    HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size);
                     getBestAtDist(distance, distHorizontal, _lat, _lon, pickedEvents, depthIterations, maxDepth, finderSettings, threadData);
                     return threadData.bestHypocenter;
                 }
         ).reduce(EarthquakeAnalysis::selectBetterHypocenter).orElse(null);
     }
 
-    private List<ExactPickedEvent> createListOfExactPickedEvents(List<PickedEvent> events) {
-        List<ExactPickedEvent> result = new ArrayList<>(events.size());
-        for (PickedEvent event : events) {
-            result.add(new ExactPickedEvent(event));
-        }
-        return result;
-    }
-
     private static double calculateHeuristic(PreliminaryHypocenter hypocenter) {
         return (hypocenter.correctStations * hypocenter.correctStations) / (hypocenter.err * hypocenter.err);
     }
 
-    private static PreliminaryHypocenter selectBetterHypocenter(PreliminaryHypocenter hypocenter1, PreliminaryHypocenter hypocenter2) {
+    static PreliminaryHypocenter selectBetterHypocenter(PreliminaryHypocenter hypocenter1, PreliminaryHypocenter hypocenter2) {
         if (hypocenter1 == null) {
             return hypocenter2;
         } else if (hypocenter2 == null) {
@@ -823,7 +1043,7 @@ public class EarthquakeAnalysis {
     }
 
     private void getBestAtDist(double distFromAnchor, double distHorizontal, double _lat, double _lon,
-                               List<ExactPickedEvent> events, int depthIterations, double depthEnd,
+                               ExactPickedEvents events, int depthIterations, double depthEnd,
                                HypocenterFinderSettings finderSettings, HypocenterFinderThreadData threadData) {
         double depthStart = 0;
 
@@ -839,22 +1059,31 @@ public class EarthquakeAnalysis {
             double lat = point2D.x;
             double lon = point2D.y;
 
-            calculateDistances(events, lat, lon);
+            calculateDistances(events, UnitVector.of(lat, lon));
             getBestAtDepth(depthIterations, depthEnd, finderSettings, depthStart, lat, lon, events, threadData);
         }
     }
 
     private void getBestAtDepth(int depthIterations, double depthEnd, HypocenterFinderSettings finderSettings,
-                                double depthStart, double lat, double lon, List<ExactPickedEvent> pickedEvents,
+                                double depthStart, double lat, double lon, ExactPickedEvents pickedEvents,
                                 HypocenterFinderThreadData threadData) {
+        getBestAtDepth(depthIterations, depthEnd, finderSettings, depthStart, lat, lon, pickedEvents, threadData, null);
+    }
+
+    /**
+     * @param misfitCache already evaluated candidates, or null to evaluate all of them
+     */
+    private void getBestAtDepth(int depthIterations, double depthEnd, HypocenterFinderSettings finderSettings,
+                                double depthStart, double lat, double lon, ExactPickedEvents pickedEvents,
+                                HypocenterFinderThreadData threadData, MisfitCache misfitCache) {
         double lowerBound = depthStart; // 0
         double upperBound = depthEnd; // 600
 
         double depthA = lowerBound + (upperBound - lowerBound) * (1 / 3.0);
         double depthB = lowerBound + (upperBound - lowerBound) * (2 / 3.0);
 
-        analyseHypocenter(threadData.hypocenterA, lat, lon, depthA, pickedEvents, finderSettings, threadData);
-        analyseHypocenter(threadData.hypocenterB, lat, lon, depthB, pickedEvents, finderSettings, threadData);
+        analyseHypocenter(misfitCache, threadData.hypocenterA, lat, lon, depthA, pickedEvents, finderSettings, threadData);
+        analyseHypocenter(misfitCache, threadData.hypocenterB, lat, lon, depthB, pickedEvents, finderSettings, threadData);
 
         PreliminaryHypocenter upperHypocenter = threadData.hypocenterA;
         PreliminaryHypocenter lowerHypocenter = threadData.hypocenterB;
@@ -871,48 +1100,32 @@ public class EarthquakeAnalysis {
                 upperBound = (upperBound + lowerBound) / 2.0;
                 depthA = lowerBound + (upperBound - lowerBound) * (1 / 3.0);
 
-                analyseHypocenter(upperHypocenter, lat, lon, depthA, pickedEvents, finderSettings, threadData);
+                analyseHypocenter(misfitCache, upperHypocenter, lat, lon, depthA, pickedEvents, finderSettings, threadData);
                 threadData.setBest(selectBetterHypocenter(threadData.bestHypocenter, upperHypocenter));
             } else {
                 lowerBound = (upperBound + lowerBound) / 2.0;
                 depthB = lowerBound + (upperBound - lowerBound) * (2 / 3.0);
 
-                analyseHypocenter(lowerHypocenter, lat, lon, depthB, pickedEvents, finderSettings, threadData);
+                analyseHypocenter(misfitCache, lowerHypocenter, lat, lon, depthB, pickedEvents, finderSettings, threadData);
                 threadData.setBest(selectBetterHypocenter(threadData.bestHypocenter, lowerHypocenter));
             }
         }
 
         // additionally check 0km and 10 km
-        analyseHypocenter(threadData.hypocenterA, lat, lon, 0, pickedEvents, finderSettings, threadData);
+        analyseHypocenter(misfitCache, threadData.hypocenterA, lat, lon, 0, pickedEvents, finderSettings, threadData);
         threadData.setBest(selectBetterHypocenter(threadData.bestHypocenter, threadData.hypocenterA));
-        analyseHypocenter(threadData.hypocenterA, lat, lon, 10, pickedEvents, finderSettings, threadData);
+        analyseHypocenter(misfitCache, threadData.hypocenterA, lat, lon, 10, pickedEvents, finderSettings, threadData);
         threadData.setBest(selectBetterHypocenter(threadData.bestHypocenter, threadData.hypocenterA));
     }
 
-    private static final long UNKNOWN_ORIGIN = Long.MIN_VALUE;
-
-    public static void analyseHypocenter(PreliminaryHypocenter hypocenter, double lat, double lon, double depth, List<ExactPickedEvent> events, HypocenterFinderSettings finderSettings, HypocenterFinderThreadData threadData) {
-        int c = 0;
+    static final long UNKNOWN_ORIGIN = Long.MIN_VALUE;
 
-        for (ExactPickedEvent event : events) {
-            double travelTime = TauPTravelTimeCalculator.getPWaveTravelTimeFast(depth, event.angle);
-            if (travelTime == TauPTravelTimeCalculator.NO_ARRIVAL) {
-                threadData.origins[c] = UNKNOWN_ORIGIN;
-                c++;
-                continue;
-            }
-
-            travelTime += getElevationCorrection(event.elevation());
-
-            long origin = event.pWave() - ((long) (travelTime * 1000));
-            threadData.origins[c] = origin;
-            c++;
-        }
+    public static void analyseHypocenter(PreliminaryHypocenter hypocenter, double lat, double lon, double depth, ExactPickedEvents events, HypocenterFinderSettings finderSettings, HypocenterFinderThreadData threadData) {
+        HypocenterKernels.current().computeOrigins(depth, events, threadData.origins, threadData.indices);
 
         long bestOrigin;
         if (USE_MEDIAN_FOR_ORIGIN) {
-            Arrays.sort(threadData.origins);
-            bestOrigin = threadData.origins[(threadData.origins.length - 1) / 2];
+            bestOrigin = QuickSelect.select(threadData.origins, events.size, (events.size - 1) / 2);
         } else {
             bestOrigin = threadData.origins[0];
         }
@@ -947,24 +1160,33 @@ public class EarthquakeAnalysis {
         hypocenter.correctStations = acc;
     }
 
-    public static double getElevationCorrection(double elevation) {
-        return elevation / 6000.0;
-    }
+    private static void analyseHypocenter(MisfitCache misfitCache, PreliminaryHypocenter hypocenter, double lat, double lon, double depth,
+                                          ExactPickedEvents events, HypocenterFinderSettings finderSettings, HypocenterFinderThreadData threadData) {
+        if (misfitCache == null) {
+            analyseHypocenter(hypocenter, lat, lon, depth, events, finderSettings, threadData);
+            return;
+        }
 
-    private void calculateDistances(List<ExactPickedEvent> pickedEvents, double lat, double lon) {
-        for (ExactPickedEvent event : pickedEvents) {
-            event.angle = TauPTravelTimeCalculator.toAngle(GeoUtils.greatCircleDistance(event.lat(),
-                    event.lon(), lat, lon));
+        if (misfitCache.lookup(hypocenter, lat, lon, depth)) {
+            return;
         }
+
+        analyseHypocenter(hypocenter, lat, lon, depth, events, finderSettings, threadData);
+        misfitCache.store(hypocenter, lat, lon, depth);
     }
 
-    public static final class ExactPickedEvent extends PickedEvent {
-        public double angle;
+    public static double getElevationCorrection(double elevation) {
+        return elevation / 6000.0;
+    }
 
-        public ExactPickedEvent(PickedEvent pickedEvent) {
-            super(pickedEvent.pWave(), pickedEvent.lat(), pickedEvent.lon(), pickedEvent.elevation(), pickedEvent.maxRatio());
+    static void calculateDistances(ExactPickedEvents pickedEvents, UnitVector point) {
+        double x = point.x();
+        double y = point.y();
+        double z = point.z();
+        for (int i = 0; i < pickedEvents.size; i++) {
+            double distGC = GeoUtils.EARTH_RADIUS * UnitVector.centralAngle(pickedEvents.x[i], pickedEvents.y[i], pickedEvents.z[i], x, y, z);
+            pickedEvents.angle[i] = TauPTravelTimeCalculator.toAngle(distGC);
         }
-
     }
 
     private double getUniversalResolutionMultiplier(HypocenterFinderSettings finderSettings) {
@@ -1077,10 +1299,10 @@ public class EarthquakeAnalysis {
             if (!event.isValid() || event.getMaxVelocity() < 0 || event.getMaxRatio() < 0) {
                 continue;
             }
-            double distGC = GeoUtils.greatCircleDistance(hypocenterLocation.lat, hypocenterLocation.lon,
-                    event.getLatFromStation(), event.getLonFromStation());
-            double distGE = GeoUtils.geologicalDistance(hypocenterLocation.lat, hypocenterLocation.lon,
-                    -hypocenterLocation.depth, event.getLatFromStation(), event.getLonFromStation(), event.getAnalysis().getStation().getAlt() / 1000.0);
+            UnitVector stationPosition = event.getUnitVectorFromStation();
+            double distGC = hypocenterLocation.unitVector.greatCircleDistance(stationPosition);
+            double distGE = hypocenterLocation.unitVector.geologicalDistance(-hypocenterLocation.depth,
+                    stationPosition, event.getAnalysis().getStation().getAlt() / 1000.0);
             double sTravelRaw = TauPTravelTimeCalculator.getSWaveTravelTime(hypocenterLocation.depth, TauPTravelTimeCalculator.toAngle(distGC));
             long expectedSArrival = (long) (hypocenterLocation.origin
                     + sTravelRaw
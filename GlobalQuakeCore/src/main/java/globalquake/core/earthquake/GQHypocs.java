@@ -19,10 +19,10 @@ public class GQHypocs {
     private static boolean cudaLoaded = false;
     private static final float RADIANS = (float) (Math.PI / 180.0);
     // LOWEST DEPTH RESOLUTION MUST BE AT THE LAST POSITION IN THE FIELD !!
-    private static final float[] depth_profiles = new float[]{ 50.0f, 10.0f, 5.0f, 2.0f, 0.5f};
+    static final float[] depth_profiles = new float[]{ 50.0f, 10.0f, 5.0f, 2.0f, 0.5f};
     // HIGHEST POINT COUNT MUST BE AT THE BEGINNING OF THE FIELD !!
-    private static final int[] point_profiles = new int[] { 40_000, 8_000, 4_000, 1600, 400};
-    private static final float[] dist_profiles = new float[]{ 135.0f, 30.0f, 4.0f, 0.8f, 0.2f};
+    static final int[] point_profiles = new int[] { 40_000, 8_000, 4_000, 1600, 400};
+    static final float[] dist_profiles = new float[]{ 135.0f, 30.0f, 4.0f, 0.8f, 0.2f};
 
     private static boolean stationLimitCalculated = false;
     private static int stationLimit = 0;
@@ -41,7 +41,7 @@ public class GQHypocs {
     private static void initCuda() {
         boolean init = true;
 
-        init &= GQNativeFunctions.copyPTravelTable(TauPTravelTimeCalculator.getTravelTable().p_travel_table, (float) TauPTravelTimeCalculator.MAX_DEPTH);
+        init &= GQNativeFunctions.copyPTravelTable(TauPTravelTimeCalculator.getPWaves().toRows(), (float) TauPTravelTimeCalculator.MAX_DEPTH);
         init &= GQNativeFunctions.initCUDA(depth_profiles);
 
         if(init) {
@@ -49,10 +49,22 @@ public class GQHypocs {
         }
     }
 
-    public synchronized static PreliminaryHypocenter findHypocenter(List<PickedEvent> pickedEventList, Cluster cluster, int from, HypocenterFinderSettings finderSettings) {
-        pickedEventList.sort(Comparator.comparing(PickedEvent::maxRatioReversed));
+    /**
+     * One iteration of the search, with the signature of {@link GQNativeFunctions#findHypocenter}
+     */
+    @FunctionalInterface
+    interface ProfileSearch {
+        float[] findHypocenter(float[] stations, float lat, float lon, long points, int depthProfile, float maxDist, float pWaveThreshold);
+    }
 
+    public synchronized static PreliminaryHypocenter findHypocenter(List<PickedEvent> pickedEventList, Cluster cluster, int from, HypocenterFinderSettings finderSettings) {
         int station_count = !stationLimitCalculated ? pickedEventList.size() : Math.min(stationLimit, pickedEventList.size());
+        return findHypocenter(pickedEventList, cluster, from, finderSettings, station_count, GQNativeFunctions::findHypocenter);
+    }
+
+    static PreliminaryHypocenter findHypocenter(List<PickedEvent> pickedEventList, Cluster cluster, int from, HypocenterFinderSettings finderSettings,
+                                                int station_count, ProfileSearch search) {
+        pickedEventList.sort(Comparator.comparing(PickedEvent::maxRatioReversed));
 
         float[] stations_array = new float[station_count * 4];
 
@@ -72,7 +84,7 @@ public class GQHypocs {
         };
 
         for(int i = from; i < depth_profiles.length; i++){
-            result = GQNativeFunctions.findHypocenter(stations_array, result[0], result[1], (long) (point_profiles[i] * getPointMultiplier()), i, dist_profiles[i] * RADIANS, (float) (finderSettings.pWaveInaccuracyThreshold() / 1000.0));
+            result = search.findHypocenter(stations_array, result[0], result[1], (long) (point_profiles[i] * getPointMultiplier()), i, dist_profiles[i] * RADIANS, (float) (finderSettings.pWaveInaccuracyThreshold() / 1000.0));
 
             if (result == null) {
                 return null;
@@ -93,7 +105,7 @@ public class GQHypocs {
         Logger.tag("Hypocs").info("%d stations will use %.2f / %.2f GB, thus limit will be %d stations".formatted(stations, GB, MAX_GPU_MEM, stationLimit));
     }
 
-    private static double getPointMultiplier() {
+    static double getPointMultiplier() {
         double point_multiplier = Settings.hypocenterDetectionResolutionGPU;
         point_multiplier = ((point_multiplier * point_multiplier + 600) / 2200.0);
         return point_multiplier;
@@ -0,0 +1,307 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.Settings;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.geo.taup.TravelTimeGrid;
+import globalquake.utils.UnitVector;
+import org.tinylog.Logger;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Java port of the CUDA hypocenter search (GQHypocenterSearch/src/hypocenter_search.cu) for hosts without a GPU.
+ * It runs the same depth, point and distance profiles as {@link GQHypocs}, over the same flat station array and
+ * the same fitted travel tables, with chunks of grid points spread over the common fork-join pool.
+ * <p>
+ * Station distances are calculated from unit vectors instead of the float haversine of the kernel,
+ * so the results agree with the GPU up to float rounding, not bit for bit.
+ */
+public class GQHypocsJava {
+
+    private static final int STATION_FIELDS = 4;
+    private static final int TRAVEL_TABLE_SIZE = 2048;
+    private static final float MAX_ANG = 150.0f;
+    private static final float ANGLE_TO_INDEX = (TRAVEL_TABLE_SIZE - 1.0f) / MAX_ANG;
+    private static final float PHI2 = 2.618033989f;
+    // same truncated value as in the kernel, the grid would be slightly different otherwise
+    private static final float PI = 3.14159256f;
+    private static final int MAX_CHUNK = 512;
+    private static final int MIN_CHUNK = 32;
+
+    private static float maxDepth;
+    private static float[][] depthProfileTables;
+
+    private record Candidate(float heuristic, int index, float origin, int row) {
+
+        boolean isBetterThan(Candidate other) {
+            if (heuristic != other.heuristic) {
+                return heuristic > other.heuristic;
+            }
+            return row != other.row ? row < other.row : index < other.index;
+        }
+    }
+
+    public static PreliminaryHypocenter findHypocenter(List<PickedEvent> pickedEventList, Cluster cluster, int from, HypocenterFinderSettings finderSettings) {
+        init();
+        return GQHypocs.findHypocenter(pickedEventList, cluster, from, finderSettings, pickedEventList.size(), GQHypocsJava::findHypocenter);
+    }
+
+    public static synchronized void init() {
+        if (depthProfileTables != null) {
+            return;
+        }
+
+        TravelTimeGrid pWaves = TauPTravelTimeCalculator.getPWaves();
+        int tableRows = pWaves.rows;
+        int tableColumns = pWaves.columns;
+        float[] flatTable = pWaves.values;
+        maxDepth = (float) TauPTravelTimeCalculator.MAX_DEPTH;
+
+        float[][] tables = new float[GQHypocs.depth_profiles.length][];
+        long bytes = 0;
+        for (int i = 0; i < tables.length; i++) {
+            int rows = (int) Math.ceil(maxDepth / GQHypocs.depth_profiles[i]) + 1;
+            tables[i] = prepareTravelTable(flatTable, tableRows, tableColumns, rows);
+            bytes += (long) tables[i].length * Float.BYTES;
+        }
+
+        depthProfileTables = tables;
+        Logger.tag("Hypocs").info("Travel tables for the CPU profile search ready (%.1f MB)".formatted(bytes / (1024.0 * 1024.0)));
+    }
+
+    private static float[] prepareTravelTable(float[] table, int tableRows, int tableColumns, int rows) {
+        float[] result = new float[rows * TRAVEL_TABLE_SIZE];
+        for (int row = 0; row < rows; row++) {
+            float depth = (float) ((row / (rows - 1.0)) * maxDepth);
+            for (int column = 0; column < TRAVEL_TABLE_SIZE; column++) {
+                float ang = (float) (column / (TRAVEL_TABLE_SIZE - 1.0) * MAX_ANG);
+                result[row * TRAVEL_TABLE_SIZE + column] = pWaveInterpolate(table, tableRows, tableColumns, ang, depth);
+            }
+        }
+        return result;
+    }
+
+    private static float pWaveInterpolate(float[] table, int tableRows, int tableColumns, float ang, float depth) {
+        float row = (float) ((depth / maxDepth) * (tableRows - 1.0));
+        float column = (float) ((ang / MAX_ANG) * (tableColumns - 1.0));
+
+        int rowFloor = (int) Math.floor(row);
+        int colFloor = (int) Math.floor(column);
+        int rowCeil = Math.min(tableRows - 1, rowFloor + 1);
+        int colCeil = Math.min(tableColumns - 1, colFloor + 1);
+
+        float rowFrac = row - rowFloor;
+        float colFrac = column - colFloor;
+
+        float q11 = table[rowFloor * tableColumns + colFloor];
+        float q12 = table[rowFloor * tableColumns + colCeil];
+        float q21 = table[rowCeil * tableColumns + colFloor];
+        float q22 = table[rowCeil * tableColumns + colCeil];
+
+        return (1 - rowFrac) * ((1 - colFrac) * q11 + colFrac * q12) + rowFrac * ((1 - colFrac) * q21 + colFrac * q22);
+    }
+
+    /**
+     * Same as {@link globalquake.jni.GQNativeFunctions#findHypocenter}
+     *
+     * @param stations lat (rad) | lon (rad) | alt | pWave (s), station_count values each
+     * @return lat (rad), lon (rad), depth, origin (s) or null
+     */
+    public static float[] findHypocenter(float[] stations, float fromLat, float fromLon, long points, int depthProfile,
+                                         float maxDist, float pWaveThreshold) {
+        init();
+        if (depthProfile < 0 || depthProfile >= depthProfileTables.length) {
+            Logger.tag("Hypocs").error("Invalid depth profile index: %d!".formatted(depthProfile));
+            return null;
+        }
+
+        int stationCount = stations.length / STATION_FIELDS;
+        if (points < 2 || points > Integer.MAX_VALUE) {
+            Logger.tag("Hypocs").error("Invalid point count: %d!".formatted(points));
+            return null;
+        }
+
+        if (stationCount < 3) {
+            Logger.tag("Hypocs").error("At least 3 stations needed!");
+            return null;
+        }
+
+        float[] table = depthProfileTables[depthProfile];
+        int pointCount = (int) points;
+
+        double[] stationX = new double[stationCount];
+        double[] stationY = new double[stationCount];
+        double[] stationZ = new double[stationCount];
+        float[] pWave = new float[stationCount];
+        for (int i = 0; i < stationCount; i++) {
+            double lat = stations[i];
+            double lon = stations[i + stationCount];
+            stationX[i] = Math.cos(lat) * Math.cos(lon);
+            stationY[i] = Math.cos(lat) * Math.sin(lon);
+            stationZ[i] = Math.sin(lat);
+            pWave[i] = stations[i + 3 * stationCount];
+        }
+
+        Grid grid = new Grid(pointCount, maxDist, fromLat, fromLon);
+
+        int chunk = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, pointCount / (Runtime.getRuntime().availableProcessors() * 4)));
+        int tasks = (pointCount + chunk - 1) / chunk;
+        Candidate[] results = new Candidate[tasks];
+
+        IntStream taskStream = IntStream.range(0, tasks);
+        (Settings.parallelHypocenterLocations ? taskStream.parallel() : taskStream).forEach(task -> {
+            int start = task * chunk;
+            int end = Math.min(pointCount, start + chunk);
+            float[] distances = calculateDistances(grid, start, end, stationX, stationY, stationZ);
+            results[task] = evaluateHypocenters(table, distances, pWave, start, end, pWaveThreshold);
+        });
+
+        Candidate best = results[0];
+        for (int i = 1; i < tasks; i++) {
+            if (results[i].isBetterThan(best)) {
+                best = results[i];
+            }
+        }
+
+        int rows = table.length / TRAVEL_TABLE_SIZE;
+        float[] latLon = grid.latLon(best.index);
+        return new float[]{latLon[0], latLon[1], depthOfRow(best.row, rows), best.origin};
+    }
+
+    private static float depthOfRow(int row, int rows) {
+        return maxDepth * (row / (rows - 1.0f));
+    }
+
+    /**
+     * Golden angle spiral around the starting point, see calculate_params in the kernel
+     */
+    private static final class Grid {
+        private final float fromLat;
+        private final float fromLon;
+        private final float spacing;
+        private final double c_theta;
+        private final double s_theta;
+        private final double c_phi;
+        private final double s_phi;
+
+        Grid(int points, float maxDist, float fromLat, float fromLon) {
+            this.fromLat = fromLat;
+            this.fromLon = fromLon;
+            this.spacing = maxDist / (float) Math.sqrt(points - 1.0f);
+            this.c_theta = Math.cos(fromLat);
+            this.s_theta = Math.sin(fromLat);
+            this.c_phi = Math.cos(fromLon);
+            this.s_phi = Math.sin(fromLon);
+        }
+
+        float angle(int index) {
+            return (2.0f * PI * (float) index) / PHI2;
+        }
+
+        float distance(int index) {
+            return (float) Math.sqrt(index) * spacing;
+        }
+
+        float[] latLon(int index) {
+            float delta = distance(index);
+            float gamma = angle(index);
+
+            float c_theta = (float) Math.cos(fromLat);
+            float s_theta = (float) Math.sin(fromLat);
+            float c_phi = (float) Math.cos(fromLon);
+            float s_phi = (float) Math.sin(fromLon);
+            float c_delta = (float) Math.cos(delta);
+            float s_delta = (float) Math.sin(delta);
+            float c_gamma = (float) Math.cos(gamma);
+            float s_gamma = (float) Math.sin(gamma);
+
+            float x = c_delta * c_theta * c_phi - s_delta * (s_theta * c_phi * c_gamma + s_phi * s_gamma);
+            float y = c_delta * c_theta * s_phi - s_delta * (s_theta * s_phi * c_gamma - c_phi * s_gamma);
+            float z = s_delta * c_theta * c_gamma + c_delta * s_theta;
+
+            return new float[]{(float) Math.asin(z), (float) Math.atan2(y, x)};
+        }
+    }
+
+    /**
+     * @return travel table positions, stations of each point next to each other
+     */
+    private static float[] calculateDistances(Grid grid, int start, int end, double[] stationX, double[] stationY, double[] stationZ) {
+        int stationCount = stationX.length;
+        float[] distances = new float[(end - start) * stationCount];
+        for (int point = start; point < end; point++) {
+            double delta = grid.distance(point);
+            double gamma = grid.angle(point);
+            double c_delta = Math.cos(delta);
+            double s_delta = Math.sin(delta);
+            double c_gamma = Math.cos(gamma);
+            double s_gamma = Math.sin(gamma);
+
+            double x = c_delta * grid.c_theta * grid.c_phi - s_delta * (grid.s_theta * grid.c_phi * c_gamma + grid.s_phi * s_gamma);
+            double y = c_delta * grid.c_theta * grid.s_phi - s_delta * (grid.s_theta * grid.s_phi * c_gamma - grid.c_phi * s_gamma);
+            double z = s_delta * grid.c_theta * c_gamma + c_delta * grid.s_theta;
+
+            int base = (point - start) * stationCount;
+            for (int i = 0; i < stationCount; i++) {
+                float angDist = (float) UnitVector.centralAngle(x, y, z, stationX[i], stationY[i], stationZ[i]) * 180.0f / PI;
+                distances[base + i] = angDist * ANGLE_TO_INDEX;
+            }
+        }
+        return distances;
+    }
+
+    private static Candidate evaluateHypocenters(float[] table, float[] distances, float[] pWave, int start, int end, float pWaveThreshold) {
+        int stationCount = pWave.length;
+        int rows = table.length / TRAVEL_TABLE_SIZE;
+        Candidate best = null;
+
+        for (int row = 0; row < rows; row++) {
+            int offset = row * TRAVEL_TABLE_SIZE;
+            // trick with changing station that is being used for origin calculation
+            int j = row % stationCount;
+
+            for (int point = start; point < end; point++) {
+                int base = (point - start) * stationCount;
+                float finalOrigin = pWave[j] - travelTableInterpolate(table, offset, distances[base + j]);
+
+                float err = 0.0f;
+                int correct = stationCount;
+
+                for (int i = 0; i < stationCount; i++) {
+                    float predictedOrigin = pWave[i] - travelTableInterpolate(table, offset, distances[base + i]);
+                    float _err = Math.abs(predictedOrigin - finalOrigin);
+
+                    if (_err > pWaveThreshold) {
+                        correct--;
+                        _err = (_err - pWaveThreshold) * 0.1f + pWaveThreshold;
+                    }
+
+                    err += _err * _err;
+                }
+
+                float heuristic = ((float) correct * correct) / (err * err);
+                if (best == null || heuristic > best.heuristic) {
+                    best = new Candidate(heuristic, point, finalOrigin, row);
+                }
+            }
+        }
+
+        return best;
+    }
+
+    private static float travelTableInterpolate(float[] table, int offset, float index) {
+        // if we are out of bounds, then return some arbitrary value
+        if (index >= TRAVEL_TABLE_SIZE - 1.0f) {
+            return table[offset + TRAVEL_TABLE_SIZE - 1];
+        }
+
+        int index1 = (int) index;
+        float t = index - index1;
+        return (1.0f - t) * table[offset + index1] + t * table[offset + index1 + 1];
+    }
+}
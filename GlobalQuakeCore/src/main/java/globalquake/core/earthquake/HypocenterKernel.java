@@ -0,0 +1,17 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.ExactPickedEvents;
+
+/**
+ * Evaluates the origin time implied by the P wave arrival of each picked event for one candidate hypocenter.
+ */
+interface HypocenterKernel {
+
+    /**
+     * Fills the first {@code events.size} origins, {@link EarthquakeAnalysis#UNKNOWN_ORIGIN} where the P wave doesn't arrive.
+     *
+     * @param indices scratch space of at least {@code events.size} elements
+     */
+    void computeOrigins(double depth, ExactPickedEvents events, long[] origins, int[] indices);
+
+}
@@ -0,0 +1,48 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.Settings;
+import org.tinylog.Logger;
+
+/**
+ * The vectorised kernel is used when {@link Settings#vectorHypocenterKernel} is enabled, it was built with the
+ * {@code vector} Maven profile and the incubating Vector API is present, i.e. when running with
+ * {@code --add-modules jdk.incubator.vector}. Both kernels produce exactly the same origins.
+ */
+final class HypocenterKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    static final HypocenterKernel SCALAR = new ScalarHypocenterKernel();
+
+    static final HypocenterKernel VECTOR = loadVectorKernel();
+
+    private HypocenterKernels() {
+    }
+
+    static HypocenterKernel current() {
+        return VECTOR != null && Settings.vectorHypocenterKernel ? VECTOR : SCALAR;
+    }
+
+    private static HypocenterKernel loadVectorKernel() {
+        if (HypocenterKernels.class.getResource("VectorHypocenterKernel.class") == null) {
+            Logger.tag("Hypocs").debug("Built without the vectorised hypocenter search kernel, build with -Pvector to include it");
+            return null;
+        }
+
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            Logger.tag("Hypocs").info("Vector API not available, start with --add-modules %s to use the vectorised hypocenter search"
+                    .formatted(VECTOR_MODULE));
+            return null;
+        }
+
+        try {
+            HypocenterKernel kernel = (HypocenterKernel) Class.forName("globalquake.core.earthquake.VectorHypocenterKernel")
+                    .getDeclaredConstructor().newInstance();
+            Logger.tag("Hypocs").info("Vectorised hypocenter search kernel loaded (%s)".formatted(kernel));
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            Logger.tag("Hypocs").warn("Unable to load the vectorised hypocenter search kernel: %s".formatted(e));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.ExactPickedEvents;
+import globalquake.core.earthquake.data.Hypocenter;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.HypocenterFinderThreadData;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.utils.GeoUtils;
+import globalquake.utils.UnitVector;
+
+import java.util.List;
+
+/**
+ * Damped least-squares (Levenberg–Marquardt) refinement of a hypocenter that is already known to be close,
+ * used instead of the grid search for late revisions of well constrained earthquakes.
+ * <p>
+ * The unknowns are the north and east offsets from the starting point in km, the depth in km and the origin time in seconds.
+ * Travel time derivatives are taken as central differences on the P wave table, one table cell apart.
+ * Residuals larger than the P wave inaccuracy threshold don't count (truncated least squares), so a few wrong picks don't pull the solution away.
+ */
+final class HypocenterRefinement {
+
+    private static final int MAX_ITERATIONS = 30;
+    private static final double INITIAL_DAMPING = 1e-3;
+    private static final double MAX_DAMPING = 1e9;
+
+    // converged when a step moves less than 10 m and 1 ms
+    private static final double MIN_STEP_KM = 0.01;
+    private static final double MIN_STEP_SECONDS = 0.001;
+
+    private static final double SHALLOW_START_DEPTH = 10.0;
+
+    private static final double KM_TO_ANGLE = 360.0 / GeoUtils.EARTH_CIRCUMFERENCE;
+
+    private HypocenterRefinement() {
+    }
+
+    /**
+     * @return the refined hypocenter evaluated the same way as the grid search evaluates its candidates,
+     * or null if there are not enough usable events
+     */
+    static PreliminaryHypocenter refine(List<PickedEvent> events, double lat, double lon, double depth, long origin,
+                                        HypocenterFinderSettings finderSettings) {
+        if (events.size() < 4) {
+            return null;
+        }
+
+        // depth trades off with the origin time and the crustal part of the table is kinked,
+        // so a shallow start is also tried to not get stuck in a local minimum
+        PreliminaryHypocenter best = null;
+        for (double startDepth : depth > SHALLOW_START_DEPTH * 2 ? new double[]{depth, SHALLOW_START_DEPTH} : new double[]{depth}) {
+            best = EarthquakeAnalysis.selectBetterHypocenter(refine(new ExactPickedEvents(events), lat, lon, startDepth, origin, finderSettings), best);
+        }
+
+        return best;
+    }
+
+    private static PreliminaryHypocenter refine(ExactPickedEvents pickedEvents, double lat, double lon, double depth, long origin,
+                                                HypocenterFinderSettings finderSettings) {
+        double threshold = finderSettings.pWaveInaccuracyThreshold() / 1000.0;
+
+        UnitVector position = UnitVector.of(lat, lon);
+        double originSeconds = 0; // relative to the starting origin, to keep the precision
+        double[][] jacobian = new double[pickedEvents.size][4];
+        double[] residuals = new double[pickedEvents.size];
+
+        double cost = evaluate(pickedEvents, position, depth, originSeconds, origin, threshold, jacobian, residuals);
+        if (Double.isNaN(cost)) {
+            return null;
+        }
+
+        double damping = INITIAL_DAMPING;
+        double[][] normal = new double[4][4];
+        double[] gradient = new double[4];
+        double[] step = new double[4];
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            buildNormalEquations(pickedEvents.size, jacobian, residuals, threshold, normal, gradient);
+
+            boolean improved = false;
+            while (damping < MAX_DAMPING) {
+                if (!solveDamped(normal, gradient, damping, step)) {
+                    damping *= 10;
+                    continue;
+                }
+
+                UnitVector candidate = move(position, step[0], step[1]);
+                double candidateDepth = Math.max(0, Math.min(TauPTravelTimeCalculator.MAX_DEPTH - 1, depth + step[2]));
+                double candidateOrigin = originSeconds + step[3];
+
+                double[][] candidateJacobian = new double[pickedEvents.size][4];
+                double[] candidateResiduals = new double[pickedEvents.size];
+                double candidateCost = evaluate(pickedEvents, candidate, candidateDepth, candidateOrigin, origin, threshold,
+                        candidateJacobian, candidateResiduals);
+
+                if (!Double.isNaN(candidateCost) && candidateCost < cost) {
+                    position = candidate;
+                    depth = candidateDepth;
+                    originSeconds = candidateOrigin;
+                    cost = candidateCost;
+                    jacobian = candidateJacobian;
+                    residuals = candidateResiduals;
+                    damping = Math.max(1e-9, damping / 10);
+                    improved = true;
+                    break;
+                }
+
+                damping *= 10;
+            }
+
+            if (!improved || (Math.hypot(step[0], step[1]) < MIN_STEP_KM
+                    && Math.abs(step[2]) < MIN_STEP_KM && Math.abs(step[3]) < MIN_STEP_SECONDS)) {
+                break;
+            }
+        }
+
+        // score it exactly like a grid candidate, so that it can be compared with the previous hypocenter
+        EarthquakeAnalysis.calculateDistances(pickedEvents, position);
+        HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(pickedEvents.size);
+        PreliminaryHypocenter result = new PreliminaryHypocenter();
+        EarthquakeAnalysis.analyseHypocenter(result, position.lat(), position.lon(), depth, pickedEvents, finderSettings, threadData);
+
+        if (result.correctStations == 0) {
+            return null;
+        }
+
+        return result;
+    }
+
+    /**
+     * The refinement is only trusted while the new picks still fit about as well as the ones the previous hypocenter was located from.
+     *
+     * @param all the refinement from all the selected events, compared by the ratio of correct events
+     * @param reduced the refinement from the events left after removing the worst ones, compared by the mean squared error
+     * @param maxCorrectnessDrop by how much the ratio of correct events can drop
+     * @param maxErrorGrowth how many times the mean squared error per event can grow
+     */
+    static boolean isDegraded(PreliminaryHypocenter all, int allCount, PreliminaryHypocenter reduced, int reducedCount,
+                              Hypocenter previous, double maxCorrectnessDrop, double maxErrorGrowth) {
+        double correctness = all.correctStations / (double) allCount;
+        if (correctness < previous.getCorrectness() - maxCorrectnessDrop) {
+            return true;
+        }
+
+        double previousError = previous.totalErr / Math.max(1, previous.reducedEvents);
+        double error = reduced.err / reducedCount;
+
+        // a very small previous error would make any new pick look like degradation
+        return error > Math.max(previousError, 0.25) * maxErrorGrowth;
+    }
+
+    private static UnitVector move(UnitVector position, double north, double east) {
+        double dist = Math.hypot(north, east);
+        if (dist == 0) {
+            return position;
+        }
+        return position.move(dist, Math.toDegrees(Math.atan2(east, north)));
+    }
+
+    /**
+     * Fills the residuals (observed minus predicted, in seconds) and their derivatives by the four unknowns.
+     * Events without a P arrival get zero residual and zero derivatives, so they don't take part.
+     *
+     * @return the truncated least squares cost, NaN if no event has an arrival
+     */
+    private static double evaluate(ExactPickedEvents events, UnitVector position, double depth, double originSeconds, long origin,
+                                   double threshold, double[][] jacobian, double[] residuals) {
+        // local north and east directions at the position, the meridian of 0° is used at the poles
+        double cTheta = Math.sqrt(position.x() * position.x() + position.y() * position.y());
+        double cPhi = cTheta == 0 ? 1.0 : position.x() / cTheta;
+        double sPhi = cTheta == 0 ? 0.0 : position.y() / cTheta;
+        double northX = -position.z() * cPhi;
+        double northY = -position.z() * sPhi;
+        double eastX = -sPhi;
+        double eastY = cPhi;
+
+        double cost = 0;
+        int used = 0;
+
+        for (int i = 0; i < events.size; i++) {
+            double x = events.x[i];
+            double y = events.y[i];
+            double z = events.z[i];
+
+            double angle = TauPTravelTimeCalculator.toAngle(GeoUtils.EARTH_RADIUS *
+                    UnitVector.centralAngle(x, y, z, position.x(), position.y(), position.z()));
+            double travelTime = TauPTravelTimeCalculator.getPWaveTravelTime(depth, angle);
+
+            double dTdAngle = angleDerivative(depth, angle);
+            double dTdDepth = depthDerivative(depth, angle);
+
+            if (travelTime == TauPTravelTimeCalculator.NO_ARRIVAL || Double.isNaN(dTdAngle) || Double.isNaN(dTdDepth)) {
+                residuals[i] = 0;
+                jacobian[i][0] = jacobian[i][1] = jacobian[i][2] = jacobian[i][3] = 0;
+                continue;
+            }
+
+            // moving towards the station shortens the distance by the cosine of the azimuth
+            double north = x * northX + y * northY + z * cTheta;
+            double east = x * eastX + y * eastY;
+            double horizontal = Math.hypot(north, east);
+            double cAzimuth = horizontal == 0 ? 0 : north / horizontal;
+            double sAzimuth = horizontal == 0 ? 0 : east / horizontal;
+
+            double dTdKm = dTdAngle * KM_TO_ANGLE;
+            jacobian[i][0] = -dTdKm * cAzimuth;
+            jacobian[i][1] = -dTdKm * sAzimuth;
+            jacobian[i][2] = dTdDepth;
+            jacobian[i][3] = 1.0;
+
+            double predicted = originSeconds + travelTime + events.elevationCorrection[i];
+            double residual = (events.pWave[i] - origin) / 1000.0 - predicted;
+            residuals[i] = residual;
+
+            cost += 0.5 * Math.min(residual * residual, threshold * threshold);
+            used++;
+        }
+
+        return used == 0 ? Double.NaN : cost;
+    }
+
+    private static double angleDerivative(double depth, double angle) {
+        double h = TauPTravelTimeCalculator.ANG_RESOLUTION;
+        double a = TauPTravelTimeCalculator.getPWaveTravelTime(depth, angle + h);
+        double b = TauPTravelTimeCalculator.getPWaveTravelTime(depth, Math.max(0, angle - h));
+        if (a == TauPTravelTimeCalculator.NO_ARRIVAL || b == TauPTravelTimeCalculator.NO_ARRIVAL) {
+            return Double.NaN;
+        }
+        return (a - b) / (angle + h - Math.max(0, angle - h));
+    }
+
+    private static double depthDerivative(double depth, double angle) {
+        double h = TauPTravelTimeCalculator.DEPTH_RESOLUTION;
+        double upper = Math.max(0, depth - h);
+        double lower = Math.min(TauPTravelTimeCalculator.MAX_DEPTH, depth + h);
+        double a = TauPTravelTimeCalculator.getPWaveTravelTime(lower, angle);
+        double b = TauPTravelTimeCalculator.getPWaveTravelTime(upper, angle);
+        if (a == TauPTravelTimeCalculator.NO_ARRIVAL || b == TauPTravelTimeCalculator.NO_ARRIVAL) {
+            return Double.NaN;
+        }
+        return (a - b) / (lower - upper);
+    }
+
+    private static void buildNormalEquations(int size, double[][] jacobian, double[] residuals, double threshold,
+                                             double[][] normal, double[] gradient) {
+        for (int r = 0; r < 4; r++) {
+            gradient[r] = 0;
+            for (int c = 0; c < 4; c++) {
+                normal[r][c] = 0;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            double abs = Math.abs(residuals[i]);
+            double weight = abs <= threshold ? 1.0 : 0.0;
+            double[] row = jacobian[i];
+            for (int r = 0; r < 4; r++) {
+                double wr = weight * row[r];
+                gradient[r] += wr * residuals[i];
+                for (int c = r; c < 4; c++) {
+                    normal[r][c] += wr * row[c];
+                }
+            }
+        }
+
+        for (int r = 1; r < 4; r++) {
+            for (int c = 0; c < r; c++) {
+                normal[r][c] = normal[c][r];
+            }
+        }
+    }
+
+    /**
+     * Solves (JᵀWJ + λ·diag(JᵀWJ))·step = JᵀWr by Gaussian elimination with partial pivoting.
+     *
+     * @return false if the system is singular
+     */
+    private static boolean solveDamped(double[][] normal, double[] gradient, double damping, double[] step) {
+        double[][] a = new double[4][5];
+        for (int r = 0; r < 4; r++) {
+            System.arraycopy(normal[r], 0, a[r], 0, 4);
+            // a small floor keeps unresolved parameters, e.g. depth with distant stations only, from blowing up
+            a[r][r] += damping * Math.max(normal[r][r], 1e-9);
+            a[r][4] = gradient[r];
+        }
+
+        for (int col = 0; col < 4; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < 4; r++) {
+                if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) {
+                    pivot = r;
+                }
+            }
+
+            if (Math.abs(a[pivot][col]) < 1e-15) {
+                return false;
+            }
+
+            double[] tmp = a[pivot];
+            a[pivot] = a[col];
+            a[col] = tmp;
+
+            for (int r = col + 1; r < 4; r++) {
+                double f = a[r][col] / a[col][col];
+                for (int c = col; c < 5; c++) {
+                    a[r][c] -= f * a[col][c];
+                }
+            }
+        }
+
+        for (int r = 3; r >= 0; r--) {
+            double sum = a[r][4];
+            for (int c = r + 1; c < 4; c++) {
+                sum -= a[r][c] * step[c];
+            }
+            step[r] = sum / a[r][r];
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,189 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.analysis.Event;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.metrics.Metrics;
+import globalquake.utils.NamedThreadFactory;
+import org.tinylog.Logger;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Locates the hypocenters of clusters on a dedicated pool, so that one large cluster can't hold up the others.
+ * Clusters without an earthquake go first, then the ones with the strongest arrivals.
+ * A running revision is abandoned as soon as its cluster gets enough new updates for a newer one, the newer one is then scheduled
+ * by the next run of {@link EarthquakeAnalysis}.
+ */
+public class HypocenterScheduler {
+
+    private final ThreadPoolExecutor executor;
+    private final Set<Cluster> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicLong totalComputeNanos = new AtomicLong();
+    private final AtomicLong maxComputeNanos = new AtomicLong();
+
+    public HypocenterScheduler(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("There must be at least one hypocenter search thread!");
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+                runnable -> new NamedThreadFactory("Hypocenter Search Thread #%d".formatted(threadIndex.getAndIncrement())).newThread(runnable));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void stop() {
+        GlobalQuake.instance.stopService(executor);
+        queued.clear();
+    }
+
+    /**
+     * Queues a revision of the cluster, unless one is already waiting or running.
+     *
+     * @param revision locates the hypocenter, returns false if there was nothing new to locate,
+     *                 may throw {@link HypocenterSearchCancelledException} once superseded
+     * @return false if a revision of the cluster was already waiting or running
+     */
+    public boolean schedule(Cluster cluster, Predicate<Cluster> revision) {
+        if (!queued.add(cluster)) {
+            return false;
+        }
+
+        executor.execute(new Job(cluster, revision, cluster.getEarthquake() == null, getMaxRatio(cluster),
+                sequence.getAndIncrement(), System.nanoTime()));
+        return true;
+    }
+
+    private static double getMaxRatio(Cluster cluster) {
+        double result = 0;
+        for (Event event : cluster.getAssignedEvents().values()) {
+            result = Math.max(result, event.maxRatio);
+        }
+        return result;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * @return average time in milliseconds between a revision being queued and its computation starting
+     */
+    public double getAverageQueueWaitMs() {
+        long count = completedCount.get() + cancelledCount.get();
+        return count == 0 ? 0.0 : totalQueueWaitNanos.get() / (count * 1e6);
+    }
+
+    /**
+     * @return average time in milliseconds a revision takes to compute, including the cancelled ones
+     */
+    public double getAverageComputeMs() {
+        long count = completedCount.get() + cancelledCount.get();
+        return count == 0 ? 0.0 : totalComputeNanos.get() / (count * 1e6);
+    }
+
+    /**
+     * @return maximum queue wait in milliseconds since the last call
+     */
+    public double resetMaxQueueWaitMs() {
+        return maxQueueWaitNanos.getAndSet(0) / 1e6;
+    }
+
+    /**
+     * @return maximum compute time in milliseconds since the last call
+     */
+    public double resetMaxComputeMs() {
+        return maxComputeNanos.getAndSet(0) / 1e6;
+    }
+
+    private final class Job implements Runnable, Comparable<Job> {
+
+        private final Cluster cluster;
+        private final Predicate<Cluster> revision;
+        private final boolean newCluster;
+        private final double maxRatio;
+        private final long sequence;
+        private final long queuedAt;
+
+        private Job(Cluster cluster, Predicate<Cluster> revision, boolean newCluster, double maxRatio, long sequence, long queuedAt) {
+            this.cluster = cluster;
+            this.revision = revision;
+            this.newCluster = newCluster;
+            this.maxRatio = maxRatio;
+            this.sequence = sequence;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            boolean computed = false;
+            boolean cancelled = false;
+
+            cluster.revisionCancellable = true;
+            try {
+                computed = revision.test(cluster);
+            } catch (HypocenterSearchCancelledException e) {
+                cancelled = true;
+            } catch (Exception e) {
+                Logger.error("Exception occurred in hypocenter search");
+                GlobalQuake.getErrorHandler().handleException(e);
+            } finally {
+                cluster.revisionCancellable = false;
+                queued.remove(cluster);
+            }
+
+            if (!computed && !cancelled) {
+                return;
+            }
+
+            long queueWait = start - queuedAt;
+            long compute = System.nanoTime() - start;
+
+            cluster.recordHypocenterTimes(queueWait, compute, cancelled);
+            Metrics.HYPOCENTER_QUEUE_WAIT.record(queueWait);
+            Metrics.HYPOCENTER_COMPUTE.record(compute);
+
+            totalQueueWaitNanos.addAndGet(queueWait);
+            maxQueueWaitNanos.accumulateAndGet(queueWait, Math::max);
+            totalComputeNanos.addAndGet(compute);
+            maxComputeNanos.accumulateAndGet(compute, Math::max);
+            (cancelled ? cancelledCount : completedCount).incrementAndGet();
+
+            Logger.tag("Hypocs").debug("Cluster #%d %s: waited %.1f ms, computed %.1f ms".formatted(
+                    cluster.id, cancelled ? "revision superseded" : "revision done", queueWait / 1e6, compute / 1e6));
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            if (newCluster != other.newCluster) {
+                return newCluster ? -1 : 1;
+            }
+
+            int byRatio = Double.compare(other.maxRatio, maxRatio);
+            return byRatio != 0 ? byRatio : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.Settings;
+
+public enum HypocenterSearchBackend {
+
+    CUDA("CUDA (CPU classic if unavailable)"),
+    CPU_CLASSIC("CPU classic"),
+    CPU_PROFILES("CPU profiles (CUDA search ported to Java)");
+
+    private final String name;
+
+    HypocenterSearchBackend(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return true if the hypocenter search runs the CUDA profiles, on the GPU or on the CPU
+     */
+    public static boolean isProfileSearchActive() {
+        HypocenterSearchBackend backend = Settings.getSelectedHypocenterSearchBackend();
+        return backend == CPU_PROFILES || (backend == CUDA && GQHypocs.isCudaLoaded());
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
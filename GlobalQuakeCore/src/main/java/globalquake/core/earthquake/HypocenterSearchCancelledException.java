@@ -0,0 +1,12 @@
+package globalquake.core.earthquake;
+
+/**
+ * Thrown from within the hypocenter search when its cluster got updated enough for a newer revision to be started,
+ * so that the outdated one stops early.
+ */
+public class HypocenterSearchCancelledException extends RuntimeException {
+
+    public HypocenterSearchCancelledException() {
+        super(null, null, false, false);
+    }
+}
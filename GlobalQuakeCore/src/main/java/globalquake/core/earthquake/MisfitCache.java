@@ -0,0 +1,96 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Misfits of the hypocenter candidates already evaluated during the post-processing of one revision. The confidence polygons
+ * for the different thresholds walk the same rays and the depth searches overlap, so many points would be evaluated repeatedly.
+ * <p>
+ * Points are keyed by position quantized far below the search resolution, together with a hash of the picked events,
+ * so a cache can never answer for a different set of events.
+ */
+final class MisfitCache {
+
+    private static final double LAT_LON_QUANTUM = 1e7; // ~1 cm
+    private static final double DEPTH_QUANTUM = 1e5; // 1 cm
+
+    private final int eventsHash;
+    private final Map<Key, Misfit> misfits = new ConcurrentHashMap<>();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    private record Key(long lat, long lon, long depth, int eventsHash) {
+    }
+
+    private record Misfit(long origin, double err, int correctStations) {
+    }
+
+    MisfitCache(List<PickedEvent> events) {
+        this.eventsHash = hashEvents(events);
+    }
+
+    static int hashEvents(List<PickedEvent> events) {
+        int result = 1;
+        for (PickedEvent event : events) {
+            result = 31 * result + Long.hashCode(event.pWave());
+            result = 31 * result + Double.hashCode(event.lat());
+            result = 31 * result + Double.hashCode(event.lon());
+            result = 31 * result + Double.hashCode(event.elevation());
+        }
+        return result;
+    }
+
+    private Key key(double lat, double lon, double depth) {
+        return new Key(Math.round(lat * LAT_LON_QUANTUM), Math.round(lon * LAT_LON_QUANTUM), Math.round(depth * DEPTH_QUANTUM), eventsHash);
+    }
+
+    /**
+     * Fills the hypocenter with the cached misfit of the given point.
+     *
+     * @return false if the point has not been evaluated yet
+     */
+    boolean lookup(PreliminaryHypocenter hypocenter, double lat, double lon, double depth) {
+        lookups.incrementAndGet();
+        Misfit misfit = misfits.get(key(lat, lon, depth));
+        if (misfit == null) {
+            return false;
+        }
+
+        hits.incrementAndGet();
+        hypocenter.err = misfit.err();
+        hypocenter.correctStations = misfit.correctStations();
+
+        // same as EarthquakeAnalysis.analyseHypocenter, which leaves the rest untouched when the origin is unknown
+        if (misfit.origin() != EarthquakeAnalysis.UNKNOWN_ORIGIN) {
+            hypocenter.lat = lat;
+            hypocenter.lon = lon;
+            hypocenter.depth = depth;
+            hypocenter.origin = misfit.origin();
+        }
+        return true;
+    }
+
+    void store(PreliminaryHypocenter hypocenter, double lat, double lon, double depth) {
+        boolean unknown = hypocenter.err == Double.MAX_VALUE && hypocenter.correctStations == 0;
+        misfits.put(key(lat, lon, depth), new Misfit(unknown ? EarthquakeAnalysis.UNKNOWN_ORIGIN : hypocenter.origin,
+                hypocenter.err, hypocenter.correctStations));
+    }
+
+    long getLookups() {
+        return lookups.get();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    int size() {
+        return misfits.size();
+    }
+}
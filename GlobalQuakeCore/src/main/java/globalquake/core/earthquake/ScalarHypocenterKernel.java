@@ -0,0 +1,91 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.ExactPickedEvents;
+import globalquake.core.geo.taup.TauPTravelTable;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.geo.taup.TravelTimeGrid;
+
+/**
+ * Same lookup as {@link TauPTravelTimeCalculator#getPWaveTravelTimeFast(double, double)}, only with the depth row
+ * resolved once for all the events. The arithmetic is done in the same order, so the results are bit for bit equal.
+ */
+final class ScalarHypocenterKernel implements HypocenterKernel {
+
+    private static final double MIN_ANGLE = TauPTravelTable.P_S_MIN_ANGLE;
+    private static final double ANGLE_RANGE = TauPTravelTable.P_S_MAX_ANGLE - TauPTravelTable.P_S_MIN_ANGLE;
+
+    @Override
+    public void computeOrigins(double depth, ExactPickedEvents events, long[] origins, int[] indices) {
+        computeOrigins(depth, events, origins, 0, events.size);
+    }
+
+    static void computeOrigins(double depth, ExactPickedEvents events, long[] origins, int from, int to) {
+        TravelTimeGrid table = TauPTravelTimeCalculator.getPWaves();
+        int rows = table.rows;
+        int columns = table.columns;
+        double maxY = columns - 1;
+
+        double x = (depth / TauPTravelTimeCalculator.MAX_DEPTH) * (rows - 1);
+        if (x < 0 || x > rows - 1) {
+            for (int i = from; i < to; i++) {
+                origins[i] = EarthquakeAnalysis.UNKNOWN_ORIGIN;
+            }
+            return;
+        }
+
+        int x0 = (int) x;
+        if (x0 == rows - 1) {
+            // the bottom edge of the table
+            computeOriginsSlow(depth, events, origins, from, to);
+            return;
+        }
+
+        float[] values = table.values;
+        int row0 = x0 * columns;
+        int row1 = row0 + columns;
+        double tx = x - x0;
+
+        for (int i = from; i < to; i++) {
+            double y = ((events.angle[i] - MIN_ANGLE) / ANGLE_RANGE) * maxY;
+            if (y < 0 || y > maxY) {
+                origins[i] = EarthquakeAnalysis.UNKNOWN_ORIGIN;
+                continue;
+            }
+
+            int y0 = (int) y;
+            int y1 = y0 + 1;
+            float q11 = values[row0 + y0];
+            float q21 = values[row1 + y0];
+            float q12 = values[row0 + y1];
+            float q22 = values[row1 + y1];
+
+            double ty = y - y0;
+            double travelTime = (1 - tx) * (1 - ty) * q11 + tx * (1 - ty) * q21 + (1 - tx) * ty * q12 + tx * ty * q22;
+            if (travelTime == TauPTravelTimeCalculator.NO_ARRIVAL) {
+                origins[i] = EarthquakeAnalysis.UNKNOWN_ORIGIN;
+                continue;
+            }
+
+            travelTime += events.elevationCorrection[i];
+            origins[i] = events.pWave[i] - ((long) (travelTime * 1000));
+        }
+    }
+
+    private static void computeOriginsSlow(double depth, ExactPickedEvents events, long[] origins, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double travelTime = TauPTravelTimeCalculator.getPWaveTravelTimeFast(depth, events.angle[i]);
+            if (travelTime == TauPTravelTimeCalculator.NO_ARRIVAL) {
+                origins[i] = EarthquakeAnalysis.UNKNOWN_ORIGIN;
+                continue;
+            }
+
+            travelTime += events.elevationCorrection[i];
+            origins[i] = events.pWave[i] - ((long) (travelTime * 1000));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,109 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.ExactPickedEvents;
+import globalquake.core.geo.taup.TauPTravelTable;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.geo.taup.TravelTimeGrid;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API version of {@link ScalarHypocenterKernel}, only the angle column of the bilinear interpolation
+ * is gathered per lane. The arithmetic is done in the same order, so the results are bit for bit equal.
+ * Loaded only when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorHypocenterKernel implements HypocenterKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_256;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_256;
+    private static final VectorSpecies<Float> FLOATS = VectorSpecies.of(float.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    private static final double MIN_ANGLE = TauPTravelTable.P_S_MIN_ANGLE;
+    private static final double ANGLE_RANGE = TauPTravelTable.P_S_MAX_ANGLE - TauPTravelTable.P_S_MIN_ANGLE;
+
+    @Override
+    public void computeOrigins(double depth, ExactPickedEvents events, long[] origins, int[] indices) {
+        TravelTimeGrid table = TauPTravelTimeCalculator.getPWaves();
+        int rows = table.rows;
+        int columns = table.columns;
+
+        double x = (depth / TauPTravelTimeCalculator.MAX_DEPTH) * (rows - 1);
+        if (x < 0 || x > rows - 1) {
+            for (int i = 0; i < events.size; i++) {
+                origins[i] = EarthquakeAnalysis.UNKNOWN_ORIGIN;
+            }
+            return;
+        }
+
+        int x0 = (int) x;
+        if (x0 == rows - 1) {
+            // the bottom edge of the table, leave it to the scalar lookup
+            ScalarHypocenterKernel.computeOrigins(depth, events, origins, 0, events.size);
+            return;
+        }
+
+        float[] values = table.values;
+        int row0 = x0 * columns;
+        int row1 = row0 + columns;
+        double tx = x - x0;
+        double oneMinusTx = 1 - tx;
+        double maxY = columns - 1;
+
+        int bound = DOUBLES.loopBound(events.size);
+        int i = 0;
+        for (; i < bound; i += DOUBLES.length()) {
+            DoubleVector y = DoubleVector.fromArray(DOUBLES, events.angle, i)
+                    .sub(MIN_ANGLE).div(ANGLE_RANGE).mul(maxY);
+            VectorMask<Double> outside = y.compare(VectorOperators.LT, 0.0).or(y.compare(VectorOperators.GT, maxY));
+            if (y.compare(VectorOperators.EQ, maxY).anyTrue()) {
+                // the right edge of the table, leave it to the scalar lookup as well
+                break;
+            }
+
+            y = y.blend(0.0, outside);
+            IntVector y0 = (IntVector) y.convertShape(VectorOperators.D2I, INTS, 0);
+            y0.intoArray(indices, i);
+
+            DoubleVector ty = y.sub((DoubleVector) y0.convertShape(VectorOperators.I2D, DOUBLES, 0));
+            DoubleVector oneMinusTy = DoubleVector.broadcast(DOUBLES, 1.0).sub(ty);
+
+            DoubleVector q11 = gather(values, row0, indices, i);
+            DoubleVector q21 = gather(values, row1, indices, i);
+            DoubleVector q12 = gather(values, row0 + 1, indices, i);
+            DoubleVector q22 = gather(values, row1 + 1, indices, i);
+
+            DoubleVector travelTime = oneMinusTy.mul(oneMinusTx).mul(q11)
+                    .add(oneMinusTy.mul(tx).mul(q21))
+                    .add(ty.mul(oneMinusTx).mul(q12))
+                    .add(ty.mul(tx).mul(q22));
+
+            VectorMask<Double> noArrival = outside.or(travelTime.compare(VectorOperators.EQ, TauPTravelTimeCalculator.NO_ARRIVAL));
+
+            travelTime = travelTime.add(DoubleVector.fromArray(DOUBLES, events.elevationCorrection, i));
+            LongVector travelMillis = (LongVector) travelTime.mul(1000).convertShape(VectorOperators.D2L, LONGS, 0);
+
+            LongVector.fromArray(LONGS, events.pWave, i).sub(travelMillis)
+                    .blend(EarthquakeAnalysis.UNKNOWN_ORIGIN, noArrival.cast(LONGS))
+                    .intoArray(origins, i);
+        }
+
+        ScalarHypocenterKernel.computeOrigins(depth, events, origins, i, events.size);
+    }
+
+    private static DoubleVector gather(float[] values, int offset, int[] indices, int i) {
+        return (DoubleVector) FloatVector.fromArray(FLOATS, values, offset, indices, i)
+                .convertShape(VectorOperators.F2D, DOUBLES, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "%d x %d bit".formatted(DOUBLES.length(), DOUBLES.elementSize());
+    }
+}
@@ -22,7 +22,7 @@ public class Cluster implements Warnable {
 	private final Map<AbstractStation, Event> assignedEvents;
 	private double rootLat;
 	private double rootLon;
-	public int updateCount;
+	public volatile int updateCount;
 	private long lastUpdate;
 
 	private Earthquake earthquake;
@@ -33,6 +33,12 @@ public class Cluster implements Warnable {
 
 	public int lastEpicenterUpdate;
 
+	// set while a revision runs on the hypocenter scheduler, which may then abandon it once it's superseded
+	public volatile boolean revisionCancellable;
+	private volatile long lastQueueWaitNanos;
+	private volatile long lastComputeNanos;
+	private final AtomicInteger cancelledRevisions = new AtomicInteger();
+
 	private double anchorLon;
 	private double anchorLat;
 	public int revisionID;
@@ -46,6 +52,9 @@ public class Cluster implements Warnable {
 
 	public final int id;
 
+	// System.nanoTime() of the creation, for the latency until the first hypocenter
+	private final long createdNanos = System.nanoTime();
+
 	private static final AtomicInteger nextID = new AtomicInteger(0);
 
 	private Color randomColor() {
@@ -88,6 +97,10 @@ public class Cluster implements Warnable {
 		}
 	}
 
+	public long getCreatedNanos() {
+		return createdNanos;
+	}
+
 	public Hypocenter getLastValidHypocenter() {
 		return lastValidHypocenter;
 	}
@@ -275,6 +288,32 @@ public class Cluster implements Warnable {
 		return anchorLon;
 	}
 
+	public void recordHypocenterTimes(long queueWaitNanos, long computeNanos, boolean cancelled) {
+		lastQueueWaitNanos = queueWaitNanos;
+		lastComputeNanos = computeNanos;
+		if (cancelled) {
+			cancelledRevisions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return how long the last hypocenter revision waited in the queue of the scheduler, in milliseconds
+	 */
+	public double getLastQueueWaitMs() {
+		return lastQueueWaitNanos / 1e6;
+	}
+
+	/**
+	 * @return how long the last hypocenter revision took to compute, in milliseconds
+	 */
+	public double getLastComputeMs() {
+		return lastComputeNanos / 1e6;
+	}
+
+	public int getCancelledRevisions() {
+		return cancelledRevisions.get();
+	}
+
 	@Override
 	public String toString() {
 		return "Cluster{" +
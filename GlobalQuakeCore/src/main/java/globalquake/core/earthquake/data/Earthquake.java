@@ -8,6 +8,7 @@ import globalquake.core.intensity.CityIntensity;
 
 import globalquake.core.regions.RegionUpdater;
 import globalquake.core.regions.Regional;
+import globalquake.utils.UnitVector;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -84,6 +85,11 @@ public class Earthquake implements Regional, Warnable {
         return hyp == null ? 0.0 : hyp.lon;
     }
 
+    public UnitVector getUnitVector() {
+        Hypocenter hyp = getLastValidHypocenter();
+        return hyp == null ? UnitVector.of(0.0, 0.0) : hyp.unitVector;
+    }
+
     public long getOrigin() {
         Hypocenter hyp = getLastValidHypocenter();
         return hyp == null ? 0L : hyp.origin;
@@ -0,0 +1,39 @@
+package globalquake.core.earthquake.data;
+
+import globalquake.core.earthquake.EarthquakeAnalysis;
+
+import java.util.List;
+
+/**
+ * Picked events laid out as parallel arrays for the hypocenter search kernels, with station positions as unit vectors.
+ * The angles are recalculated for every point the search visits.
+ */
+public class ExactPickedEvents {
+
+    public final int size;
+    public final double[] x;
+    public final double[] y;
+    public final double[] z;
+    public final long[] pWave;
+    public final double[] elevationCorrection;
+    public final double[] angle;
+
+    public ExactPickedEvents(List<PickedEvent> events) {
+        size = events.size();
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+        pWave = new long[size];
+        elevationCorrection = new double[size];
+        angle = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            PickedEvent event = events.get(i);
+            x[i] = event.unitVector().x();
+            y[i] = event.unitVector().y();
+            z[i] = event.unitVector().z();
+            pWave[i] = event.pWave();
+            elevationCorrection[i] = EarthquakeAnalysis.getElevationCorrection(event.elevation());
+        }
+    }
+}
@@ -5,6 +5,8 @@ import globalquake.core.earthquake.interval.DepthConfidenceInterval;
 import globalquake.core.earthquake.interval.PolygonConfidenceInterval;
 import globalquake.core.earthquake.quality.Quality;
 
+import globalquake.utils.UnitVector;
+
 import java.util.List;
 
 public class Hypocenter {
@@ -13,6 +15,7 @@ public class Hypocenter {
 
 	public final double lat;
 	public final double lon;
+	public final UnitVector unitVector;
 	public double depth;
 	public long origin;
 
@@ -39,6 +42,7 @@ public class Hypocenter {
 					  List<PolygonConfidenceInterval> polygonConfidenceIntervals) {
 		this.lat = lat;
 		this.lon = lon;
+		this.unitVector = UnitVector.of(lat, lon);
 		this.depth = depth;
 		this.origin = origin;
 		this.totalErr = err;
@@ -2,6 +2,7 @@ package globalquake.core.earthquake.data;
 
 public class HypocenterFinderThreadData {
     public final long[] origins;
+    public final int[] indices;
 
     public final PreliminaryHypocenter hypocenterA;
 
@@ -10,6 +11,7 @@ public class HypocenterFinderThreadData {
 
     public HypocenterFinderThreadData(int size) {
         origins = new long[size];
+        indices = new int[size];
         hypocenterA = new PreliminaryHypocenter();
         hypocenterB = new PreliminaryHypocenter();
         bestHypocenter = new PreliminaryHypocenter();
@@ -1,5 +1,7 @@
 package globalquake.core.earthquake.data;
 
+import globalquake.utils.UnitVector;
+
 import java.util.Objects;
 
 public class PickedEvent {
@@ -8,13 +10,19 @@ public class PickedEvent {
     private final double lon;
     private final double elevation;
     private final double maxRatio;
+    private final UnitVector unitVector;
 
     public PickedEvent(long pWave, double lat, double lon, double elevation, double maxRatio) {
+        this(pWave, lat, lon, elevation, maxRatio, UnitVector.of(lat, lon));
+    }
+
+    public PickedEvent(long pWave, double lat, double lon, double elevation, double maxRatio, UnitVector unitVector) {
         this.pWave = pWave;
         this.lat = lat;
         this.lon = lon;
         this.elevation = elevation;
         this.maxRatio = maxRatio;
+        this.unitVector = unitVector;
     }
 
     public long pWave() {
@@ -37,6 +45,10 @@ public class PickedEvent {
         return maxRatio;
     }
 
+    public UnitVector unitVector() {
+        return unitVector;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) return true;
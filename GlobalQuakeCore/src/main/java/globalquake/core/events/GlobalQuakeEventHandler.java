@@ -2,59 +2,105 @@ package globalquake.core.events;
 
 import globalquake.core.GlobalQuake;
 import globalquake.core.events.specific.GlobalQuakeEvent;
-import globalquake.core.events.specific.SeedlinkEvent;
+import globalquake.core.metrics.Metrics;
 import org.tinylog.Logger;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+/**
+ * Delivers the events to every listener through its own {@link ListenerQueue}, so a listener that is slow,
+ * e.g. broadcasting to many clients, doesn't delay the others.
+ */
 public class GlobalQuakeEventHandler {
 
-    private Queue<GlobalQuakeEventListener> eventListeners;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_DATA_CAPACITY = 8192;
 
-    private ExecutorService defaultExecutor;
-    private ExecutorService seedlinkExecutor;
+    private final int capacity;
+    private final int dataCapacity;
+
+    private Queue<ListenerQueue> listenerQueues;
+    private final Set<String> names = new HashSet<>();
+
+    public GlobalQuakeEventHandler() {
+        this(DEFAULT_CAPACITY, DEFAULT_DATA_CAPACITY);
+    }
+
+    GlobalQuakeEventHandler(int capacity, int dataCapacity) {
+        this.capacity = capacity;
+        this.dataCapacity = dataCapacity;
+    }
 
     public GlobalQuakeEventHandler runHandler() {
-        eventListeners = new ConcurrentLinkedQueue<>();
-        defaultExecutor = Executors.newSingleThreadExecutor();
-        seedlinkExecutor = Executors.newSingleThreadExecutor();
+        listenerQueues = new ConcurrentLinkedQueue<>();
         return this;
     }
 
     public void stopHandler(){
-        GlobalQuake.instance.stopService(defaultExecutor);
-        GlobalQuake.instance.stopService(seedlinkExecutor);
-        eventListeners.clear();
+        List<ListenerQueue> queues = List.copyOf(listenerQueues);
+        listenerQueues.clear();
+        for (ListenerQueue queue : queues) {
+            queue.stop();
+        }
+        for (ListenerQueue queue : queues) {
+            GlobalQuake.instance.stopService(queue.getExecutor());
+            removeMetrics(queue.getName());
+        }
+        synchronized (this) {
+            names.clear();
+        }
     }
 
     public void registerEventListener(GlobalQuakeEventListener eventListener){
-        eventListeners.add(eventListener);
+        ListenerQueue queue = new ListenerQueue(eventListener, uniqueName(eventListener), capacity, dataCapacity);
+        registerMetrics(queue);
+        queue.start();
+        listenerQueues.add(queue);
+    }
+
+    private synchronized String uniqueName(GlobalQuakeEventListener eventListener) {
+        String name = eventListener.getClass().getName();
+        String result = name;
+        for (int i = 2; !names.add(result); i++) {
+            result = "%s#%d".formatted(name, i);
+        }
+        return result;
     }
 
     public void fireEvent(GlobalQuakeEvent event){
-        getExecutorFor(event).submit(() -> {
-            if(event.shouldLog()) {
-                Logger.tag("Event").trace("Event fired: %s".formatted(event.toString()));
-            }
-            for (GlobalQuakeEventListener eventListener : eventListeners) {
-                try {
-                    event.run(eventListener);
-                } catch (Exception e) {
-                    Logger.error(e);
-                }
-            }
-        });
-    }
-
-    private ExecutorService getExecutorFor(GlobalQuakeEvent event) {
-        if(event instanceof SeedlinkEvent){
-            return seedlinkExecutor;
+        long firedNanos = System.nanoTime();
+        if(event.shouldLog()) {
+            Logger.tag("Event").trace("Event fired: %s".formatted(event.toString()));
         }
+        for (ListenerQueue queue : listenerQueues) {
+            queue.offer(event, firedNanos);
+        }
+    }
+
+    private static void registerMetrics(ListenerQueue queue) {
+        Metrics.gauge(series("gq_event_queue_size", queue.getName()),
+                "Number of events waiting for the listener", queue::size);
+        Metrics.gauge(series("gq_event_queue_lag_seconds", queue.getName()),
+                "Age of the oldest event waiting for the listener", queue::lagSeconds);
+        Metrics.counter(series("gq_event_dropped_total", queue.getName()),
+                "Number of events dropped because the listener couldn't keep up", queue::getDropped);
+        Metrics.counter(series("gq_event_coalesced_total", queue.getName()),
+                "Number of earthquake updates replaced by a newer one before the listener got them", queue::getCoalesced);
+    }
+
+    private static void removeMetrics(String name) {
+        Metrics.remove(series("gq_event_queue_size", name));
+        Metrics.remove(series("gq_event_queue_lag_seconds", name));
+        Metrics.remove(series("gq_event_dropped_total", name));
+        Metrics.remove(series("gq_event_coalesced_total", name));
+    }
 
-        return defaultExecutor;
+    private static String series(String family, String listener) {
+        return "%s{listener=\"%s\"}".formatted(family, listener);
     }
 
 }
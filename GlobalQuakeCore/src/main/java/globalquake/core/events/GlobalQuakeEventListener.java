@@ -2,6 +2,8 @@ package globalquake.core.events;
 
 import globalquake.core.events.specific.*;
 
+import java.util.List;
+
 public class GlobalQuakeEventListener {
 
     public void onClusterCreate(ClusterCreateEvent event) {}
@@ -16,6 +18,16 @@ public class GlobalQuakeEventListener {
 
     public void onNewData(SeedlinkDataEvent event) {}
 
+    /**
+     * Receives the data events that queued up while the listener was busy, in the order they were fired.
+     * Override it to handle them at once, by default they are passed to {@link #onNewData(SeedlinkDataEvent)} one by one.
+     */
+    public void onNewDataBatch(List<SeedlinkDataEvent> events) {
+        for (SeedlinkDataEvent event : events) {
+            onNewData(event);
+        }
+    }
+
     public void onClusterLevelup(ClusterLevelUpEvent event) {}
 
     public void onQuakeReport(QuakeReportEvent event) {}
@@ -0,0 +1,297 @@
+package globalquake.core.events;
+
+import globalquake.core.earthquake.data.Earthquake;
+import globalquake.core.events.specific.*;
+import globalquake.core.metrics.Metrics;
+import globalquake.utils.VirtualThreads;
+import org.tinylog.Logger;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queue of the events waiting for one listener, delivered by its own thread so that a slow listener doesn't hold up the others.
+ * <p>
+ * The events are delivered in the order they were fired, except that the data events are kept aside and only delivered,
+ * in batches, when no other event is waiting. A {@link QuakeUpdateEvent} replaces a pending update of the same earthquake
+ * if nothing else of that earthquake was fired in between, so a busy listener only gets the latest revision.
+ * <p>
+ * Firing never waits for the listener. When the data events are full, the oldest one is dropped. When the other events
+ * are full, the oldest pending update or cluster event is dropped, since a newer one of those follows anyway. Only if
+ * there is none, the oldest event is dropped. All the drops are counted.
+ */
+final class ListenerQueue {
+
+    static final int MAX_DATA_BATCH = 256;
+
+    private static final class Pending {
+        private GlobalQuakeEvent event;
+        private final long firedNanos;
+
+        private Pending(GlobalQuakeEvent event, long firedNanos) {
+            this.event = event;
+            this.firedNanos = firedNanos;
+        }
+    }
+
+    private final GlobalQuakeEventListener listener;
+    private final String name;
+    private final boolean acceptsData;
+    private final int capacity;
+    private final int dataCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Deque<Pending> events = new ArrayDeque<>();
+    private final Deque<Pending> dataEvents = new ArrayDeque<>();
+    private final Map<UUID, Pending> lastByQuake = new HashMap<>();
+
+    private long dropped;
+    private long coalesced;
+    private boolean stopped;
+    private ExecutorService executor;
+
+    ListenerQueue(GlobalQuakeEventListener listener, String name, int capacity, int dataCapacity) {
+        this.listener = listener;
+        this.name = name;
+        this.capacity = capacity;
+        this.dataCapacity = dataCapacity;
+        this.acceptsData = overrides(listener, "onNewData", SeedlinkDataEvent.class)
+                || overrides(listener, "onNewDataBatch", List.class);
+    }
+
+    private static boolean overrides(GlobalQuakeEventListener listener, String method, Class<?> parameter) {
+        try {
+            return listener.getClass().getMethod(method, parameter).getDeclaringClass() != GlobalQuakeEventListener.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    void start() {
+        executor = VirtualThreads.newSingleThreadExecutor("Event Listener %s".formatted(name));
+        executor.execute(this::run);
+    }
+
+    /**
+     * Lets the worker deliver what is already queued and finish
+     */
+    void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void offer(GlobalQuakeEvent event, long firedNanos) {
+        if (event instanceof SeedlinkDataEvent) {
+            offerData(event, firedNanos);
+            return;
+        }
+
+        UUID uuid = quakeUuid(event);
+        lock.lock();
+        try {
+            if (stopped) {
+                return;
+            }
+
+            if (event instanceof QuakeUpdateEvent update && uuid != null) {
+                Pending last = lastByQuake.get(uuid);
+                if (last != null && last.event instanceof QuakeUpdateEvent) {
+                    // carries the previous hypocenter as of its own firing
+                    last.event = update;
+                    coalesced++;
+                    return;
+                }
+            }
+
+            if (events.size() >= capacity) {
+                Pending evicted = evict();
+                UUID evictedUuid = quakeUuid(evicted.event);
+                if (evictedUuid != null) {
+                    lastByQuake.remove(evictedUuid, evicted);
+                }
+                countDrop();
+            }
+
+            Pending pending = new Pending(event, firedNanos);
+            events.addLast(pending);
+            if (uuid != null) {
+                lastByQuake.put(uuid, pending);
+            }
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest update or cluster event, or the oldest event if there is none of those
+     */
+    private Pending evict() {
+        Iterator<Pending> iterator = events.iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (pending.event instanceof QuakeUpdateEvent || pending.event instanceof ClusterCreateEvent
+                    || pending.event instanceof ClusterLevelUpEvent) {
+                iterator.remove();
+                return pending;
+            }
+        }
+
+        return events.pollFirst();
+    }
+
+    private void countDrop() {
+        if (dropped++ == 0) {
+            Logger.tag("Event").warn("Listener %s can't keep up with the events, dropping the oldest ones".formatted(name));
+        }
+    }
+
+    private void offerData(GlobalQuakeEvent event, long firedNanos) {
+        if (!acceptsData) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (stopped) {
+                return;
+            }
+
+            if (dataEvents.size() >= dataCapacity) {
+                dataEvents.pollFirst();
+                countDrop();
+            }
+
+            dataEvents.addLast(new Pending(event, firedNanos));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        List<SeedlinkDataEvent> batch = new ArrayList<>();
+        while (true) {
+            Pending next;
+            batch.clear();
+            lock.lock();
+            try {
+                while (events.isEmpty() && dataEvents.isEmpty()) {
+                    if (stopped) {
+                        return;
+                    }
+                    notEmpty.await();
+                }
+
+                next = events.pollFirst();
+                if (next != null) {
+                    UUID uuid = quakeUuid(next.event);
+                    if (uuid != null) {
+                        lastByQuake.remove(uuid, next);
+                    }
+                } else {
+                    long now = System.nanoTime();
+                    while (batch.size() < MAX_DATA_BATCH && !dataEvents.isEmpty()) {
+                        Pending pending = dataEvents.pollFirst();
+                        Metrics.EVENT_QUEUE_DELAY.record(now - pending.firedNanos);
+                        batch.add((SeedlinkDataEvent) pending.event);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (next != null) {
+                    Metrics.EVENT_QUEUE_DELAY.record(System.nanoTime() - next.firedNanos);
+                    next.event.run(listener);
+                } else {
+                    listener.onNewDataBatch(batch);
+                }
+            } catch (Exception e) {
+                Logger.error(e);
+            }
+        }
+    }
+
+    static UUID quakeUuid(GlobalQuakeEvent event) {
+        Earthquake earthquake = null;
+        if (event instanceof QuakeCreateEvent create) {
+            earthquake = create.earthquake();
+        } else if (event instanceof QuakeUpdateEvent update) {
+            earthquake = update.earthquake();
+        } else if (event instanceof QuakeRemoveEvent remove) {
+            earthquake = remove.earthquake();
+        } else if (event instanceof QuakeArchiveEvent archive) {
+            earthquake = archive.earthquake();
+        } else if (event instanceof QuakeReportEvent report) {
+            earthquake = report.earthquake();
+        }
+
+        return earthquake == null ? null : earthquake.getUuid();
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return events.size() + dataEvents.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return seconds since the oldest waiting event was fired, 0 if there is none
+     */
+    double lagSeconds() {
+        lock.lock();
+        try {
+            long oldest = Long.MAX_VALUE;
+            if (!events.isEmpty()) {
+                oldest = events.peekFirst().firedNanos;
+            }
+            if (!dataEvents.isEmpty()) {
+                oldest = Math.min(oldest, dataEvents.peekFirst().firedNanos);
+            }
+            return oldest == Long.MAX_VALUE ? 0 : (System.nanoTime() - oldest) / 1e9;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getCoalesced() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package globalquake.core.geo.taup;
+
+/**
+ * Inverse of a {@link TravelTimeGrid}, the angle reached by a phase at a given depth and travel time.
+ * <p>
+ * For every depth row the travel times are only inverted on their first monotonic segment, the run of arrivals
+ * from the first one for as long as the time doesn't decrease. The grid stores, for every row and every time step,
+ * the last column of that segment the time step already reached. A lookup starts from there and moves over the few
+ * columns within the step, then inverts the same bilinear interpolation the forward lookup uses,
+ * so the result is what a bisection over the forward lookup converges to, without its dozens of lookups.
+ */
+final class InverseTravelTimeGrid {
+
+    /**
+     * How far outside of the segment the time may be and still be snapped to its edge, same as the bisection
+     */
+    private static final double EDGE_TOLERANCE = 0.5;
+
+    private final TravelTimeGrid grid;
+    private final double timeStep;
+    private final double minTime;
+    private final int steps;
+
+    private final int[] segmentStart;
+    private final int[] segmentEnd;
+    private final short[] columns;
+
+    InverseTravelTimeGrid(TravelTimeGrid grid, double timeStep) {
+        if (grid.columns > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many columns for the inverse travel time grid!");
+        }
+
+        this.grid = grid;
+        this.timeStep = timeStep;
+
+        segmentStart = new int[grid.rows];
+        segmentEnd = new int[grid.rows];
+
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int row = 0; row < grid.rows; row++) {
+            findSegment(row);
+            if (segmentStart[row] <= segmentEnd[row]) {
+                min = Math.min(min, grid.get(row, segmentStart[row]));
+                max = Math.max(max, grid.get(row, segmentEnd[row]));
+            }
+        }
+
+        if (min > max) {
+            min = max = 0;
+        }
+
+        minTime = min;
+        steps = (int) Math.ceil((max - min) / timeStep) + 1;
+        columns = new short[grid.rows * steps];
+
+        for (int row = 0; row < grid.rows; row++) {
+            int column = segmentStart[row];
+            for (int step = 0; step < steps; step++) {
+                double time = minTime + step * timeStep;
+                while (column < segmentEnd[row] && grid.get(row, column + 1) <= time) {
+                    column++;
+                }
+                columns[row * steps + step] = (short) column;
+            }
+        }
+    }
+
+    private void findSegment(int row) {
+        int start = 0;
+        while (start < grid.columns && grid.get(row, start) < 0) {
+            start++;
+        }
+
+        int end = start;
+        while (end + 1 < grid.columns) {
+            float next = grid.get(row, end + 1);
+            if (next < 0 || next < grid.get(row, end)) {
+                break;
+            }
+            end++;
+        }
+
+        segmentStart[row] = start;
+        segmentEnd[row] = start < grid.columns ? end : -1;
+    }
+
+    /**
+     * @return the last column of the segment with the time not greater than the given one, or the segment start
+     */
+    private int findColumn(int row, double time) {
+        int step = (int) ((time - minTime) / timeStep);
+        int column = columns[row * steps + Math.max(0, Math.min(steps - 1, step))];
+        while (column < segmentEnd[row] && grid.get(row, column + 1) <= time) {
+            column++;
+        }
+        return column;
+    }
+
+    double getAngle(double depth, double time) {
+        double x = (depth / TauPTravelTimeCalculator.MAX_DEPTH) * (grid.rows - 1);
+        if (x < 0 || x > grid.rows - 1 || Double.isNaN(time)) {
+            return TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        int x0 = (int) x;
+        int x1 = x0 == grid.rows - 1 ? x0 : x0 + 1;
+        double tx = x - x0;
+
+        // both rows must have arrivals, the forward lookup gives no arrival otherwise
+        int start = Math.max(segmentStart[x0], segmentStart[x1]);
+        int end = Math.min(segmentEnd[x0], segmentEnd[x1]);
+        if (start > end) {
+            return TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        double startTime = interpolate(x0, x1, tx, start);
+        if (time <= startTime) {
+            return time >= startTime - EDGE_TOLERANCE ? toAngle(start) : TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        double endTime = interpolate(x0, x1, tx, end);
+        if (time >= endTime) {
+            return time <= endTime + EDGE_TOLERANCE ? toAngle(end) : TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        // the crossing of the interpolated row lies between the crossings of the two rows
+        int column = Math.max(start, Math.min(findColumn(x0, time), findColumn(x1, time)));
+        double t0 = interpolate(x0, x1, tx, column);
+        double t1 = interpolate(x0, x1, tx, column + 1);
+        while (t1 <= time && column + 1 < end) {
+            column++;
+            t0 = t1;
+            t1 = interpolate(x0, x1, tx, column + 1);
+        }
+
+        double ty = t1 > t0 ? (time - t0) / (t1 - t0) : 0.0;
+        return toAngle(column + ty);
+    }
+
+    private double interpolate(int x0, int x1, double tx, int column) {
+        return (1 - tx) * grid.get(x0, column) + tx * grid.get(x1, column);
+    }
+
+    private double toAngle(double column) {
+        return grid.minAngle + column / (grid.columns - 1) * (grid.maxAngle - grid.minAngle);
+    }
+}
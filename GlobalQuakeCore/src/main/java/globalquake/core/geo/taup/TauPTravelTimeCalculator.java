@@ -4,7 +4,14 @@ import globalquake.core.exception.FatalApplicationException;
 import globalquake.core.exception.FatalIOException;
 import globalquake.utils.GeoUtils;
 
-import java.io.*;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.function.Function;
 
 @SuppressWarnings("unused")
@@ -15,101 +22,160 @@ public class TauPTravelTimeCalculator {
 
     public static final double MAX_DEPTH = 750.0;
     public static final float NO_ARRIVAL = -999.0f;
-    private static TauPTravelTable travelTable;
-
-    public static TauPTravelTable getTravelTable() {
-        return travelTable;
+    private static final String TRAVEL_TABLE = "travel_table/travel_table.bin";
+    private static final String LEGACY_TRAVEL_TABLE = "travel_table/travel_table.dat";
+
+    private static TravelTimeGrid pWaves;
+    private static TravelTimeGrid sWaves;
+    private static TravelTimeGrid pkikpWaves;
+    private static TravelTimeGrid pkpWaves;
+
+    /**
+     * Time step of the inverse tables in seconds, a few columns of the travel table at most
+     */
+    private static final double INVERSE_TIME_STEP = 1.0;
+
+    private static InverseTravelTimeGrid pWaveAngles;
+    private static InverseTravelTimeGrid sWaveAngles;
+    private static InverseTravelTimeGrid pkikpWaveAngles;
+    private static InverseTravelTimeGrid pkpWaveAngles;
+
+    public static TravelTimeGrid getPWaves() {
+        return pWaves;
     }
 
     public static void init() throws FatalApplicationException {
         try {
-            travelTable = loadTravelTable("travel_table/travel_table.dat");
+            TravelTableFile table = loadTravelTable();
+            checkTable(table);
+            pWaves = table.grids.get(0);
+            sWaves = table.grids.get(1);
+            pkikpWaves = table.grids.get(2);
+            pkpWaves = table.grids.get(3);
+
+            pWaveAngles = new InverseTravelTimeGrid(pWaves, INVERSE_TIME_STEP);
+            sWaveAngles = new InverseTravelTimeGrid(sWaves, INVERSE_TIME_STEP);
+            pkikpWaveAngles = new InverseTravelTimeGrid(pkikpWaves, INVERSE_TIME_STEP);
+            pkpWaveAngles = new InverseTravelTimeGrid(pkpWaves, INVERSE_TIME_STEP);
         }catch(Exception e){
             throw new FatalApplicationException(e);
         }
     }
 
+    /**
+     * Generates the travel table with TauP, or converts the old serialized one if its path is given
+     */
     public static void main(String[] args) throws Exception{
-        createTravelTable();
+        createTravelTable(args.length > 0 ? Path.of(args[0]) : null);
+    }
+
+    private static void createTravelTable(Path legacyTable) throws Exception{
+        TauPTravelTable travelTable;
+        if (legacyTable != null) {
+            try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(legacyTable))) {
+                travelTable = (TauPTravelTable) in.readObject();
+            }
+        } else {
+            travelTable = new TauPTravelTable();
+        }
+
+        toFile(travelTable).write(Path.of("travel_table.bin"));
     }
 
-    @SuppressWarnings("unused")
-    private static void createTravelTable() throws Exception{
-        TauPTravelTable travelTable = new TauPTravelTable();
-        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("travel_table.dat"));
-        out.writeObject(travelTable);
-        out.close();
+    private static TravelTableFile toFile(TauPTravelTable travelTable) {
+        return new TravelTableFile(MAX_DEPTH, DEPTH_RESOLUTION, ANG_RESOLUTION, List.of(
+                TravelTimeGrid.fromRows(travelTable.p_travel_table, TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE),
+                TravelTimeGrid.fromRows(travelTable.s_travel_table, TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE),
+                TravelTimeGrid.fromRows(travelTable.pkikp_travel_table, TauPTravelTable.PKIKP_MIN_ANGLE, TauPTravelTable.PKIKP_MAX_ANGLE),
+                TravelTimeGrid.fromRows(travelTable.pkp_travel_table, TauPTravelTable.PKP_MIN_ANGLE, TauPTravelTable.PKP_MAX_ANGLE)));
     }
 
-    @SuppressWarnings("SameParameterValue")
-    private static TauPTravelTable loadTravelTable(String path) throws FatalIOException {
-        var url = ClassLoader.getSystemClassLoader().getResource(path);
+    private static TravelTableFile loadTravelTable() throws FatalIOException {
+        var url = ClassLoader.getSystemClassLoader().getResource(TRAVEL_TABLE);
+        if(url != null){
+            return TravelTableFile.load(url);
+        }
+
+        url = ClassLoader.getSystemClassLoader().getResource(LEGACY_TRAVEL_TABLE);
         if(url == null){
             throw new FatalIOException("Unable to load travel table!", new NullPointerException());
         }
 
-        TauPTravelTable res;
-        try {
-            ObjectInput in = new ObjectInputStream(url.openStream());
-            res = (TauPTravelTable) in.readObject();
+        Logger.warn("Binary travel table not found, falling back to the serialized one");
+        try (ObjectInput in = new ObjectInputStream(url.openStream())) {
+            return toFile((TauPTravelTable) in.readObject());
         }catch(IOException | ClassNotFoundException e){
             throw new FatalIOException("Unable to load travel table!", e);
         }
+    }
+
+    private static void checkTable(TravelTableFile table) throws FatalIOException {
+        int rows = (int) Math.round(MAX_DEPTH / DEPTH_RESOLUTION) + 1;
+        if (table.maxDepth != MAX_DEPTH || table.depthResolution != DEPTH_RESOLUTION || table.angleResolution != ANG_RESOLUTION
+                || table.grids.size() != 4 || table.grids.get(0).rows != rows) {
+            throw new FatalIOException("Travel table was generated with different parameters, it has to be regenerated!", null);
+        }
 
-        return res;
+        checkGrid(table.grids.get(0), TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE);
+        checkGrid(table.grids.get(1), TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE);
+        checkGrid(table.grids.get(2), TauPTravelTable.PKIKP_MIN_ANGLE, TauPTravelTable.PKIKP_MAX_ANGLE);
+        checkGrid(table.grids.get(3), TauPTravelTable.PKP_MIN_ANGLE, TauPTravelTable.PKP_MAX_ANGLE);
+    }
+
+    private static void checkGrid(TravelTimeGrid grid, double minAngle, double maxAngle) throws FatalIOException {
+        if (grid.minAngle != minAngle || grid.maxAngle != maxAngle
+                || grid.columns != (int) Math.round((maxAngle - minAngle) / ANG_RESOLUTION) + 1) {
+            throw new FatalIOException("Travel table was generated with different parameters, it has to be regenerated!", null);
+        }
     }
 
 
 
     public static double getPWaveTravelTime(double depth, double angle){
-        return interpolateWaves(travelTable.p_travel_table, TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE, depth, angle, false);
+        return interpolateWaves(pWaves, depth, angle, false);
     }
 
     public static double getPWaveTravelTimeFast(double depth, double angle){
-        return interpolateWaves(travelTable.p_travel_table, TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE, depth, angle, true);
+        return interpolateWaves(pWaves, depth, angle, true);
     }
 
     public static double getSWaveTravelTime(double depth, double angle){
-        return interpolateWaves(travelTable.s_travel_table, TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE, depth, angle, false);
+        return interpolateWaves(sWaves, depth, angle, false);
     }
 
     public static double getPKIKPWaveTravelTime(double depth, double angle){
-        return interpolateWaves(travelTable.pkikp_travel_table, TauPTravelTable.PKIKP_MIN_ANGLE, TauPTravelTable.PKIKP_MAX_ANGLE, depth, angle, false);
+        return interpolateWaves(pkikpWaves, depth, angle, false);
     }
 
     public static double getPKPWaveTravelTime(double depth, double angle){
-        return interpolateWaves(travelTable.pkp_travel_table, TauPTravelTable.PKP_MIN_ANGLE, TauPTravelTable.PKP_MAX_ANGLE, depth, angle, false);
+        return interpolateWaves(pkpWaves, depth, angle, false);
     }
 
-    private static double getMaxTime(float[][] table) {
-        return table[0][table[0].length - 1];
+    private static double getMaxTime(TravelTimeGrid grid) {
+        return grid.values[grid.columns - 1];
     }
 
     public static double getPWaveTravelAngle(double depth, double timeSeconds) {
         if(timeSeconds < 0 ||
-                timeSeconds > getMaxTime(travelTable.p_travel_table)){
+                timeSeconds > getMaxTime(pWaves)){
             return  NO_ARRIVAL;
         }
-        return binarySearchTime((angle) -> getPWaveTravelTime(depth, angle), timeSeconds, 1e-4,
-                TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE);
+        return pWaveAngles.getAngle(depth, timeSeconds);
     }
 
     public static double getSWaveTravelAngle(double depth, double timeSeconds) {
-        if(timeSeconds < 0 || timeSeconds > getMaxTime(travelTable.s_travel_table)){
+        if(timeSeconds < 0 || timeSeconds > getMaxTime(sWaves)){
             return  NO_ARRIVAL;
         }
-        return binarySearchTime((angle) -> getSWaveTravelTime(depth, angle), timeSeconds, 1e-4,
-                TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE);
+        return sWaveAngles.getAngle(depth, timeSeconds);
     }
 
     public static double getPKIKPWaveTravelAngle(double depth, double timeSeconds) {
-        return binarySearchTime((angle) -> getPKIKPWaveTravelTime(depth, angle), timeSeconds, 1e-4,
-                TauPTravelTable.PKIKP_MIN_ANGLE, TauPTravelTable.PKIKP_MAX_ANGLE);
+        return pkikpWaveAngles.getAngle(depth, timeSeconds);
     }
 
     public static double getPKPWaveTravelAngle(double depth, double timeSeconds) {
-        return binarySearchTime((angle) -> getPKPWaveTravelTime(depth, angle), timeSeconds, 1e-4,
-                TauPTravelTable.PKP_MIN_ANGLE, TauPTravelTable.PKP_MAX_ANGLE);
+        return pkpWaveAngles.getAngle(depth, timeSeconds);
     }
 
 
@@ -141,25 +207,25 @@ public class TauPTravelTimeCalculator {
     }
 
 
-    private static double interpolateWaves(float[][] array, double minAng, double maxAng, double depth, double angle, boolean fast) {
-        double x = (depth / MAX_DEPTH) * (array.length - 1);
-        double y = ((angle - minAng) / (maxAng - minAng)) * (array[0].length - 1);
-        if(x < 0 || y < 0 || x > array.length - 1 || y > array[0].length - 1){
+    private static double interpolateWaves(TravelTimeGrid grid, double depth, double angle, boolean fast) {
+        double x = (depth / MAX_DEPTH) * (grid.rows - 1);
+        double y = ((angle - grid.minAngle) / (grid.maxAngle - grid.minAngle)) * (grid.columns - 1);
+        if(x < 0 || y < 0 || x > grid.rows - 1 || y > grid.columns - 1){
             return NO_ARRIVAL;
         }
-        return fast? fastbilinearInterpolation(array, x, y) : bilinearInterpolation(array, x, y);
+        return fast? fastbilinearInterpolation(grid, x, y) : bilinearInterpolation(grid, x, y);
     }
 
-    private static double fastbilinearInterpolation(float[][] array, double x, double y) {
+    private static double fastbilinearInterpolation(TravelTimeGrid grid, double x, double y) {
         int x0 = (int) x;
-        int x1 = x0 + 1;
         int y0 = (int) y;
-        int y1 = y0 + 1;
+        int index = x0 * grid.columns + y0;
 
-        float q11 = array[x0][y0];
-        float q21 = array[x1][y0];
-        float q12 = array[x0][y1];
-        float q22 = array[x1][y1];
+        float[] values = grid.values;
+        float q11 = values[index];
+        float q21 = values[index + grid.columns];
+        float q12 = values[index + 1];
+        float q22 = values[index + grid.columns + 1];
 
         double tx = x - x0;
         double ty = y - y0;
@@ -167,24 +233,27 @@ public class TauPTravelTimeCalculator {
         return (1 - tx) * (1 - ty) * q11 + tx * (1 - ty) * q21 + (1 - tx) * ty * q12 + tx * ty * q22;
     }
 
-    private static double bilinearInterpolation(float[][] array, double x, double y) {
+    private static double bilinearInterpolation(TravelTimeGrid grid, double x, double y) {
         if(x < 0 || y < 0){
             return NO_ARRIVAL;
         }
 
         int x0 = (int) x;
-        int x1 = x0 == array.length - 1 ? x0 : x0 + 1;
+        int x1 = x0 == grid.rows - 1 ? x0 : x0 + 1;
         int y0 = (int) y;
-        int y1 = y0 == array[0].length - 1 ? y0 : y0 + 1;
+        int y1 = y0 == grid.columns - 1 ? y0 : y0 + 1;
 
-        if (x1 >= array.length || y1 >= array[0].length) {
+        if (x1 >= grid.rows || y1 >= grid.columns) {
             return NO_ARRIVAL;
         }
 
-        float q11 = array[x0][y0];
-        float q21 = array[x1][y0];
-        float q12 = array[x0][y1];
-        float q22 = array[x1][y1];
+        float[] values = grid.values;
+        int row0 = x0 * grid.columns;
+        int row1 = x1 * grid.columns;
+        float q11 = values[row0 + y0];
+        float q21 = values[row1 + y0];
+        float q12 = values[row0 + y1];
+        float q22 = values[row1 + y1];
 
         if (q11 < 0 || q21 < 0 || q12 < 0 || q22 < 0) {
             return NO_ARRIVAL;
@@ -0,0 +1,176 @@
+package globalquake.core.geo.taup;
+
+import globalquake.core.exception.FatalIOException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Flat binary travel table file, loaded by mapping it to memory instead of deserializing nested arrays.
+ * <pre>
+ * int    magic "GQTT"
+ * int    version
+ * int    number of grids
+ * int    depth rows
+ * double max depth, depth resolution, angle resolution
+ * per grid: double min angle, double max angle, int columns, int reserved
+ * per grid: rows x columns floats, row by row
+ * long   CRC32 of everything before it
+ * </pre>
+ * All little endian.
+ */
+public final class TravelTableFile {
+
+    public static final int MAGIC = 0x54545147; // "GQTT" read as little endian
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 * Integer.BYTES + 3 * Double.BYTES;
+    private static final int GRID_HEADER_SIZE = 2 * Double.BYTES + 2 * Integer.BYTES;
+
+    public final double maxDepth;
+    public final double depthResolution;
+    public final double angleResolution;
+    public final List<TravelTimeGrid> grids;
+
+    public TravelTableFile(double maxDepth, double depthResolution, double angleResolution, List<TravelTimeGrid> grids) {
+        this.maxDepth = maxDepth;
+        this.depthResolution = depthResolution;
+        this.angleResolution = angleResolution;
+        this.grids = grids;
+    }
+
+    public static TravelTableFile load(URL url) throws FatalIOException {
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return load(Path.of(url.toURI()));
+            }
+
+            // packed in a jar, can't be mapped
+            try (InputStream in = url.openStream()) {
+                return read(ByteBuffer.wrap(in.readAllBytes()));
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new FatalIOException("Unable to load travel table!", e);
+        }
+    }
+
+    public static TravelTableFile load(Path path) throws FatalIOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new FatalIOException("Unable to load travel table!", e);
+        }
+    }
+
+    public static TravelTableFile read(ByteBuffer buffer) throws FatalIOException {
+        buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE + Long.BYTES) {
+            throw new FatalIOException("Travel table is truncated!", null);
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new FatalIOException("Not a travel table file!", null);
+        }
+
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new FatalIOException("Unsupported travel table version %d, expected %d!".formatted(version, VERSION), null);
+        }
+
+        int count = buffer.getInt(8);
+        int rows = buffer.getInt(12);
+        double maxDepth = buffer.getDouble(16);
+        double depthResolution = buffer.getDouble(24);
+        double angleResolution = buffer.getDouble(32);
+        if (count < 0 || rows < 1) {
+            throw new FatalIOException("Travel table header is corrupted!", null);
+        }
+
+        long dataStart = HEADER_SIZE + (long) count * GRID_HEADER_SIZE;
+        long size = dataStart;
+        int[] columns = new int[count];
+        for (int i = 0; i < count; i++) {
+            int position = HEADER_SIZE + i * GRID_HEADER_SIZE;
+            if (position + GRID_HEADER_SIZE > buffer.limit()) {
+                throw new FatalIOException("Travel table is truncated!", null);
+            }
+            columns[i] = buffer.getInt(position + 2 * Double.BYTES);
+            if (columns[i] < 1) {
+                throw new FatalIOException("Travel table header is corrupted!", null);
+            }
+            size += (long) rows * columns[i] * Float.BYTES;
+        }
+
+        if (size + Long.BYTES != buffer.limit()) {
+            throw new FatalIOException("Travel table has %d bytes, expected %d!".formatted(buffer.limit(), size + Long.BYTES), null);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, (int) size));
+        if (crc.getValue() != buffer.getLong((int) size)) {
+            throw new FatalIOException("Travel table checksum doesn't match!", null);
+        }
+
+        List<TravelTimeGrid> grids = new ArrayList<>(count);
+        int position = (int) dataStart;
+        for (int i = 0; i < count; i++) {
+            int header = HEADER_SIZE + i * GRID_HEADER_SIZE;
+            float[] values = new float[rows * columns[i]];
+            buffer.slice(position, values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+            grids.add(new TravelTimeGrid(buffer.getDouble(header), buffer.getDouble(header + Double.BYTES), rows, columns[i], values));
+            position += values.length * Float.BYTES;
+        }
+
+        return new TravelTableFile(maxDepth, depthResolution, angleResolution, grids);
+    }
+
+    public void write(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        int rows = grids.isEmpty() ? 1 : grids.get(0).rows;
+        long size = HEADER_SIZE + (long) grids.size() * GRID_HEADER_SIZE;
+        for (TravelTimeGrid grid : grids) {
+            if (grid.rows != rows) {
+                throw new IllegalArgumentException("All the grids must have the same depth rows!");
+            }
+            size += (long) grid.values.length * Float.BYTES;
+        }
+
+        if (size + Long.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Travel table too large!");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size + Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(grids.size()).putInt(rows);
+        buffer.putDouble(maxDepth).putDouble(depthResolution).putDouble(angleResolution);
+        for (TravelTimeGrid grid : grids) {
+            buffer.putDouble(grid.minAngle).putDouble(grid.maxAngle).putInt(grid.columns).putInt(0);
+        }
+        for (TravelTimeGrid grid : grids) {
+            buffer.asFloatBuffer().put(grid.values);
+            buffer.position(buffer.position() + grid.values.length * Float.BYTES);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, (int) size);
+        buffer.putLong(crc.getValue());
+
+        out.write(buffer.array());
+    }
+}
@@ -0,0 +1,49 @@
+package globalquake.core.geo.taup;
+
+/**
+ * Travel times of one phase over depth and angular distance, stored row by row in a single array.
+ * Row {@code r} holds the depth {@code r / (rows - 1) * MAX_DEPTH}, its columns go from {@code minAngle} to {@code maxAngle}.
+ */
+public final class TravelTimeGrid {
+
+    public final double minAngle;
+    public final double maxAngle;
+    public final int rows;
+    public final int columns;
+    public final float[] values;
+
+    public TravelTimeGrid(double minAngle, double maxAngle, int rows, int columns, float[] values) {
+        if (rows < 1 || columns < 1 || values.length != rows * columns) {
+            throw new IllegalArgumentException("Travel time grid of %d x %d can't hold %d values!".formatted(rows, columns, values.length));
+        }
+        this.minAngle = minAngle;
+        this.maxAngle = maxAngle;
+        this.rows = rows;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public static TravelTimeGrid fromRows(float[][] table, double minAngle, double maxAngle) {
+        int columns = table[0].length;
+        float[] values = new float[table.length * columns];
+        for (int row = 0; row < table.length; row++) {
+            System.arraycopy(table[row], 0, values, row * columns, columns);
+        }
+        return new TravelTimeGrid(minAngle, maxAngle, table.length, columns, values);
+    }
+
+    /**
+     * @return copy of the grid as separate rows, for the native code that still expects them
+     */
+    public float[][] toRows() {
+        float[][] result = new float[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(values, row * columns, result[row], 0, columns);
+        }
+        return result;
+    }
+
+    public float get(int row, int column) {
+        return values[row * columns + column];
+    }
+}
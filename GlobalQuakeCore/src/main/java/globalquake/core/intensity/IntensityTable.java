@@ -1,6 +1,8 @@
 package globalquake.core.intensity;
 
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class IntensityTable {
 
@@ -65,15 +67,49 @@ public class IntensityTable {
     }
 
     public static double getMagnitude(double dist, double intensity) {
-        return findMagnitude(intensity, value -> getIntensity(value, dist));
+        return IntensityLookup.INSTANCE.getMagnitude(dist, intensity);
     }
 
     public static double getMagnitudeByRatio(double dist, double intensity) {
-        return findMagnitude(intensity, value -> getRatio(value, dist));
+        return RatioLookup.INSTANCE.getMagnitude(dist, intensity);
     }
 
     public static double getMagnitudeByAccelerometer(double dist, double intensity) {
+        return AccelerometerLookup.INSTANCE.getMagnitude(dist, intensity);
+    }
+
+    public static double searchMagnitude(double dist, double intensity) {
+        return findMagnitude(intensity, value -> getIntensity(value, dist));
+    }
+
+    public static double searchMagnitudeByRatio(double dist, double intensity) {
+        return findMagnitude(intensity, value -> getRatio(value, dist));
+    }
+
+    public static double searchMagnitudeByAccelerometer(double dist, double intensity) {
         return findMagnitude(intensity, value -> getIntensityAccelerometers(value, dist));
     }
 
+    /**
+     * Builds the magnitude grids in parallel, so that the first earthquake doesn't wait for them
+     */
+    public static void init() {
+        Stream.<Supplier<MagnitudeLookup>>of(() -> IntensityLookup.INSTANCE, () -> RatioLookup.INSTANCE, () -> AccelerometerLookup.INSTANCE)
+                .parallel().forEach(Supplier::get);
+    }
+
+    // each grid is built by init(), or on its first use otherwise
+
+    private static final class IntensityLookup {
+        private static final MagnitudeLookup INSTANCE = new MagnitudeLookup(IntensityTable::getIntensity, IntensityTable::searchMagnitude, 1200);
+    }
+
+    private static final class RatioLookup {
+        private static final MagnitudeLookup INSTANCE = new MagnitudeLookup(IntensityTable::getRatio, IntensityTable::searchMagnitudeByRatio, 1200);
+    }
+
+    private static final class AccelerometerLookup {
+        private static final MagnitudeLookup INSTANCE = new MagnitudeLookup(IntensityTable::getIntensityAccelerometers, IntensityTable::searchMagnitudeByAccelerometer, 3000);
+    }
+
 }
@@ -0,0 +1,185 @@
+package globalquake.core.intensity;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Magnitudes of one of the {@link IntensityTable} formulas precomputed over distance and intensity, so that
+ * the magnitude of a station is a bilinear interpolation instead of a binary search over the formula.
+ * <p>
+ * The grid is indexed by the logarithm of the distance and the logarithm of the intensity. The distance is first compressed
+ * the same way the formula does it beyond its limit, otherwise the magnitudes would change too abruptly there.
+ * Every cell is checked against the formula when the grid is built. Cells that are off by more than {@link #TOLERANCE},
+ * or that reach the ends of the magnitude range, are left to the binary search, and so are values outside the grid.
+ */
+public final class MagnitudeLookup {
+
+    private static final double MAX_DISTANCE = 21000.0;
+    private static final double MIN_MAGNITUDE = -2.0;
+    private static final double MAX_MAGNITUDE = 10.0;
+
+    /**
+     * Maximum magnitude difference from the binary search where the grid is used
+     */
+    private static final double TOLERANCE = 0.003;
+
+    // below that the binary search itself isn't accurate to 0.01
+    private static final double MIN_LOG_INTENSITY = -3.0;
+    private static final int ROWS = 192;
+    private static final int COLUMNS = 192;
+    private static final int CHECKS = 4;
+
+    private final DoubleBinaryOperator intensityFunction;
+    private final DoubleBinaryOperator search;
+    private final double distanceLimit;
+
+    private final double maxAxis;
+    private final double minLogIntensity;
+    private final double maxLogIntensity;
+    private final double[] magnitudes;
+    private final boolean[] searched;
+
+    /**
+     * @param intensityFunction (magnitude, distance) to intensity
+     * @param search            (distance, intensity) to magnitude, the binary search the grid replaces
+     * @param distanceLimit     distance beyond which the formula compresses the distance
+     */
+    public MagnitudeLookup(DoubleBinaryOperator intensityFunction, DoubleBinaryOperator search, double distanceLimit) {
+        this.intensityFunction = intensityFunction;
+        this.search = search;
+        this.distanceLimit = distanceLimit;
+        this.maxAxis = toAxis(MAX_DISTANCE);
+
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            double dist = getDistance(row);
+            min = Math.min(min, getMinLogIntensity(dist));
+            max = Math.max(max, Math.log10(intensityFunction.applyAsDouble(MAX_MAGNITUDE, dist)));
+        }
+
+        minLogIntensity = Math.max(MIN_LOG_INTENSITY, min);
+        maxLogIntensity = max;
+
+        magnitudes = new double[ROWS * COLUMNS];
+        IntStream.range(0, ROWS).parallel().forEach(row -> {
+            double dist = getDistance(row);
+            for (int column = 0; column < COLUMNS; column++) {
+                magnitudes[row * COLUMNS + column] = search.applyAsDouble(dist, Math.pow(10, getLogIntensity(column)));
+            }
+        });
+
+        searched = new boolean[(ROWS - 1) * (COLUMNS - 1)];
+        IntStream.range(0, ROWS - 1).parallel().forEach(row -> {
+            for (int column = 0; column < COLUMNS - 1; column++) {
+                searched[row * (COLUMNS - 1) + column] = !checkCell(row, column);
+            }
+        });
+    }
+
+    private double getMinLogIntensity(double dist) {
+        // the formulas aren't defined for the lowest magnitudes at short distances
+        for (double mag = MIN_MAGNITUDE; mag < MAX_MAGNITUDE; mag += 0.01) {
+            double result = Math.log10(intensityFunction.applyAsDouble(mag, dist));
+            if (Double.isFinite(result)) {
+                return result;
+            }
+        }
+        return Double.MAX_VALUE;
+    }
+
+    private double toAxis(double dist) {
+        if (dist > distanceLimit) {
+            dist = distanceLimit + Math.pow(dist - distanceLimit, 0.4) * 22.0;
+        }
+        return Math.log1p(dist);
+    }
+
+    private double getDistance(double row) {
+        double dist = Math.expm1(row / (ROWS - 1) * maxAxis);
+        if (dist > distanceLimit) {
+            dist = distanceLimit + Math.pow((dist - distanceLimit) / 22.0, 2.5);
+        }
+        return dist;
+    }
+
+    private double getLogIntensity(double column) {
+        return minLogIntensity + column / (COLUMNS - 1) * (maxLogIntensity - minLogIntensity);
+    }
+
+    /**
+     * @return whether the interpolation within the cell stays within the tolerance from the formula
+     */
+    private boolean checkCell(int row, int column) {
+        int index = row * COLUMNS + column;
+        double q11 = magnitudes[index];
+        double q12 = magnitudes[index + 1];
+        double q21 = magnitudes[index + COLUMNS];
+        double q22 = magnitudes[index + COLUMNS + 1];
+        if (!inRange(q11) || !inRange(q12) || !inRange(q21) || !inRange(q22)) {
+            return false;
+        }
+
+        double columnStep = (maxLogIntensity - minLogIntensity) / (COLUMNS - 1);
+        for (int i = 0; i <= CHECKS; i++) {
+            double tx = i / (double) CHECKS;
+            double dist = getDistance(row + tx);
+            for (int j = 0; j <= CHECKS; j++) {
+                double ty = j / (double) CHECKS;
+                double mag = (1 - tx) * ((1 - ty) * q11 + ty * q12) + tx * ((1 - ty) * q21 + ty * q22);
+
+                // the difference in log intensity converted to magnitude with the local slope of the grid
+                double magPerColumn = Math.abs((1 - tx) * (q12 - q11) + tx * (q22 - q21));
+                double error = Math.abs(Math.log10(intensityFunction.applyAsDouble(mag, dist)) - getLogIntensity(column + ty))
+                        * magPerColumn / columnStep;
+                if (!(error <= TOLERANCE)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean inRange(double mag) {
+        return mag > MIN_MAGNITUDE + 1e-3 && mag < MAX_MAGNITUDE - 1e-3;
+    }
+
+    public double getMagnitude(double dist, double intensity) {
+        double x = toAxis(dist) / maxAxis * (ROWS - 1);
+        double y = (Math.log10(intensity) - minLogIntensity) / (maxLogIntensity - minLogIntensity) * (COLUMNS - 1);
+        if (!(x >= 0 && x <= ROWS - 1 && y >= 0 && y <= COLUMNS - 1)) {
+            return search.applyAsDouble(dist, intensity);
+        }
+
+        int x0 = Math.min((int) x, ROWS - 2);
+        int y0 = Math.min((int) y, COLUMNS - 2);
+        if (searched[x0 * (COLUMNS - 1) + y0]) {
+            return search.applyAsDouble(dist, intensity);
+        }
+
+        int index = x0 * COLUMNS + y0;
+        double q11 = magnitudes[index];
+        double q12 = magnitudes[index + 1];
+        double q21 = magnitudes[index + COLUMNS];
+        double q22 = magnitudes[index + COLUMNS + 1];
+
+        double tx = x - x0;
+        double ty = y - y0;
+
+        return (1 - tx) * ((1 - ty) * q11 + ty * q12) + tx * ((1 - ty) * q21 + ty * q22);
+    }
+
+    /**
+     * @return share of the grid cells left to the binary search
+     */
+    double getSearchedShare() {
+        int count = 0;
+        for (boolean value : searched) {
+            if (value) {
+                count++;
+            }
+        }
+        return count / (double) searched.length;
+    }
+}
@@ -0,0 +1,139 @@
+package globalquake.core.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Latency histograms of the pipeline stages and gauges of its state, written out in the Prometheus text format.
+ */
+public final class Metrics {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private record Gauge(String name, String help, String type, DoubleSupplier value) {
+
+        /**
+         * @return the name without the labels, e.g. {@code gq_x} of {@code gq_x{listener="a"}}
+         */
+        String family() {
+            int labels = name.indexOf('{');
+            return labels < 0 ? name : name.substring(0, labels);
+        }
+    }
+
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+
+    public static final LatencyHistogram RECORD_TO_ANALYSIS = histogram("gq_record_to_analysis_seconds",
+            "Time from the arrival of a seedlink record until it gets analysed");
+    public static final LatencyHistogram PICK_TO_CLUSTER = histogram("gq_pick_to_cluster_seconds",
+            "Time from a P wave pick until it gets assigned to a cluster");
+    public static final LatencyHistogram CLUSTER_TO_HYPOCENTER = histogram("gq_cluster_to_first_hypocenter_seconds",
+            "Time from the creation of a cluster until its first hypocenter");
+    public static final LatencyHistogram HYPOCENTER_QUEUE_WAIT = histogram("gq_hypocenter_queue_wait_seconds",
+            "Time a hypocenter revision waits for a search thread");
+    public static final LatencyHistogram HYPOCENTER_COMPUTE = histogram("gq_hypocenter_compute_seconds",
+            "Compute time of a hypocenter revision");
+    public static final LatencyHistogram EVENT_QUEUE_DELAY = histogram("gq_event_queue_delay_seconds",
+            "Time an event waits in the queue of a listener until it gets delivered");
+    public static final LatencyHistogram SECOND_LOOP = histogram("gq_second_loop_seconds",
+            "Duration of the 1-second loop");
+    public static final LatencyHistogram HYPOCENTER_LOOP = histogram("gq_hypocenter_loop_seconds",
+            "Duration of one cluster update and the scheduling of the changed clusters");
+
+    private Metrics() {
+    }
+
+    /**
+     * @return the histogram registered with the name, created if there is none yet
+     */
+    public static LatencyHistogram histogram(String name, String help) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram(n, help));
+    }
+
+    /**
+     * Registers a gauge, replacing the previous one of the same name.
+     * The name can contain labels, e.g. {@code gq_x{listener="a"}}, series of the same family share the help text.
+     */
+    public static void gauge(String name, String help, DoubleSupplier value) {
+        gauges.put(name, new Gauge(name, help, "gauge", value));
+    }
+
+    /**
+     * Registers a monotonically increasing counter, see {@link #gauge(String, String, DoubleSupplier)}
+     */
+    public static void counter(String name, String help, DoubleSupplier value) {
+        gauges.put(name, new Gauge(name, help, "counter", value));
+    }
+
+    /**
+     * Removes a gauge or a counter, e.g. when the object it reads is gone
+     */
+    public static void remove(String name) {
+        gauges.remove(name);
+    }
+
+    public static String format() {
+        StringBuilder result = new StringBuilder();
+        histograms.values().stream()
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .forEach(histogram -> format(result, histogram));
+
+        String family = null;
+        for (Gauge gauge : gauges.values()) {
+            double value;
+            try {
+                value = gauge.value().getAsDouble();
+            } catch (RuntimeException e) {
+                // not available right now, e.g. the runtime is being restarted
+                continue;
+            }
+
+            // series of one family are next to each other in the sorted map
+            if (!gauge.family().equals(family)) {
+                family = gauge.family();
+                header(result, family, gauge.help(), gauge.type());
+            }
+            result.append(gauge.name()).append(' ').append(number(value)).append('\n');
+        }
+
+        return result.toString();
+    }
+
+    private static void format(StringBuilder result, LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        String name = histogram.getName();
+
+        header(result, name, histogram.getHelp(), "summary");
+        for (double quantile : QUANTILES) {
+            result.append(name).append("{quantile=\"").append(number(quantile)).append("\"} ")
+                    .append(seconds(snapshot.percentileMicros(quantile))).append('\n');
+        }
+        result.append(name).append("_sum ").append(seconds(snapshot.sumMicros())).append('\n');
+        result.append(name).append("_count ").append(snapshot.count()).append('\n');
+
+        header(result, name + "_max", histogram.getHelp() + " (maximum)", "gauge");
+        result.append(name).append("_max ").append(seconds(snapshot.maxMicros())).append('\n');
+    }
+
+    private static void header(StringBuilder result, String name, String help, String type) {
+        result.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        result.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String seconds(long micros) {
+        return number(micros / 1e6);
+    }
+
+    private static String number(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+}
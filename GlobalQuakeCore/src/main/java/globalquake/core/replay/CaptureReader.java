@@ -0,0 +1,134 @@
+package globalquake.core.replay;
+
+import globalquake.core.station.GlobalStation;
+import gqserver.api.packets.station.InputType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the records of a {@link RecordCapture} back in the order they arrived, segment after segment.
+ * A segment that was cut short, because the capture wasn't closed properly, is read up to its last complete record.
+ */
+public class CaptureReader implements Closeable {
+
+    public record CapturedRecord(long arrivalMillis, byte[] mseed) {
+    }
+
+    private final File[] segments;
+    private int nextSegment;
+
+    private DataInputStream data;
+    private DataInputStream index;
+    private long dataLength;
+    private long offset;
+
+    public CaptureReader(File folder) throws IOException {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(RecordCapture.INDEX_EXTENSION));
+        if (files == null) {
+            throw new IOException("Unable to list capture folder " + folder.getAbsolutePath());
+        }
+
+        Arrays.sort(files);
+        this.segments = files;
+    }
+
+    /**
+     * @return stations of the capture, numbered in the order they were written
+     */
+    public static List<GlobalStation> readStations(File folder) throws IOException {
+        List<GlobalStation> result = new ArrayList<>();
+        for (String line : Files.readAllLines(new File(folder, RecordCapture.STATIONS_FILE).toPath(), StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            String[] parts = line.split("\t", -1);
+            if (parts.length != 9) {
+                throw new IOException("Invalid station in capture: " + line);
+            }
+
+            result.add(new GlobalStation(parts[0], parts[1], parts[2], parts[3],
+                    Double.parseDouble(parts[4]), Double.parseDouble(parts[5]), Double.parseDouble(parts[6]),
+                    result.size(), null, Double.parseDouble(parts[7]), InputType.valueOf(parts[8])));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the next record or null once all the segments were read
+     */
+    public CapturedRecord next() throws IOException {
+        while (true) {
+            if (index == null && !openNextSegment()) {
+                return null;
+            }
+
+            CapturedRecord record = readRecord();
+            if (record != null) {
+                return record;
+            }
+
+            closeSegment();
+        }
+    }
+
+    private CapturedRecord readRecord() throws IOException {
+        long arrivalMillis;
+        long recordOffset;
+        int length;
+        try {
+            arrivalMillis = index.readLong();
+            recordOffset = index.readLong();
+            length = index.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        if (recordOffset != offset || length < 0 || offset + length > dataLength) {
+            return null;
+        }
+
+        byte[] mseed = new byte[length];
+        data.readFully(mseed);
+        offset += length;
+        return new CapturedRecord(arrivalMillis, mseed);
+    }
+
+    private boolean openNextSegment() throws IOException {
+        if (nextSegment >= segments.length) {
+            return false;
+        }
+
+        File indexFile = segments[nextSegment++];
+        String name = indexFile.getName();
+        File dataFile = new File(indexFile.getParentFile(),
+                name.substring(0, name.length() - RecordCapture.INDEX_EXTENSION.length()) + RecordCapture.DATA_EXTENSION);
+
+        index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        data = new DataInputStream(new BufferedInputStream(new FileInputStream(dataFile)));
+        dataLength = dataFile.length();
+        offset = 0;
+        return true;
+    }
+
+    private void closeSegment() throws IOException {
+        if (index != null) {
+            index.close();
+            data.close();
+            index = null;
+            data = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+        nextSegment = segments.length;
+    }
+}
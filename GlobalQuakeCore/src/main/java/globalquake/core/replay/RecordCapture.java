@@ -0,0 +1,178 @@
+package globalquake.core.replay;
+
+import globalquake.core.station.AbstractStation;
+import globalquake.utils.NamedThreadFactory;
+import org.tinylog.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes raw miniSEED records in the order they arrive into rolling segments of a capture folder.
+ * Each segment is a plain miniSEED file with an index next to it, which holds the arrival time, offset and length
+ * of every record. The stations are written to {@value #STATIONS_FILE} once, so the capture can be replayed
+ * without the station database.
+ * <p>
+ * The records are written by a dedicated thread, so a slow disk never holds up the receiving thread.
+ * If the writer can't keep up, the records that don't fit its queue are dropped from the capture.
+ */
+public class RecordCapture implements Closeable {
+
+    public static final String STATIONS_FILE = "stations.txt";
+    public static final String DATA_EXTENSION = ".mseed";
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 16 * 1024;
+    private static final CaptureReader.CapturedRecord END = new CaptureReader.CapturedRecord(0, new byte[0]);
+
+    private final File folder;
+    private final long rollMillis;
+
+    private OutputStream data;
+    private DataOutputStream index;
+    private long segmentStart;
+    private long offset;
+
+    private final BlockingQueue<CaptureReader.CapturedRecord> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean stopped;
+
+    public RecordCapture(File folder, long rollMillis, Collection<AbstractStation> stations) throws IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Unable to create capture folder " + folder.getAbsolutePath());
+        }
+
+        this.folder = folder;
+        this.rollMillis = rollMillis;
+        writeStations(new File(folder, STATIONS_FILE), stations);
+
+        writer = new NamedThreadFactory("Record Capture Writer").newThread(this::runWriter);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static void writeStations(File file, Collection<AbstractStation> stations) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (AbstractStation station : stations) {
+                writer.println(String.join("\t", station.getNetworkCode(), station.getStationCode(),
+                        station.getChannelName(), station.getLocationCode(),
+                        String.valueOf(station.getLatitude()), String.valueOf(station.getLongitude()),
+                        String.valueOf(station.getAlt()), String.valueOf(station.getSensitivity()),
+                        station.getInputType().name()));
+            }
+        }
+    }
+
+    /**
+     * Queues the record for the writer thread without waiting for the disk.
+     *
+     * @param arrivalMillis time the record arrived, the segments are rolled by it
+     * @return false if the record was dropped, because the writer is behind or has stopped
+     */
+    public boolean offer(long arrivalMillis, byte[] mseed) {
+        if (stopped) {
+            return false;
+        }
+
+        if (!pending.offer(new CaptureReader.CapturedRecord(arrivalMillis, mseed))) {
+            if (dropped.getAndIncrement() == 0) {
+                Logger.warn("Capture of the received records can't keep up, dropping records");
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    private void runWriter() {
+        try {
+            CaptureReader.CapturedRecord record;
+            while ((record = pending.take()) != END) {
+                write(record.arrivalMillis(), record.mseed());
+            }
+        } catch (IOException e) {
+            Logger.error("Unable to capture the received records, capturing stopped");
+            Logger.error(e);
+            stopped = true;
+            pending.clear();
+        } catch (InterruptedException e) {
+            stopped = true;
+        }
+    }
+
+    private synchronized void write(long arrivalMillis, byte[] mseed) throws IOException {
+        if (data == null || arrivalMillis - segmentStart >= rollMillis) {
+            roll(arrivalMillis);
+        }
+
+        data.write(mseed);
+        index.writeLong(arrivalMillis);
+        index.writeLong(offset);
+        index.writeInt(mseed.length);
+        offset += mseed.length;
+    }
+
+    private void roll(long arrivalMillis) throws IOException {
+        closeSegment();
+
+        // zero padded so that the names sort the same way as the segments were written
+        String name = "%013d".formatted(arrivalMillis);
+        data = new BufferedOutputStream(new FileOutputStream(new File(folder, name + DATA_EXTENSION)), BUFFER_SIZE);
+        index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(folder, name + INDEX_EXTENSION))));
+        segmentStart = arrivalMillis;
+        offset = 0;
+    }
+
+    private void closeSegment() throws IOException {
+        if (data != null) {
+            data.close();
+            index.close();
+            data = null;
+            index = null;
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (data != null) {
+            data.flush();
+            index.flush();
+        }
+    }
+
+    /**
+     * Writes the records that are still queued and closes the segment
+     */
+    @Override
+    public void close() throws IOException {
+        stopped = true;
+        try {
+            pending.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+
+        if (dropped.get() > 0) {
+            Logger.warn("%d received records were dropped from the capture".formatted(dropped.get()));
+        }
+
+        synchronized (this) {
+            closeSegment();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public File getFolder() {
+        return folder;
+    }
+}
@@ -0,0 +1,55 @@
+package globalquake.core.replay;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual time of a replay. It only moves forward when the replay advances it, waiting so that the virtual time
+ * passes the given number of times faster than the real one, or not waiting at all at the max speed.
+ */
+public class ReplayClock {
+
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    private final double speed;
+
+    private long virtualStart = Long.MIN_VALUE;
+    private long realStartNanos;
+    private volatile long time;
+
+    public ReplayClock(double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive: " + speed);
+        }
+
+        this.speed = speed;
+    }
+
+    public void advanceTo(long virtualTime) throws InterruptedException {
+        if (virtualStart == Long.MIN_VALUE) {
+            virtualStart = virtualTime;
+            realStartNanos = System.nanoTime();
+        }
+
+        if (virtualTime <= time) {
+            return;
+        }
+
+        if (speed != MAX_SPEED) {
+            long due = realStartNanos + (long) ((virtualTime - virtualStart) * 1_000_000L / speed);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+
+        time = virtualTime;
+    }
+
+    public long currentTimeMillis() {
+        return time;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+}
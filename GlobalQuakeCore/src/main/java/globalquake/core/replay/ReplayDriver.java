@@ -0,0 +1,252 @@
+package globalquake.core.replay;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.HypocsSettings;
+import globalquake.core.earthquake.data.Earthquake;
+import globalquake.core.exception.ApplicationErrorHandler;
+import globalquake.core.seedlink.MiniSeedHeader;
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStation;
+import globalquake.utils.LongObjectHashMap;
+import org.tinylog.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Replays a {@link RecordCapture} through the whole pipeline without network access. The records are fed
+ * to {@link GlobalStation#addRecord(byte[])} at the virtual time they originally arrived and the periodic work of
+ * the runtime threads runs at its virtual times in between. Each step finishes before the next one starts,
+ * so the replay gives the same results at any speed.
+ */
+public class ReplayDriver {
+
+    private static final long SECOND = 1000;
+
+    private final File folder;
+    private final ReplayClock clock;
+
+    private final LongObjectHashMap<GlobalStation> stationCache = new LongObjectHashMap<>();
+    private final LongSamples recordLatencies = new LongSamples();
+    private final LongSamples hypocsLatencies = new LongSamples();
+    private final Map<Earthquake, Long> detections = new LinkedHashMap<>();
+
+    private ReplayGlobalQuake globalQuake;
+    private long nextSecond;
+    private long nextHypocs;
+    private long hypocsLoopTime;
+
+    private long records;
+    private long skippedRecords;
+    private long samples;
+
+    public ReplayDriver(File folder, double speed) {
+        this.folder = folder;
+        this.clock = new ReplayClock(speed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayDriver <capture folder> [speed, e.g. 1, 10 or max]");
+            System.exit(1);
+        }
+
+        double speed = args.length < 2 || args[1].equalsIgnoreCase("max") ? ReplayClock.MAX_SPEED : Double.parseDouble(args[1]);
+
+        GlobalQuake.prepare(Files.createTempDirectory("gq-replay").toFile(), new ApplicationErrorHandler(null, true));
+        Report report = new ReplayDriver(new File(args[0]), speed).run();
+        System.out.println(report);
+        System.exit(0);
+    }
+
+    public Report run() throws IOException, InterruptedException {
+        List<GlobalStation> stations = CaptureReader.readStations(folder);
+        for (GlobalStation station : stations) {
+            long key = MiniSeedHeader.stationKey(station.getNetworkCode(), station.getStationCode());
+            if (key != MiniSeedHeader.INVALID_KEY) {
+                stationCache.put(key, station);
+            }
+        }
+
+        globalQuake = new ReplayGlobalQuake(clock, stations);
+        hypocsLoopTime = HypocsSettings.getOrDefaultInt("hypocsLoopTime", 300);
+        Logger.info("Replaying %d stations from %s".formatted(stations.size(), folder.getAbsolutePath()));
+
+        long firstArrival = Long.MIN_VALUE;
+        long lastArrival = Long.MIN_VALUE;
+        long start = System.nanoTime();
+        try (CaptureReader reader = new CaptureReader(folder)) {
+            CaptureReader.CapturedRecord record;
+            while ((record = reader.next()) != null) {
+                if (firstArrival == Long.MIN_VALUE) {
+                    firstArrival = record.arrivalMillis();
+                    nextSecond = firstArrival;
+                    nextHypocs = firstArrival;
+                }
+
+                // the capture is written in the arrival order, but the wall clock might have stepped back
+                lastArrival = Math.max(lastArrival, record.arrivalMillis());
+                runPeriodicWork(lastArrival);
+                clock.advanceTo(lastArrival);
+                feed(record.mseed());
+            }
+        } finally {
+            globalQuake.getEventHandler().stopHandler();
+        }
+
+        long wallNanos = System.nanoTime() - start;
+        return new Report(records, skippedRecords, samples, wallNanos,
+                firstArrival == Long.MIN_VALUE ? 0 : lastArrival - firstArrival,
+                recordLatencies.summary(), hypocsLatencies.summary(), createDetections());
+    }
+
+    private void feed(byte[] mseed) {
+        GlobalStation station = stationCache.get(MiniSeedHeader.stationKey(mseed));
+        if (station == null) {
+            skippedRecords++;
+            return;
+        }
+
+        long a = System.nanoTime();
+        station.addRecord(mseed);
+        // there is no analysis scheduler, the record is analysed right away
+        station.analyse();
+        recordLatencies.add(System.nanoTime() - a);
+
+        records++;
+        samples += MiniSeedHeader.sampleCount(mseed);
+    }
+
+    /**
+     * Runs the work of the 1-second loop and the hypocenter location loop that was due up to the given time
+     */
+    private void runPeriodicWork(long time) throws InterruptedException {
+        while (nextSecond <= time || nextHypocs <= time) {
+            if (nextSecond <= nextHypocs) {
+                clock.advanceTo(nextSecond);
+                second();
+                nextSecond += SECOND;
+            } else {
+                clock.advanceTo(nextHypocs);
+                hypocs();
+                nextHypocs += hypocsLoopTime;
+            }
+        }
+    }
+
+    private void second() {
+        long now = globalQuake.currentTimeMillis();
+        for (AbstractStation station : globalQuake.getStationManager().getStations()) {
+            station.second(now);
+        }
+
+        globalQuake.getEarthquakeAnalysis().second();
+    }
+
+    private void hypocs() {
+        long a = System.nanoTime();
+        globalQuake.getClusterAnalysis().update();
+        // the clusters without new updates are skipped by the revision gate
+        globalQuake.getEarthquakeAnalysis().run();
+        hypocsLatencies.add(System.nanoTime() - a);
+
+        for (Earthquake earthquake : globalQuake.getEarthquakeAnalysis().getEarthquakes()) {
+            detections.putIfAbsent(earthquake, earthquake.getCreatedAt());
+        }
+    }
+
+    private List<Detection> createDetections() {
+        List<Detection> result = new ArrayList<>();
+        for (Map.Entry<Earthquake, Long> entry : detections.entrySet()) {
+            Earthquake earthquake = entry.getKey();
+            result.add(new Detection(earthquake.getOrigin(), earthquake.getLat(), earthquake.getLon(),
+                    earthquake.getDepth(), earthquake.getMag(), entry.getValue() - earthquake.getOrigin()));
+        }
+
+        return result;
+    }
+
+    public ReplayGlobalQuake getGlobalQuake() {
+        return globalQuake;
+    }
+
+    /**
+     * @param delay virtual time from the origin until the earthquake was first reported
+     */
+    public record Detection(long origin, double lat, double lon, double depth, double mag, long delay) {
+
+        @Override
+        public String toString() {
+            return "M%.1f at %.3f, %.3f, %.1f km, origin %d, reported after %.1f s".formatted(mag, lat, lon, depth, origin, delay / 1000.0);
+        }
+    }
+
+    public record LatencySummary(long count, double p50Millis, double p99Millis, double maxMillis) {
+
+        @Override
+        public String toString() {
+            return "%d x p50 %.3f ms, p99 %.3f ms, max %.3f ms".formatted(count, p50Millis, p99Millis, maxMillis);
+        }
+    }
+
+    /**
+     * @param wallNanos    real time the replay took
+     * @param virtualMillis virtual time the replay covered
+     */
+    public record Report(long records, long skippedRecords, long samples, long wallNanos, long virtualMillis,
+                         LatencySummary recordLatency, LatencySummary hypocsLatency, List<Detection> detections) {
+
+        public double samplesPerSecond() {
+            return wallNanos == 0 ? 0 : samples * 1e9 / wallNanos;
+        }
+
+        public double speedUp() {
+            return wallNanos == 0 ? 0 : virtualMillis * 1e6 / wallNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            result.append("Records: %,d (%,d skipped), samples: %,d%n".formatted(records, skippedRecords, samples));
+            result.append("Replayed %.1f s in %.1f s (%.1fx), %,.0f samples/s%n".formatted(
+                    virtualMillis / 1000.0, wallNanos / 1e9, speedUp(), samplesPerSecond()));
+            result.append("Record latency: %s%n".formatted(recordLatency));
+            result.append("Hypocenter loop latency: %s%n".formatted(hypocsLatency));
+            result.append("Earthquakes: %d%n".formatted(detections.size()));
+            for (Detection detection : detections) {
+                result.append("  ").append(detection).append("%n".formatted());
+            }
+            return result.toString();
+        }
+    }
+
+    private static final class LongSamples {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        LatencySummary summary() {
+            if (size == 0) {
+                return new LatencySummary(0, 0, 0, 0);
+            }
+
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return new LatencySummary(size, percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.99) / 1e6,
+                    sorted[size - 1] / 1e6);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            return sorted[Math.min(sorted.length - 1, (int) (quantile * sorted.length))];
+        }
+    }
+}
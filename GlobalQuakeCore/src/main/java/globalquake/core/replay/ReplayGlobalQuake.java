@@ -0,0 +1,49 @@
+package globalquake.core.replay;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.earthquake.ClusterAnalysis;
+import globalquake.core.earthquake.EarthquakeAnalysis;
+import globalquake.core.events.GlobalQuakeEventHandler;
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStationManager;
+
+import java.util.Collection;
+
+/**
+ * Headless instance without the runtime threads and seedlink, its time is the virtual time of the replay
+ * and the {@link ReplayDriver} runs the pipeline itself.
+ */
+public class ReplayGlobalQuake extends GlobalQuake {
+
+    private final ReplayClock clock;
+
+    public ReplayGlobalQuake(ReplayClock clock, Collection<? extends AbstractStation> stations) {
+        this.clock = clock;
+
+        eventHandler = new GlobalQuakeEventHandler().runHandler();
+
+        globalStationManager = new GlobalStationManager();
+        globalStationManager.getStations().addAll(stations);
+        GlobalStationManager.createListOfClosestStations(globalStationManager.indexStations());
+
+        earthquakeAnalysis = new EarthquakeAnalysis();
+        clusterAnalysis = new ClusterAnalysis();
+
+        archive = createArchive();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return clock.currentTimeMillis();
+    }
+
+    @Override
+    public boolean limitedSettings() {
+        return false;
+    }
+
+    @Override
+    public boolean limitedWaveformBuffers() {
+        return false;
+    }
+}
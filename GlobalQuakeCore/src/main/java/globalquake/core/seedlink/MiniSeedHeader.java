@@ -0,0 +1,113 @@
+package globalquake.core.seedlink;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads fields straight from the fixed section of a raw miniSEED record without parsing it.
+ */
+public final class MiniSeedHeader {
+
+    public static final int FIXED_HEADER_SIZE = 48;
+
+    private static final int STATION_OFFSET = 8;
+    private static final int STATION_LENGTH = 5;
+    private static final int NETWORK_OFFSET = 18;
+    private static final int NETWORK_LENGTH = 2;
+    private static final int YEAR_OFFSET = 20;
+    private static final int SAMPLE_COUNT_OFFSET = 30;
+
+    /**
+     * Returned for codes that can't appear in a miniSEED header
+     */
+    public static final long INVALID_KEY = -1;
+
+    private MiniSeedHeader() {
+    }
+
+    /**
+     * Packs the network and station code into a single long. The space padding of the codes is ignored,
+     * so the key equals {@link #stationKey(String, String)} of the trimmed codes.
+     */
+    public static long stationKey(byte[] record) {
+        if (record == null || record.length < FIXED_HEADER_SIZE) {
+            return INVALID_KEY;
+        }
+
+        long network = 0;
+        for (int i = NETWORK_OFFSET; i < NETWORK_OFFSET + NETWORK_LENGTH; i++) {
+            network = pack(network, record[i]);
+        }
+
+        long station = 0;
+        for (int i = STATION_OFFSET; i < STATION_OFFSET + STATION_LENGTH; i++) {
+            station = pack(station, record[i]);
+        }
+
+        return combine(network, station);
+    }
+
+    public static long stationKey(String networkCode, String stationCode) {
+        long network = 0;
+        int networkChars = 0;
+        for (int i = 0; i < networkCode.length(); i++) {
+            char c = networkCode.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (c > 0x7f || ++networkChars > NETWORK_LENGTH) {
+                return INVALID_KEY;
+            }
+            network = pack(network, (byte) c);
+        }
+
+        long station = 0;
+        int stationChars = 0;
+        for (int i = 0; i < stationCode.length(); i++) {
+            char c = stationCode.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (c > 0x7f || ++stationChars > STATION_LENGTH) {
+                return INVALID_KEY;
+            }
+            station = pack(station, (byte) c);
+        }
+
+        return combine(network, station);
+    }
+
+    private static long pack(long value, byte b) {
+        return b == ' ' ? value : (value << 8) | (b & 0xff);
+    }
+
+    private static long combine(long network, long station) {
+        return (network << (STATION_LENGTH * 8)) | station;
+    }
+
+    /**
+     * @return number of samples in the record, the byte order is guessed from the year of its start time
+     */
+    public static int sampleCount(byte[] record) {
+        if (record == null || record.length < FIXED_HEADER_SIZE) {
+            return 0;
+        }
+
+        int year = readUnsignedShort(record, YEAR_OFFSET, true);
+        boolean bigEndian = year >= 1900 && year <= 2500;
+        return readUnsignedShort(record, SAMPLE_COUNT_OFFSET, bigEndian);
+    }
+
+    private static int readUnsignedShort(byte[] record, int offset, boolean bigEndian) {
+        int first = record[offset] & 0xff;
+        int second = record[offset + 1] & 0xff;
+        return bigEndian ? (first << 8) | second : (second << 8) | first;
+    }
+
+    public static String networkCode(byte[] record) {
+        return new String(record, NETWORK_OFFSET, NETWORK_LENGTH, StandardCharsets.US_ASCII).trim();
+    }
+
+    public static String stationCode(byte[] record) {
+        return new String(record, STATION_OFFSET, STATION_LENGTH, StandardCharsets.US_ASCII).trim();
+    }
+}
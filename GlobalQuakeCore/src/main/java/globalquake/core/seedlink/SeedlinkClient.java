@@ -0,0 +1,188 @@
+package globalquake.core.seedlink;
+
+import globalquake.core.database.SeedlinkNetwork;
+import globalquake.utils.NamedThreadFactory;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Multiplexes connections to all the seedlink networks on a few selector threads.
+ * Reconnects are scheduled on a timer instead of sleeping in the reader threads.
+ */
+public class SeedlinkClient {
+
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final SelectorLoop[] loops;
+    private final long reconnectDelay;
+    private final long maxReconnectDelay;
+    private final long timeout;
+
+    private final Queue<SeedlinkConnection> connections = new ConcurrentLinkedQueue<>();
+    private ExecutorService selectorService;
+    private ScheduledExecutorService timerService;
+    private int nextLoop = 0;
+
+    /**
+     * @param reconnectDelay first reconnect delay in milliseconds, doubled after each failed attempt
+     * @param maxReconnectDelay the delay isn't doubled any further once it reaches this value
+     * @param timeout connection is reset if nothing is received for this many milliseconds
+     */
+    public SeedlinkClient(int selectorThreads, long reconnectDelay, long maxReconnectDelay, long timeout) {
+        if (selectorThreads <= 0) {
+            throw new IllegalArgumentException("There must be at least one selector thread!");
+        }
+        this.loops = new SelectorLoop[selectorThreads];
+        this.reconnectDelay = reconnectDelay;
+        this.maxReconnectDelay = maxReconnectDelay;
+        this.timeout = timeout;
+    }
+
+    public void start() throws IOException {
+        selectorService = Executors.newFixedThreadPool(loops.length, new NamedThreadFactory("Seedlink Selector Thread"));
+        timerService = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Seedlink Reconnect Timer"));
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new SelectorLoop(Selector.open());
+            selectorService.submit(loops[i]);
+        }
+    }
+
+    /**
+     * Starts connecting to the network, the selection is obtained again after each reconnect.
+     */
+    public SeedlinkConnection connect(SeedlinkNetwork seedlinkNetwork, Supplier<List<StreamSelection>> selectionSupplier,
+                                      Consumer<byte[]> packetConsumer) {
+        SelectorLoop loop;
+        synchronized (this) {
+            loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+        }
+
+        SeedlinkConnection connection = new SeedlinkConnection(this, loop, seedlinkNetwork, selectionSupplier, packetConsumer);
+        connections.add(connection);
+        timerService.submit(connection::connect);
+        return connection;
+    }
+
+    void scheduleReconnect(SeedlinkConnection connection, long delay) {
+        if (timerService.isShutdown()) {
+            return;
+        }
+        timerService.schedule(connection::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    long getReconnectDelay() {
+        return reconnectDelay;
+    }
+
+    long getMaxReconnectDelay() {
+        return maxReconnectDelay;
+    }
+
+    long getTimeout() {
+        return timeout;
+    }
+
+    public void stop() {
+        if (timerService == null) {
+            return;
+        }
+
+        timerService.shutdownNow();
+        for (SeedlinkConnection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+
+        for (SelectorLoop loop : loops) {
+            loop.execute(loop::stop);
+        }
+
+        selectorService.shutdown();
+        try {
+            if (!selectorService.awaitTermination(10, TimeUnit.SECONDS) | !timerService.awaitTermination(10, TimeUnit.SECONDS)) {
+                Logger.error("Unable to terminate seedlink client threads!");
+            }
+        } catch (InterruptedException e) {
+            Logger.error(e);
+        }
+    }
+
+    static final class SelectorLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+
+        private SelectorLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        SelectionKey register(SelectableChannel channel, int ops, SeedlinkConnection connection) throws IOException {
+            return channel.register(selector, ops, connection);
+        }
+
+        private void stop() {
+            running = false;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select(SELECT_TIMEOUT_MS);
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            Logger.error(e);
+                        }
+                    }
+
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        if (key.isValid()) {
+                            ((SeedlinkConnection) key.attachment()).handle(key);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+
+                    long now = System.currentTimeMillis();
+                    for (SelectionKey key : selector.keys()) {
+                        if (key.isValid()) {
+                            ((SeedlinkConnection) key.attachment()).checkTimeout(now);
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                Logger.error(e);
+            } finally {
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    Logger.error(e);
+                }
+            }
+        }
+    }
+}
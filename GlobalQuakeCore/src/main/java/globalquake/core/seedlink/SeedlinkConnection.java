@@ -0,0 +1,375 @@
+package globalquake.core.seedlink;
+
+import globalquake.core.database.SeedlinkNetwork;
+import globalquake.core.database.SeedlinkStatus;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking connection to a single seedlink server. All the methods except {@link #close()}
+ * are called only from the selector thread that owns the connection.
+ */
+public class SeedlinkConnection {
+
+    public static final int PACKET_SIZE = 520;
+    public static final int HEADER_SIZE = 8;
+    public static final int MSEED_SIZE = PACKET_SIZE - HEADER_SIZE;
+
+    private static final int HELLO_LINES = 2;
+    private static final double MAX_ERRORS_RATIO = 0.1;
+
+    private enum State {
+        CONNECTING, HELLO, STATION, SELECT, DATA, STREAMING, CLOSED
+    }
+
+    private final SeedlinkClient client;
+    private final SeedlinkClient.SelectorLoop loop;
+    private final SeedlinkNetwork seedlinkNetwork;
+    private final Supplier<List<StreamSelection>> selectionSupplier;
+    private final Consumer<byte[]> packetConsumer;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(PACKET_SIZE * 16);
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(256).flip();
+
+    private SocketChannel channel;
+    private SelectionKey key;
+    private State state = State.CLOSED;
+    private volatile boolean stopped;
+
+    private List<StreamSelection> selections;
+    private int selectionIndex;
+    private int helloLines;
+    private int errors;
+    private long lastActivity;
+    private long reconnectDelay;
+    private volatile long packets;
+
+    SeedlinkConnection(SeedlinkClient client, SeedlinkClient.SelectorLoop loop, SeedlinkNetwork seedlinkNetwork,
+                       Supplier<List<StreamSelection>> selectionSupplier, Consumer<byte[]> packetConsumer) {
+        this.client = client;
+        this.loop = loop;
+        this.seedlinkNetwork = seedlinkNetwork;
+        this.selectionSupplier = selectionSupplier;
+        this.packetConsumer = packetConsumer;
+        this.reconnectDelay = client.getReconnectDelay();
+    }
+
+    public SeedlinkNetwork getSeedlinkNetwork() {
+        return seedlinkNetwork;
+    }
+
+    public long getPacketCount() {
+        return packets;
+    }
+
+    /**
+     * Resolves the host on the calling thread and lets the selector thread open the connection.
+     */
+    void connect() {
+        if (stopped) {
+            return;
+        }
+
+        seedlinkNetwork.status = SeedlinkStatus.CONNECTING;
+        seedlinkNetwork.connectedStations = 0;
+        Logger.info("Connecting to seedlink server \"" + seedlinkNetwork.getName() + "\"");
+
+        InetSocketAddress address = new InetSocketAddress(seedlinkNetwork.getHost(), seedlinkNetwork.getPort());
+        loop.execute(() -> open(address));
+    }
+
+    private void open(InetSocketAddress address) {
+        if (stopped) {
+            return;
+        }
+        try {
+            if (address.isUnresolved()) {
+                throw new IOException("Unable to resolve %s".formatted(address.getHostString()));
+            }
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            readBuffer.clear();
+            writeBuffer.clear().flip();
+            lastActivity = System.currentTimeMillis();
+            state = State.CONNECTING;
+            if (channel.connect(address)) {
+                key = loop.register(channel, SelectionKey.OP_READ, this);
+                connected();
+            } else {
+                key = loop.register(channel, SelectionKey.OP_CONNECT, this);
+            }
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    void handle(SelectionKey key) {
+        try {
+            if (key.isConnectable()) {
+                if (!channel.finishConnect()) {
+                    return;
+                }
+                key.interestOps(SelectionKey.OP_READ);
+                connected();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                read();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    private void connected() throws IOException {
+        lastActivity = System.currentTimeMillis();
+        reconnectDelay = client.getReconnectDelay(); // if connect succeeded then reset the delay
+        state = State.HELLO;
+        helloLines = 0;
+        send("HELLO");
+    }
+
+    private void read() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            throw new IOException("Connection closed by the server");
+        }
+        if (read == 0) {
+            return;
+        }
+
+        lastActivity = System.currentTimeMillis();
+        readBuffer.flip();
+        try {
+            if (state == State.STREAMING) {
+                readPackets();
+            } else {
+                readLines();
+            }
+        } finally {
+            readBuffer.compact();
+        }
+    }
+
+    private void readLines() throws IOException {
+        String line;
+        while (state != State.STREAMING && state != State.CLOSED && (line = nextLine()) != null) {
+            responseReceived(line);
+        }
+
+        if (state == State.STREAMING) {
+            readPackets();
+        }
+    }
+
+    private String nextLine() throws IOException {
+        for (int i = readBuffer.position(); i < readBuffer.limit(); i++) {
+            if (readBuffer.get(i) == '\n') {
+                byte[] bytes = new byte[i - readBuffer.position()];
+                readBuffer.get(bytes);
+                readBuffer.get(); // newline
+                return new String(bytes, StandardCharsets.US_ASCII).trim();
+            }
+        }
+
+        if (readBuffer.remaining() == readBuffer.capacity()) {
+            throw new IOException("Seedlink response line is too long");
+        }
+
+        return null;
+    }
+
+    private void responseReceived(String line) throws IOException {
+        switch (state) {
+            case HELLO -> {
+                Logger.trace("Seedlink %s: %s".formatted(seedlinkNetwork.getName(), line));
+                if (++helloLines == HELLO_LINES) {
+                    startSelection();
+                }
+            }
+            case STATION -> {
+                if (isOk(line)) {
+                    state = State.SELECT;
+                    send(selections.get(selectionIndex).selectCommand());
+                } else {
+                    selectionFailed();
+                }
+            }
+            case SELECT -> {
+                if (isOk(line)) {
+                    state = State.DATA;
+                    send("DATA");
+                } else {
+                    selectionFailed();
+                }
+            }
+            case DATA -> {
+                if (isOk(line)) {
+                    seedlinkNetwork.connectedStations++;
+                    nextSelection();
+                } else {
+                    selectionFailed();
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected response in state " + state);
+        }
+    }
+
+    private static boolean isOk(String line) {
+        return line.equals("OK");
+    }
+
+    private void startSelection() throws IOException {
+        selections = selectionSupplier.get();
+        selectionIndex = -1;
+        errors = 0;
+        nextSelection();
+    }
+
+    private void nextSelection() throws IOException {
+        selectionIndex++;
+        if (selectionIndex < selections.size()) {
+            StreamSelection selection = selections.get(selectionIndex);
+            Logger.trace("Connecting to %s [%s]".formatted(selection, seedlinkNetwork.getName()));
+            state = State.STATION;
+            send(selection.stationCommand());
+            return;
+        }
+
+        if (seedlinkNetwork.connectedStations == 0) {
+            Logger.info("No stations connected to " + seedlinkNetwork.getName());
+            closeChannel();
+            seedlinkNetwork.status = SeedlinkStatus.DISCONNECTED;
+            return;
+        }
+
+        send("END");
+        state = State.STREAMING;
+        seedlinkNetwork.status = SeedlinkStatus.RUNNING;
+    }
+
+    private void selectionFailed() throws IOException {
+        Logger.warn("Unable to connect to %s [%s]!".formatted(selections.get(selectionIndex), seedlinkNetwork.getName()));
+        errors++;
+        if (errors > seedlinkNetwork.selectedStations * MAX_ERRORS_RATIO) {
+            throw new IOException("Too many errors in seedlink network %s, resetting!".formatted(seedlinkNetwork.getName()));
+        }
+        nextSelection();
+    }
+
+    private void readPackets() throws IOException {
+        while (readBuffer.remaining() >= PACKET_SIZE) {
+            int start = readBuffer.position();
+            if (readBuffer.get(start) != 'S' || readBuffer.get(start + 1) != 'L') {
+                throw new IOException("Invalid seedlink packet header");
+            }
+
+            boolean info = readBuffer.get(start + 2) == 'I' && readBuffer.get(start + 3) == 'N'
+                    && readBuffer.get(start + 4) == 'F' && readBuffer.get(start + 5) == 'O';
+
+            readBuffer.position(start + HEADER_SIZE);
+            if (info) {
+                readBuffer.position(start + PACKET_SIZE);
+                continue;
+            }
+
+            byte[] mseed = new byte[MSEED_SIZE];
+            readBuffer.get(mseed);
+            packets++;
+
+            try {
+                packetConsumer.accept(mseed);
+            } catch (Exception e) {
+                Logger.error(e);
+            }
+        }
+    }
+
+    private void send(String command) throws IOException {
+        byte[] bytes = (command + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        if (writeBuffer.hasRemaining()) {
+            ByteBuffer buffer = ByteBuffer.allocate(writeBuffer.remaining() + bytes.length);
+            buffer.put(writeBuffer).put(bytes).flip();
+            writeBuffer = buffer;
+        } else {
+            writeBuffer = ByteBuffer.wrap(bytes);
+        }
+        flush();
+    }
+
+    private void flush() throws IOException {
+        channel.write(writeBuffer);
+        if (key != null && key.isValid()) {
+            key.interestOps(writeBuffer.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    void checkTimeout(long now) {
+        if (state != State.CLOSED && now - lastActivity > client.getTimeout()) {
+            fail("Timed out");
+        }
+    }
+
+    private void fail(String message) {
+        Logger.warn("Seedlink reader failed for seedlink `%s`: %s".formatted(seedlinkNetwork.getName(), message));
+        closeChannel();
+
+        seedlinkNetwork.status = SeedlinkStatus.DISCONNECTED;
+        seedlinkNetwork.connectedStations = 0;
+
+        if (stopped) {
+            return;
+        }
+
+        Logger.warn("%s Disconnected, Reconnecting after %d seconds...".formatted(seedlinkNetwork.getName(), reconnectDelay / 1000));
+        client.scheduleReconnect(this, reconnectDelay);
+        if (reconnectDelay < client.getMaxReconnectDelay()) {
+            reconnectDelay *= 2;
+        }
+    }
+
+    private void closeChannel() {
+        state = State.CLOSED;
+        if (key != null) {
+            key.cancel();
+            key = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Logger.error(e);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Closes the connection for good, can be called from any thread.
+     */
+    public void close() {
+        stopped = true;
+        loop.execute(() -> {
+            if (channel != null && state == State.STREAMING) {
+                try {
+                    channel.write(ByteBuffer.wrap("BYE\r\n".getBytes(StandardCharsets.US_ASCII)));
+                } catch (IOException ignored) {
+                }
+            }
+            closeChannel();
+            seedlinkNetwork.status = SeedlinkStatus.DISCONNECTED;
+            seedlinkNetwork.connectedStations = 0;
+        });
+    }
+}
@@ -1,35 +1,42 @@
 package globalquake.core.seedlink;
 
 import edu.sc.seis.seisFile.mseed.DataRecord;
-import edu.sc.seis.seisFile.mseed.SeedFormatException;
 import edu.sc.seis.seisFile.seedlink.SeedlinkException;
 import edu.sc.seis.seisFile.seedlink.SeedlinkPacket;
 import edu.sc.seis.seisFile.seedlink.SeedlinkReader;
 import globalquake.core.GlobalQuake;
+import globalquake.core.Settings;
 import globalquake.core.database.SeedlinkNetwork;
 import globalquake.core.database.SeedlinkStatus;
+import globalquake.core.replay.RecordCapture;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.station.GlobalStation;
+import globalquake.utils.LongObjectHashMap;
+import globalquake.utils.VirtualThreads;
 import org.tinylog.Logger;
 
-import java.net.SocketException;
-import java.time.Instant;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class SeedlinkNetworksReader {
 
 	protected static final int RECONNECT_DELAY = 10;
 	private static final int SEEDLINK_TIMEOUT = 90;
-	private Instant lastData;
+	private static final int MAX_RECONNECT_DELAY = 60 * 5;
 
 	private ExecutorService seedlinkReaderService;
 
+	private SeedlinkClient seedlinkClient;
+
 	private final Queue<SeedlinkReader> activeReaders = new ConcurrentLinkedQueue<>();
 
+	private volatile RecordCapture recordCapture;
+
 	public static void main(String[] args) throws Exception{
 		SeedlinkReader reader = new SeedlinkReader("rtserve.iris.washington.edu", 18000);
 		reader.selectData("AK", "D25K", List.of("BHZ"));
@@ -56,23 +63,91 @@ public class SeedlinkNetworksReader {
 
 	public void run() {
 		createCache();
-		seedlinkReaderService = Executors.newCachedThreadPool();
+		if(Settings.captureRecords){
+			startCapture();
+		}
+
+		if(Settings.seedlinkNioClient && startClient()){
+			forEachNetwork(seedlinkNetwork -> seedlinkClient.connect(seedlinkNetwork,
+					() -> createSelection(seedlinkNetwork), this::newPacket));
+			return;
+		}
+
+		seedlinkReaderService = VirtualThreads.newCachedThreadPool("Seedlink Reader");
+		forEachNetwork(seedlinkServer -> seedlinkReaderService.submit(() -> runSeedlinkThread(seedlinkServer, RECONNECT_DELAY)));
+	}
+
+	private void startCapture() {
+		File folder = new File(GlobalQuake.mainFolder, "capture/%d/".formatted(System.currentTimeMillis()));
+		try {
+			recordCapture = new RecordCapture(folder, Settings.captureRollMinutes * 60 * 1000L,
+					GlobalQuake.instance.getStationManager().getStations());
+			Logger.info("Capturing the received records to " + folder.getAbsolutePath());
+		} catch (IOException e) {
+			Logger.error("Unable to start capturing the received records");
+			Logger.error(e);
+		}
+	}
+
+	private void stopCapture() {
+		RecordCapture capture = recordCapture;
+		recordCapture = null;
+		if(capture != null){
+			try {
+				capture.close();
+			} catch (IOException e) {
+				Logger.error(e);
+			}
+		}
+	}
+
+	private boolean startClient() {
+		seedlinkClient = new SeedlinkClient(Settings.seedlinkSelectorThreads, RECONNECT_DELAY * 1000L,
+				MAX_RECONNECT_DELAY * 1000L, SEEDLINK_TIMEOUT * 1000L);
+		try {
+			seedlinkClient.start();
+			return true;
+		} catch (IOException e) {
+			Logger.error("Unable to start the seedlink client, falling back to blocking readers");
+			Logger.error(e);
+			seedlinkClient.stop();
+			seedlinkClient = null;
+			return false;
+		}
+	}
+
+	private void forEachNetwork(Consumer<SeedlinkNetwork> consumer) {
 		GlobalQuake.instance.getStationDatabaseManager().getStationDatabase().getDatabaseReadLock().lock();
 
 		try{
-			GlobalQuake.instance.getStationDatabaseManager().getStationDatabase().getSeedlinkNetworks().forEach(
-					seedlinkServer -> seedlinkReaderService.submit(() -> runSeedlinkThread(seedlinkServer, RECONNECT_DELAY)));
+			GlobalQuake.instance.getStationDatabaseManager().getStationDatabase().getSeedlinkNetworks().forEach(consumer);
 		} finally {
 			GlobalQuake.instance.getStationDatabaseManager().getStationDatabase().getDatabaseReadLock().unlock();
 		}
 	}
 
-	private final Map<String, GlobalStation> stationCache = new HashMap<>();
+	private List<StreamSelection> createSelection(SeedlinkNetwork seedlinkNetwork) {
+		List<StreamSelection> result = new ArrayList<>();
+		for (AbstractStation station : GlobalQuake.instance.getStationManager().getStations()) {
+			if (station.getSeedlinkNetwork() != null && station.getSeedlinkNetwork().equals(seedlinkNetwork)) {
+				result.add(new StreamSelection(station.getNetworkCode(), station.getStationCode(),
+						station.getLocationCode(), station.getChannelName()));
+			}
+		}
+		return result;
+	}
+
+	private final LongObjectHashMap<GlobalStation> stationCache = new LongObjectHashMap<>();
 
 	private void createCache() {
 		for (AbstractStation s : GlobalQuake.instance.getStationManager().getStations()) {
 			if (s instanceof GlobalStation) {
-				stationCache.put("%s %s".formatted(s.getNetworkCode(), s.getStationCode()), (GlobalStation) s);
+				long key = MiniSeedHeader.stationKey(s.getNetworkCode(), s.getStationCode());
+				if (key == MiniSeedHeader.INVALID_KEY) {
+					Logger.warn("Station code %s %s can't be received over seedlink!".formatted(s.getNetworkCode(), s.getStationCode()));
+					continue;
+				}
+				stationCache.put(key, (GlobalStation) s);
 			}
 		}
 	}
@@ -92,20 +167,18 @@ public class SeedlinkNetworksReader {
 
 			int errors = 0;
 
-			for (AbstractStation station : GlobalQuake.instance.getStationManager().getStations()) {
-				if (station.getSeedlinkNetwork() != null && station.getSeedlinkNetwork().equals(seedlinkNetwork)) {
-					Logger.trace("Connecting to %s %s %s %s [%s]".formatted(station.getStationCode(), station.getNetworkCode(), station.getChannelName(), station.getLocationCode(), seedlinkNetwork.getName()));
-					try {
-						reader.selectData(station.getNetworkCode(), station.getStationCode(), List.of("%s%s".formatted(station.getLocationCode(),
-								station.getChannelName())));
-						seedlinkNetwork.connectedStations++;
-					}catch(SeedlinkException seedlinkException){
-						Logger.warn("Unable to connect to %s %s %s %s [%s]!".formatted(station.getStationCode(), station.getNetworkCode(), station.getChannelName(), station.getLocationCode(), seedlinkNetwork.getName()));
-						errors++;
-						if(errors > seedlinkNetwork.selectedStations * 0.1){
-							Logger.warn("Too many errors in seedlink network %s, resetting!".formatted(seedlinkNetwork.getName()));
-							throw seedlinkException;
-						}
+			for (StreamSelection selection : createSelection(seedlinkNetwork)) {
+				Logger.trace("Connecting to %s [%s]".formatted(selection, seedlinkNetwork.getName()));
+				try {
+					reader.selectData(selection.networkCode(), selection.stationCode(), List.of("%s%s".formatted(selection.locationCode(),
+							selection.channelName())));
+					seedlinkNetwork.connectedStations++;
+				}catch(SeedlinkException seedlinkException){
+					Logger.warn("Unable to connect to %s [%s]!".formatted(selection, seedlinkNetwork.getName()));
+					errors++;
+					if(errors > seedlinkNetwork.selectedStations * 0.1){
+						Logger.warn("Too many errors in seedlink network %s, resetting!".formatted(seedlinkNetwork.getName()));
+						throw seedlinkException;
 					}
 				}
 			}
@@ -122,9 +195,7 @@ public class SeedlinkNetworksReader {
 			while (reader.hasNext()) {
 				SeedlinkPacket slp = reader.readPacket();
 				try {
-					newPacket(slp.getMiniSeed());
-				} catch(SocketException | SeedFormatException se){
-					Logger.trace(se);
+					newPacket(slp.getMseedBytes());
 				} catch (Exception e) {
 					Logger.error(e);
 				}
@@ -150,7 +221,7 @@ public class SeedlinkNetworksReader {
 
 		try {
 			Thread.sleep(reconnectDelay * 1000L);
-			if(reconnectDelay < 60 * 5) {
+			if(reconnectDelay < MAX_RECONNECT_DELAY) {
 				reconnectDelay *= 2;
 			}
 		} catch (InterruptedException ignored) {
@@ -162,22 +233,36 @@ public class SeedlinkNetworksReader {
 		seedlinkReaderService.submit(() -> runSeedlinkThread(seedlinkNetwork, finalReconnectDelay));
 	}
 
-	private void newPacket(DataRecord dr) {
-		if (lastData == null || dr.getLastSampleBtime().toInstant().isAfter(lastData)) {
-			lastData = dr.getLastSampleBtime().toInstant();
+	/**
+	 * Dispatches the record to its station using only the fixed header bytes,
+	 * the record itself is parsed later by the station analysis thread.
+	 */
+	private void newPacket(byte[] mseed) {
+		long key = MiniSeedHeader.stationKey(mseed);
+		if(key == MiniSeedHeader.INVALID_KEY){
+			Logger.trace("Seedlink sent an invalid miniSEED record!");
+			return;
+		}
+
+		RecordCapture capture = recordCapture;
+		if(capture != null){
+			capture.offer(GlobalQuake.instance.currentTimeMillis(), mseed);
 		}
 
-		String network = dr.getHeader().getNetworkCode().replaceAll(" ", "");
-		String station = dr.getHeader().getStationIdentifier().replaceAll(" ", "");
-		var globalStation = stationCache.get("%s %s".formatted(network, station));
+		var globalStation = stationCache.get(key);
 		if(globalStation == null){
-			Logger.trace("Seedlink sent data for %s %s, but that was never selected!".formatted(network, station));
+			Logger.trace("Seedlink sent data for %s %s, but that was never selected!".formatted(
+					MiniSeedHeader.networkCode(mseed), MiniSeedHeader.stationCode(mseed)));
 		}else {
-			globalStation.addRecord(dr);
+			globalStation.addRecord(mseed);
 		}
 	}
 
 	public void stop() {
+		if(seedlinkClient != null) {
+			seedlinkClient.stop();
+			seedlinkClient = null;
+		}
 		if(seedlinkReaderService != null) {
 			seedlinkReaderService.shutdownNow();
             for (Iterator<SeedlinkReader> iterator = activeReaders.iterator(); iterator.hasNext(); ) {
@@ -193,6 +278,7 @@ public class SeedlinkNetworksReader {
 				Logger.error(e);
 			}
 		}
+		stopCapture();
 		stationCache.clear();
 	}
 
@@ -0,0 +1,20 @@
+package globalquake.core.seedlink;
+
+/**
+ * Single stream requested from a seedlink server during the handshake
+ */
+public record StreamSelection(String networkCode, String stationCode, String locationCode, String channelName) {
+
+    public String stationCommand() {
+        return "STATION %s %s".formatted(stationCode, networkCode);
+    }
+
+    public String selectCommand() {
+        return "SELECT %s%s.D".formatted(locationCode, channelName);
+    }
+
+    @Override
+    public String toString() {
+        return "%s %s %s %s".formatted(stationCode, networkCode, channelName, locationCode);
+    }
+}
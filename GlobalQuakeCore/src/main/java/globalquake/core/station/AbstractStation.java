@@ -5,12 +5,14 @@ import globalquake.core.analysis.Analysis;
 import globalquake.core.analysis.BetterAnalysis;
 import globalquake.core.analysis.Event;
 import globalquake.core.database.SeedlinkNetwork;
+import globalquake.utils.UnitVector;
 import gqserver.api.packets.station.InputType;
 
 import java.util.Collection;
 import java.util.Deque;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class AbstractStation {
 
@@ -18,6 +20,7 @@ public abstract class AbstractStation {
 	public static final long INTERVAL_MAX_GAP = 5 * 1000;
 
 	private static final int RATIO_HISTORY_SECONDS = 60;
+	private static final long NOT_QUEUED = Long.MIN_VALUE;
 	private final String networkCode;
 	private final String stationCode;
 	private final String channelName;
@@ -25,6 +28,7 @@ public abstract class AbstractStation {
 	private final double lat;
 	private final double lon;
 	private final double alt;
+	private final UnitVector unitVector;
 	private final BetterAnalysis analysis;
 	private final int id;
 	private final SeedlinkNetwork seedlinkNetwork;
@@ -37,6 +41,9 @@ public abstract class AbstractStation {
 
 	private final Deque<StationInterval> intervals = new ConcurrentLinkedDeque<>();
 
+	// System.nanoTime() when the station was queued for analysis
+	private final AtomicLong analysisQueuedAt = new AtomicLong(NOT_QUEUED);
+
 	public AbstractStation(String networkCode, String stationCode, String channelName,
 						   String locationCode, double lat, double lon, double alt,
 						   int id, SeedlinkNetwork seedlinkNetwork, double sensitivity) {
@@ -47,6 +54,7 @@ public abstract class AbstractStation {
 		this.lat = lat;
 		this.lon = lon;
 		this.alt = alt;
+		this.unitVector = UnitVector.of(lat, lon);
 		this.analysis = new BetterAnalysis(this);
 		this.id = id;
 		this.seedlinkNetwork = seedlinkNetwork;
@@ -109,6 +117,10 @@ public abstract class AbstractStation {
 		return alt;
 	}
 
+	public UnitVector getUnitVector() {
+		return unitVector;
+	}
+
 	public String getChannelName() {
 		return channelName;
 	}
@@ -183,6 +195,20 @@ public abstract class AbstractStation {
 
 	public void analyse() {}
 
+	/**
+	 * @return true if the station was not already waiting for analysis
+	 */
+	public boolean markAnalysisQueued() {
+		return analysisQueuedAt.compareAndSet(NOT_QUEUED, System.nanoTime());
+	}
+
+	/**
+	 * @return the time in nanoseconds when the station was queued
+	 */
+	public long clearAnalysisQueued() {
+		return analysisQueuedAt.getAndSet(NOT_QUEUED);
+	}
+
     public SeedlinkNetwork getSeedlinkNetwork() {
 		return seedlinkNetwork;
 	}
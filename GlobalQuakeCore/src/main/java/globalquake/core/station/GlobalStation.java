@@ -1,35 +1,45 @@
 package globalquake.core.station;
 
 import edu.sc.seis.seisFile.mseed.DataRecord;
+import edu.sc.seis.seisFile.mseed.SeedRecord;
 import globalquake.core.GlobalQuake;
+import globalquake.core.GlobalQuakeRuntime;
 import globalquake.core.Settings;
 import globalquake.core.analysis.Event;
 import globalquake.core.database.SeedlinkNetwork;
 import globalquake.core.events.specific.SeedlinkDataEvent;
+import globalquake.core.metrics.Metrics;
 import gqserver.api.packets.station.InputType;
+import org.tinylog.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.Comparator;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 public class GlobalStation extends AbstractStation {
 
 	private static final long MAX_STRETCH_SECONDS = 60;
 	private final Object recordsQueueLock = new Object();
 
-	private final SortedSet<DataRecord> records;
+	private static final long NO_EXPECTED_LOG = Long.MIN_VALUE;
+
+	private final RecordReorderBuffer records = new RecordReorderBuffer();
+
+	private record PendingRecord(byte[] mseed, long arrivalNanos) {
+	}
+
+	// raw miniSEED records that weren't parsed yet
+	private final Queue<PendingRecord> pendingRecords = new ConcurrentLinkedQueue<>();
 	private final InputType inputType;
 
-	private Instant nextExpectedLog = null;
+	// microseconds since the epoch
+	private long nextExpectedLog = NO_EXPECTED_LOG;
 
 
 	public GlobalStation(String networkCode, String stationCode, String channelName,
 						 String locationCode, double lat, double lon, double alt,
 						 int id, SeedlinkNetwork seedlinkNetwork, double sensitivity, InputType inputType) {
 		super(networkCode, stationCode, channelName, locationCode, lat, lon, alt, id, seedlinkNetwork, sensitivity);
-		this.records = new TreeSet<>(Comparator.comparing(dataRecord -> dataRecord.getStartBtime().toInstant().toEpochMilli()));
 		this.inputType = inputType;
 	}
 
@@ -37,32 +47,51 @@ public class GlobalStation extends AbstractStation {
 		synchronized (recordsQueueLock) {
 			records.add(dr);
 		}
+
+		scheduleAnalysis();
+	}
+
+	/**
+	 * Queues a raw miniSEED record, it gets parsed only once the station is analysed.
+	 */
+	public void addRecord(byte[] mseed) {
+		pendingRecords.add(new PendingRecord(mseed, System.nanoTime()));
+		scheduleAnalysis();
+	}
+
+	private void scheduleAnalysis() {
+		GlobalQuakeRuntime runtime = GlobalQuake.instance == null ? null : GlobalQuake.instance.getGlobalQuakeRuntime();
+		if (runtime != null) {
+			runtime.getAnalysisScheduler().schedule(this);
+		}
 	}
 
 	@Override
 	public void analyse() {
 		synchronized (recordsQueueLock){
+			parsePendingRecords();
+
 			while(!records.isEmpty()){
-				DataRecord oldest = records.first();
+				RecordReorderBuffer.Entry oldest = records.peekFirst();
 
-				Instant startTime = oldest.getStartBtime().toInstant();
+				long startTime = oldest.startMicros();
 
-				if(nextExpectedLog == null){
-					records.remove(oldest);
+				if(nextExpectedLog == NO_EXPECTED_LOG){
+					records.pollFirst();
 					process(oldest);
 					continue;
 				}
 
-				if(Math.abs(ChronoUnit.MILLIS.between(startTime, nextExpectedLog)) < 60) {
-					records.remove(oldest);
+				if(Math.abs(millisBetween(startTime, nextExpectedLog)) < 60) {
+					records.pollFirst();
 					process(oldest);
-				}else if(startTime.isBefore(nextExpectedLog)){
-					records.remove(oldest);
-                } else {
-					long gapSeconds = nextExpectedLog.until(startTime, ChronoUnit.SECONDS);
-					long stretchSeconds = startTime.until(records.last().getPredictedNextStartBtime().toInstant(), ChronoUnit.SECONDS);
+				}else if(startTime < nextExpectedLog){
+					records.pollFirst();
+				} else {
+					long gapSeconds = secondsBetween(nextExpectedLog, startTime);
+					long stretchSeconds = secondsBetween(startTime, records.peekLast().nextStartMicros());
 					if(gapSeconds > MAX_STRETCH_SECONDS || stretchSeconds > MAX_STRETCH_SECONDS){
-						records.remove(oldest);
+						records.pollFirst();
 						process(oldest);
 						continue;
 					}
@@ -73,27 +102,59 @@ public class GlobalStation extends AbstractStation {
 		}
 	}
 
+	private void parsePendingRecords() {
+		PendingRecord pending;
+		while ((pending = pendingRecords.poll()) != null) {
+			try {
+				if (SeedRecord.read(pending.mseed()) instanceof DataRecord dataRecord) {
+					records.add(RecordReorderBuffer.Entry.of(dataRecord, pending.arrivalNanos()));
+				}
+			} catch (Exception e) {
+				Logger.trace(e);
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link java.time.temporal.ChronoUnit#MILLIS} between two instants,
+	 * which is the difference of their epoch milliseconds.
+	 */
+	static long millisBetween(long startMicros, long endMicros) {
+		return Math.floorDiv(endMicros, 1000L) - Math.floorDiv(startMicros, 1000L);
+	}
+
+	/**
+	 * Same as {@link java.time.temporal.ChronoUnit#SECONDS} between two instants, truncated towards zero.
+	 */
+	static long secondsBetween(long startMicros, long endMicros) {
+		return (endMicros - startMicros) / 1_000_000L;
+	}
+
 	@Override
 	public InputType getInputType() {
 		return inputType;
 	}
 
-	private void process(DataRecord record) {
-		nextExpectedLog = record.getPredictedNextStartBtime().toInstant();
+	private void process(RecordReorderBuffer.Entry entry) {
+		nextExpectedLog = entry.nextStartMicros();
 
-		if (!isTimeValid(record)) {
+		if (!isTimeValid(entry)) {
 			return;
 		}
 
+		Metrics.RECORD_TO_ANALYSIS.record(System.nanoTime() - entry.arrivalNanos());
+
+		DataRecord record = entry.record();
 		getAnalysis().analyse(record);
 		GlobalQuake.instance.getEventHandler().fireEvent(new SeedlinkDataEvent(this, record));
 	}
 
 
-	private boolean isTimeValid(DataRecord record) {
-		Instant latest = Instant.ofEpochMilli(GlobalQuake.instance.currentTimeMillis()).plus(16, ChronoUnit.SECONDS);
-		Instant earliest = Instant.ofEpochMilli(GlobalQuake.instance.currentTimeMillis()).minus(Settings.logsStoreTimeMinutes, ChronoUnit.MINUTES);
-		return record.getStartBtime().toInstant().isAfter(earliest) & record.getStartBtime().toInstant().isBefore(latest);
+	private boolean isTimeValid(RecordReorderBuffer.Entry entry) {
+		long now = GlobalQuake.instance.currentTimeMillis();
+		long latest = (now + 16 * 1000L) * 1000L;
+		long earliest = (now - Settings.logsStoreTimeMinutes * 60 * 1000L) * 1000L;
+		return entry.startMicros() > earliest & entry.startMicros() < latest;
 	}
 
 	@Override
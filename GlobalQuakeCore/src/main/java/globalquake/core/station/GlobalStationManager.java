@@ -1,5 +1,6 @@
 package globalquake.core.station;
 
+import globalquake.core.analysis.PickIndex;
 import globalquake.core.database.*;
 import globalquake.utils.GeoUtils;
 import globalquake.utils.monitorable.MonitorableConcurrentLinkedQueue;
@@ -12,11 +13,15 @@ public class GlobalStationManager {
 
     private static final int RAYS = 9;
     private static final int STATIONS_PER_RAY = 3;
+    private static final double MIN_NEARBY_RADIUS = 250;
+    private static final double MAX_NEARBY_DISTANCE = 4000;
     protected Collection<AbstractStation> stations = new MonitorableConcurrentLinkedQueue<>();
 
 
     protected final AtomicInteger nextID = new AtomicInteger(0);
     protected UUID indexing;
+    private volatile StationIndex stationIndex;
+    private final PickIndex pickIndex = new PickIndex();
 
     public void initStations(StationDatabaseManager databaseManager) {
         if(databaseManager == null){
@@ -43,63 +48,90 @@ public class GlobalStationManager {
             databaseManager.getStationDatabase().getDatabaseReadLock().unlock();
         }
 
-        createListOfClosestStations(stations);
+        createListOfClosestStations(indexStations());
         Logger.info("Initialized " + stations.size() + " Stations.");
     }
 
     public static void createListOfClosestStations(Collection<AbstractStation> stations){
-        stations.parallelStream().forEach(station -> {
-            @SuppressWarnings("unchecked") Queue<NearbyStationDistanceInfo>[] rays = new Queue[RAYS];
-            for (int i = 0; i < RAYS; i++) {
-                rays[i] = new PriorityQueue<>(Comparator.comparing(NearbyStationDistanceInfo::dist));
+        createListOfClosestStations(new StationIndex(stations));
+    }
+
+    public static void createListOfClosestStations(StationIndex index){
+        index.getStations().parallelStream().forEach(station -> {
+            // the closest stations usually decide it, only look further when some ray runs out of them
+            for (double radius = MIN_NEARBY_RADIUS; ; radius *= 2) {
+                radius = Math.min(radius, MAX_NEARBY_DISTANCE);
+                Set<NearbyStationDistanceInfo> result = selectNearbyStations(station, index.findWithin(station.getUnitVector(), radius), radius);
+                if (result != null) {
+                    station.setNearbyStations(result);
+                    break;
+                }
             }
+        });
+    }
 
-            for (AbstractStation station2 : stations) {
-                if (!(station2.getId() == station.getId())) {
-                    double dist = GeoUtils.greatCircleDistance(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
-                            station2.getLongitude());
+    /**
+     * @param candidates all the stations within the radius, and possibly some further
+     * @return the nearby stations, or null if they might include some beyond the radius
+     */
+    private static Set<NearbyStationDistanceInfo> selectNearbyStations(AbstractStation station, List<AbstractStation> candidates, double radius) {
+        @SuppressWarnings("unchecked") Queue<NearbyStationDistanceInfo>[] rays = new Queue[RAYS];
+        for (int i = 0; i < RAYS; i++) {
+            rays[i] = new PriorityQueue<>(Comparator.comparing(NearbyStationDistanceInfo::dist));
+        }
 
-                    if(dist > 4000){
-                        continue;
-                    }
+        for (AbstractStation station2 : candidates) {
+            if (!(station2.getId() == station.getId())) {
+                double dist = GeoUtils.greatCircleDistance(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
+                        station2.getLongitude());
 
-                    double ang = GeoUtils.calculateAngle(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
-                            station2.getLongitude());
-                    int ray = (int) ((ang / 360.0) * (RAYS - 1.0));
+                if(dist > radius){
+                    continue;
+                }
 
-                    NearbyStationDistanceInfo nearbyStationDistanceInfo = new NearbyStationDistanceInfo(station2, (float) dist, (float) ang);
+                double ang = GeoUtils.calculateAngle(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
+                        station2.getLongitude());
+                int ray = (int) ((ang / 360.0) * (RAYS - 1.0));
 
-                    rays[ray].add(nearbyStationDistanceInfo);
-                    int ray2 = ray + 1;
-                    if (ray2 == RAYS) {
-                        ray2 = 0;
-                    }
-                    int ray3 = ray - 1;
-                    if (ray3 == -1) {
-                        ray3 = RAYS - 1;
-                    }
-                    rays[ray2].add(nearbyStationDistanceInfo);
-                    rays[ray3].add(nearbyStationDistanceInfo);
+                NearbyStationDistanceInfo nearbyStationDistanceInfo = new NearbyStationDistanceInfo(station2, (float) dist, (float) ang);
+
+                rays[ray].add(nearbyStationDistanceInfo);
+                int ray2 = ray + 1;
+                if (ray2 == RAYS) {
+                    ray2 = 0;
+                }
+                int ray3 = ray - 1;
+                if (ray3 == -1) {
+                    ray3 = RAYS - 1;
                 }
+                rays[ray2].add(nearbyStationDistanceInfo);
+                rays[ray3].add(nearbyStationDistanceInfo);
             }
+        }
 
-            Set<NearbyStationDistanceInfo> result = new HashSet<>();
-            for(Queue<NearbyStationDistanceInfo> ray : rays){
-                int count = 0;
-                while(count < STATIONS_PER_RAY && !ray.isEmpty()) {
-                    NearbyStationDistanceInfo stationDistanceInfo = ray.remove();
-                    if(result.add(stationDistanceInfo)){
-                        count++;
-                    }
+        Set<NearbyStationDistanceInfo> result = new HashSet<>();
+        for(Queue<NearbyStationDistanceInfo> ray : rays){
+            int count = 0;
+            boolean done = false;
+            while(count < STATIONS_PER_RAY && !ray.isEmpty()) {
+                NearbyStationDistanceInfo stationDistanceInfo = ray.remove();
+                if(result.add(stationDistanceInfo)){
+                    count++;
+                }
 
-                    if(stationDistanceInfo.dist() > 1000){
-                        break; // only 1 station furher than 1000km allowed
-                    }
+                if(stationDistanceInfo.dist() > 1000){
+                    done = true;
+                    break; // only 1 station furher than 1000km allowed
                 }
             }
 
-            station.setNearbyStations(result);
-        });
+            // the ray ran out of stations, there might be more of them further away
+            if(!done && count < STATIONS_PER_RAY && radius < MAX_NEARBY_DISTANCE){
+                return null;
+            }
+        }
+
+        return result;
     }
 
     private GlobalStation createGlobalStation(Station station, Channel ch) {
@@ -109,6 +141,9 @@ public class GlobalStationManager {
                 nextID.getAndIncrement(), ch.selectedSeedlinkNetwork, ch.getSensitivity(), ch.getInputType());
     }
 
+    /**
+     * @return the stations, {@link #indexStations()} needs to be called after changing them
+     */
     public Collection<AbstractStation> getStations() {
         return stations;
     }
@@ -117,8 +152,31 @@ public class GlobalStationManager {
         return indexing;
     }
 
+    /**
+     * Rebuilds the station index and the pick index, needs to be called whenever the stations are replaced
+     */
+    public StationIndex indexStations() {
+        pickIndex.attach(stations);
+        return stationIndex = new StationIndex(stations);
+    }
+
+    /**
+     * @return index of the stations as of the last {@link #indexStations()}
+     */
+    public StationIndex getStationIndex() {
+        StationIndex index = stationIndex;
+        if (index == null) {
+            index = indexStations();
+        }
+        return index;
+    }
+
+    public PickIndex getPickIndex() {
+        return pickIndex;
+    }
+
     public AbstractStation getStationByIdentifier(String identifier) {
-        return stations.stream().filter(station -> station.getIdentifier().equals(identifier)).findFirst().orElse(null);
+        return getStationIndex().getByIdentifier(identifier);
     }
 
 
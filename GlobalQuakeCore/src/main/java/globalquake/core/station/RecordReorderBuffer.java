@@ -0,0 +1,188 @@
+package globalquake.core.station;
+
+import edu.sc.seis.seisFile.mseed.Btime;
+import edu.sc.seis.seisFile.mseed.DataRecord;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ring buffer of data records ordered by their start time. Records arriving in order are appended
+ * and released in O(1), late records are inserted by shifting only the records that are newer.
+ * Records are ordered by whole milliseconds of their start time and a record falling into the same millisecond
+ * as an already buffered one is discarded.
+ * <p>
+ * The buffer holds at most {@link #getCapacity()} records. Adding to a full buffer drops its oldest record,
+ * or the new record if that one is the oldest, so a station whose head waits for a gap that never fills can't
+ * pile records up. The drops are counted.
+ */
+public class RecordReorderBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Far more than the minute of records a station can hold back before {@link GlobalStation} releases them anyway
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private static final LongAdder totalDropped = new LongAdder();
+
+    /**
+     * Record with its start time and predicted next start time converted only once.
+     * The times are in microseconds since the epoch, which keeps the full 0.1 ms precision of miniSEED.
+     *
+     * @param arrivalNanos {@link System#nanoTime()} when the record arrived
+     */
+    public record Entry(DataRecord record, long startMicros, long nextStartMicros, long arrivalNanos) {
+
+        public static Entry of(DataRecord record) {
+            return of(record, System.nanoTime());
+        }
+
+        public static Entry of(DataRecord record, long arrivalNanos) {
+            return new Entry(record, toMicros(record.getStartBtime()), toMicros(record.getPredictedNextStartBtime()), arrivalNanos);
+        }
+
+        public long startMillis() {
+            return Math.floorDiv(startMicros, 1000L);
+        }
+    }
+
+    private final int capacity;
+    private Entry[] entries = new Entry[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+    private long dropped;
+
+    public RecordReorderBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RecordReorderBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Reorder buffer capacity must be positive!");
+        }
+        this.capacity = capacity;
+    }
+
+    public static long toMicros(Btime btime) {
+        Instant instant = btime.toInstant();
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1000;
+    }
+
+    /**
+     * @return false if a record starting in the same millisecond is already buffered,
+     * or if the buffer is full and the record is older than all the buffered ones
+     */
+    public boolean add(DataRecord record) {
+        return add(Entry.of(record));
+    }
+
+    public boolean add(Entry entry) {
+        // going backwards from the newest record, usually there is nothing to shift
+        long startMillis = entry.startMillis();
+        int position = size;
+        while (position > 0) {
+            long start = get(position - 1).startMillis();
+            if (start == startMillis) {
+                return false;
+            }
+            if (start < startMillis) {
+                break;
+            }
+            position--;
+        }
+
+        if (size == capacity) {
+            countDrop();
+            if (position == 0) {
+                return false;
+            }
+            pollFirst();
+            position--;
+        } else if (size == entries.length) {
+            grow();
+        }
+
+        for (int i = size; i > position; i--) {
+            entries[slot(i)] = entries[slot(i - 1)];
+        }
+
+        entries[slot(position)] = entry;
+        size++;
+        return true;
+    }
+
+    private void countDrop() {
+        dropped++;
+        totalDropped.increment();
+    }
+
+    private void grow() {
+        Entry[] newEntries = new Entry[entries.length * 2];
+        for (int i = 0; i < size; i++) {
+            newEntries[i] = get(i);
+        }
+        entries = newEntries;
+        head = 0;
+    }
+
+    private int slot(int index) {
+        return (head + index) & (entries.length - 1);
+    }
+
+    private Entry get(int index) {
+        return entries[slot(index)];
+    }
+
+    public Entry peekFirst() {
+        return isEmpty() ? null : get(0);
+    }
+
+    public Entry peekLast() {
+        return isEmpty() ? null : get(size - 1);
+    }
+
+    public Entry pollFirst() {
+        if (isEmpty()) {
+            return null;
+        }
+        Entry entry = entries[head];
+        entries[head] = null;
+        head = slot(1);
+        size--;
+        return entry;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of records this buffer dropped because it was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return number of records all the buffers dropped because they were full
+     */
+    public static long getTotalDropped() {
+        return totalDropped.sum();
+    }
+
+    public void clear() {
+        while (pollFirst() != null) {
+            // release references
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package globalquake.core.station;
+
+import globalquake.core.GlobalQuake;
+import globalquake.utils.NamedThreadFactory;
+import org.tinylog.Logger;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs station analysis only when new data arrives. Stations are partitioned into shards by their id
+ * so that the analysis state of each station is always owned by the same thread.
+ */
+public class StationAnalysisScheduler {
+
+    private final Shard[] shards;
+
+    public StationAnalysisScheduler(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("There must be at least one analysis shard!");
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    public void start() {
+        for (Shard shard : shards) {
+            shard.start();
+        }
+    }
+
+    public void stop() {
+        for (Shard shard : shards) {
+            GlobalQuake.instance.stopService(shard.executor);
+            AbstractStation station;
+            while ((station = shard.queue.poll()) != null) {
+                station.clearAnalysisQueued();
+            }
+        }
+    }
+
+    /**
+     * Queues the station for analysis, unless it is already waiting in the queue.
+     */
+    public void schedule(AbstractStation station) {
+        if (station.markAnalysisQueued()) {
+            getShard(station).queue.add(station);
+        }
+    }
+
+    public Shard getShard(AbstractStation station) {
+        return shards[Math.floorMod(station.getId(), shards.length)];
+    }
+
+    public Shard[] getShards() {
+        return shards;
+    }
+
+    public int getQueueDepth() {
+        int result = 0;
+        for (Shard shard : shards) {
+            result += shard.getQueueDepth();
+        }
+        return result;
+    }
+
+    public static final class Shard {
+
+        private final int index;
+        private final BlockingQueue<AbstractStation> queue = new LinkedBlockingQueue<>();
+        private final AtomicLong analysedCount = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private ExecutorService executor;
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        private void start() {
+            executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Station Analysis Thread #%d".formatted(index)));
+            executor.submit(this::runLoop);
+        }
+
+        private void runLoop() {
+            while (!Thread.currentThread().isInterrupted()) {
+                AbstractStation station;
+                try {
+                    station = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                long latency = System.nanoTime() - station.clearAnalysisQueued();
+                analysedCount.incrementAndGet();
+                totalLatencyNanos.addAndGet(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+
+                try {
+                    station.analyse();
+                } catch (Exception e) {
+                    Logger.error("Exception occurred in station analysis");
+                    GlobalQuake.getErrorHandler().handleException(e);
+                }
+            }
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        public long getAnalysedCount() {
+            return analysedCount.get();
+        }
+
+        /**
+         * @return average time in milliseconds between the station being queued and its analysis starting
+         */
+        public double getAverageLatencyMs() {
+            long count = analysedCount.get();
+            return count == 0 ? 0.0 : totalLatencyNanos.get() / (count * 1e6);
+        }
+
+        /**
+         * @return maximum latency in milliseconds since the last call
+         */
+        public double resetMaxLatencyMs() {
+            return maxLatencyNanos.getAndSet(0) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package globalquake.core.station;
+
+import globalquake.utils.GeoUtils;
+import globalquake.utils.UnitVector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * Snapshot of the stations for looking them up by position and by identifier.
+ * <p>
+ * The positions are kept in a k-d tree over their unit vectors. The straight-line distance between unit vectors
+ * grows with the great circle distance, so the queries are done on chords and only the candidates are measured
+ * on the globe. Stations returned by the radius queries are in the same order as in the indexed collection,
+ * so that replacing a loop over all the stations doesn't change the order things are done in.
+ */
+public final class StationIndex {
+
+    // far enough for the different ways of measuring distance to never disagree about a station
+    private static final double MARGIN_KM = 1.0;
+
+    private final List<AbstractStation> stations;
+    private final Map<String, AbstractStation> identifiers;
+
+    // tree order, the median of each range is its node
+    private final int[] order;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final byte[] axes;
+
+    public StationIndex(Collection<AbstractStation> stations) {
+        this.stations = new ArrayList<>(stations);
+        int size = this.stations.size();
+
+        identifiers = new HashMap<>(size * 2);
+        for (AbstractStation station : this.stations) {
+            identifiers.putIfAbsent(station.getIdentifier(), station);
+        }
+
+        order = new int[size];
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+        axes = new byte[size];
+
+        double[][] coords = new double[3][size];
+        for (int i = 0; i < size; i++) {
+            UnitVector vector = this.stations.get(i).getUnitVector();
+            order[i] = i;
+            coords[0][i] = vector.x();
+            coords[1][i] = vector.y();
+            coords[2][i] = vector.z();
+        }
+
+        build(coords, 0, size);
+
+        for (int i = 0; i < size; i++) {
+            x[i] = coords[0][order[i]];
+            y[i] = coords[1][order[i]];
+            z[i] = coords[2][order[i]];
+        }
+    }
+
+    private void build(double[][] coords, int from, int to) {
+        if (to - from < 2) {
+            if (to > from) {
+                axes[from] = 0;
+            }
+            return;
+        }
+
+        int axis = widestAxis(coords, from, to);
+        int median = (from + to) >>> 1;
+        select(coords[axis], from, to - 1, median);
+        axes[median] = (byte) axis;
+
+        build(coords, from, median);
+        build(coords, median + 1, to);
+    }
+
+    private int widestAxis(double[][] coords, int from, int to) {
+        int result = 0;
+        double widest = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                double value = coords[axis][order[i]];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                result = axis;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Quickselect of the order array by the given coordinate
+     */
+    private void select(double[] values, int left, int right, int k) {
+        while (right > left) {
+            double pivot = values[order[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[order[i]] < pivot) {
+                    i++;
+                }
+                while (values[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static double toChord(double distance) {
+        double angle = Math.min(Math.PI, Math.max(0.0, distance) / GeoUtils.EARTH_RADIUS);
+        return 2.0 * Math.sin(angle / 2.0);
+    }
+
+    private static double coordinate(UnitVector vector, int axis) {
+        return axis == 0 ? vector.x() : axis == 1 ? vector.y() : vector.z();
+    }
+
+    private double coordinate(int node, int axis) {
+        return axis == 0 ? x[node] : axis == 1 ? y[node] : z[node];
+    }
+
+    private double squaredChord(int node, UnitVector vector) {
+        double dx = x[node] - vector.x();
+        double dy = y[node] - vector.y();
+        double dz = z[node] - vector.z();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * @param distance great circle distance in km
+     * @return stations at most the given distance away, possibly with some that are slightly further,
+     * in the order of the indexed collection
+     */
+    public List<AbstractStation> findWithin(UnitVector center, double distance) {
+        double chord = toChord(distance + MARGIN_KM);
+        List<Integer> found = new ArrayList<>();
+        findWithin(center, chord * chord, 0, order.length, found::add);
+
+        found.sort(null);
+        List<AbstractStation> result = new ArrayList<>(found.size());
+        for (int index : found) {
+            result.add(stations.get(index));
+        }
+        return result;
+    }
+
+    private void findWithin(UnitVector center, double maxSquaredChord, int from, int to, IntConsumer consumer) {
+        while (to > from) {
+            int node = (from + to) >>> 1;
+            if (squaredChord(node, center) <= maxSquaredChord) {
+                consumer.accept(order[node]);
+            }
+
+            int axis = axes[node];
+            double difference = coordinate(center, axis) - coordinate(node, axis);
+            boolean left = difference < 0;
+            if (difference * difference <= maxSquaredChord) {
+                // both sides can contain stations in range, continue with the other one afterwards
+                if (left) {
+                    findWithin(center, maxSquaredChord, node + 1, to, consumer);
+                    to = node;
+                } else {
+                    findWithin(center, maxSquaredChord, from, node, consumer);
+                    from = node + 1;
+                }
+            } else if (left) {
+                to = node;
+            } else {
+                from = node + 1;
+            }
+        }
+    }
+
+    private record Candidate(int index, double squaredChord) {
+    }
+
+    /**
+     * @return up to count stations closest to the position, the closest first
+     */
+    public List<AbstractStation> findNearest(UnitVector center, int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(count + 1, (a, b) -> Double.compare(b.squaredChord(), a.squaredChord()));
+        findNearest(center, count, 0, order.length, nearest);
+
+        AbstractStation[] result = new AbstractStation[nearest.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = stations.get(nearest.remove().index());
+        }
+        return List.of(result);
+    }
+
+    private void findNearest(UnitVector center, int count, int from, int to, PriorityQueue<Candidate> nearest) {
+        if (to <= from) {
+            return;
+        }
+
+        int node = (from + to) >>> 1;
+        double squaredChord = squaredChord(node, center);
+        if (nearest.size() < count) {
+            nearest.add(new Candidate(order[node], squaredChord));
+        } else if (squaredChord < nearest.peek().squaredChord()) {
+            nearest.remove();
+            nearest.add(new Candidate(order[node], squaredChord));
+        }
+
+        int axis = axes[node];
+        double difference = coordinate(center, axis) - coordinate(node, axis);
+        boolean left = difference < 0;
+        findNearest(center, count, left ? from : node + 1, left ? node : to, nearest);
+        if (nearest.size() < count || difference * difference < nearest.peek().squaredChord()) {
+            findNearest(center, count, left ? node + 1 : from, left ? to : node, nearest);
+        }
+    }
+
+    public AbstractStation getByIdentifier(String identifier) {
+        return identifiers.get(identifier);
+    }
+
+    public List<AbstractStation> getStations() {
+        return stations;
+    }
+
+    public int size() {
+        return stations.size();
+    }
+}
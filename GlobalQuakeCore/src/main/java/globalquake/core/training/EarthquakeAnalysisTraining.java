@@ -114,6 +114,14 @@ public class EarthquakeAnalysisTraining {
     }
 
     public static long runTest(long seed, int stations, boolean cpu) {
+        TestResult result = runDetailedTest(seed, stations, cpu, false);
+        return result.found() ? result.originError() : -1;
+    }
+
+    /**
+     * @param local place the earthquake among the stations instead of far away, so that it can be located
+     */
+    public static TestResult runDetailedTest(long seed, int stations, boolean cpu, boolean local) {
         EarthquakeAnalysis earthquakeAnalysis = new EarthquakeAnalysis();
         earthquakeAnalysis.testing = true;
 
@@ -132,7 +140,13 @@ public class EarthquakeAnalysisTraining {
         var cluster = new Cluster();
         cluster.updateCount = 6543541;
 
-        Hypocenter absolutetyCorrect = new Hypocenter(140 + r.nextDouble() * 10, r.nextDouble() * 10, 200, 0, 0,0, null, null);
+        Hypocenter absolutetyCorrect;
+        if(local){
+            double[] latLon = GeoUtils.moveOnGlobe(0, 0, r.nextDouble() * DIST * 0.5, r.nextDouble() * 360.0);
+            absolutetyCorrect = new Hypocenter(latLon[0], latLon[1], r.nextDouble() * 300, 0, 0, 0, null, null);
+        } else {
+            absolutetyCorrect = new Hypocenter(140 + r.nextDouble() * 10, r.nextDouble() * 10, 200, 0, 0,0, null, null);
+        }
 
         for(FakeStation fakeStation : fakeStations){
             double distGC = GeoUtils.greatCircleDistance(absolutetyCorrect.lat,
@@ -162,12 +176,17 @@ public class EarthquakeAnalysisTraining {
 
         if(cluster.getEarthquake()!=null) {
             double dist = GeoUtils.greatCircleDistance(cluster.getEarthquake().getLat(), cluster.getEarthquake().getLon(), absolutetyCorrect.lat, absolutetyCorrect.lon);
-            return Math.abs(cluster.getEarthquake().getOrigin());
+            return new TestResult(true, dist, Math.abs(cluster.getEarthquake().getDepth() - absolutetyCorrect.depth),
+                    Math.abs(cluster.getEarthquake().getOrigin()));
         } else{
-            return -1;
+            return new TestResult(false, 0, 0, 0);
         }
     }
 
+    public record TestResult(boolean found, double distanceError, double depthError, long originError){
+
+    }
+
     public record FakeStation(double lat, double lon){
 
     }
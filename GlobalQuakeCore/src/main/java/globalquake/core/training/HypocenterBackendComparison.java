@@ -0,0 +1,84 @@
+package globalquake.core.training;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.Settings;
+import globalquake.core.earthquake.EarthquakeAnalysis;
+import globalquake.core.earthquake.GQHypocs;
+import globalquake.core.earthquake.HypocenterSearchBackend;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs the same synthetic earthquakes from {@link EarthquakeAnalysisTraining} through every available
+ * hypocenter search backend and prints the location accuracy and latency of each.
+ * <p>
+ * Arguments: number of earthquakes (default 50), stations per earthquake (default 60)
+ */
+@SuppressWarnings("unused")
+public class HypocenterBackendComparison {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int stations = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        TauPTravelTimeCalculator.init();
+        GQHypocs.load();
+        EarthquakeAnalysis.DEPTH_FIX_ALLOWED = false;
+        GlobalQuake.prepare(new File("./training/"), null);
+
+        Settings.pWaveInaccuracyThreshold = 4000.0;
+        Settings.parallelHypocenterLocations = true;
+
+        System.err.printf("%d earthquakes, %d stations, %d CPUs, CPU resolution %.2f, profile resolution %.2f%n",
+                count, stations, Runtime.getRuntime().availableProcessors(),
+                Settings.hypocenterDetectionResolution / 100.0, Settings.hypocenterDetectionResolutionGPU / 100.0);
+        System.err.printf("%-42s %8s %8s %8s %8s %10s %10s %9s%n",
+                "backend", "p50 ms", "p90 ms", "max ms", "fails", "dist km", "depth km", "origin s");
+
+        for (HypocenterSearchBackend backend : HypocenterSearchBackend.values()) {
+            if (backend == HypocenterSearchBackend.CUDA && !GQHypocs.isCudaLoaded()) {
+                System.err.printf("%-42s not available%n", backend);
+                continue;
+            }
+
+            Settings.hypocenterSearchBackendIndex = backend.ordinal();
+            boolean cpu = backend == HypocenterSearchBackend.CPU_CLASSIC;
+
+            // warm up the JIT and the travel tables
+            for (int i = 0; i < 3; i++) {
+                EarthquakeAnalysisTraining.runDetailedTest(100 + i, stations, cpu, true);
+            }
+
+            long[] times = new long[count];
+            int fails = 0;
+            double distSum = 0;
+            double depthSum = 0;
+            double originSum = 0;
+
+            for (int i = 0; i < count; i++) {
+                long start = System.nanoTime();
+                EarthquakeAnalysisTraining.TestResult result = EarthquakeAnalysisTraining.runDetailedTest(888 + i, stations, cpu, true);
+                times[i] = System.nanoTime() - start;
+
+                if (!result.found()) {
+                    fails++;
+                    continue;
+                }
+
+                distSum += result.distanceError();
+                depthSum += result.depthError();
+                originSum += result.originError() / 1000.0;
+            }
+
+            Arrays.sort(times);
+            int found = Math.max(1, count - fails);
+            System.err.printf("%-42s %8.1f %8.1f %8.1f %8d %10.2f %10.2f %9.2f%n", backend,
+                    times[count / 2] / 1e6, times[(int) (count * 0.9)] / 1e6, times[count - 1] / 1e6, fails,
+                    distSum / found, depthSum / found, originSum / found);
+        }
+
+        System.exit(0);
+    }
+}
@@ -1,6 +1,7 @@
 package globalquake.ui.settings;
 
 import globalquake.core.Settings;
+import globalquake.core.earthquake.HypocenterSearchBackend;
 import globalquake.core.training.EarthquakeAnalysisTraining;
 
 import javax.swing.*;
@@ -13,15 +14,65 @@ public class PerformanceSettingsPanel extends SettingsPanel {
     private JSlider sliderResolution;
     private JCheckBox chkBoxParalell;
     private JCheckBox chkBoxRecalibrateOnLauch;
+    private JComboBox<HypocenterSearchBackend> comboBoxBackend;
+    private JCheckBox chkBoxRefinement;
 
     public PerformanceSettingsPanel() {
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 
         add(createSettingAccuracy());
         add(createSettingParalell());
+        add(createSettingBackend());
+        add(createSettingRefinement());
         fill(this, 16);
     }
 
+    private JPanel createSettingBackend() {
+        JPanel panel = new JPanel();
+        panel.setBorder(BorderFactory.createRaisedBevelBorder());
+        panel.setLayout(new BorderLayout());
+
+        JPanel row = new JPanel();
+        row.add(new JLabel("Hypocenter search: "));
+        comboBoxBackend = new JComboBox<>(HypocenterSearchBackend.values());
+        comboBoxBackend.setSelectedItem(Settings.getSelectedHypocenterSearchBackend());
+        row.add(comboBoxBackend);
+
+        JTextArea textAreaExplanation = new JTextArea(
+                """
+                        CPU profiles runs the same search as CUDA on all CPU cores,\s
+                        which suits machines with many cores and no GPU.
+                        Its resolution is calibrated together with the CUDA one.""");
+        textAreaExplanation.setBorder(new EmptyBorder(5, 5, 5, 5));
+        textAreaExplanation.setEditable(false);
+        textAreaExplanation.setBackground(panel.getBackground());
+
+        panel.add(row, BorderLayout.CENTER);
+        panel.add(textAreaExplanation, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private JPanel createSettingRefinement() {
+        JPanel panel = new JPanel();
+        panel.setBorder(BorderFactory.createRaisedBevelBorder());
+        panel.setLayout(new BorderLayout());
+        chkBoxRefinement = new JCheckBox("Refine well located earthquakes incrementally");
+        chkBoxRefinement.setSelected(Settings.incrementalHypocenterRefinement);
+
+        JTextArea textAreaExplanation = new JTextArea(
+                """
+                        Later revisions of well located earthquakes will only adjust\s
+                        the previous hypocenter instead of searching the whole area again.
+                        The full search is still used when the new arrivals don't fit.""");
+        textAreaExplanation.setBorder(new EmptyBorder(5, 5, 5, 5));
+        textAreaExplanation.setEditable(false);
+        textAreaExplanation.setBackground(panel.getBackground());
+
+        panel.add(chkBoxRefinement, BorderLayout.CENTER);
+        panel.add(textAreaExplanation, BorderLayout.SOUTH);
+        return panel;
+    }
+
     @SuppressWarnings("ExtractMethodRecommender")
     private JPanel createSettingParalell() {
         JPanel panel = new JPanel();
@@ -51,6 +102,8 @@ public class PerformanceSettingsPanel extends SettingsPanel {
         Settings.hypocenterDetectionResolution = (double) sliderResolution.getValue();
         Settings.parallelHypocenterLocations = chkBoxParalell.isSelected();
         Settings.recalibrateOnLaunch = chkBoxRecalibrateOnLauch.isSelected();
+        Settings.hypocenterSearchBackendIndex = comboBoxBackend.getSelectedIndex();
+        Settings.incrementalHypocenterRefinement = chkBoxRefinement.isSelected();
     }
 
     private Component createSettingAccuracy() {
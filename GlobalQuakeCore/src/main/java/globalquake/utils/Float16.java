@@ -0,0 +1,69 @@
+package globalquake.utils;
+
+/**
+ * IEEE 754 half precision conversions, rounding to the nearest even value like {@code Float.floatToFloat16} in Java 20.
+ * Half floats keep 11 significant bits (relative error below 0.05 %) and saturate to infinity above 65504.
+ */
+public final class Float16 {
+
+    public static final float MAX_VALUE = 65504.0f;
+
+    private Float16() {
+    }
+
+    public static short fromFloat(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+
+        if (exponent == 0xff) {
+            // infinity or NaN, NaN stays NaN even if the payload is lost
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 | (mantissa >>> 13) : 0));
+        }
+
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1f) {
+            return (short) (sign | 0x7c00);
+        }
+
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) {
+                return (short) sign;
+            }
+            // subnormal half, the implicit leading bit becomes explicit
+            return (short) (sign | roundShift(mantissa | 0x800000, 14 - halfExponent));
+        }
+
+        // the rounding may carry into the exponent, which is still the correctly rounded value
+        return (short) (sign | roundShift((halfExponent << 23) | mantissa, 13));
+    }
+
+    private static int roundShift(int value, int shift) {
+        int result = value >> shift;
+        int remainder = value & ((1 << shift) - 1);
+        int halfway = 1 << (shift - 1);
+        if (remainder > halfway || (remainder == halfway && (result & 1) != 0)) {
+            result++;
+        }
+        return result;
+    }
+
+    public static float toFloat(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+
+        if (exponent == 0) {
+            float subnormal = mantissa * 0x1p-24f;
+            return sign != 0 ? -subnormal : subnormal;
+        }
+
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+}
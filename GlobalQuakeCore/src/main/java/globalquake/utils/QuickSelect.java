@@ -0,0 +1,136 @@
+package globalquake.utils;
+
+/**
+ * Linear time order statistics on primitive arrays, without sorting or boxing.
+ * Values are ordered the same way as {@link Double#compare(double, double)}, so the result is always
+ * the same element that sorting a {@code List<Double>} would place at the given index.
+ */
+public final class QuickSelect {
+
+    private QuickSelect() {
+    }
+
+    /**
+     * Partially reorders the first {@code n} values and returns the {@code k}-th smallest one (0-based).
+     */
+    public static double select(double[] values, int n, int k) {
+        if (k < 0 || k >= n || n > values.length) {
+            throw new IndexOutOfBoundsException("k = %d, n = %d, length = %d".formatted(k, n, values.length));
+        }
+
+        int left = 0;
+        int right = n - 1;
+        while (right > left) {
+            int mid = (left + right) >>> 1;
+
+            // median of three, leaves values[left] <= values[mid] <= values[right]
+            if (Double.compare(values[mid], values[left]) < 0) {
+                swap(values, mid, left);
+            }
+            if (Double.compare(values[right], values[left]) < 0) {
+                swap(values, right, left);
+            }
+            if (Double.compare(values[right], values[mid]) < 0) {
+                swap(values, right, mid);
+            }
+
+            double pivot = values[mid];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (Double.compare(values[i], pivot) < 0) {
+                    i++;
+                }
+                while (Double.compare(values[j], pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+
+        return values[k];
+    }
+
+    /**
+     * Partially reorders the first {@code n} values and returns the {@code k}-th smallest one (0-based).
+     */
+    public static long select(long[] values, int n, int k) {
+        if (k < 0 || k >= n || n > values.length) {
+            throw new IndexOutOfBoundsException("k = %d, n = %d, length = %d".formatted(k, n, values.length));
+        }
+
+        int left = 0;
+        int right = n - 1;
+        while (right > left) {
+            int mid = (left + right) >>> 1;
+
+            if (values[mid] < values[left]) {
+                swap(values, mid, left);
+            }
+            if (values[right] < values[left]) {
+                swap(values, right, left);
+            }
+            if (values[right] < values[mid]) {
+                swap(values, right, mid);
+            }
+
+            long pivot = values[mid];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+
+        return values[k];
+    }
+
+    /**
+     * @return value at the given percentile (0 - 1) picked the same way as {@code sorted.get((int) ((n - 1) * percentile))}
+     */
+    public static double percentile(double[] values, int n, double percentile) {
+        return select(values, n, (int) ((n - 1) * percentile));
+    }
+
+    private static void swap(double[] values, int a, int b) {
+        double tmp = values[a];
+        values[a] = values[b];
+        values[b] = tmp;
+    }
+
+    private static void swap(long[] values, int a, int b) {
+        long tmp = values[a];
+        values[a] = values[b];
+        values[b] = tmp;
+    }
+}
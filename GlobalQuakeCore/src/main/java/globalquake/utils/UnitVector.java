@@ -0,0 +1,119 @@
+package globalquake.utils;
+
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Point on the globe as an earth-centered unit vector (x towards 0°N 0°E, z towards the north pole).
+ * Once a position is converted, distances to other positions need no trigonometry except a single arcsine.
+ */
+public record UnitVector(double x, double y, double z) {
+
+	// cubic Hermite segments of asin(half chord), beyond the table the slope gets too steep to interpolate
+	private static final int ASIN_SEGMENTS = 4096;
+	private static final double ASIN_TABLE_LIMIT = 0.97;
+	private static final double ASIN_SCALE = ASIN_SEGMENTS / ASIN_TABLE_LIMIT;
+	private static final double[] ASIN_TABLE = createAsinTable();
+
+	private static double[] createAsinTable() {
+		double[] table = new double[ASIN_SEGMENTS * 4];
+		double h = ASIN_TABLE_LIMIT / ASIN_SEGMENTS;
+		for (int i = 0; i < ASIN_SEGMENTS; i++) {
+			double x0 = i * h;
+			double x1 = (i + 1) * h;
+			double p0 = Math.asin(x0);
+			double p1 = Math.asin(x1);
+			double m0 = h / Math.sqrt(1 - x0 * x0);
+			double m1 = h / Math.sqrt(1 - x1 * x1);
+			table[i * 4] = p0;
+			table[i * 4 + 1] = m0;
+			table[i * 4 + 2] = 3 * (p1 - p0) - 2 * m0 - m1;
+			table[i * 4 + 3] = 2 * (p0 - p1) + m0 + m1;
+		}
+		return table;
+	}
+
+	public static UnitVector of(double lat, double lon) {
+		double theta = Math.toRadians(lat);
+		double phi = Math.toRadians(lon);
+		double c_theta = Math.cos(theta);
+		return new UnitVector(c_theta * Math.cos(phi), c_theta * Math.sin(phi), Math.sin(theta));
+	}
+
+	public double lat() {
+		return Math.toDegrees(FastMath.asin(Math.max(-1.0, Math.min(1.0, z))));
+	}
+
+	public double lon() {
+		return Math.toDegrees(FastMath.atan2(y, x));
+	}
+
+	/**
+	 * Central angle in radians. It is computed from the chord length, which unlike the arccosine of the dot
+	 * product stays accurate for nearby points.
+	 */
+	public static double centralAngle(double x1, double y1, double z1, double x2, double y2, double z2) {
+		double dx = x1 - x2;
+		double dy = y1 - y2;
+		double dz = z1 - z2;
+		return 2.0 * asin(Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.5);
+	}
+
+	static double asin(double x) {
+		if (x >= ASIN_TABLE_LIMIT) {
+			return FastMath.asin(Math.min(1.0, x));
+		}
+		double pos = x * ASIN_SCALE;
+		int i = (int) pos;
+		double t = pos - i;
+		int index = i * 4;
+		return ASIN_TABLE[index] + t * (ASIN_TABLE[index + 1] + t * (ASIN_TABLE[index + 2] + t * ASIN_TABLE[index + 3]));
+	}
+
+	public double centralAngle(UnitVector other) {
+		return centralAngle(x, y, z, other.x, other.y, other.z);
+	}
+
+	public double greatCircleDistance(UnitVector other) {
+		return GeoUtils.EARTH_RADIUS * centralAngle(other);
+	}
+
+	/**
+	 * Same as {@link GeoUtils#geologicalDistance(double, double, double, double, double, double)}
+	 */
+	public double geologicalDistance(double alt, UnitVector other, double otherAlt) {
+		double r1 = GeoUtils.EARTH_RADIUS + alt;
+		double r2 = GeoUtils.EARTH_RADIUS + otherAlt;
+		double dx = x * r1 - other.x * r2;
+		double dy = y * r1 - other.y * r2;
+		double dz = z * r1 - other.z * r2;
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/**
+	 * Same as {@link GeoUtils#moveOnGlobe(double, double, double, double)}, without leaving the vector form
+	 *
+	 * @param distance GCD
+	 * @param angle Heading
+	 */
+	public UnitVector move(double distance, double angle) {
+		double delta = distance / GeoUtils.EARTH_RADIUS;
+		double gamma = Math.toRadians(angle);
+		double c_delta = FastMath.cos(delta);
+		double s_delta = FastMath.sin(delta);
+		double c_gamma = FastMath.cos(gamma);
+		double s_gamma = FastMath.sin(gamma);
+
+		// local north and east directions, the meridian of 0° is used at the poles
+		double c_theta = Math.sqrt(x * x + y * y);
+		double c_phi = c_theta == 0 ? 1.0 : x / c_theta;
+		double s_phi = c_theta == 0 ? 0.0 : y / c_theta;
+
+		double north = s_delta * c_gamma;
+		double east = s_delta * s_gamma;
+		return new UnitVector(
+				c_delta * x - north * z * c_phi - east * s_phi,
+				c_delta * y - north * z * s_phi + east * c_phi,
+				c_delta * z + north * c_theta);
+	}
+
+}
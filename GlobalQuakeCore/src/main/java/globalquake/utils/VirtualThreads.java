@@ -0,0 +1,112 @@
+package globalquake.utils;
+
+import globalquake.core.Settings;
+import org.tinylog.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executors for blocking loops, e.g. one reader per socket. With {@link Settings#virtualThreads} enabled
+ * each task runs on its own virtual thread, otherwise the usual platform thread pools are used.
+ * Virtual threads are looked up reflectively, so the mode simply stays off on runtimes older than Java 21.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private static boolean warned = false;
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    public static boolean isEnabled() {
+        if (!Boolean.TRUE.equals(Settings.virtualThreads)) {
+            return false;
+        }
+        if (!isSupported()) {
+            if (!warned) {
+                warned = true;
+                Logger.warn("Virtual threads require Java 21 or newer, running on %s. Using platform threads instead."
+                        .formatted(Runtime.version()));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return executor starting a new virtual thread for each task, or a cached thread pool
+     */
+    public static ExecutorService newCachedThreadPool(String name) {
+        ExecutorService executor = isEnabled() ? newVirtualThreadPerTaskExecutor(name) : null;
+        return executor != null ? executor : Executors.newCachedThreadPool(new NamedThreadFactory(name));
+    }
+
+    /**
+     * @return executor running the tasks one at a time on a single virtual or platform thread
+     */
+    public static ExecutorService newSingleThreadExecutor(String name) {
+        ThreadFactory factory = isEnabled() ? virtualThreadFactory(name) : null;
+        return Executors.newSingleThreadExecutor(factory != null ? factory : new NamedThreadFactory(name));
+    }
+
+    /**
+     * @return executor with virtual threads named {@code name #0}, {@code name #1}... or null if not available
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        ThreadFactory factory = virtualThreadFactory(name);
+        if (factory == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            Logger.error(e);
+            return null;
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory(String name) {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, name + " #", 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            Logger.error(e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package globalquake.core.analysis;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.station.GlobalStation;
+import gqserver.api.packets.station.InputType;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BetterAnalysisTest {
+
+    private static final double SPS = 100.0;
+    private static final int RECORD_SAMPLES = 412;
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+        new GlobalQuake() {
+            @Override
+            public boolean limitedSettings() {
+                return false;
+            }
+
+            @Override
+            public boolean limitedWaveformBuffers() {
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void testBlockProcessingIdentical() {
+        int[] trace = createTrace(6 * 60 * (int) SPS);
+
+        BetterAnalysis perSample = createAnalysis();
+        BetterAnalysis batched = createAnalysis();
+
+        for (int start = 0; start < trace.length; start += RECORD_SAMPLES) {
+            int[] record = new int[Math.min(RECORD_SAMPLES, trace.length - start)];
+            System.arraycopy(trace, start, record, 0, record.length);
+
+            long recordStart = START_TIME + (long) (start * (1000.0 / SPS));
+            long currentTime = recordStart + (long) (record.length * (1000.0 / SPS));
+
+            for (int i = 0; i < record.length; i++) {
+                perSample.nextSample(record[i], recordStart + (long) (i * (1000.0 / SPS)), currentTime);
+            }
+            batched.nextSamples(record, recordStart, SPS, currentTime);
+        }
+
+        List<Log> expectedLogs = perSample.getWaveformBuffer().getLogs();
+        List<Log> actualLogs = batched.getWaveformBuffer().getLogs();
+        assertFalse(expectedLogs.isEmpty());
+        assertEquals(expectedLogs, actualLogs);
+
+        assertEquals(perSample.getStatus(), batched.getStatus());
+        assertFalse("The trace should trigger an event", perSample.getDetectedEvents().isEmpty());
+        assertEquals(perSample.getDetectedEvents().size(), batched.getDetectedEvents().size());
+
+        for (int i = 0; i < perSample.getDetectedEvents().size(); i++) {
+            Event expected = perSample.getDetectedEvents().get(i);
+            Event actual = batched.getDetectedEvents().get(i);
+            assertEquals(expected.getStart(), actual.getStart());
+            assertEquals(expected.getEnd(), actual.getEnd());
+            assertEquals(expected.getpWave(), actual.getpWave());
+            assertEquals(expected.isValid(), actual.isValid());
+            assertEquals(Double.doubleToLongBits(expected.getMaxRatio()), Double.doubleToLongBits(actual.getMaxRatio()));
+            assertEquals(Double.doubleToLongBits(expected.getMaxVelocity()), Double.doubleToLongBits(actual.getMaxVelocity()));
+        }
+    }
+
+    private static BetterAnalysis createAnalysis() {
+        GlobalStation station = new GlobalStation("XX", "TEST", "HHZ", "", 50, 17, 0, 0, null, 1E9, InputType.VELOCITY);
+        BetterAnalysis analysis = (BetterAnalysis) station.getAnalysis();
+        analysis.setSampleRate(SPS);
+        return analysis;
+    }
+
+    /**
+     * Background noise with a strong arrival after four minutes
+     */
+    private static int[] createTrace(int samples) {
+        Random random = new Random(0);
+        int[] trace = new int[samples];
+        int eventStart = (int) (4 * 60 * SPS);
+        for (int i = 0; i < samples; i++) {
+            double value = 5000 + random.nextGaussian() * 100;
+            if (i >= eventStart) {
+                double t = (i - eventStart) / SPS;
+                value += Math.sin(2 * Math.PI * 3.0 * t) * 20000 * Math.exp(-t / 10.0);
+            }
+            trace[i] = (int) value;
+        }
+        return trace;
+    }
+
+}
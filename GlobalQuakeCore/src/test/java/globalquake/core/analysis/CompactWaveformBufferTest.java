@@ -0,0 +1,128 @@
+package globalquake.core.analysis;
+
+import globalquake.utils.Float16;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactWaveformBufferTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClientModeRejected() {
+        new WaveformBuffer(100, 10, false, true, true);
+    }
+
+    @Test
+    public void testRegularSampling() {
+        compare(50.0, 7, 20_000, new Random(1), 0, 0);
+    }
+
+    @Test
+    public void testJitterAndGaps() {
+        compare(100.0, 5, 50_000, new Random(2), 300, 0.002);
+    }
+
+    @Test
+    public void testOddSampleRate() {
+        compare(19.9, 13, 10_000, new Random(3), 40, 0.01);
+    }
+
+    @Test
+    public void testTinyBuffer() {
+        compare(1.0, 10, 1_000, new Random(4), 800, 0.05);
+    }
+
+    @Test
+    public void testResizeAndExtract() {
+        Random random = new Random(5);
+        WaveformBuffer reference = new WaveformBuffer(40, 10, true, true);
+        WaveformBuffer compact = new WaveformBuffer(40, 10, true, true, true);
+
+        long time = START;
+        for (int i = 0; i < 3000; i++) {
+            time += nextDelta(random, 25, 50, 0.01);
+            log(reference, compact, time, random);
+            if (i == 450) {
+                reference.resize(30);
+                compact.resize(30);
+            } else if (i == 1700) {
+                reference.resize(7);
+                compact.resize(7);
+            }
+            assertSame(reference, compact);
+        }
+
+        long end = reference.getTime(reference.getNewestDataSlot());
+        WaveformBuffer extractedReference = reference.extract(end - 4000, end);
+        WaveformBuffer extractedCompact = compact.extract(end - 4000, end);
+        assertTrue(extractedCompact.isCompact());
+        assertSame(extractedReference, extractedCompact);
+
+        // grows the buffer the same way as the event buffers do used by the event buffers
+        for (int i = 0; i < 2000; i++) {
+            time += nextDelta(random, 25, 50, 0.01);
+            float ratio = random.nextFloat() * 100;
+            extractedReference.log(time, 0, 0, ratio, ratio, 1, ratio, true);
+            extractedCompact.log(time, 0, 0, ratio, ratio, 1, ratio, true);
+        }
+        assertSame(extractedReference, extractedCompact);
+    }
+
+    private static void compare(double sps, int seconds, int samples, Random random, int maxGap, double gapChance) {
+        WaveformBuffer reference = new WaveformBuffer(sps, seconds, true, true);
+        WaveformBuffer compact = new WaveformBuffer(sps, seconds, true, true, true);
+        int period = (int) Math.round(1000 / sps);
+
+        long time = START;
+        for (int i = 0; i < samples; i++) {
+            time += nextDelta(random, period, maxGap, gapChance);
+            log(reference, compact, time, random);
+            if (i % 97 == 0) {
+                assertSame(reference, compact);
+            }
+        }
+        assertSame(reference, compact);
+    }
+
+    private static long nextDelta(Random random, int period, int maxGap, double gapChance) {
+        long delta = period + (maxGap > 0 ? random.nextInt(3) - 1 : 0);
+        if (random.nextDouble() < gapChance) {
+            delta += random.nextInt(maxGap) * 1000L;
+        }
+        return Math.max(1, delta);
+    }
+
+    private static void log(WaveformBuffer reference, WaveformBuffer compact, long time, Random random) {
+        float shortAverage = (float) Math.exp(random.nextGaussian() * 3);
+        float mediumAverage = random.nextFloat() * 10;
+        float specialAverage = random.nextInt(100) == 0 ? Float.NaN : random.nextFloat();
+        reference.log(time, 0, 0, shortAverage, mediumAverage, 1, specialAverage, false);
+        compact.log(time, 0, 0, shortAverage, mediumAverage, 1, specialAverage, false);
+    }
+
+    private static void assertSame(WaveformBuffer reference, WaveformBuffer compact) {
+        assertEquals(reference.getSize(), compact.getSize());
+        assertEquals(reference.getOldestDataSlot(), compact.getOldestDataSlot());
+        assertEquals(reference.getNextSlot(), compact.getNextSlot());
+        if (reference.isEmpty()) {
+            return;
+        }
+
+        int index = reference.getOldestDataSlot();
+        do {
+            assertEquals(reference.getTime(index), compact.getTime(index));
+            for (int type = WaveformBuffer.RATIO; type <= WaveformBuffer.SPECIAL_RATIO; type++) {
+                float expected = Float16.toFloat(Float16.fromFloat(reference.getComputed(type, index)));
+                assertEquals(expected, compact.getComputed(type, index), 0.0f);
+            }
+            index = (index + 1) % reference.getSize();
+        } while (index != reference.getNextSlot());
+
+        long time = reference.getTime(reference.getNewestDataSlot()) - 1234;
+        assertEquals(reference.getClosestIndex(time), compact.getClosestIndex(time));
+    }
+}
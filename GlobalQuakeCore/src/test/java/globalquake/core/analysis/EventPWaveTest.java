@@ -0,0 +1,120 @@
+package globalquake.core.analysis;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EventPWaveTest {
+
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    @Test
+    public void testPicksIdentical() {
+        Random random = new Random(0);
+        int found = 0;
+        for (int round = 0; round < 300; round++) {
+            double sps = new double[]{20.0, 40.0, 50.0, 100.0}[random.nextInt(4)];
+            WaveformBuffer buffer = createEvent(random, sps);
+
+            long eventStart = START_TIME + 120_000 + random.nextInt(20_000) - 10_000;
+            for (int strength = 0; strength < Event.SPECIAL_PERCENTILE.length; strength++) {
+                long expected = findPWaveReference(buffer, eventStart, strength);
+                assertEquals(expected, Event.findPWave(buffer, eventStart, strength));
+                if (expected != -1) {
+                    found++;
+                }
+            }
+        }
+        assertTrue(found > 0);
+    }
+
+    /**
+     * Noise for two minutes, then an arrival whose ratios grow slowly
+     */
+    private static WaveformBuffer createEvent(Random random, double sps) {
+        WaveformBuffer buffer = new WaveformBuffer(sps, 300, false);
+        double noise = 0.5 + random.nextDouble();
+        int samples = (int) (180 * sps);
+        int arrival = (int) ((110 + random.nextDouble() * 20) * sps);
+        for (int i = 0; i < samples; i++) {
+            double signal = i < arrival ? 0 : Math.min(40.0, (i - arrival) / sps * (1 + random.nextDouble() * 3));
+            float ratio = (float) (noise + random.nextDouble() * 0.3 + signal);
+            float mediumRatio = (float) (noise + random.nextDouble() * 0.2 + signal * 0.5);
+            float specialRatio = random.nextInt(50) == 0 ? 0.0f : (float) (noise + random.nextDouble() * 0.5 + signal * 0.2);
+            buffer.log(START_TIME + (long) (i * (1000.0 / sps)), 0, 0, ratio, mediumRatio, 1.0f, specialRatio, false);
+        }
+        return buffer;
+    }
+
+    /**
+     * The original implementation based on sorting boxed values
+     */
+    private static long findPWaveReference(WaveformBuffer waveformBuffer, long start, int strenghtLevel) {
+        long lookBack = (start - (long) ((60.0 / strenghtLevel) * 1000));
+
+        List<Double> slows = new ArrayList<>();
+
+        double maxSpecial = -Double.MAX_VALUE;
+        double minSpecial = Double.MAX_VALUE;
+
+        int indexLookBack = waveformBuffer.getClosestIndex(lookBack);
+        long lookBackTime = waveformBuffer.getTime(indexLookBack);
+
+        while (indexLookBack != waveformBuffer.getNextSlot() && lookBackTime <= start) {
+            slows.add(waveformBuffer.getMediumRatio(indexLookBack));
+            double spec = waveformBuffer.getSpecialRatio(indexLookBack);
+            if (spec > 0) {
+                if (spec > maxSpecial) {
+                    maxSpecial = spec;
+                }
+                if (spec < minSpecial) {
+                    minSpecial = spec;
+                }
+            }
+
+            indexLookBack = (indexLookBack + 1) % waveformBuffer.getSize();
+            lookBackTime = waveformBuffer.getTime(indexLookBack);
+        }
+
+        maxSpecial = Math.max(minSpecial * 5.0, maxSpecial);
+
+        Collections.sort(slows);
+
+        double slow15Pct = slows.get((int) ((slows.size() - 1) * 0.175));
+
+        double mul = Event.SPECIAL_PERCENTILE[strenghtLevel] * 1.1;
+        double specialThreshold = maxSpecial * mul + (1 - mul) * minSpecial;
+
+        double slowThresholdMultiplier = Event.SLOW_THRESHOLD_MULTIPLIERS[strenghtLevel];
+
+        long pWave = -1;
+
+        int index = waveformBuffer.getClosestIndex(start);
+        long time = waveformBuffer.getTime(index);
+        while (index != waveformBuffer.getOldestDataSlot() && time >= lookBack) {
+
+            boolean ratioOK = waveformBuffer.getRatio(index) <= slow15Pct * (slowThresholdMultiplier * 1.25);
+            boolean specialOK = waveformBuffer.getSpecialRatio(index) <= specialThreshold;
+            if (time <= start) {
+                if (ratioOK && specialOK) {
+                    pWave = time;
+                    break;
+                }
+            }
+
+            index -= 1;
+            if (index < 0) {
+                index = waveformBuffer.getSize() - 1;
+            }
+            time = waveformBuffer.getTime(index);
+        }
+
+        return pWave;
+    }
+
+}
@@ -0,0 +1,142 @@
+package globalquake.core.analysis;
+
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStation;
+import globalquake.utils.UnitVector;
+import gqserver.api.packets.station.InputType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PickIndexTest {
+
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    private static List<AbstractStation> createStations(int count, Random random) {
+        List<AbstractStation> stations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double lat = Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1));
+            double lon = random.nextDouble() * 360 - 180;
+            stations.add(new GlobalStation("N" + i, "S" + i, "HHZ", "", lat, lon, 0, i, null, -1, InputType.UNKNOWN));
+        }
+        return stations;
+    }
+
+    private static Event addPick(AbstractStation station, long pWave) {
+        Event event = new Event(station.getAnalysis());
+        station.getAnalysis().getDetectedEvents().add(0, event);
+        event.setpWave(pWave);
+        return event;
+    }
+
+    @Test
+    public void testQuery() {
+        Random random = new Random(0);
+        List<AbstractStation> stations = createStations(2000, random);
+        PickIndex pickIndex = new PickIndex();
+        pickIndex.attach(stations);
+
+        List<Event> events = new ArrayList<>();
+        for (AbstractStation station : stations) {
+            for (int i = 0; i < 3; i++) {
+                events.add(addPick(station, START_TIME + i * 600_000L + random.nextInt(500_000)));
+            }
+        }
+
+        assertEquals(events.size(), pickIndex.size());
+
+        for (int i = 0; i < 200; i++) {
+            UnitVector center = UnitVector.of(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            double distance = random.nextDouble() * 20000;
+            long from = START_TIME + random.nextInt(1_800_000);
+            long to = from + random.nextInt(600_000);
+
+            Set<Event> expected = new HashSet<>();
+            for (Event event : events) {
+                if (event.getpWave() >= from && event.getpWave() <= to
+                        && event.getUnitVectorFromStation().greatCircleDistance(center) <= distance) {
+                    expected.add(event);
+                }
+            }
+
+            List<Event> found = pickIndex.query(center, distance, from, to);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+
+    @Test
+    public void testStateChanges() {
+        List<AbstractStation> stations = createStations(10, new Random(1));
+        PickIndex pickIndex = new PickIndex();
+        pickIndex.attach(stations);
+
+        AbstractStation station = stations.get(0);
+        UnitVector position = station.getUnitVector();
+
+        Event event = new Event(station.getAnalysis());
+        station.getAnalysis().getDetectedEvents().add(event);
+        assertEquals(0, pickIndex.size());
+
+        event.setpWave(START_TIME);
+        assertEquals(List.of(event), pickIndex.query(position, 1, START_TIME, START_TIME));
+
+        // moves to the new bucket
+        event.setpWave(START_TIME + 5_000);
+        assertTrue(pickIndex.query(position, 1, START_TIME, START_TIME + 4_999).isEmpty());
+        assertEquals(List.of(event), pickIndex.query(position, 1, START_TIME + 5_000, START_TIME + 5_000));
+
+        event.setAsSWave(true);
+        assertEquals(List.of(event), pickIndex.getSWaves());
+        event.setAsSWave(false);
+        assertTrue(pickIndex.getSWaves().isEmpty());
+        assertEquals(1, pickIndex.size());
+
+        event.endBadly();
+        assertEquals(0, pickIndex.size());
+        assertTrue(pickIndex.getPicks().isEmpty());
+    }
+
+    @Test
+    public void testInvalidatedByCloseEvent() {
+        List<AbstractStation> stations = createStations(1, new Random(2));
+        PickIndex pickIndex = new PickIndex();
+        pickIndex.attach(stations);
+        AbstractStation station = stations.get(0);
+
+        Event first = new Event(station.getAnalysis());
+        station.getAnalysis().getDetectedEvents().add(first);
+        first.setpWave(START_TIME);
+
+        Event second = new Event(station.getAnalysis());
+        station.getAnalysis().getDetectedEvents().add(second);
+        second.setpWave(START_TIME + 1000);
+
+        // one of them was invalidated because they are too close
+        assertEquals(1, pickIndex.size());
+        assertTrue(pickIndex.getPicks().get(0).isValid());
+    }
+
+    @Test
+    public void testAttachAndRemove() {
+        List<AbstractStation> stations = createStations(5, new Random(3));
+        for (AbstractStation station : stations) {
+            addPick(station, START_TIME);
+        }
+
+        PickIndex pickIndex = new PickIndex();
+        pickIndex.attach(stations);
+        assertEquals(stations.size(), pickIndex.size());
+
+        Event event = stations.get(0).getAnalysis().getDetectedEvents().get(0);
+        event.end(START_TIME + 10_000);
+        stations.get(0).getAnalysis().second((long) (START_TIME + 10_000 + BetterAnalysis.EVENT_STORE_TIME * 1000));
+        assertTrue(stations.get(0).getAnalysis().getDetectedEvents().isEmpty());
+        assertEquals(stations.size() - 1, pickIndex.size());
+
+        pickIndex.attach(stations.subList(1, 3));
+        assertEquals(2, pickIndex.size());
+    }
+}
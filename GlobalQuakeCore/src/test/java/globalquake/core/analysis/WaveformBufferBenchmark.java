@@ -0,0 +1,60 @@
+package globalquake.core.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the writer throughput of the locked and the lock-free waveform buffer
+ * while other threads keep reading it the way StationMonitorPanel does.
+ */
+public class WaveformBufferBenchmark {
+
+    private static final int SAMPLES = 20_000_000;
+    private static final int READERS = 2;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            run(false);
+            run(true);
+        }
+    }
+
+    private static void run(boolean lockFree) throws InterruptedException {
+        WaveformBuffer waveformBuffer = new WaveformBuffer(100, 60, false, lockFree);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    waveformBuffer.getLogs();
+                    reads.incrementAndGet();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        long a = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            try {
+                waveformBuffer.beginWrite();
+                waveformBuffer.log(i * 10L, i, i, i, i, 1, i, false);
+            } finally {
+                waveformBuffer.endWrite();
+            }
+        }
+        long took = System.nanoTime() - a;
+
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        System.err.printf("lockFree=%s: %,.0f samples/s, %,d reads%n", lockFree, SAMPLES / (took / 1e9), reads.get());
+    }
+
+}
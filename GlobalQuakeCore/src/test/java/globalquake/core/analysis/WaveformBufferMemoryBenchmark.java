@@ -0,0 +1,71 @@
+package globalquake.core.analysis;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap and the direct memory taken by the server waveform buffers of 5000 stations
+ * with the default 5 minutes of logs at 100 sps, with and without the compact storage.
+ * <p>
+ * Run with e.g. -Xmx4g -XX:MaxDirectMemorySize=4g
+ */
+public class WaveformBufferMemoryBenchmark {
+
+    private static final int STATIONS = 5000;
+    private static final double SPS = 100;
+    private static final int SECONDS = 5 * 60;
+
+    public static void main(String[] args) {
+        boolean[] modes = args.length > 0 ? new boolean[]{Boolean.parseBoolean(args[0])} : new boolean[]{false, true};
+        for (boolean compact : modes) {
+            run(compact);
+        }
+    }
+
+    private static void run(boolean compact) {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        List<WaveformBuffer> buffers = new ArrayList<>(STATIONS);
+        long a = System.nanoTime();
+        for (int station = 0; station < STATIONS; station++) {
+            WaveformBuffer buffer = new WaveformBuffer(SPS, SECONDS, true, true, compact);
+            long time = 1_700_000_000_000L + station;
+            for (int i = 0; i < buffer.getSize(); i++) {
+                time += i % 1000 == 999 ? 11 : 10;
+                float value = (float) Math.abs(Math.sin(i * 0.01 + station));
+                buffer.log(time, 0, 0, value, value * 0.5f, 1, value * 0.1f, false);
+            }
+            buffers.add(buffer);
+        }
+        long took = System.nanoTime() - a;
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+        long samples = (long) STATIONS * buffers.get(0).getSize();
+
+        System.err.printf("compact=%s: heap %,d MB, direct %,d MB, %.1f bytes/sample, filled in %,d ms%n",
+                compact, heap >> 20, direct >> 20, (heap + direct) / (double) samples, took / 1_000_000);
+
+        buffers.clear();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
@@ -1,16 +1,36 @@
 package globalquake.core.analysis;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
+@RunWith(Parameterized.class)
 public class WaveformBufferTest {
 
+    @Parameterized.Parameters(name = "lockFree={0}")
+    public static Collection<Object[]> modes() {
+        return Arrays.asList(new Object[][]{{false}, {true}});
+    }
+
+    private final boolean lockFree;
+
+    public WaveformBufferTest(boolean lockFree) {
+        this.lockFree = lockFree;
+    }
+
     @Test
     public void testSize() {
         double sps = 30.0;
         int seconds = 10;
-        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false);
+        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false, lockFree);
         assertEquals(300, waveformBuffer.getSize());
     }
 
@@ -18,7 +38,7 @@ public class WaveformBufferTest {
     public void testRing() {
         double sps = 1.0;
         int seconds = 10;
-        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false);
+        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false, lockFree);
         assertEquals(10, waveformBuffer.getSize());
         assertEquals(0, waveformBuffer.getNextSlot());
         assertEquals(0, waveformBuffer.getOldestDataSlot());
@@ -42,7 +62,7 @@ public class WaveformBufferTest {
     public void testStorage() {
         double sps = 1.0;
         int seconds = 10;
-        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false);
+        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false, lockFree);
         waveformBuffer.log(0, 10, 10, 10, 10, 1, 10, false);
 
         Log log0 = waveformBuffer.toLog(0);
@@ -55,7 +75,7 @@ public class WaveformBufferTest {
     public void testResize() {
         double sps = 1.0;
         int seconds = 10;
-        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false);
+        WaveformBuffer waveformBuffer = new WaveformBuffer(sps, seconds, false, lockFree);
 
         for (int i = 0; i < waveformBuffer.getSize(); i++) {
             waveformBuffer.log(i * 1000L, i * 10, i * 20, i * 30, i * 40, 1, i * 60, false);
@@ -85,7 +105,7 @@ public class WaveformBufferTest {
 
     @Test
     public void testExpand() {
-        WaveformBuffer waveformBuffer = new WaveformBuffer(1, 3, false);
+        WaveformBuffer waveformBuffer = new WaveformBuffer(1, 3, false, lockFree);
         assertEquals(3, waveformBuffer.getSize());
         for (int i = 0; i < waveformBuffer.getSize(); i++) {
             waveformBuffer.log(i * 1000L, i, i, i, i, i, i, false);
@@ -99,4 +119,43 @@ public class WaveformBufferTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testConcurrentReads() throws Exception {
+        WaveformBuffer waveformBuffer = new WaveformBuffer(100, 2, false, lockFree);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> error = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                List<Log> logs = waveformBuffer.getLogs();
+                for (int i = 0; i < logs.size(); i++) {
+                    Log log = logs.get(i);
+                    if (log.ratio() != log.time() % 1000 || (i > 0 && logs.get(i - 1).time() + 10 != log.time())) {
+                        error.set("Inconsistent log at %d: %s".formatted(i, log));
+                        return;
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 200_000; i++) {
+            long time = i * 10L;
+            try {
+                waveformBuffer.beginWrite();
+                if (i % 20_000 == 0) {
+                    waveformBuffer.resize(1 + (i / 20_000) % 3);
+                }
+                waveformBuffer.log(time, 0, 0, time % 1000, 0, 1, 0, false);
+            } finally {
+                waveformBuffer.endWrite();
+            }
+        }
+
+        running.set(false);
+        reader.join();
+
+        assertNull(error.get());
+    }
+
+}
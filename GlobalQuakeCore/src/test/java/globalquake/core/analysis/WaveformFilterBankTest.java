@@ -0,0 +1,62 @@
+package globalquake.core.analysis;
+
+import gqserver.api.packets.station.InputType;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WaveformFilterBankTest {
+
+    private static final double[][] BANDS = new double[][]{
+            {BetterAnalysis.minFreqDefault, BetterAnalysis.maxFreqDefault},
+            {BetterAnalysis.minFreqLow, BetterAnalysis.maxFreqLow},
+            {BetterAnalysis.minFreqUltraLow, BetterAnalysis.maxFreqUltraLow}};
+
+    @Test
+    public void testMatchesTransformators() {
+        for (InputType inputType : InputType.values()) {
+            for (double sps : new double[]{20.0, 40.0, 100.0}) {
+                compare(inputType, sps, 1.5E9);
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultSensitivity() {
+        compare(InputType.VELOCITY, 50.0, -1);
+    }
+
+    private static void compare(InputType inputType, double sps, double sensitivity) {
+        WaveformFilterBank filterBank = new WaveformFilterBank(BANDS, sensitivity, sps, inputType);
+        WaveformTransformator[] transformators = new WaveformTransformator[BANDS.length];
+        for (int band = 0; band < BANDS.length; band++) {
+            transformators[band] = new WaveformTransformator(BANDS[band][0], BANDS[band][1], sensitivity, sps, inputType);
+        }
+
+        Random random = new Random(1234);
+        for (int i = 0; i < 20_000; i++) {
+            if (i == 10_000) {
+                filterBank.reset();
+                for (WaveformTransformator transformator : transformators) {
+                    transformator.reset();
+                }
+            }
+
+            double in = random.nextGaussian() * 1000.0 + (i % 500 < 50 ? 50000.0 * Math.sin(i * 0.7) : 0.0);
+            filterBank.accept(in);
+
+            for (int band = 0; band < BANDS.length; band++) {
+                transformators[band].accept(in);
+                assertClose(transformators[band].getCurrentValue(), filterBank.getCurrentValue(band));
+                assertClose(transformators[band].getVelocity(), filterBank.getVelocity(band));
+            }
+        }
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, 1e-9 * Math.max(1.0, Math.abs(expected)));
+    }
+
+}
@@ -0,0 +1,241 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.analysis.Event;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.Earthquake;
+import globalquake.core.earthquake.data.Hypocenter;
+import globalquake.core.events.GlobalQuakeEventHandler;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.intensity.IntensityTable;
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStation;
+import globalquake.core.station.GlobalStationManager;
+import globalquake.utils.GeoUtils;
+import gqserver.api.packets.station.InputType;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the incremental updates of the clusters against the full sweep: once the updates settle,
+ * running the full sweep over the same state must not change anything.
+ */
+public class ClusterAnalysisConsistencyTest {
+
+    private static long now;
+
+    private record Quake(double lat, double lon, double depth, long origin, double mag) {
+    }
+
+    private static final List<Quake> QUAKES = List.of(
+            new Quake(36, 140, 20, 10_000, 7.0),
+            new Quake(34, 137, 10, 60_000, 5.5),
+            new Quake(-20, -70, 100, 30_000, 6.5),
+            new Quake(36.5, 140.5, 30, 120_000, 6.0));
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+        new GlobalQuake() {
+            {
+                eventHandler = new GlobalQuakeEventHandler().runHandler();
+            }
+
+            @Override
+            public long currentTimeMillis() {
+                return now;
+            }
+
+            @Override
+            public boolean limitedSettings() {
+                return false;
+            }
+
+            @Override
+            public boolean limitedWaveformBuffers() {
+                return false;
+            }
+        };
+    }
+
+    private static List<AbstractStation> createStations(Random random) {
+        List<AbstractStation> stations = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            double lat;
+            double lon;
+            if (i % 3 == 0) {
+                lat = Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1));
+                lon = random.nextDouble() * 360 - 180;
+            } else {
+                lat = Math.max(-89, Math.min(89, 35 + random.nextGaussian() * 8));
+                lon = 139 + random.nextGaussian() * 10;
+            }
+            stations.add(new GlobalStation("N" + i, "S" + i, "HHZ", "", lat, lon, 0, i, null, -1, InputType.UNKNOWN));
+        }
+
+        GlobalStationManager.createListOfClosestStations(stations);
+        return stations;
+    }
+
+    @Test
+    public void testConsistentWithFullSweep() {
+        Random random = new Random(0);
+        List<AbstractStation> stations = createStations(random);
+        List<Earthquake> earthquakes = new CopyOnWriteArrayList<>();
+        ClusterAnalysis clusterAnalysis = new ClusterAnalysis(earthquakes, stations);
+
+        Map<AbstractStation, Set<String>> picked = new HashMap<>();
+        int checks = 0;
+        for (now = 0; now < 240_000; now += 1000) {
+            addPicks(stations, picked, random);
+
+            settle(clusterAnalysis, stations);
+            String settled = snapshot(clusterAnalysis, stations);
+
+            clusterAnalysis.run();
+            assertEquals("The full sweep changed the clusters at " + now, settled, snapshot(clusterAnalysis, stations));
+            if (!clusterAnalysis.getClusters().isEmpty()) {
+                checks++;
+            }
+
+            locate(clusterAnalysis, earthquakes);
+        }
+
+        assertTrue("The scenario should create some clusters", checks > 100);
+
+        // nothing changes anymore
+        settle(clusterAnalysis, stations);
+        assertTrue(clusterAnalysis.update().isEmpty());
+    }
+
+    private static void settle(ClusterAnalysis clusterAnalysis, List<AbstractStation> stations) {
+        String last = null;
+        for (int i = 0; i < 50; i++) {
+            clusterAnalysis.update();
+            String current = snapshot(clusterAnalysis, stations);
+            if (current.equals(last)) {
+                return;
+            }
+            last = current;
+        }
+
+        fail("The updates didn't settle");
+    }
+
+    private static void addPicks(List<AbstractStation> stations, Map<AbstractStation, Set<String>> picked, Random random) {
+        for (int q = 0; q < QUAKES.size(); q++) {
+            Quake quake = QUAKES.get(q);
+            if (quake.origin() > now) {
+                continue;
+            }
+
+            for (AbstractStation station : stations) {
+                double distGC = GeoUtils.greatCircleDistance(quake.lat(), quake.lon(), station.getLatitude(), station.getLongitude());
+                double angle = TauPTravelTimeCalculator.toAngle(distGC);
+                for (boolean sWave : new boolean[]{false, true}) {
+                    double travelTime = sWave ? TauPTravelTimeCalculator.getSWaveTravelTime(quake.depth(), angle)
+                            : TauPTravelTimeCalculator.getPWaveTravelTime(quake.depth(), angle);
+                    long arrival = quake.origin() + (long) (travelTime * 1000);
+                    if (travelTime < 0 || arrival > now || !picked.computeIfAbsent(station, k -> new HashSet<>()).add(q + "" + sWave)) {
+                        continue;
+                    }
+
+                    double intensity = IntensityTable.getIntensity(quake.mag(), GeoUtils.gcdToGeo(distGC)) * (0.3 + (station.getId() * 7919 % 100) / 50.0);
+                    if (intensity < 6) {
+                        continue;
+                    }
+
+                    addPick(station, arrival + ((station.getId() * 31L + q * 17L + (sWave ? 5 : 0)) % 1500) - 750, intensity);
+                }
+            }
+        }
+
+        // false triggers
+        for (int i = 0; i < 5; i++) {
+            addPick(stations.get(random.nextInt(stations.size())), now - random.nextInt(1000), 10);
+        }
+
+        // and some picks that turn out bad
+        if (now % 7000 == 0) {
+            for (AbstractStation station : stations) {
+                for (Event event : station.getAnalysis().getDetectedEvents()) {
+                    if (event.isValid() && random.nextInt(200) == 0) {
+                        event.endBadly();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addPick(AbstractStation station, long pWave, double maxRatio) {
+        Event event = new Event(station.getAnalysis());
+        event.maxRatio = maxRatio;
+        station.getAnalysis().getDetectedEvents().add(0, event);
+        event.setpWave(pWave);
+    }
+
+    /**
+     * Stands in for the hypocenter search, gives the clusters the nearest quake as their earthquake
+     */
+    private static void locate(ClusterAnalysis clusterAnalysis, List<Earthquake> earthquakes) {
+        for (Cluster cluster : clusterAnalysis.getClusters()) {
+            if (cluster.getEarthquake() != null && now % 10_000 != 0) {
+                continue;
+            }
+
+            Quake nearest = null;
+            double nearestDist = 1500;
+            for (Quake quake : QUAKES) {
+                double dist = GeoUtils.greatCircleDistance(quake.lat(), quake.lon(), cluster.getRootLat(), cluster.getRootLon());
+                if (quake.origin() <= now && dist < nearestDist) {
+                    nearest = quake;
+                    nearestDist = dist;
+                }
+            }
+
+            if (nearest == null) {
+                continue;
+            }
+
+            Hypocenter hypocenter = new Hypocenter(nearest.lat(), nearest.lon(), nearest.depth(), nearest.origin(), 0, 10, null, null);
+            hypocenter.magnitude = nearest.mag();
+            cluster.revisionID += 1;
+            cluster.setPreviousHypocenter(hypocenter);
+            if (cluster.getEarthquake() == null) {
+                Earthquake earthquake = new Earthquake(cluster);
+                cluster.setEarthquake(earthquake);
+                earthquakes.add(earthquake);
+            } else {
+                cluster.getEarthquake().update();
+            }
+        }
+    }
+
+    private static String snapshot(ClusterAnalysis clusterAnalysis, Collection<AbstractStation> stations) {
+        StringBuilder result = new StringBuilder();
+        for (Cluster cluster : clusterAnalysis.getClusters()) {
+            List<String> events = new ArrayList<>();
+            for (Map.Entry<AbstractStation, Event> entry : cluster.getAssignedEvents().entrySet()) {
+                events.add(entry.getKey().getId() + "@" + entry.getValue().getpWave());
+            }
+            Collections.sort(events);
+            result.append('#').append(cluster.id).append(events).append('\n');
+        }
+
+        for (AbstractStation station : stations) {
+            for (Event event : station.getAnalysis().getDetectedEvents()) {
+                if (event.isSWave()) {
+                    result.append("S ").append(station.getId()).append('@').append(event.getpWave()).append('\n');
+                }
+            }
+        }
+
+        return result.toString();
+    }
+}
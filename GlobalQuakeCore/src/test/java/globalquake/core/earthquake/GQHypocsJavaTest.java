@@ -0,0 +1,64 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.Settings;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.utils.GeoUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class GQHypocsJavaTest {
+
+    @BeforeClass
+    public static void init() throws Exception {
+        TauPTravelTimeCalculator.init();
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+        Settings.hypocenterDetectionResolutionGPU = 0.0;
+    }
+
+    @Test
+    public void testFindsSyntheticHypocenter() {
+        Random random = new Random(0);
+        HypocenterFinderSettings finderSettings = new HypocenterFinderSettings(2000, 0.4, 40, 0, 6, true);
+
+        for (double[] quake : new double[][]{{35.2, 139.6, 30}, {-20.5, -70.1, 180}, {51.0, 12.0, 8}, {-5.0, 150.0, 520}}) {
+            List<PickedEvent> events = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                double[] latLon = GeoUtils.moveOnGlobe(quake[0], quake[1], 100 + random.nextDouble() * 1500, random.nextDouble() * 360);
+                double distGC = GeoUtils.greatCircleDistance(quake[0], quake[1], latLon[0], latLon[1]);
+                double travelTime = TauPTravelTimeCalculator.getPWaveTravelTime(quake[2], TauPTravelTimeCalculator.toAngle(distGC));
+                events.add(new PickedEvent(10_000 + (long) (travelTime * 1000), latLon[0], latLon[1], 0, 1 + random.nextDouble() * 100));
+            }
+
+            double[] root = GeoUtils.moveOnGlobe(quake[0], quake[1], 300, random.nextDouble() * 360);
+            Cluster cluster = new Cluster(UUID.randomUUID(), root[0], root[1], 0);
+
+            PreliminaryHypocenter result = GQHypocsJava.findHypocenter(events, cluster, 0, finderSettings);
+
+            assertNotNull(result);
+            assertEquals(0, GeoUtils.greatCircleDistance(quake[0], quake[1], result.lat, result.lon), 10.0);
+            assertEquals(quake[2], result.depth, 10.0);
+            assertEquals(10_000, result.origin, 1000);
+        }
+    }
+
+    @Test
+    public void testRejectsTooFewStations() {
+        float[] stations = new float[2 * 4];
+        assertNull(GQHypocsJava.findHypocenter(stations, 0, 0, 100, 0, 1.0f, 2.0f));
+        assertNull(GQHypocsJava.findHypocenter(new float[4 * 4], 0, 0, 1, 0, 1.0f, 2.0f));
+        assertNull(GQHypocsJava.findHypocenter(new float[4 * 4], 0, 0, 100, GQHypocs.depth_profiles.length, 1.0f, 2.0f));
+    }
+}
@@ -0,0 +1,94 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.ExactPickedEvents;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.utils.QuickSelect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the scalar and the vectorised origin kernels and the sort and quickselect median
+ * for typical numbers of picked events. Build with -Pvector, run with --add-modules jdk.incubator.vector and the travel table
+ * on the classpath.
+ */
+public class HypocenterKernelBenchmark {
+
+    private static final int[] SIZES = {20, 60, 200, 1000};
+    private static final long EVALUATIONS = 20_000_000;
+
+    public static void main(String[] args) throws Exception {
+        TauPTravelTimeCalculator.init();
+        for (int round = 0; round < 3; round++) {
+            System.err.printf("=== round %d ===%n", round);
+            for (int size : SIZES) {
+                ExactPickedEvents events = randomEvents(new Random(size), size);
+                run("scalar", HypocenterKernels.SCALAR, events);
+                if (HypocenterKernels.VECTOR != null) {
+                    run("vector", HypocenterKernels.VECTOR, events);
+                }
+                median(events);
+            }
+        }
+    }
+
+    private static void run(String name, HypocenterKernel kernel, ExactPickedEvents events) {
+        long[] origins = new long[events.size];
+        int[] indices = new int[events.size];
+        long calls = EVALUATIONS / events.size;
+        long sum = 0;
+
+        long a = System.nanoTime();
+        for (long i = 0; i < calls; i++) {
+            kernel.computeOrigins((i % 7000) / 10.0, events, origins, indices);
+            sum += origins[(int) (i % events.size)];
+        }
+        long took = System.nanoTime() - a;
+
+        System.err.printf("%s, %d events: %.1f ns per event (%d)%n", name, events.size, took / (double) (calls * events.size), sum & 1);
+    }
+
+    private static void median(ExactPickedEvents events) {
+        long[] origins = new long[events.size];
+        long[] work = new long[events.size];
+        Random random = new Random(0);
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = random.nextInt(600_000);
+        }
+        long calls = EVALUATIONS / events.size;
+
+        long sum = 0;
+        long a = System.nanoTime();
+        for (long i = 0; i < calls; i++) {
+            System.arraycopy(origins, 0, work, 0, origins.length);
+            Arrays.sort(work);
+            sum += work[(work.length - 1) / 2];
+        }
+        long sort = System.nanoTime() - a;
+
+        a = System.nanoTime();
+        for (long i = 0; i < calls; i++) {
+            System.arraycopy(origins, 0, work, 0, origins.length);
+            sum += QuickSelect.select(work, work.length, (work.length - 1) / 2);
+        }
+        long select = System.nanoTime() - a;
+
+        System.err.printf("median of %d: sort %.1f ns, select %.1f ns per event (%d)%n", events.size,
+                sort / (double) (calls * events.size), select / (double) (calls * events.size), sum & 1);
+    }
+
+    private static ExactPickedEvents randomEvents(Random random, int count) {
+        List<PickedEvent> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new PickedEvent(random.nextInt(600_000), 0, 0, random.nextDouble() * 3000, 10));
+        }
+        ExactPickedEvents events = new ExactPickedEvents(list);
+        for (int i = 0; i < count; i++) {
+            events.angle[i] = random.nextDouble() * 100;
+        }
+        return events;
+    }
+}
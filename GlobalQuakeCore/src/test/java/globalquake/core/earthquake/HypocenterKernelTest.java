@@ -0,0 +1,144 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.earthquake.data.ExactPickedEvents;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.HypocenterFinderThreadData;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HypocenterKernelTest {
+
+    private static final double[] DEPTHS = {0, 0.3, 10, 33.3, 250, 599.99, 749.2, 749.9999, 750.1, -1};
+
+    @BeforeClass
+    public static void init() throws Exception {
+        TauPTravelTimeCalculator.init();
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+    }
+
+    @Test
+    public void testVectorKernelMatchesScalar() {
+        if (HypocenterKernels.VECTOR == null) {
+            System.err.println("Vector API not available, skipping the comparison");
+            return;
+        }
+
+        Random random = new Random(0);
+        for (int round = 0; round < 300; round++) {
+            ExactPickedEvents events = randomEvents(random, 1 + random.nextInt(round < 100 ? 20 : 400));
+            int[] indices = new int[events.size];
+            long[] expected = new long[events.size];
+            long[] actual = new long[events.size];
+
+            for (double depth : DEPTHS) {
+                double d = depth == -1 ? random.nextDouble() * TauPTravelTimeCalculator.MAX_DEPTH : depth;
+                HypocenterKernels.SCALAR.computeOrigins(d, events, expected, indices);
+                HypocenterKernels.VECTOR.computeOrigins(d, events, actual, indices);
+                assertArrayEquals("depth %s".formatted(d), expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testAnalyseHypocenterMatchesSorting() {
+        Random random = new Random(1);
+        HypocenterFinderSettings finderSettings = new HypocenterFinderSettings(4000, 0.4, 40, 0, 6, false);
+        PreliminaryHypocenter hypocenter = new PreliminaryHypocenter();
+
+        for (int round = 0; round < 300; round++) {
+            ExactPickedEvents events = randomEvents(random, 1 + random.nextInt(200));
+            HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(events.size);
+
+            for (int i = 0; i < 20; i++) {
+                double depth = random.nextDouble() * 700;
+                EarthquakeAnalysis.analyseHypocenter(hypocenter, 1, 2, depth, events, finderSettings, threadData);
+                PreliminaryHypocenter expected = analyseHypocenterSorted(depth, events, finderSettings);
+
+                assertEquals(expected.correctStations, hypocenter.correctStations);
+                if (expected.err == Double.MAX_VALUE) {
+                    assertEquals(Double.MAX_VALUE, hypocenter.err, 0.0);
+                    continue;
+                }
+                assertEquals(expected.origin, hypocenter.origin);
+                // the errors are only summed in a different order
+                assertEquals(expected.err, hypocenter.err, expected.err * 1e-12);
+                assertEquals(depth, hypocenter.depth, 0.0);
+            }
+        }
+    }
+
+    private static ExactPickedEvents randomEvents(Random random, int count) {
+        List<PickedEvent> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new PickedEvent(random.nextInt(600_000) - 100_000, 0, 0, random.nextDouble() * 3000 - 100, 10));
+        }
+
+        ExactPickedEvents events = new ExactPickedEvents(list);
+        for (int i = 0; i < count; i++) {
+            events.angle[i] = switch (random.nextInt(20)) {
+                case 0 -> 150 + random.nextDouble() * 30;
+                case 1 -> 0;
+                case 2 -> Math.round(random.nextDouble() * 1499) / 10.0;
+                default -> random.nextDouble() * 150;
+            };
+        }
+        return events;
+    }
+
+    /**
+     * The original implementation, sorting the origins for the median.
+     */
+    private static PreliminaryHypocenter analyseHypocenterSorted(double depth, ExactPickedEvents events,
+                                                                 HypocenterFinderSettings finderSettings) {
+        long[] origins = new long[events.size];
+        for (int i = 0; i < events.size; i++) {
+            double travelTime = TauPTravelTimeCalculator.getPWaveTravelTimeFast(depth, events.angle[i]);
+            if (travelTime == TauPTravelTimeCalculator.NO_ARRIVAL) {
+                origins[i] = Long.MIN_VALUE;
+                continue;
+            }
+            travelTime += events.elevationCorrection[i];
+            origins[i] = events.pWave[i] - ((long) (travelTime * 1000));
+        }
+
+        Arrays.sort(origins);
+        long bestOrigin = origins[(origins.length - 1) / 2];
+
+        PreliminaryHypocenter result = new PreliminaryHypocenter();
+        if (bestOrigin == Long.MIN_VALUE) {
+            result.err = Double.MAX_VALUE;
+            result.correctStations = 0;
+            return result;
+        }
+
+        double err = 0;
+        int acc = 0;
+        for (long origin : origins) {
+            double _err = Math.abs(origin - bestOrigin);
+            if (_err < finderSettings.pWaveInaccuracyThreshold()) {
+                acc++;
+            } else {
+                _err = (_err - finderSettings.pWaveInaccuracyThreshold()) * 0.2 + finderSettings.pWaveInaccuracyThreshold();
+            }
+            _err /= 1000;
+            err += _err * _err;
+        }
+
+        result.origin = bestOrigin;
+        result.err = err;
+        result.correctStations = acc;
+        return result;
+    }
+}
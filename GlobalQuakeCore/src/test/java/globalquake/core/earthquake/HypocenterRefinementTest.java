@@ -0,0 +1,93 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.Settings;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.Hypocenter;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.training.EarthquakeAnalysisTraining;
+import globalquake.utils.GeoUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class HypocenterRefinementTest {
+
+    private static final HypocenterFinderSettings FINDER_SETTINGS = new HypocenterFinderSettings(2000, 0.4, 40, 0, 6, false);
+
+    @BeforeClass
+    public static void init() throws Exception {
+        TauPTravelTimeCalculator.init();
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+        Settings.parallelHypocenterLocations = false;
+    }
+
+    @Test
+    public void testAsAccurateAsGridSearch() {
+        Random random = new Random(0);
+        EarthquakeAnalysis earthquakeAnalysis = new EarthquakeAnalysis();
+
+        for (double[] quake : new double[][]{{35.2, 139.6, 30}, {-20.5, -70.1, 180}, {51.0, 12.0, 8}, {-5.0, 150.0, 520}}) {
+            List<EarthquakeAnalysisTraining.FakeStation> stations = new ArrayList<>();
+            List<PickedEvent> events = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                double[] latLon = GeoUtils.moveOnGlobe(quake[0], quake[1], 50 + random.nextDouble() * 1200, random.nextDouble() * 360);
+                double distGC = GeoUtils.greatCircleDistance(quake[0], quake[1], latLon[0], latLon[1]);
+                double travelTime = TauPTravelTimeCalculator.getPWaveTravelTime(quake[2], TauPTravelTimeCalculator.toAngle(distGC));
+                long noise = (long) (random.nextGaussian() * 300);
+                if (i % 10 == 0) {
+                    // some picks are completely wrong
+                    noise += 8000;
+                }
+
+                stations.add(new EarthquakeAnalysisTraining.FakeStation(latLon[0], latLon[1]));
+                events.add(new PickedEvent(10_000 + (long) (travelTime * 1000) + noise, latLon[0], latLon[1], 0, 100));
+            }
+
+            Cluster cluster = new Cluster(UUID.randomUUID(), 0, 0, 0);
+            cluster.calculateRoot(stations);
+            PreliminaryHypocenter grid = earthquakeAnalysis.runHypocenterFinder(events, cluster, FINDER_SETTINGS, true);
+
+            // warm start from a previous revision that was a bit off
+            double[] start = GeoUtils.moveOnGlobe(quake[0], quake[1], 25, random.nextDouble() * 360);
+            PreliminaryHypocenter refined = HypocenterRefinement.refine(events, start[0], start[1], quake[2] + 20, 11_500, FINDER_SETTINGS);
+
+            assertNotNull(grid);
+            assertNotNull(refined);
+
+            double gridDistance = GeoUtils.greatCircleDistance(quake[0], quake[1], grid.lat, grid.lon);
+            double refinedDistance = GeoUtils.greatCircleDistance(quake[0], quake[1], refined.lat, refined.lon);
+
+            assertTrue("refined %.2f km, grid %.2f km".formatted(refinedDistance, gridDistance), refinedDistance < gridDistance + 3.0);
+            assertTrue(Math.abs(refined.depth - quake[2]) < Math.abs(grid.depth - quake[2]) + 5.0);
+            assertEquals(10_000, refined.origin, 500);
+            assertTrue(refined.correctStations >= grid.correctStations - 1);
+        }
+    }
+
+    @Test
+    public void testDegradedResiduals() {
+        Hypocenter previous = new Hypocenter(0, 0, 10, 0, 40 * 0.5, 38, null, null);
+        previous.usedEvents = 40;
+        previous.reducedEvents = 40;
+
+        PreliminaryHypocenter good = new PreliminaryHypocenter(0, 0, 10, 0, 50 * 0.6, 48);
+        assertFalse(HypocenterRefinement.isDegraded(good, 50, good, 50, previous, 0.05, 2.0));
+
+        PreliminaryHypocenter wrongArrivals = new PreliminaryHypocenter(0, 0, 10, 0, 50 * 0.6, 40);
+        assertTrue(HypocenterRefinement.isDegraded(wrongArrivals, 50, good, 50, previous, 0.05, 2.0));
+
+        PreliminaryHypocenter largeResiduals = new PreliminaryHypocenter(0, 0, 10, 0, 50 * 1.5, 48);
+        assertTrue(HypocenterRefinement.isDegraded(good, 50, largeResiduals, 50, previous, 0.05, 2.0));
+    }
+}
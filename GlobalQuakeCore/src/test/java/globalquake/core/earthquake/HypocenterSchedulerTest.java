@@ -0,0 +1,180 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.analysis.Event;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.Earthquake;
+import globalquake.core.events.GlobalQuakeEventHandler;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStation;
+import globalquake.core.station.GlobalStationManager;
+import globalquake.utils.GeoUtils;
+import globalquake.utils.UnitVector;
+import gqserver.api.packets.station.InputType;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HypocenterSchedulerTest {
+
+    private static final double QUAKE_LAT = 35;
+    private static final double QUAKE_LON = 139;
+    private static final double QUAKE_DEPTH = 10;
+    private static final long QUAKE_ORIGIN = 1_000_000;
+
+    private static volatile long now;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+    }
+
+    @Before
+    public void setUp() {
+        new GlobalQuake() {
+            {
+                eventHandler = new GlobalQuakeEventHandler().runHandler();
+            }
+
+            @Override
+            public long currentTimeMillis() {
+                return now;
+            }
+
+            @Override
+            public boolean limitedSettings() {
+                return false;
+            }
+
+            @Override
+            public boolean limitedWaveformBuffers() {
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void testNewClustersFirst() throws Exception {
+        HypocenterScheduler scheduler = new HypocenterScheduler(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<Cluster> order = new CopyOnWriteArrayList<>();
+
+        // occupy the only thread so that the rest waits in the queue
+        scheduler.schedule(new Cluster(), cluster -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return false;
+        });
+
+        Cluster quake1 = new Cluster();
+        quake1.setEarthquake(new Earthquake(quake1));
+        Cluster quake2 = new Cluster();
+        quake2.setEarthquake(new Earthquake(quake2));
+        Cluster newCluster = new Cluster();
+
+        for (Cluster cluster : List.of(quake1, quake2, newCluster)) {
+            scheduler.schedule(cluster, c -> {
+                order.add(c);
+                done.countDown();
+                return true;
+            });
+        }
+
+        // already queued
+        scheduler.schedule(newCluster, c -> {
+            fail();
+            return false;
+        });
+        assertEquals(3, scheduler.getQueueDepth());
+
+        blocker.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of(newCluster, quake1, quake2), order);
+    }
+
+    @Test
+    public void testSupersededRevision() throws Exception {
+        Random random = new Random(0);
+        List<AbstractStation> stations = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            double dist = 800 * Math.sqrt(random.nextDouble());
+            UnitVector position = UnitVector.of(QUAKE_LAT, QUAKE_LON).move(dist, random.nextDouble() * 360);
+            stations.add(new GlobalStation("N" + i, "S" + i, "HHZ", "", position.lat(), position.lon(), 0, i, null, -1, InputType.UNKNOWN));
+        }
+        GlobalStationManager.createListOfClosestStations(stations);
+
+        List<Earthquake> earthquakes = new CopyOnWriteArrayList<>();
+        ClusterAnalysis clusterAnalysis = new ClusterAnalysis(earthquakes, stations);
+        EarthquakeAnalysis earthquakeAnalysis = new EarthquakeAnalysis(clusterAnalysis, earthquakes);
+        HypocenterScheduler scheduler = new HypocenterScheduler(1);
+
+        now = QUAKE_ORIGIN + 40_000;
+        addPicks(stations, 300);
+        Set<Cluster> changed = clusterAnalysis.update();
+        assertEquals(1, clusterAnalysis.getClusters().size());
+        Cluster cluster = clusterAnalysis.getClusters().iterator().next();
+
+        earthquakeAnalysis.run(scheduler, changed);
+
+        // wait until the search has passed the revision gate
+        for (int i = 0; i < 10_000 && cluster.lastEpicenterUpdate == 0; i++) {
+            Thread.sleep(1);
+        }
+        assertTrue(cluster.lastEpicenterUpdate > 0);
+
+        // more arrivals come while the search is running, the cluster analysis must not wait for it
+        now = QUAKE_ORIGIN + 120_000;
+        addPicks(stations, 800);
+        clusterAnalysis.update();
+        assertTrue(cluster.updateCount > cluster.lastEpicenterUpdate * 1.1);
+
+        waitForStats(scheduler);
+
+        assertEquals(1, scheduler.getCancelledCount());
+        assertEquals(0, scheduler.getCompletedCount());
+        assertEquals(1, cluster.getCancelledRevisions());
+        assertNull(cluster.getEarthquake());
+        assertFalse(cluster.revisionCancellable);
+
+        // outside the scheduler the revision always finishes
+        EarthquakeAnalysis.checkSuperseded(cluster);
+    }
+
+    private static void addPicks(List<AbstractStation> stations, double maxDist) {
+        for (AbstractStation station : stations) {
+            double distGC = GeoUtils.greatCircleDistance(QUAKE_LAT, QUAKE_LON, station.getLatitude(), station.getLongitude());
+            if (distGC > maxDist || !station.getAnalysis().getDetectedEvents().isEmpty()) {
+                continue;
+            }
+
+            double travelTime = TauPTravelTimeCalculator.getPWaveTravelTime(QUAKE_DEPTH, TauPTravelTimeCalculator.toAngle(distGC));
+            Event event = new Event(station.getAnalysis());
+            event.maxRatio = 100;
+            station.getAnalysis().getDetectedEvents().add(0, event);
+            event.setpWave(QUAKE_ORIGIN + (long) (travelTime * 1000));
+        }
+    }
+
+    private static void waitForStats(HypocenterScheduler scheduler) throws InterruptedException {
+        for (int i = 0; i < 1000 && scheduler.getCancelledCount() + scheduler.getCompletedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
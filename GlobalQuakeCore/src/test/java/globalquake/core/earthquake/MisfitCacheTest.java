@@ -0,0 +1,52 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MisfitCacheTest {
+
+    private static final List<PickedEvent> EVENTS = List.of(
+            new PickedEvent(1000, 50, 17, 0, 100),
+            new PickedEvent(2000, 51, 18, 200, 100));
+
+    @Test
+    public void testLookup() {
+        MisfitCache cache = new MisfitCache(EVENTS);
+        PreliminaryHypocenter hypocenter = new PreliminaryHypocenter(50.5, 17.5, 12.5, -3000, 4.5, 2);
+
+        assertFalse(cache.lookup(new PreliminaryHypocenter(), 50.5, 17.5, 12.5));
+        cache.store(hypocenter, 50.5, 17.5, 12.5);
+
+        PreliminaryHypocenter result = new PreliminaryHypocenter();
+        assertTrue(cache.lookup(result, 50.5, 17.5, 12.5));
+        assertEquals(hypocenter.toString(), result.toString());
+
+        assertFalse(cache.lookup(result, 50.5, 17.5, 13.0));
+        assertFalse(cache.lookup(result, 50.5001, 17.5, 12.5));
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getLookups());
+    }
+
+    @Test
+    public void testUnknownOriginKeepsPosition() {
+        MisfitCache cache = new MisfitCache(EVENTS);
+        cache.store(new PreliminaryHypocenter(0, 0, 0, 0, Double.MAX_VALUE, 0), 10, 20, 700);
+
+        PreliminaryHypocenter result = new PreliminaryHypocenter(1, 2, 3, 4, 5, 6);
+        assertTrue(cache.lookup(result, 10, 20, 700));
+        assertEquals(new PreliminaryHypocenter(1, 2, 3, 4, Double.MAX_VALUE, 0).toString(), result.toString());
+    }
+
+    @Test
+    public void testEventsHash() {
+        assertEquals(MisfitCache.hashEvents(EVENTS), MisfitCache.hashEvents(List.copyOf(EVENTS)));
+        assertNotEquals(MisfitCache.hashEvents(EVENTS), MisfitCache.hashEvents(List.of(
+                new PickedEvent(1000, 50, 17, 0, 100),
+                new PickedEvent(2001, 51, 18, 200, 100))));
+    }
+}
@@ -0,0 +1,275 @@
+package globalquake.core.events;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.Earthquake;
+import globalquake.core.earthquake.data.Hypocenter;
+import globalquake.core.events.specific.*;
+import globalquake.core.metrics.Metrics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GlobalQuakeEventHandlerTest {
+
+    @BeforeClass
+    public static void init() throws Exception {
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+        new GlobalQuake() {
+            @Override
+            public boolean limitedSettings() {
+                return false;
+            }
+
+            @Override
+            public boolean limitedWaveformBuffers() {
+                return false;
+            }
+        };
+    }
+
+    private static Earthquake earthquake() {
+        Cluster cluster = new Cluster();
+        Earthquake earthquake = new Earthquake(cluster);
+        cluster.setEarthquake(earthquake);
+        return earthquake;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testSlowListener() {
+        GlobalQuakeEventHandler handler = new GlobalQuakeEventHandler().runHandler();
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(3);
+
+        handler.registerEventListener(new GlobalQuakeEventListener() {
+            @Override
+            public void onQuakeCreate(QuakeCreateEvent event) {
+                await(blocker);
+            }
+        });
+        handler.registerEventListener(new GlobalQuakeEventListener() {
+            @Override
+            public void onQuakeCreate(QuakeCreateEvent event) {
+                received.countDown();
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            handler.fireEvent(new QuakeCreateEvent(earthquake()));
+        }
+
+        await(received);
+        blocker.countDown();
+        handler.stopHandler();
+    }
+
+    @Test
+    public void testCoalescing() {
+        GlobalQuakeEventHandler handler = new GlobalQuakeEventHandler().runHandler();
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<GlobalQuakeEvent> received = new CopyOnWriteArrayList<>();
+
+        handler.registerEventListener(new GlobalQuakeEventListener() {
+            @Override
+            public void onClusterCreate(ClusterCreateEvent event) {
+                await(blocker);
+            }
+
+            @Override
+            public void onQuakeCreate(QuakeCreateEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onQuakeUpdate(QuakeUpdateEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onQuakeRemove(QuakeRemoveEvent event) {
+                received.add(event);
+                done.countDown();
+            }
+        });
+
+        Earthquake quake1 = earthquake();
+        Earthquake quake2 = earthquake();
+        Hypocenter first = new Hypocenter(0, 0, 10, 0, 0, 0, null, null);
+        Hypocenter second = new Hypocenter(1, 1, 10, 0, 0, 0, null, null);
+
+        // occupies the listener while the rest is queued
+        handler.fireEvent(new ClusterCreateEvent(new Cluster()));
+
+        QuakeCreateEvent create = new QuakeCreateEvent(quake1);
+        QuakeUpdateEvent quake2Update = new QuakeUpdateEvent(quake2, null);
+        QuakeRemoveEvent remove = new QuakeRemoveEvent(quake1);
+        QuakeUpdateEvent lastUpdate = new QuakeUpdateEvent(quake1, null);
+        QuakeUpdateEvent newestUpdate = new QuakeUpdateEvent(quake1, second);
+
+        handler.fireEvent(create);
+        handler.fireEvent(new QuakeUpdateEvent(quake1, first));
+        handler.fireEvent(quake2Update);
+        handler.fireEvent(new QuakeUpdateEvent(quake1, null));
+        handler.fireEvent(newestUpdate);
+        handler.fireEvent(remove);
+        // doesn't replace the update before the removal
+        handler.fireEvent(lastUpdate);
+
+        blocker.countDown();
+        await(done);
+        handler.stopHandler();
+
+        assertEquals(5, received.size());
+        assertSame(create, received.get(0));
+        // the newest update replaced the pending ones, with its own previous hypocenter
+        QuakeUpdateEvent merged = (QuakeUpdateEvent) received.get(1);
+        assertSame(newestUpdate, merged);
+        assertSame(quake1, merged.earthquake());
+        assertSame(second, merged.previousHypocenter());
+        assertSame(quake2Update, received.get(2));
+        assertSame(remove, received.get(3));
+        assertSame(lastUpdate, received.get(4));
+    }
+
+    @Test
+    public void testDataBatches() {
+        GlobalQuakeEventHandler handler = new GlobalQuakeEventHandler(16, 8).runHandler();
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<List<SeedlinkDataEvent>> batches = new CopyOnWriteArrayList<>();
+        List<QuakeCreateEvent> quakes = new CopyOnWriteArrayList<>();
+
+        handler.registerEventListener(new GlobalQuakeEventListener() {
+            @Override
+            public void onNewDataBatch(List<SeedlinkDataEvent> events) {
+                started.countDown();
+                await(blocker);
+                batches.add(List.copyOf(events));
+                if (batches.size() == 2) {
+                    done.countDown();
+                }
+            }
+
+            @Override
+            public void onQuakeCreate(QuakeCreateEvent event) {
+                quakes.add(event);
+            }
+        });
+
+        handler.fireEvent(new SeedlinkDataEvent(null, null));
+        await(started);
+
+        List<SeedlinkDataEvent> fired = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            SeedlinkDataEvent event = new SeedlinkDataEvent(null, null);
+            fired.add(event);
+            handler.fireEvent(event);
+        }
+
+        // delivered before the waiting data
+        QuakeCreateEvent create = new QuakeCreateEvent(earthquake());
+        handler.fireEvent(create);
+
+        blocker.countDown();
+        await(done);
+        handler.stopHandler();
+
+        assertEquals(1, batches.get(0).size());
+        // the oldest data got dropped
+        assertEquals(fired.subList(12, 20), batches.get(1));
+        assertEquals(List.of(create), quakes);
+    }
+
+    @Test
+    public void testOverflow() {
+        GlobalQuakeEventHandler handler = new GlobalQuakeEventHandler(4, 4).runHandler();
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<GlobalQuakeEvent> received = new CopyOnWriteArrayList<>();
+
+        handler.registerEventListener(new GlobalQuakeEventListener() {
+            @Override
+            public void onClusterCreate(ClusterCreateEvent event) {
+                started.countDown();
+                await(blocker);
+                received.add(event);
+            }
+
+            @Override
+            public void onQuakeCreate(QuakeCreateEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onQuakeRemove(QuakeRemoveEvent event) {
+                received.add(event);
+                done.countDown();
+            }
+        });
+
+        ClusterCreateEvent first = new ClusterCreateEvent(new Cluster());
+        handler.fireEvent(first);
+        await(started);
+
+        List<QuakeCreateEvent> creates = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            handler.fireEvent(new ClusterCreateEvent(new Cluster()));
+            QuakeCreateEvent create = new QuakeCreateEvent(earthquake());
+            creates.add(create);
+            handler.fireEvent(create);
+        }
+        QuakeRemoveEvent remove = new QuakeRemoveEvent(creates.get(0).earthquake());
+        handler.fireEvent(remove);
+
+        // the listener is stuck, but firing must not wait for it
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+
+        blocker.countDown();
+        await(done);
+        handler.stopHandler();
+
+        // the cluster events waiting in the queue made room for the rest
+        List<GlobalQuakeEvent> expected = new ArrayList<>(List.of(first));
+        expected.addAll(creates);
+        expected.add(remove);
+        assertEquals(expected, received);
+    }
+
+    @Test
+    public void testMetrics() {
+        GlobalQuakeEventHandler handler = new GlobalQuakeEventHandler().runHandler();
+        GlobalQuakeEventListener listener = new GlobalQuakeEventListener();
+        handler.registerEventListener(listener);
+        handler.registerEventListener(listener);
+
+        String name = listener.getClass().getName();
+        String text = Metrics.format();
+        assertTrue(text.contains("# TYPE gq_event_queue_size gauge\n"));
+        assertTrue(text.contains("# TYPE gq_event_dropped_total counter\n"));
+        assertTrue(text.contains("gq_event_queue_size{listener=\"%s\"} 0.0\n".formatted(name)));
+        assertTrue(text.contains("gq_event_queue_size{listener=\"%s#2\"} 0.0\n".formatted(name)));
+
+        handler.stopHandler();
+        assertFalse(Metrics.format().contains("gq_event_queue_size{"));
+    }
+}
@@ -0,0 +1,57 @@
+package globalquake.core.geo.taup;
+
+import java.util.Random;
+
+/**
+ * Compares the travel angle lookups in the inverse tables with the bisection over the travel times they replaced,
+ * for the wavefronts of one earthquake as they are drawn. Run with the travel table on the classpath.
+ */
+public class InverseTravelTimeBenchmark {
+
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        TauPTravelTimeCalculator.init();
+
+        double[] depths = new double[1024];
+        double[] times = new double[1024];
+        Random random = new Random(0);
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = random.nextDouble() * 700;
+            times[i] = random.nextDouble() * 1000;
+        }
+
+        for (int round = 0; round < 3; round++) {
+            double sum = 0;
+            long a = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                double depth = depths[(i >> 10) & 1023];
+                double time = times[i & 1023];
+                sum += TauPTravelTimeCalculator.getPWaveTravelAngle(depth, time);
+                sum += TauPTravelTimeCalculator.getSWaveTravelAngle(depth, time);
+            }
+            long inverse = System.nanoTime() - a;
+
+            a = System.nanoTime();
+            for (int i = 0; i < LOOKUPS / 50; i++) {
+                double depth = depths[(i >> 10) & 1023];
+                double time = times[i & 1023];
+                sum += TauPTravelTimeCalculator.binarySearchTime(angle -> TauPTravelTimeCalculator.getPWaveTravelTime(depth, angle), time, 1e-4,
+                        TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE);
+                sum += TauPTravelTimeCalculator.binarySearchTime(angle -> TauPTravelTimeCalculator.getSWaveTravelTime(depth, angle), time, 1e-4,
+                        TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE);
+            }
+            long bisection = (System.nanoTime() - a) * 50;
+
+            System.err.printf("travel angle: inverse table %.1f ns, bisection %.1f ns (%d)%n",
+                    inverse / (2.0 * LOOKUPS), bisection / (2.0 * LOOKUPS), (long) sum & 1);
+        }
+
+        long a = System.nanoTime();
+        TravelTimeGrid pWaves = TauPTravelTimeCalculator.getPWaves();
+        for (int i = 0; i < 10; i++) {
+            new InverseTravelTimeGrid(pWaves, 1.0);
+        }
+        System.err.printf("P wave inverse table built in %.1f ms%n", (System.nanoTime() - a) / 1e7);
+    }
+}
@@ -0,0 +1,114 @@
+package globalquake.core.geo.taup;
+
+import globalquake.core.exception.FatalApplicationException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.*;
+
+public class InverseTravelTimeGridTest {
+
+    private static final double NO_ARRIVAL = TauPTravelTimeCalculator.NO_ARRIVAL;
+
+    @BeforeClass
+    public static void init() throws FatalApplicationException {
+        TauPTravelTimeCalculator.init();
+    }
+
+    /**
+     * The lookup as it was done before the inverse tables
+     */
+    private static double bisection(BiFunction<Double, Double, Double> travelTime, double depth, double time, double minAngle, double maxAngle) {
+        return TauPTravelTimeCalculator.binarySearchTime(angle -> travelTime.apply(depth, angle), time, 1e-4, minAngle, maxAngle);
+    }
+
+    /**
+     * Travel time at the angle, or just inside of the table if the angle is the edge of the arrivals
+     */
+    private static double travelTimeNear(BiFunction<Double, Double, Double> travelTime, double depth, double angle) {
+        for (double offset : new double[]{0, 1e-6, -1e-6}) {
+            double result = travelTime.apply(depth, angle + offset);
+            if (result != NO_ARRIVAL) {
+                return result;
+            }
+        }
+        return NO_ARRIVAL;
+    }
+
+    private static void compare(String phase, BiFunction<Double, Double, Double> travelTime, BiFunction<Double, Double, Double> travelAngle,
+                                double minAngle, double maxAngle, double minTime, double maxTime, boolean checkMaxTime) {
+        double surfaceMaxTime = travelTime.apply(0.0, maxAngle);
+        int compared = 0;
+        for (double depth = 0; depth <= TauPTravelTimeCalculator.MAX_DEPTH; depth += 3.7) {
+            for (double time = minTime; time <= maxTime; time += 0.73) {
+                // same as getPWaveTravelAngle and getSWaveTravelAngle
+                double expected = checkMaxTime && (time < 0 || time > surfaceMaxTime) ? NO_ARRIVAL :
+                        bisection(travelTime, depth, time, minAngle, maxAngle);
+                double actual = travelAngle.apply(depth, time);
+                String message = "%s %.1fkm %.2fs".formatted(phase, depth, time);
+                if (expected == NO_ARRIVAL) {
+                    if (actual != NO_ARRIVAL) {
+                        // the bisection gives up once it hits a missing arrival, the inverse table only snaps to the edge
+                        assertEquals(message, time, travelTimeNear(travelTime, depth, actual), 0.5);
+                    }
+                    continue;
+                }
+
+                assertNotEquals(message, NO_ARRIVAL, actual, 0.0);
+                assertEquals(message, expected, actual, 1e-3);
+                compared++;
+            }
+        }
+        assertTrue(compared > 1000);
+    }
+
+    @Test
+    public void testPWave() {
+        compare("P", TauPTravelTimeCalculator::getPWaveTravelTime, TauPTravelTimeCalculator::getPWaveTravelAngle,
+                TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE, -5, 1100, true);
+    }
+
+    @Test
+    public void testSWave() {
+        compare("S", TauPTravelTimeCalculator::getSWaveTravelTime, TauPTravelTimeCalculator::getSWaveTravelAngle,
+                TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE, -5, 2000, true);
+    }
+
+    @Test
+    public void testPKIKPWave() {
+        compare("PKIKP", TauPTravelTimeCalculator::getPKIKPWaveTravelTime, TauPTravelTimeCalculator::getPKIKPWaveTravelAngle,
+                TauPTravelTable.PKIKP_MIN_ANGLE, TauPTravelTable.PKIKP_MAX_ANGLE, 880, 1250, false);
+    }
+
+    @Test
+    public void testPKPWave() {
+        compare("PKP", TauPTravelTimeCalculator::getPKPWaveTravelTime, TauPTravelTimeCalculator::getPKPWaveTravelAngle,
+                TauPTravelTable.PKP_MIN_ANGLE, TauPTravelTable.PKP_MAX_ANGLE, 1060, 1350, false);
+    }
+
+    @Test
+    public void testOutOfRange() {
+        assertEquals(NO_ARRIVAL, TauPTravelTimeCalculator.getPWaveTravelAngle(-1, 100), 0.0);
+        assertEquals(NO_ARRIVAL, TauPTravelTimeCalculator.getPWaveTravelAngle(800, 100), 0.0);
+        assertEquals(NO_ARRIVAL, TauPTravelTimeCalculator.getPKPWaveTravelAngle(10, 600), 0.0);
+        assertEquals(NO_ARRIVAL, TauPTravelTimeCalculator.getPKIKPWaveTravelAngle(10, 5000), 0.0);
+        assertEquals(NO_ARRIVAL, TauPTravelTimeCalculator.getSWaveTravelAngle(10, Double.NaN), 0.0);
+    }
+
+    @Test
+    public void testMonotonicSegment() {
+        // the second branch after the travel time goes back is not inverted
+        float[] values = {TauPTravelTimeCalculator.NO_ARRIVAL, 10, 20, 30, 25, 40,
+                TauPTravelTimeCalculator.NO_ARRIVAL, 10, 20, 30, 25, 40};
+        InverseTravelTimeGrid inverse = new InverseTravelTimeGrid(new TravelTimeGrid(0, 5, 2, 6, values), 1.0);
+
+        assertEquals(1.5, inverse.getAngle(0, 15), 1e-9);
+        assertEquals(3.0, inverse.getAngle(0, 30), 1e-9);
+        assertEquals(3.0, inverse.getAngle(0, 30.4), 1e-9);
+        assertEquals(NO_ARRIVAL, inverse.getAngle(0, 35), 0.0);
+        assertEquals(1.0, inverse.getAngle(0, 9.6), 1e-9);
+        assertEquals(NO_ARRIVAL, inverse.getAngle(0, 9), 0.0);
+    }
+}
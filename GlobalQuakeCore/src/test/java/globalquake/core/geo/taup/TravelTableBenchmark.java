@@ -0,0 +1,93 @@
+package globalquake.core.geo.taup;
+
+import java.io.ObjectInputStream;
+import java.net.URL;
+import java.util.Random;
+
+/**
+ * Compares loading the serialized and the binary travel table and the lookups in the flat grid
+ * against the same lookups in separate rows. Run with both travel tables on the classpath.
+ */
+public class TravelTableBenchmark {
+
+    private static final int LOOKUPS = 50_000_000;
+
+    public static void main(String[] args) throws Exception {
+        URL legacy = ClassLoader.getSystemClassLoader().getResource("travel_table/travel_table.dat");
+        URL binary = ClassLoader.getSystemClassLoader().getResource("travel_table/travel_table.bin");
+
+        for (int round = 0; round < 3; round++) {
+            System.err.printf("=== round %d ===%n", round);
+            if (legacy != null) {
+                long a = System.nanoTime();
+                try (ObjectInputStream in = new ObjectInputStream(legacy.openStream())) {
+                    in.readObject();
+                }
+                System.err.printf("serialized table loaded in %.1f ms%n", (System.nanoTime() - a) / 1e6);
+            }
+
+            if (binary != null) {
+                long a = System.nanoTime();
+                TravelTableFile.load(binary);
+                System.err.printf("binary table loaded in %.1f ms%n", (System.nanoTime() - a) / 1e6);
+            }
+        }
+
+        TauPTravelTimeCalculator.init();
+        float[][] rows = TauPTravelTimeCalculator.getPWaves().toRows();
+        double[] depths = new double[1024];
+        double[] angles = new double[1024];
+        Random random = new Random(0);
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = random.nextDouble() * 700;
+            angles[i] = random.nextDouble() * 140;
+        }
+
+        for (int round = 0; round < 3; round++) {
+            double sum = 0;
+            long a = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                sum += TauPTravelTimeCalculator.getPWaveTravelTime(depths[i & 1023], angles[(i >> 10) & 1023]);
+            }
+            long flat = System.nanoTime() - a;
+
+            a = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                sum += interpolate(rows, depths[i & 1023], angles[(i >> 10) & 1023]);
+            }
+            long nested = System.nanoTime() - a;
+
+            System.err.printf("lookup: flat %.1f ns, rows %.1f ns (%d)%n", flat / (double) LOOKUPS, nested / (double) LOOKUPS, (long) sum & 1);
+        }
+    }
+
+    /**
+     * The lookup as it was done with the deserialized table
+     */
+    private static double interpolate(float[][] array, double depth, double angle) {
+        double x = (depth / TauPTravelTimeCalculator.MAX_DEPTH) * (array.length - 1);
+        double y = ((angle - TauPTravelTable.P_S_MIN_ANGLE) / (TauPTravelTable.P_S_MAX_ANGLE - TauPTravelTable.P_S_MIN_ANGLE)) * (array[0].length - 1);
+        if (x < 0 || y < 0 || x > array.length - 1 || y > array[0].length - 1) {
+            return TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        int x0 = (int) x;
+        int x1 = x0 == array.length - 1 ? x0 : x0 + 1;
+        int y0 = (int) y;
+        int y1 = y0 == array[0].length - 1 ? y0 : y0 + 1;
+
+        float q11 = array[x0][y0];
+        float q21 = array[x1][y0];
+        float q12 = array[x0][y1];
+        float q22 = array[x1][y1];
+
+        if (q11 < 0 || q21 < 0 || q12 < 0 || q22 < 0) {
+            return TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        double tx = x - x0;
+        double ty = y - y0;
+
+        return (1 - tx) * (1 - ty) * q11 + tx * (1 - ty) * q21 + (1 - tx) * ty * q12 + tx * ty * q22;
+    }
+}
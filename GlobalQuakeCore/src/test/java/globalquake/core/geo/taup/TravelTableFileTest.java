@@ -0,0 +1,86 @@
+package globalquake.core.geo.taup;
+
+import globalquake.core.exception.FatalIOException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TravelTableFileTest {
+
+    private static TravelTableFile createTable() {
+        float[] p = new float[3 * 4];
+        float[] pkp = new float[3 * 2];
+        for (int i = 0; i < p.length; i++) {
+            p[i] = i * 1.5f;
+        }
+        for (int i = 0; i < pkp.length; i++) {
+            pkp[i] = i == 0 ? TauPTravelTimeCalculator.NO_ARRIVAL : 1000 + i;
+        }
+        return new TravelTableFile(750, 375, 0.1, List.of(
+                new TravelTimeGrid(0, 150, 3, 4, p), new TravelTimeGrid(140, 180, 3, 2, pkp)));
+    }
+
+    private static byte[] toBytes(TravelTableFile table) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        table.write(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        TravelTableFile table = createTable();
+        Path path = Files.createTempFile("travel_table", ".bin");
+        table.write(path);
+
+        TravelTableFile loaded = TravelTableFile.load(path);
+        assertEquals(750, loaded.maxDepth, 0);
+        assertEquals(375, loaded.depthResolution, 0);
+        assertEquals(0.1, loaded.angleResolution, 0);
+        assertEquals(2, loaded.grids.size());
+
+        for (int i = 0; i < 2; i++) {
+            TravelTimeGrid expected = table.grids.get(i);
+            TravelTimeGrid actual = loaded.grids.get(i);
+            assertEquals(expected.minAngle, actual.minAngle, 0);
+            assertEquals(expected.maxAngle, actual.maxAngle, 0);
+            assertEquals(expected.rows, actual.rows);
+            assertEquals(expected.columns, actual.columns);
+            assertArrayEquals(expected.values, actual.values, 0);
+        }
+
+        assertEquals(4.5f * 2, loaded.grids.get(0).get(1, 2), 0);
+        Files.delete(path);
+    }
+
+    @Test
+    public void testCorruptedTable() throws Exception {
+        byte[] data = toBytes(createTable());
+        TravelTableFile.read(ByteBuffer.wrap(data));
+
+        byte[] corrupted = data.clone();
+        corrupted[corrupted.length - 20] ^= 1;
+        assertThrows(FatalIOException.class, () -> TravelTableFile.read(ByteBuffer.wrap(corrupted)));
+
+        byte[] truncated = new byte[data.length - 4];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertThrows(FatalIOException.class, () -> TravelTableFile.read(ByteBuffer.wrap(truncated)));
+
+        byte[] otherVersion = data.clone();
+        otherVersion[4] = 2;
+        assertThrows(FatalIOException.class, () -> TravelTableFile.read(ByteBuffer.wrap(otherVersion)));
+    }
+
+    @Test
+    public void testRowsConversion() {
+        float[][] rows = {{1, 2, 3}, {4, 5, 6}};
+        TravelTimeGrid grid = TravelTimeGrid.fromRows(rows, 0, 180);
+        assertArrayEquals(new float[]{1, 2, 3, 4, 5, 6}, grid.values, 0);
+        assertArrayEquals(rows, grid.toRows());
+    }
+}
@@ -0,0 +1,50 @@
+package globalquake.core.intensity;
+
+import java.util.Random;
+
+/**
+ * Compares the magnitude grids with the binary search they replaced, for distances and intensities of
+ * stations assigned to earthquakes between M2 and M8.
+ */
+public class MagnitudeLookupBenchmark {
+
+    private static final int LOOKUPS = 5_000_000;
+
+    public static void main(String[] args) {
+        long a = System.nanoTime();
+        MagnitudeLookup lookup = new MagnitudeLookup(IntensityTable::getIntensity, IntensityTable::searchMagnitude, 1200);
+        System.err.printf("grid built in %.1f ms, %.1f%% cells searched%n", (System.nanoTime() - a) / 1e6, lookup.getSearchedShare() * 100);
+
+        Random random = new Random(0);
+        double[] distances = new double[4096];
+        double[] intensities = new double[4096];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = 10 + random.nextDouble() * 5000;
+            intensities[i] = IntensityTable.getIntensity(2 + random.nextDouble() * 6, distances[i]) * (0.5 + random.nextDouble());
+        }
+
+        double maxError = 0;
+        for (int i = 0; i < distances.length; i++) {
+            maxError = Math.max(maxError, Math.abs(lookup.getMagnitude(distances[i], intensities[i])
+                    - IntensityTable.searchMagnitude(distances[i], intensities[i])));
+        }
+        System.err.printf("max difference %.5f%n", maxError);
+
+        for (int round = 0; round < 3; round++) {
+            double sum = 0;
+            a = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                sum += lookup.getMagnitude(distances[i & 4095], intensities[i & 4095]);
+            }
+            long grid = System.nanoTime() - a;
+
+            a = System.nanoTime();
+            for (int i = 0; i < LOOKUPS / 20; i++) {
+                sum += IntensityTable.searchMagnitude(distances[i & 4095], intensities[i & 4095]);
+            }
+            long search = (System.nanoTime() - a) * 20;
+
+            System.err.printf("magnitude: grid %.1f ns, search %.1f ns (%d)%n", grid / (double) LOOKUPS, search / (double) LOOKUPS, (long) sum & 1);
+        }
+    }
+}
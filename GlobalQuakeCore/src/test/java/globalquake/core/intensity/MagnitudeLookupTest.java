@@ -0,0 +1,56 @@
+package globalquake.core.intensity;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.Assert.*;
+
+public class MagnitudeLookupTest {
+
+    private static void compare(String name, DoubleBinaryOperator lookup, DoubleBinaryOperator search, double minLogIntensity, double maxLogIntensity) {
+        Random random = new Random(0);
+        int compared = 0;
+        for (int i = 0; i < 200_000; i++) {
+            double dist = random.nextDouble() * 20_500;
+            double intensity = Math.pow(10, minLogIntensity + random.nextDouble() * (maxLogIntensity - minLogIntensity));
+
+            double expected = search.applyAsDouble(dist, intensity);
+            double actual = lookup.applyAsDouble(dist, intensity);
+            assertEquals("%s %.1fkm %.5f".formatted(name, dist, intensity), expected, actual, 0.01);
+            compared++;
+        }
+        assertEquals(200_000, compared);
+    }
+
+    @Test
+    public void testIntensity() {
+        compare("intensity", IntensityTable::getMagnitude, IntensityTable::searchMagnitude, -3, 9);
+    }
+
+    @Test
+    public void testRatio() {
+        compare("ratio", IntensityTable::getMagnitudeByRatio, IntensityTable::searchMagnitudeByRatio, -3, 8);
+    }
+
+    @Test
+    public void testAccelerometer() {
+        compare("accelerometer", IntensityTable::getMagnitudeByAccelerometer, IntensityTable::searchMagnitudeByAccelerometer, -3, 11);
+    }
+
+    @Test
+    public void testOutsideOfGrid() {
+        assertEquals(IntensityTable.searchMagnitude(30_000, 50), IntensityTable.getMagnitude(30_000, 50), 0.0);
+        assertEquals(IntensityTable.searchMagnitude(100, 0), IntensityTable.getMagnitude(100, 0), 0.0);
+        assertEquals(IntensityTable.searchMagnitude(100, 1e-6), IntensityTable.getMagnitude(100, 1e-6), 0.0);
+        assertEquals(IntensityTable.searchMagnitudeByRatio(100, 1e15), IntensityTable.getMagnitudeByRatio(100, 1e15), 0.0);
+    }
+
+    @Test
+    public void testMostlyTabulated() {
+        MagnitudeLookup lookup = new MagnitudeLookup(IntensityTable::getIntensity, IntensityTable::searchMagnitude, 1200);
+        // the cells left to the search are mostly those beyond the magnitude range
+        assertTrue(lookup.getSearchedShare() < 0.2);
+    }
+}
@@ -0,0 +1,94 @@
+package globalquake.core.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        int last = -1;
+        for (long micros = 0; micros < 1_000_000; micros++) {
+            int index = LatencyHistogram.index(micros);
+            assertTrue(index == last || index == last + 1);
+            assertTrue(micros <= LatencyHistogram.upperBound(index));
+            assertTrue(index == 0 || micros > LatencyHistogram.upperBound(index - 1));
+            last = index;
+        }
+
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(LatencyHistogram.MAX_MICROS));
+        assertEquals(LatencyHistogram.MAX_MICROS, LatencyHistogram.upperBound(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test", "Test");
+        Random random = new Random(0);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i] * 1000);
+        }
+
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.count());
+        assertEquals(values[values.length - 1], snapshot.maxMicros());
+        assertEquals(Arrays.stream(values).sum(), snapshot.sumMicros());
+
+        for (double quantile : new double[]{0.01, 0.5, 0.9, 0.99, 0.999, 1}) {
+            long expected = values[(int) Math.ceil(quantile * values.length) - 1];
+            long actual = snapshot.percentileMicros(quantile);
+            assertTrue(actual >= expected);
+            assertTrue(actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram("test", "Test");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i * 1000L);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(400_000, snapshot.count());
+        assertEquals(99_999, snapshot.maxMicros());
+    }
+
+    @Test
+    public void testFormat() {
+        LatencyHistogram histogram = Metrics.histogram("gq_test_seconds", "Test latency");
+        assertSame(histogram, Metrics.histogram("gq_test_seconds", "Test latency"));
+        histogram.record(1_500_000_000L);
+        Metrics.gauge("gq_test_gauge", "Test gauge", () -> 42);
+        Metrics.gauge("gq_test_unavailable", "Test gauge", () -> {
+            throw new NullPointerException();
+        });
+
+        String text = Metrics.format();
+        assertTrue(text.contains("# TYPE gq_test_seconds summary\n"));
+        assertTrue(text.contains("gq_test_seconds{quantile=\"0.5\"} 1.5"));
+        assertTrue(text.contains("gq_test_seconds_count 1\n"));
+        assertTrue(text.contains("gq_test_seconds_max 1.5\n"));
+        assertTrue(text.contains("# TYPE gq_test_gauge gauge\ngq_test_gauge 42.0\n"));
+        assertFalse(text.contains("gq_test_unavailable"));
+    }
+}
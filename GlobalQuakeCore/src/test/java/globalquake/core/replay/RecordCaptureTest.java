@@ -0,0 +1,177 @@
+package globalquake.core.replay;
+
+import edu.sc.seis.seisFile.mseed.*;
+import globalquake.core.GlobalQuake;
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStation;
+import gqserver.api.packets.station.InputType;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RecordCaptureTest {
+
+    private static final long START_TIME = 1_700_000_000_000L;
+    private static final int SAMPLES = 100;
+    private static final double SAMPLE_RATE = 20;
+    private static final long RECORD_MILLIS = (long) (SAMPLES * 1000 / SAMPLE_RATE);
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+    }
+
+    private static List<AbstractStation> createStations() {
+        List<AbstractStation> stations = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            stations.add(new GlobalStation("XX", "ST" + i, "HHZ", i % 2 == 0 ? "" : "00",
+                    50 + i * 0.1, 14 + i * 0.1, 200 + i, i, null, 1e9, InputType.VELOCITY));
+        }
+        return stations;
+    }
+
+    /**
+     * Captures records of all the stations for the given time, each arriving a second after its end
+     */
+    private static List<CaptureReader.CapturedRecord> capture(File folder, List<AbstractStation> stations, long millis) throws Exception {
+        List<CaptureReader.CapturedRecord> result = new ArrayList<>();
+        Random random = new Random(0);
+        try (RecordCapture capture = new RecordCapture(folder, 60_000, stations)) {
+            for (long time = START_TIME; time < START_TIME + millis; time += RECORD_MILLIS) {
+                for (AbstractStation station : stations) {
+                    byte[] mseed = createRecord(station, time, random);
+                    long arrival = time + RECORD_MILLIS + 1000;
+                    assertTrue(capture.offer(arrival, mseed));
+                    result.add(new CaptureReader.CapturedRecord(arrival, mseed));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static byte[] createRecord(AbstractStation station, long startMillis, Random random) throws Exception {
+        DataHeader header = new DataHeader(1, 'D', false);
+        header.setNetworkCode(station.getNetworkCode());
+        header.setStationIdentifier(station.getStationCode());
+        header.setChannelIdentifier(station.getChannelName());
+        header.setLocationIdentifier(station.getLocationCode());
+        header.setStartBtime(new Btime(Instant.ofEpochMilli(startMillis)));
+        header.setNumSamples((short) SAMPLES);
+        header.setSampleRate(SAMPLE_RATE);
+
+        ByteBuffer data = ByteBuffer.allocate(SAMPLES * Integer.BYTES);
+        for (int i = 0; i < SAMPLES; i++) {
+            data.putInt((int) (random.nextGaussian() * 1000));
+        }
+
+        DataRecord dataRecord = new DataRecord(header);
+        Blockette1000 blockette1000 = new Blockette1000();
+        // 32-bit integers
+        blockette1000.setEncodingFormat((byte) 3);
+        blockette1000.setWordOrder((byte) 1);
+        blockette1000.setDataRecordLength((byte) 9);
+        dataRecord.addBlockette(blockette1000);
+        dataRecord.setData(data.array());
+        return dataRecord.toByteArray();
+    }
+
+    private static List<CaptureReader.CapturedRecord> readAll(File folder) throws Exception {
+        List<CaptureReader.CapturedRecord> result = new ArrayList<>();
+        try (CaptureReader reader = new CaptureReader(folder)) {
+            CaptureReader.CapturedRecord record;
+            while ((record = reader.next()) != null) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        File folder = Files.createTempDirectory("gq-capture").toFile();
+        List<AbstractStation> stations = createStations();
+        List<CaptureReader.CapturedRecord> written = capture(folder, stations, 5 * 60_000);
+
+        // rolled every minute of the arrivals
+        assertEquals(5, folder.listFiles((dir, name) -> name.endsWith(RecordCapture.INDEX_EXTENSION)).length);
+
+        List<CaptureReader.CapturedRecord> read = readAll(folder);
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(written.get(i).arrivalMillis(), read.get(i).arrivalMillis());
+            assertArrayEquals(written.get(i).mseed(), read.get(i).mseed());
+        }
+
+        List<GlobalStation> readStations = CaptureReader.readStations(folder);
+        assertEquals(stations.size(), readStations.size());
+        for (int i = 0; i < stations.size(); i++) {
+            AbstractStation expected = stations.get(i);
+            GlobalStation station = readStations.get(i);
+            assertEquals(expected.getIdentifier(), station.getIdentifier());
+            assertEquals(expected.getLocationCode(), station.getLocationCode());
+            assertEquals(expected.getLatitude(), station.getLatitude(), 0);
+            assertEquals(expected.getLongitude(), station.getLongitude(), 0);
+            assertEquals(expected.getAlt(), station.getAlt(), 0);
+            assertEquals(expected.getSensitivity(), station.getSensitivity(), 0);
+            assertEquals(expected.getInputType(), station.getInputType());
+        }
+    }
+
+    @Test
+    public void testTruncatedSegment() throws Exception {
+        File folder = Files.createTempDirectory("gq-capture").toFile();
+        List<CaptureReader.CapturedRecord> written = capture(folder, createStations(), 90_000);
+
+        File[] data = folder.listFiles((dir, name) -> name.endsWith(RecordCapture.DATA_EXTENSION));
+        assertNotNull(data);
+        Arrays.sort(data);
+
+        // the last record of the first segment didn't make it to the disk
+        File first = data[0];
+        int lastLength = written.get(0).mseed().length;
+        try (RandomAccessFile file = new RandomAccessFile(first, "rw")) {
+            file.setLength(file.length() - lastLength / 2);
+        }
+
+        List<CaptureReader.CapturedRecord> read = readAll(folder);
+        assertEquals(written.size() - 1, read.size());
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        File folder = Files.createTempDirectory("gq-capture").toFile();
+        List<AbstractStation> stations = createStations();
+        List<CaptureReader.CapturedRecord> written = capture(folder, stations, 2 * 60_000);
+
+        ReplayDriver.Report max = new ReplayDriver(folder, ReplayClock.MAX_SPEED).run();
+        assertEquals(written.size(), max.records());
+        assertEquals(0, max.skippedRecords());
+        assertEquals((long) written.size() * SAMPLES, max.samples());
+        assertEquals(written.get(written.size() - 1).arrivalMillis() - written.get(0).arrivalMillis(), max.virtualMillis());
+        assertEquals(written.size(), max.recordLatency().count());
+        assertTrue(max.hypocsLatency().count() > 0);
+        assertTrue(max.detections().isEmpty());
+
+        ReplayDriver driver = new ReplayDriver(folder, 1000);
+        ReplayDriver.Report paced = driver.run();
+        assertEquals(max.records(), paced.records());
+        assertEquals(max.hypocsLatency().count(), paced.hypocsLatency().count());
+        assertTrue("The replay should take at least the virtual time at the given speed",
+                paced.wallNanos() >= paced.virtualMillis() * 1_000_000L / 1000);
+        for (AbstractStation station : driver.getGlobalQuake().getStationManager().getStations()) {
+            assertTrue(station.hasData());
+            assertEquals(START_TIME + 2 * 60_000 - RECORD_MILLIS, station.getAnalysis().getLastRecord(), RECORD_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package globalquake.core.seedlink;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local seedlink server that replays the 512-byte records of a miniSEED file to every client
+ * after the handshake, sending only the records of the selected stations.
+ */
+public class FakeSeedlinkServer implements AutoCloseable {
+
+    private final List<byte[]> records;
+    private final Set<String> rejectedStations = new HashSet<>();
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+    private volatile int disconnectAfter = -1;
+
+    public FakeSeedlinkServer(Path miniSeedFile) throws IOException {
+        this.records = readRecords(miniSeedFile);
+        this.serverSocket = new ServerSocket(0);
+        executor.submit(this::acceptLoop);
+    }
+
+    public static List<byte[]> readRecords(Path miniSeedFile) throws IOException {
+        byte[] data = Files.readAllBytes(miniSeedFile);
+        List<byte[]> result = new ArrayList<>();
+        for (int offset = 0; offset + SeedlinkConnection.MSEED_SIZE <= data.length; offset += SeedlinkConnection.MSEED_SIZE) {
+            byte[] record = new byte[SeedlinkConnection.MSEED_SIZE];
+            System.arraycopy(data, offset, record, 0, record.length);
+            result.add(record);
+        }
+        return result;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Makes the server answer with ERROR to STATION commands for this station
+     */
+    public void reject(String networkCode, String stationCode) {
+        rejectedStations.add("%s %s".formatted(networkCode, stationCode));
+    }
+
+    /**
+     * The first connection gets closed by the server after sending this many packets
+     */
+    public void setDisconnectAfter(int packets) {
+        this.disconnectAfter = packets;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                int connection = connections.incrementAndGet();
+                executor.submit(() -> handle(socket, connection));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket, int connection) {
+        try (socket) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream out = socket.getOutputStream();
+            Set<String> selected = new HashSet<>();
+            String station = null;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split(" ");
+                switch (parts[0]) {
+                    case "HELLO" -> write(out, "SeedLink v3.1 (FakeSeedlinkServer)\r\nGlobalQuake test\r\n");
+                    case "STATION" -> {
+                        station = "%s %s".formatted(parts[2], parts[1]);
+                        write(out, rejectedStations.contains(station) ? "ERROR\r\n" : "OK\r\n");
+                    }
+                    case "SELECT" -> write(out, "OK\r\n");
+                    case "DATA" -> {
+                        selected.add(station);
+                        write(out, "OK\r\n");
+                    }
+                    case "END" -> {
+                        stream(out, selected, connection == 1 ? disconnectAfter : -1);
+                        if (connection == 1 && disconnectAfter >= 0) {
+                            return;
+                        }
+                    }
+                    case "BYE" -> {
+                        return;
+                    }
+                    default -> write(out, "ERROR\r\n");
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void stream(OutputStream out, Set<String> selected, int limit) throws IOException {
+        int sequence = 0;
+        for (byte[] record : records) {
+            if (limit >= 0 && sequence >= limit) {
+                break;
+            }
+            if (!selected.contains("%s %s".formatted(MiniSeedHeader.networkCode(record), MiniSeedHeader.stationCode(record)))) {
+                continue;
+            }
+            // split the packets to exercise the framing
+            byte[] packet = new byte[SeedlinkConnection.PACKET_SIZE];
+            System.arraycopy("SL%06X".formatted(sequence++).getBytes(StandardCharsets.US_ASCII), 0, packet, 0, SeedlinkConnection.HEADER_SIZE);
+            System.arraycopy(record, 0, packet, SeedlinkConnection.HEADER_SIZE, record.length);
+            out.write(packet, 0, 100);
+            out.flush();
+            out.write(packet, 100, packet.length - 100);
+        }
+        out.flush();
+    }
+
+    private static void write(OutputStream out, String str) throws IOException {
+        out.write(str.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws Exception {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        executor.shutdownNow();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Fake seedlink server didn't terminate");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package globalquake.core.seedlink;
+
+import edu.sc.seis.seisFile.mseed.Blockette1000;
+import edu.sc.seis.seisFile.mseed.Btime;
+import edu.sc.seis.seisFile.mseed.DataHeader;
+import edu.sc.seis.seisFile.mseed.DataRecord;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MiniSeedHeaderTest {
+
+    @Test
+    public void testKeyFromRecord() throws Exception {
+        String[][] codes = {{"CZ", "KRUC"}, {"G", "ABCDE"}, {"AK", "D25K"}, {"IU", "ANMO"}, {"X", "Y"}};
+        Set<Long> keys = new HashSet<>();
+        for (String[] code : codes) {
+            byte[] bytes = createRecord(code[0], code[1], 0);
+            long key = MiniSeedHeader.stationKey(bytes);
+            assertEquals(MiniSeedHeader.stationKey(code[0], code[1]), key);
+            assertEquals(code[0], MiniSeedHeader.networkCode(bytes));
+            assertEquals(code[1], MiniSeedHeader.stationCode(bytes));
+            assertTrue(keys.add(key));
+        }
+    }
+
+    @Test
+    public void testKeyFromStrings() {
+        assertEquals(MiniSeedHeader.stationKey("CZ", "KRUC"), MiniSeedHeader.stationKey("CZ ", " KRUC "));
+        assertNotEquals(MiniSeedHeader.stationKey("C", "ZKRUC"), MiniSeedHeader.stationKey("CZ", "KRUC"));
+        assertEquals(MiniSeedHeader.INVALID_KEY, MiniSeedHeader.stationKey("CZE", "KRUC"));
+        assertEquals(MiniSeedHeader.INVALID_KEY, MiniSeedHeader.stationKey("CZ", "KRUCEK"));
+        assertEquals(MiniSeedHeader.INVALID_KEY, MiniSeedHeader.stationKey(new byte[20]));
+    }
+
+    @Test
+    public void testSampleCount() throws Exception {
+        assertEquals(0, MiniSeedHeader.sampleCount(createRecord("CZ", "KRUC", 0)));
+        assertEquals(412, MiniSeedHeader.sampleCount(createRecord("CZ", "KRUC", 412)));
+
+        // the same record written in little endian
+        byte[] bytes = createRecord("CZ", "KRUC", 412);
+        for (int offset : new int[]{20, 22, 30}) {
+            byte b = bytes[offset];
+            bytes[offset] = bytes[offset + 1];
+            bytes[offset + 1] = b;
+        }
+        assertEquals(412, MiniSeedHeader.sampleCount(bytes));
+        assertEquals(0, MiniSeedHeader.sampleCount(new byte[20]));
+    }
+
+    private static byte[] createRecord(String network, String station, int samples) throws Exception {
+        DataHeader header = new DataHeader(1, 'D', false);
+        header.setNetworkCode(network);
+        header.setStationIdentifier(station);
+        header.setChannelIdentifier("HHZ");
+        header.setLocationIdentifier("");
+        header.setStartBtime(new Btime(Instant.parse("2023-11-14T22:13:20Z")));
+        header.setNumSamples((short) samples);
+        header.setSampleRate(100.0);
+        DataRecord dataRecord = new DataRecord(header);
+        Blockette1000 blockette1000 = new Blockette1000();
+        blockette1000.setEncodingFormat((byte) 11);
+        blockette1000.setWordOrder((byte) 1);
+        blockette1000.setDataRecordLength((byte) 9);
+        dataRecord.addBlockette(blockette1000);
+        dataRecord.setData(new byte[0]);
+        return dataRecord.toByteArray();
+    }
+
+}
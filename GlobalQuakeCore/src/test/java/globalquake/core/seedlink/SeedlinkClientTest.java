@@ -0,0 +1,146 @@
+package globalquake.core.seedlink;
+
+import edu.sc.seis.seisFile.mseed.Blockette1000;
+import edu.sc.seis.seisFile.mseed.Btime;
+import edu.sc.seis.seisFile.mseed.DataHeader;
+import edu.sc.seis.seisFile.mseed.DataRecord;
+import globalquake.core.database.SeedlinkNetwork;
+import globalquake.core.database.SeedlinkStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class SeedlinkClientTest {
+
+    private static final String[] STATIONS = {"KRUC", "VRAC", "JAVC"};
+    private static final int RECORDS_PER_STATION = 5;
+
+    private FakeSeedlinkServer server;
+    private SeedlinkClient client;
+    private SeedlinkNetwork seedlinkNetwork;
+    private final Queue<byte[]> received = new ConcurrentLinkedQueue<>();
+
+    @Before
+    public void setup() throws Exception {
+        server = new FakeSeedlinkServer(createMiniSeedFile());
+        client = new SeedlinkClient(2, 100, 400, 5000);
+        client.start();
+        seedlinkNetwork = new SeedlinkNetwork("fake", "localhost", server.getPort());
+        seedlinkNetwork.selectedStations = 20;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        server.close();
+    }
+
+    @Test
+    public void testHandshakeAndStreaming() throws Exception {
+        client.connect(seedlinkNetwork, () -> List.of(selection("KRUC"), selection("JAVC")), received::add);
+
+        await(() -> received.size() == 2 * RECORDS_PER_STATION);
+        Thread.sleep(200);
+        assertEquals(2 * RECORDS_PER_STATION, received.size());
+        assertEquals(SeedlinkStatus.RUNNING, seedlinkNetwork.status);
+        assertEquals(2, seedlinkNetwork.connectedStations);
+
+        for (byte[] mseed : received) {
+            assertEquals(SeedlinkConnection.MSEED_SIZE, mseed.length);
+            assertEquals("CZ", MiniSeedHeader.networkCode(mseed));
+            assertNotEquals("VRAC", MiniSeedHeader.stationCode(mseed));
+        }
+    }
+
+    @Test
+    public void testRejectedStation() {
+        server.reject("CZ", "VRAC");
+        client.connect(seedlinkNetwork, () -> List.of(selection("VRAC"), selection("JAVC")), received::add);
+
+        await(() -> received.size() == RECORDS_PER_STATION);
+        assertEquals(1, seedlinkNetwork.connectedStations);
+        for (byte[] mseed : received) {
+            assertEquals("JAVC", MiniSeedHeader.stationCode(mseed));
+        }
+    }
+
+    @Test
+    public void testReconnect() {
+        server.setDisconnectAfter(3);
+        client.connect(seedlinkNetwork, () -> List.of(selection("KRUC")), received::add);
+
+        await(() -> received.size() == 3 + RECORDS_PER_STATION);
+        assertEquals(2, server.getConnections());
+        assertEquals(SeedlinkStatus.RUNNING, seedlinkNetwork.status);
+    }
+
+    @Test
+    public void testNoStations() throws Exception {
+        client.connect(seedlinkNetwork, List::of, received::add);
+
+        await(() -> server.getConnections() == 1 && seedlinkNetwork.status == SeedlinkStatus.DISCONNECTED);
+        Thread.sleep(500);
+        assertEquals(1, server.getConnections());
+        assertTrue(received.isEmpty());
+    }
+
+    private static StreamSelection selection(String station) {
+        return new StreamSelection("CZ", station, "", "HHZ");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static Path createMiniSeedFile() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Instant start = Instant.parse("2023-11-14T22:13:20Z");
+        for (int i = 0; i < RECORDS_PER_STATION; i++) {
+            for (String station : STATIONS) {
+                DataHeader header = new DataHeader(i + 1, 'D', false);
+                header.setNetworkCode("CZ");
+                header.setStationIdentifier(station);
+                header.setChannelIdentifier("HHZ");
+                header.setLocationIdentifier("");
+                header.setStartBtime(new Btime(start.plusSeconds(i)));
+                header.setNumSamples((short) 0);
+                header.setSampleRate(100.0);
+                DataRecord dataRecord = new DataRecord(header);
+                Blockette1000 blockette1000 = new Blockette1000();
+                blockette1000.setEncodingFormat((byte) 11);
+                blockette1000.setWordOrder((byte) 1);
+                blockette1000.setDataRecordLength((byte) 9);
+                dataRecord.addBlockette(blockette1000);
+                dataRecord.setData(new byte[0]);
+                out.write(dataRecord.toByteArray(), 0, SeedlinkConnection.MSEED_SIZE);
+            }
+        }
+
+        Path file = Files.createTempFile("gq-test", ".mseed");
+        file.toFile().deleteOnExit();
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+}
@@ -0,0 +1,120 @@
+package globalquake.core.station;
+
+import edu.sc.seis.seisFile.mseed.Btime;
+import edu.sc.seis.seisFile.mseed.DataHeader;
+import edu.sc.seis.seisFile.mseed.DataRecord;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class RecordReorderBufferTest {
+
+    private static final Instant START = Instant.parse("2023-11-14T22:13:20Z");
+
+    @Test
+    public void testInOrder() {
+        RecordReorderBuffer buffer = new RecordReorderBuffer();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buffer.add(createRecord(START.plusSeconds(i))));
+        }
+        assertEquals(100, buffer.size());
+        assertEquals(START.plusSeconds(99).toEpochMilli(), buffer.peekLast().startMillis());
+
+        for (int i = 0; i < 100; i++) {
+            RecordReorderBuffer.Entry entry = buffer.pollFirst();
+            assertEquals(START.plusSeconds(i).toEpochMilli(), entry.startMillis());
+            assertEquals(RecordReorderBuffer.toMicros(entry.record().getPredictedNextStartBtime()), entry.nextStartMicros());
+        }
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.pollFirst());
+    }
+
+    @Test
+    public void testMatchesTreeSet() {
+        Random random = new Random(0);
+        RecordReorderBuffer buffer = new RecordReorderBuffer();
+        TreeSet<Long> expected = new TreeSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            // mostly in order with some late and duplicate records
+            Instant time = START.plusMillis(i * 100L - random.nextInt(i % 7 == 0 ? 5000 : 50)).plusNanos(random.nextInt(10) * 100_000L);
+            assertEquals(expected.add(time.toEpochMilli()), buffer.add(createRecord(time)));
+
+            // consuming while adding makes the ring wrap around
+            if (random.nextInt(3) == 0) {
+                for (int j = random.nextInt(8); j > 0 && !expected.isEmpty(); j--) {
+                    assertEquals(expected.pollFirst().longValue(), buffer.pollFirst().startMillis());
+                }
+            }
+
+            assertEquals(expected.size(), buffer.size());
+            if (!expected.isEmpty()) {
+                assertEquals(expected.last().longValue(), buffer.peekLast().startMillis());
+            }
+        }
+
+        while (!expected.isEmpty()) {
+            assertEquals(expected.pollFirst().longValue(), buffer.pollFirst().startMillis());
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testCapacity() {
+        RecordReorderBuffer buffer = new RecordReorderBuffer(64);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buffer.add(createRecord(START.plusSeconds(i))));
+        }
+
+        // the oldest records made room for the newer ones
+        assertEquals(64, buffer.size());
+        assertEquals(36, buffer.getDropped());
+        assertEquals(START.plusSeconds(36).toEpochMilli(), buffer.peekFirst().startMillis());
+
+        // a late record older than everything buffered is the one dropped
+        assertFalse(buffer.add(createRecord(START.plusSeconds(10))));
+        assertEquals(37, buffer.getDropped());
+
+        // a late record in the middle still gets its place
+        assertTrue(buffer.add(createRecord(START.plusSeconds(50).plusMillis(500))));
+        assertEquals(38, buffer.getDropped());
+        assertEquals(START.plusSeconds(37).toEpochMilli(), buffer.peekFirst().startMillis());
+        assertEquals(64, buffer.size());
+
+        long previous = Long.MIN_VALUE;
+        while (!buffer.isEmpty()) {
+            long start = buffer.pollFirst().startMillis();
+            assertTrue(start > previous);
+            previous = start;
+        }
+    }
+
+    @Test
+    public void testTimeDifferences() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            Instant a = START.plusNanos(random.nextInt(30_000_000) * 1000L - 15_000_000_000L);
+            Instant b = START.plusNanos(random.nextInt(30_000_000) * 1000L - 15_000_000_000L);
+            long aMicros = RecordReorderBuffer.toMicros(new Btime(a));
+            long bMicros = RecordReorderBuffer.toMicros(new Btime(b));
+            Instant a2 = new Btime(a).toInstant();
+            Instant b2 = new Btime(b).toInstant();
+            assertEquals(ChronoUnit.MILLIS.between(a2, b2), GlobalStation.millisBetween(aMicros, bMicros));
+            assertEquals(a2.until(b2, ChronoUnit.SECONDS), GlobalStation.secondsBetween(aMicros, bMicros));
+        }
+    }
+
+    private static DataRecord createRecord(Instant start) {
+        DataHeader header = new DataHeader(1, 'D', false);
+        header.setStartBtime(new Btime(start));
+        header.setNumSamples((short) 100);
+        header.setSampleRate(100.0);
+        return new DataRecord(header);
+    }
+
+}
@@ -0,0 +1,35 @@
+package globalquake.core.station;
+
+import gqserver.api.packets.station.InputType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StationAnalysisSchedulerTest {
+
+    @Test
+    public void testStationQueuedOnce() {
+        StationAnalysisScheduler scheduler = new StationAnalysisScheduler(4);
+        AbstractStation station = new GlobalStation("", "", "", "", 5, 5, 5, 6, null, -1, InputType.UNKNOWN);
+
+        scheduler.schedule(station);
+        scheduler.schedule(station);
+        assertEquals(1, scheduler.getQueueDepth());
+        assertEquals(1, scheduler.getShard(station).getQueueDepth());
+
+        station.clearAnalysisQueued();
+        scheduler.schedule(station);
+        assertEquals(2, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void testShardAssignment() {
+        StationAnalysisScheduler scheduler = new StationAnalysisScheduler(3);
+        for (int id = 0; id < 10; id++) {
+            AbstractStation station = new GlobalStation("", "", "", "", 5, 5, 5, id, null, -1, InputType.UNKNOWN);
+            assertEquals(id % 3, scheduler.getShard(station).getIndex());
+            assertSame(scheduler.getShard(station), scheduler.getShard(station));
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package globalquake.core.station;
+
+import globalquake.utils.GeoUtils;
+import globalquake.utils.UnitVector;
+import gqserver.api.packets.station.InputType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class StationIndexTest {
+
+    private static List<AbstractStation> createStations(int count, long seed) {
+        Random random = new Random(seed);
+        List<AbstractStation> stations = new ArrayList<>();
+        // dense networks and sparse stations in between, like the real ones
+        double[][] centers = {{35, 139}, {37, -120}, {45, 10}, {-40, 175}, {60, -150}};
+        for (int i = 0; i < count; i++) {
+            double lat;
+            double lon;
+            if (random.nextInt(4) == 0) {
+                lat = Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1));
+                lon = random.nextDouble() * 360 - 180;
+            } else {
+                double[] center = centers[random.nextInt(centers.length)];
+                lat = Math.max(-90, Math.min(90, center[0] + random.nextGaussian() * 4));
+                lon = center[1] + random.nextGaussian() * 5;
+                lon = ((lon + 540) % 360) - 180;
+            }
+            stations.add(new GlobalStation("N" + i, "S" + i, "HHZ", "", lat, lon, 0, i, null, -1, InputType.UNKNOWN));
+        }
+        return stations;
+    }
+
+    @Test
+    public void testFindWithin() {
+        List<AbstractStation> stations = createStations(3000, 1);
+        StationIndex index = new StationIndex(stations);
+        Random random = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            UnitVector center = stations.get(random.nextInt(stations.size())).getUnitVector();
+            double radius = random.nextDouble() * 5000;
+
+            List<AbstractStation> found = index.findWithin(center, radius);
+            List<AbstractStation> expected = stations.stream()
+                    .filter(station -> station.getUnitVector().greatCircleDistance(center) <= radius).toList();
+
+            assertTrue(found.containsAll(expected));
+            for (AbstractStation station : found) {
+                assertTrue(station.getUnitVector().greatCircleDistance(center) <= radius + 2.0);
+            }
+
+            // same order as the indexed stations
+            for (int j = 1; j < found.size(); j++) {
+                assertTrue(found.get(j - 1).getId() < found.get(j).getId());
+            }
+        }
+
+        assertEquals(stations.size(), index.findWithin(stations.get(0).getUnitVector(), 30000).size());
+    }
+
+    @Test
+    public void testFindNearest() {
+        List<AbstractStation> stations = createStations(2000, 3);
+        StationIndex index = new StationIndex(stations);
+        Random random = new Random(4);
+        for (int i = 0; i < 200; i++) {
+            UnitVector center = UnitVector.of(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            int count = 1 + random.nextInt(20);
+
+            List<AbstractStation> found = index.findNearest(center, count);
+            List<AbstractStation> expected = stations.stream()
+                    .sorted(Comparator.comparingDouble(station -> station.getUnitVector().greatCircleDistance(center)))
+                    .limit(count).toList();
+
+            assertEquals(count, found.size());
+            for (int j = 0; j < count; j++) {
+                assertEquals(expected.get(j).getUnitVector().greatCircleDistance(center),
+                        found.get(j).getUnitVector().greatCircleDistance(center), 1e-6);
+            }
+        }
+
+        assertEquals(stations.size(), index.findNearest(UnitVector.of(0, 0), stations.size() + 10).size());
+        assertTrue(new StationIndex(List.of()).findNearest(UnitVector.of(0, 0), 5).isEmpty());
+    }
+
+    @Test
+    public void testIdentifier() {
+        List<AbstractStation> stations = createStations(500, 5);
+        AbstractStation duplicate = new GlobalStation("N7", "S7", "HHZ", "", 0, 0, 0, 500, null, -1, InputType.UNKNOWN);
+        stations.add(duplicate);
+
+        StationIndex index = new StationIndex(stations);
+        for (int i = 0; i < 500; i++) {
+            assertSame(stations.get(i), index.getByIdentifier(stations.get(i).getIdentifier()));
+        }
+
+        // the first one wins, like searching the list
+        assertSame(stations.get(7), index.getByIdentifier(duplicate.getIdentifier()));
+        assertNull(index.getByIdentifier("XX XX XX XX"));
+    }
+
+    @Test
+    public void testClosestStations() {
+        List<AbstractStation> stations = createStations(1500, 6);
+        GlobalStationManager.createListOfClosestStations(stations);
+
+        List<AbstractStation> reference = createStations(1500, 6);
+        createListOfClosestStationsBruteForce(reference);
+
+        for (int i = 0; i < stations.size(); i++) {
+            assertEquals(toIds(reference.get(i).getNearbyStations()), toIds(stations.get(i).getNearbyStations()));
+        }
+    }
+
+    private static Set<Integer> toIds(Collection<NearbyStationDistanceInfo> nearbyStations) {
+        Set<Integer> result = new HashSet<>();
+        for (NearbyStationDistanceInfo info : nearbyStations) {
+            result.add(info.station().getId());
+        }
+        return result;
+    }
+
+    /**
+     * The original implementation that compared every pair of stations
+     */
+    private static void createListOfClosestStationsBruteForce(Collection<AbstractStation> stations) {
+        int rays = 9;
+        for (AbstractStation station : stations) {
+            @SuppressWarnings("unchecked") Queue<NearbyStationDistanceInfo>[] queues = new Queue[rays];
+            for (int i = 0; i < rays; i++) {
+                queues[i] = new PriorityQueue<>(Comparator.comparing(NearbyStationDistanceInfo::dist));
+            }
+
+            for (AbstractStation station2 : stations) {
+                if (station2.getId() != station.getId()) {
+                    double dist = GeoUtils.greatCircleDistance(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
+                            station2.getLongitude());
+                    if (dist > 4000) {
+                        continue;
+                    }
+
+                    double ang = GeoUtils.calculateAngle(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
+                            station2.getLongitude());
+                    int ray = (int) ((ang / 360.0) * (rays - 1.0));
+
+                    NearbyStationDistanceInfo info = new NearbyStationDistanceInfo(station2, (float) dist, (float) ang);
+                    queues[ray].add(info);
+                    queues[(ray + 1) % rays].add(info);
+                    queues[(ray + rays - 1) % rays].add(info);
+                }
+            }
+
+            Set<NearbyStationDistanceInfo> result = new HashSet<>();
+            for (Queue<NearbyStationDistanceInfo> ray : queues) {
+                int count = 0;
+                while (count < 3 && !ray.isEmpty()) {
+                    NearbyStationDistanceInfo info = ray.remove();
+                    if (result.add(info)) {
+                        count++;
+                    }
+
+                    if (info.dist() > 1000) {
+                        break;
+                    }
+                }
+            }
+
+            station.setNearbyStations(result);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package globalquake.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Float16Test {
+
+    @Test
+    public void testRoundTripAllHalves() {
+        for (int bits = 0; bits <= 0xffff; bits++) {
+            short half = (short) bits;
+            float value = Float16.toFloat(half);
+            if (Float.isNaN(value)) {
+                assertTrue(Float.isNaN(Float16.toFloat(Float16.fromFloat(value))));
+                continue;
+            }
+            assertEquals("0x%04x".formatted(bits), half, Float16.fromFloat(value));
+        }
+    }
+
+    @Test
+    public void testSpecialValues() {
+        assertEquals(0.0f, Float16.toFloat(Float16.fromFloat(0.0f)), 0.0);
+        assertEquals(Float.floatToIntBits(-0.0f), Float.floatToIntBits(Float16.toFloat(Float16.fromFloat(-0.0f))));
+        assertEquals(Float16.MAX_VALUE, Float16.toFloat(Float16.fromFloat(Float16.MAX_VALUE)), 0.0);
+        assertEquals(Float.POSITIVE_INFINITY, Float16.toFloat(Float16.fromFloat(1e6f)), 0.0);
+        assertEquals(Float.NEGATIVE_INFINITY, Float16.toFloat(Float16.fromFloat(Float.NEGATIVE_INFINITY)), 0.0);
+        assertTrue(Float.isNaN(Float16.toFloat(Float16.fromFloat(Float.NaN))));
+        assertEquals(0x1p-24f, Float16.toFloat(Float16.fromFloat(0x1p-24f)), 0.0);
+        assertEquals(0.0f, Float16.toFloat(Float16.fromFloat(0x1p-26f)), 0.0);
+        assertEquals(1.0f, Float16.toFloat(Float16.fromFloat(1.0f)), 0.0);
+    }
+
+    @Test
+    public void testRoundsToNearest() {
+        Random r = new Random(0);
+        for (int i = 0; i < 1_000_000; i++) {
+            float value = (float) Math.scalb(r.nextDouble(), r.nextInt(40) - 26);
+            short half = Float16.fromFloat(value);
+            float rounded = Float16.toFloat(half);
+            double error = Math.abs((double) rounded - value);
+
+            if (half != 0) {
+                float below = Float16.toFloat((short) (half - 1));
+                assertTrue(error <= Math.abs((double) below - value));
+            }
+            float above = Float16.toFloat((short) (half + 1));
+            if (!Float.isInfinite(rounded) && half != (short) 0x7bff) {
+                assertTrue(error <= Math.abs((double) above - value));
+            }
+        }
+    }
+}
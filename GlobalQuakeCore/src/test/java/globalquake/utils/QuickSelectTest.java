@@ -0,0 +1,69 @@
+package globalquake.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuickSelectTest {
+
+    @Test
+    public void testMatchesSorting() {
+        Random random = new Random(0);
+        double[] special = {Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int round = 0; round < 2000; round++) {
+            int n = 1 + random.nextInt(round < 1000 ? 20 : 3000);
+            double[] values = new double[n + random.nextInt(5)];
+            List<Double> sorted = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                double value = switch (random.nextInt(10)) {
+                    case 0 -> special[random.nextInt(special.length)];
+                    case 1, 2 -> random.nextInt(5);
+                    default -> random.nextGaussian();
+                };
+                values[i] = value;
+                sorted.add(value);
+            }
+            Collections.sort(sorted);
+
+            int k = random.nextInt(n);
+            assertEquals(Double.doubleToRawLongBits(sorted.get(k)), Double.doubleToRawLongBits(QuickSelect.select(values.clone(), n, k)));
+
+            double percentile = random.nextDouble();
+            assertEquals(Double.doubleToRawLongBits(sorted.get((int) ((n - 1) * percentile))),
+                    Double.doubleToRawLongBits(QuickSelect.percentile(values, n, percentile)));
+        }
+    }
+
+    @Test
+    public void testLongsMatchSorting() {
+        Random random = new Random(1);
+        for (int round = 0; round < 2000; round++) {
+            int n = 1 + random.nextInt(round < 1000 ? 20 : 3000);
+            long[] values = new long[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = switch (random.nextInt(10)) {
+                    case 0 -> Long.MIN_VALUE;
+                    case 1, 2 -> random.nextInt(5);
+                    default -> random.nextLong();
+                };
+            }
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            int k = random.nextInt(n);
+            assertEquals(sorted[k], QuickSelect.select(values, n, k));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testEmpty() {
+        QuickSelect.select(new double[4], 0, 0);
+    }
+
+}
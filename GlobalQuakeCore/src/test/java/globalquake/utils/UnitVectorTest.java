@@ -0,0 +1,78 @@
+package globalquake.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UnitVectorTest {
+
+    @Test
+    public void testAsinTable() {
+        for (int i = 0; i <= 1_000_000; i++) {
+            double x = i / 1_000_000.0;
+            assertEquals(Math.asin(x), UnitVector.asin(x), 1e-11);
+        }
+        assertEquals(Math.PI / 2, UnitVector.asin(1.0 + 1e-15), 1e-15);
+    }
+
+    @Test
+    public void testMatchesGreatCircleDistance() {
+        Random r = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            double lat1 = r.nextDouble() * 180 - 90;
+            double lon1 = r.nextDouble() * 360 - 180;
+            double lat2 = r.nextDouble() * 180 - 90;
+            double lon2 = r.nextDouble() * 360 - 180;
+
+            double expected = GeoUtils.greatCircleDistance(lat1, lon1, lat2, lon2);
+            assertEquals(expected, UnitVector.of(lat1, lon1).greatCircleDistance(UnitVector.of(lat2, lon2)), 1e-6);
+        }
+
+        UnitVector point = UnitVector.of(35.5, 139.2);
+        assertEquals(0.0, point.greatCircleDistance(point), 0.0);
+        assertEquals(GeoUtils.greatCircleDistance(35.5, 139.2, 35.5, 139.2001),
+                point.greatCircleDistance(UnitVector.of(35.5, 139.2001)), 1e-9);
+        assertEquals(Math.PI * GeoUtils.EARTH_RADIUS, UnitVector.of(90, 0).greatCircleDistance(UnitVector.of(-90, 0)), 1e-6);
+    }
+
+    @Test
+    public void testMatchesGeologicalDistance() {
+        Random r = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            double lat1 = r.nextDouble() * 180 - 90;
+            double lon1 = r.nextDouble() * 360 - 180;
+            double lat2 = r.nextDouble() * 180 - 90;
+            double lon2 = r.nextDouble() * 360 - 180;
+            double depth = r.nextDouble() * 700;
+            double alt = r.nextDouble() * 4;
+
+            double expected = GeoUtils.geologicalDistance(lat1, lon1, -depth, lat2, lon2, alt);
+            assertEquals(expected, UnitVector.of(lat1, lon1).geologicalDistance(-depth, UnitVector.of(lat2, lon2), alt), 1e-6);
+        }
+    }
+
+    @Test
+    public void testMatchesMoveOnGlobe() {
+        Random r = new Random(2);
+        for (int i = 0; i < 100_000; i++) {
+            double lat = r.nextDouble() * 180 - 90;
+            double lon = r.nextDouble() * 360 - 180;
+            double dist = r.nextDouble() * 20000;
+            double ang = r.nextDouble() * 360;
+
+            double[] expected = GeoUtils.moveOnGlobe(lat, lon, dist, ang);
+            UnitVector moved = UnitVector.of(lat, lon).move(dist, ang);
+            assertEquals(0.0, GeoUtils.greatCircleDistance(expected[0], expected[1], moved.lat(), moved.lon()), 1e-6);
+        }
+    }
+
+    @Test
+    public void testMoveFromPole() {
+        UnitVector moved = UnitVector.of(90, 0).move(1000, 90);
+        double[] expected = GeoUtils.moveOnGlobe(90, 0, 1000, 90);
+        assertEquals(expected[0], moved.lat(), 1e-9);
+        assertEquals(expected[1], moved.lon(), 1e-9);
+    }
+}
@@ -0,0 +1,87 @@
+package globalquake.utils;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.Settings;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class VirtualThreadsTest {
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        GlobalQuake.prepare(Files.createTempDirectory("gq-test").toFile(), null);
+    }
+
+    @Test
+    public void testExecutorRunsTasks() throws Exception {
+        Boolean previous = Settings.virtualThreads;
+        try {
+            for (boolean virtual : new boolean[]{false, true}) {
+                Settings.virtualThreads = virtual;
+                ExecutorService executor = VirtualThreads.newCachedThreadPool("Test");
+                String name = executor.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+                assertTrue(name.startsWith("Test"));
+                assertEquals(virtual && VirtualThreads.isSupported(), isVirtual(executor));
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            Settings.virtualThreads = previous;
+        }
+    }
+
+    @Test
+    public void testSingleThreadExecutorIsSerial() throws Exception {
+        Boolean previous = Settings.virtualThreads;
+        try {
+            for (boolean virtual : new boolean[]{false, true}) {
+                Settings.virtualThreads = virtual;
+                ExecutorService executor = VirtualThreads.newSingleThreadExecutor("Test");
+                AtomicInteger running = new AtomicInteger();
+                AtomicBoolean overlapped = new AtomicBoolean();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    futures.add(executor.submit(() -> {
+                        if (running.incrementAndGet() > 1) {
+                            overlapped.set(true);
+                        }
+                        Thread.sleep(2);
+                        running.decrementAndGet();
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                assertFalse(overlapped.get());
+                assertEquals(virtual && VirtualThreads.isSupported(), isVirtual(executor));
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            Settings.virtualThreads = previous;
+        }
+    }
+
+    private static boolean isVirtual(ExecutorService executor) throws Exception {
+        return executor.submit(() -> {
+            try {
+                return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+}
@@ -31,6 +31,8 @@ public class FdsnwsEventsHTTPServer {
 
         server.createContext("/fdsnws/event/1/query", ev1handler);
         server.createContext("/fdsnws/event/1/application.wadl", ev1handler);
+
+        server.createContext("/metrics", new MetricsHandler());
     }
 
     public static FdsnwsEventsHTTPServer getInstance() {
@@ -5,6 +5,7 @@ import globalquake.core.Settings;
 import globalquake.core.database.StationDatabaseManager;
 import globalquake.core.database.StationSource;
 import globalquake.core.earthquake.GQHypocs;
+import globalquake.core.earthquake.HypocenterSearchBackend;
 import globalquake.core.exception.ApplicationErrorHandler;
 import globalquake.core.exception.FatalIOException;
 import globalquake.core.training.EarthquakeAnalysisTraining;
@@ -156,7 +157,7 @@ public class Main {
         updateProgressBar("Calibrating...", (int) ((phase++ / PHASES) * 100.0));
         if(Settings.recalibrateOnLaunch) {
             EarthquakeAnalysisTraining.calibrateResolution(Main::updateProgressBar, null, true);
-            if(GQHypocs.isCudaLoaded()) {
+            if(HypocenterSearchBackend.isProfileSearchActive()) {
                 EarthquakeAnalysisTraining.calibrateResolution(Main::updateProgressBar, null, false);
             }
         }
@@ -14,6 +14,8 @@ import globalquake.core.earthquake.interval.PolygonConfidenceInterval;
 import globalquake.core.earthquake.quality.Quality;
 import globalquake.core.events.GlobalQuakeEventListener;
 import globalquake.core.events.specific.*;
+import globalquake.core.metrics.LatencyHistogram;
+import globalquake.core.metrics.Metrics;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.station.GlobalStation;
 import gqserver.api.Packet;
@@ -50,6 +52,9 @@ public class DataService extends GlobalQuakeEventListener {
     private static final int STATIONS_INFO_PACKET_MAX_SIZE = 64;
     private static final int DATA_REQUESTS_MAX_COUNT = 16;
 
+    private static final LatencyHistogram BROADCAST_TIME = Metrics.histogram("gq_client_broadcast_seconds",
+            "Time to send a broadcast packet to one client");
+
     private final Queue<EarthquakeInfo> currentEarthquakes;
 
     private final Map<AbstractStation, StationStatus> stationIntensities = new HashMap<>();
@@ -183,14 +188,24 @@ public class DataService extends GlobalQuakeEventListener {
 
     @Override
     public void onNewData(SeedlinkDataEvent seedlinkDataEvent) {
-        GlobalStation station = seedlinkDataEvent.getStation();
-        DataRecord record = seedlinkDataEvent.getDataRecord();
+        onNewDataBatch(List.of(seedlinkDataEvent));
+    }
+
+    @Override
+    public void onNewDataBatch(List<SeedlinkDataEvent> events) {
         synchronized (stationDataQueueLock) {
-            stationDataQueueMap.putIfAbsent(station,
-                    new PriorityQueue<>(getDataRecordComparator()));
-            stationDataQueueMap.get(station).add(record);
+            for (SeedlinkDataEvent event : events) {
+                stationDataQueueMap.computeIfAbsent(event.getStation(),
+                        key -> new PriorityQueue<>(getDataRecordComparator())).add(event.getDataRecord());
+            }
+        }
+
+        for (SeedlinkDataEvent event : events) {
+            sendToClients(event.getStation(), event.getDataRecord());
         }
+    }
 
+    private void sendToClients(GlobalStation station, DataRecord record) {
         for(var kv : clientDataRequestMap.entrySet()){
             for(DataRequest dr : kv.getValue()){
                 if(dr.getStation().getId() == station.getId()){
@@ -331,8 +346,10 @@ public class DataService extends GlobalQuakeEventListener {
 
     private void broadcast(List<ServerClient> clients, Packet packet) {
         clients.forEach(client -> {
+            long start = System.nanoTime();
             try {
                 client.sendPacket(packet);
+                BROADCAST_TIME.record(System.nanoTime() - start);
             } catch(SocketException | SocketTimeoutException e){
                 Logger.tag("Server").trace(e);
             }catch (Exception e) {
@@ -3,6 +3,10 @@ package gqserver.server;
 import globalquake.core.GlobalQuake;
 import globalquake.core.Settings;
 import globalquake.core.exception.RuntimeApplicationException;
+import globalquake.core.earthquake.HypocenterScheduler;
+import globalquake.core.metrics.Metrics;
+import globalquake.core.station.StationAnalysisScheduler;
+import globalquake.utils.VirtualThreads;
 import globalquake.utils.monitorable.MonitorableCopyOnWriteArrayList;
 import gqserver.api.GQApi;
 import gqserver.api.Packet;
@@ -60,13 +64,16 @@ public class GQServerSocket {
         status = SocketStatus.IDLE;
         clients = new MonitorableCopyOnWriteArrayList<>();
         dataService = new DataService();
+        Metrics.gauge("gq_clients", "Number of connected clients", clients::size);
+        Metrics.gauge("gq_archived_earthquakes", "Number of archived earthquakes",
+                () -> GlobalQuake.instance.getArchive().getArchivedQuakes().size());
     }
 
     public void run(String ip, int port) {
         Logger.tag("Server").info("Creating server...");
         ExecutorService acceptService = Executors.newSingleThreadExecutor();
-        handshakeService = Executors.newCachedThreadPool();
-        readerService = Executors.newCachedThreadPool();
+        handshakeService = VirtualThreads.newCachedThreadPool("Client Handshake");
+        readerService = VirtualThreads.newCachedThreadPool("Client Reader");
         clientsWatchdog = Executors.newSingleThreadScheduledExecutor();
         clientsLimitWatchdog = Executors.newSingleThreadScheduledExecutor();
         statusReportingService = Executors.newSingleThreadScheduledExecutor();
@@ -108,6 +115,20 @@ public class GQServerSocket {
                 .formatted(clients.size(), Settings.maxClients, usedMem / StatusTab.GB, maxMem / StatusTab.GB,
                         summary[2], summary[3], summary[1], summary[0]));
 
+        StationAnalysisScheduler analysisScheduler = GlobalQuakeServer.instance.getGlobalQuakeRuntime().getAnalysisScheduler();
+        StringBuilder shardsStatus = new StringBuilder();
+        for (StationAnalysisScheduler.Shard shard : analysisScheduler.getShards()) {
+            shardsStatus.append(" #%d: %d queued, %.1f ms avg, %.1f ms max;".formatted(
+                    shard.getIndex(), shard.getQueueDepth(), shard.getAverageLatencyMs(), shard.resetMaxLatencyMs()));
+        }
+        Logger.tag("ServerStatus").info("Station analysis: %d queued,%s".formatted(analysisScheduler.getQueueDepth(), shardsStatus));
+
+        HypocenterScheduler hypocenterScheduler = GlobalQuakeServer.instance.getGlobalQuakeRuntime().getHypocenterScheduler();
+        Logger.tag("ServerStatus").info("Hypocenter search: %d queued, %d done, %d superseded, wait %.1f ms avg %.1f ms max, compute %.1f ms avg %.1f ms max"
+                .formatted(hypocenterScheduler.getQueueDepth(), hypocenterScheduler.getCompletedCount(), hypocenterScheduler.getCancelledCount(),
+                        hypocenterScheduler.getAverageQueueWaitMs(), hypocenterScheduler.resetMaxQueueWaitMs(),
+                        hypocenterScheduler.getAverageComputeMs(), hypocenterScheduler.resetMaxComputeMs()));
+
         if (stats != null) {
             Logger.tag("ServerStatus").info(
                     "accepted: %d, wrongVersion: %d, wrongPacket: %d, serverFull: %d, success: %d, error: %d, ipRejects: %d"
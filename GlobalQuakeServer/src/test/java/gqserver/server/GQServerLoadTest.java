@@ -0,0 +1,99 @@
+package gqserver.server;
+
+import globalquake.utils.VirtualThreads;
+import gqserver.api.GQApi;
+import gqserver.api.data.system.ServerClientConfig;
+import gqserver.api.packets.system.HandshakePacket;
+import gqserver.api.packets.system.HandshakeSuccessfulPacket;
+import gqserver.api.packets.system.HeartbeatPacket;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens thousands of fake clients against a locally running server, e.g. one started with virtualThreads=true
+ * and a raised maxClients. Each client binds to its own 127.x.y.z address because the server only accepts
+ * a few connections per address.
+ * <p>
+ * Arguments: [port] [clients] [seconds]
+ */
+@SuppressWarnings("all")
+public class GQServerLoadTest {
+
+    private static final AtomicInteger connected = new AtomicInteger();
+    private static final AtomicInteger rejected = new AtomicInteger();
+    private static final AtomicInteger failed = new AtomicInteger();
+    private static final AtomicLong handshakeNanos = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 38000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 120;
+
+        ExecutorService pool = VirtualThreads.newVirtualThreadPerTaskExecutor("Fake Client");
+        if (pool == null) {
+            pool = Executors.newCachedThreadPool();
+        }
+
+        long end = System.currentTimeMillis() + seconds * 1000L;
+        for (int i = 0; i < clients; i++) {
+            String localAddress = "127.0.%d.%d".formatted(1 + i / 250, 1 + i % 250);
+            pool.submit(() -> runClient(localAddress, port, end));
+        }
+
+        while (System.currentTimeMillis() < end) {
+            Thread.sleep(5000);
+            printStatus(clients);
+        }
+
+        pool.shutdownNow();
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+        printStatus(clients);
+    }
+
+    private static void printStatus(int clients) {
+        int count = connected.get();
+        System.err.printf("Clients: %d / %d connected, %d rejected, %d failed, avg handshake %.1f ms, client threads: %d%n",
+                count, clients, rejected.get(), failed.get(), count == 0 ? 0.0 : handshakeNanos.get() / (count * 1e6),
+                ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private static void runClient(String localAddress, int port, long end) {
+        try (Socket socket = new Socket()) {
+            socket.bind(new InetSocketAddress(localAddress, 0));
+            long start = System.nanoTime();
+            socket.connect(new InetSocketAddress("127.0.0.1", port), 10_000);
+
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            out.writeObject(new HandshakePacket(GQApi.COMPATIBILITY_VERSION, new ServerClientConfig(false, false)));
+            out.flush();
+
+            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+            if (!(in.readObject() instanceof HandshakeSuccessfulPacket)) {
+                rejected.incrementAndGet();
+                return;
+            }
+
+            handshakeNanos.addAndGet(System.nanoTime() - start);
+            connected.incrementAndGet();
+
+            while (System.currentTimeMillis() < end) {
+                Thread.sleep(10_000);
+                out.writeObject(new HeartbeatPacket());
+                out.flush();
+            }
+        } catch (InterruptedException ignored) {
+        } catch (Exception e) {
+            failed.incrementAndGet();
+        }
+    }
+
+}